@@ -0,0 +1,180 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.benchmark;
+
+import de.felix.astar.algorithm.BitGrid;
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.Pathfinder;
+
+import java.util.Random;
+
+/**
+ * The MapType enum contains the maps the {@link PathfinderBenchmark} searches.
+ * Every map is square, generated from a fixed seed and searched from the top left to the bottom right corner.
+ *
+ * @author Felix
+ */
+public enum MapType {
+
+    /**
+     * A grid without barriers.
+     */
+    OPEN {
+        @Override
+        void fill(BitGrid grid, Random random) {
+        }
+    },
+
+    /**
+     * A perfect maze with corridors of width one, so the only path is long and winding.
+     */
+    MAZE {
+        @Override
+        void fill(BitGrid grid, Random random) {
+            int size = grid.getRows();
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    grid.setBarrier(x, y, true);
+                }
+            }
+
+            //Rooms are the cells with even coordinates, a depth first search removes the walls between them
+            int rooms = (size + 1) / 2;
+            boolean[] visited = new boolean[rooms * rooms];
+            int[] stack = new int[rooms * rooms];
+            int[] directions = new int[4];
+            int top = 0;
+            stack[top++] = 0;
+            visited[0] = true;
+            grid.setBarrier(0, 0, false);
+            while (top > 0) {
+                int room = stack[top - 1];
+                int roomX = room / rooms;
+                int roomY = room % rooms;
+
+                int count = 0;
+                if (roomX > 0 && !visited[room - rooms]) directions[count++] = room - rooms;
+                if (roomX < rooms - 1 && !visited[room + rooms]) directions[count++] = room + rooms;
+                if (roomY > 0 && !visited[room - 1]) directions[count++] = room - 1;
+                if (roomY < rooms - 1 && !visited[room + 1]) directions[count++] = room + 1;
+                if (count == 0) {
+                    top--;
+                    continue;
+                }
+
+                int next = directions[random.nextInt(count)];
+                int nextX = next / rooms;
+                int nextY = next % rooms;
+                grid.setBarrier(roomX + nextX, roomY + nextY, false);
+                grid.setBarrier(nextX * 2, nextY * 2, false);
+                visited[next] = true;
+                stack[top++] = next;
+            }
+        }
+
+        @Override
+        int getEnd(int size) {
+            //The last room, an even size leaves a wall at the border
+            return (size - 1) / 2 * 2;
+        }
+    },
+
+    /**
+     * A grid where every cell except the corners is a barrier with a probability of 20 percent.
+     */
+    RANDOM {
+        @Override
+        void fill(BitGrid grid, Random random) {
+            int size = grid.getRows();
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    grid.setBarrier(x, y, random.nextInt(5) == 0);
+                }
+            }
+
+            //Keep the corners open, so they aren't enclosed without diagonal movement
+            for (int x = 0; x < 2; x++) {
+                for (int y = 0; y < 2; y++) {
+                    grid.setBarrier(x, y, false);
+                    grid.setBarrier(size - 1 - x, size - 1 - y, false);
+                }
+            }
+        }
+    },
+
+    /**
+     * An open grid divided by a wall, so no path exists.
+     * The query is answered by the connected components of the grid without a search.
+     */
+    NO_PATH {
+        @Override
+        void fill(BitGrid grid, Random random) {
+            int size = grid.getRows();
+            for (int y = 0; y < size; y++) {
+                grid.setBarrier(size / 2, y, true);
+            }
+        }
+    };
+
+    //Constants
+
+    /**
+     * The seed of the random maps, so every run searches the same maps.
+     */
+    private static final long SEED = 42;
+
+    //Methods
+
+    /**
+     * Places the barriers of the map.
+     *
+     * @param grid   the empty grid.
+     * @param random the random number generator to use.
+     */
+    abstract void fill(BitGrid grid, Random random);
+
+    /**
+     * Gives both coordinates of the end node.
+     *
+     * @param size the size of the map.
+     * @return the coordinate of the end node.
+     */
+    int getEnd(int size) {
+        return size - 1;
+    }
+
+    /**
+     * Creates a pathfinder for this map with the start and end node set.
+     *
+     * @param size       the amount of rows and columns.
+     * @param diagonal   whether or not diagonal movement is allowed.
+     * @param engineMode the engine mode of the pathfinder.
+     * @return the pathfinder.
+     */
+    public Pathfinder createPathfinder(int size, boolean diagonal, EngineMode engineMode) {
+        BitGrid grid = new BitGrid(size, size);
+        fill(grid, new Random(SEED));
+        int end = getEnd(size);
+        grid.setBarrier(0, 0, false);
+        grid.setBarrier(end, end, false);
+
+        Pathfinder pathfinder;
+        if (engineMode == EngineMode.PRIMITIVE) {
+            pathfinder = new Pathfinder(grid, diagonal);
+        } else {
+            pathfinder = new Pathfinder(size, size, diagonal, engineMode);
+            for (int x = 0; x < size; x++) {
+                for (int y = grid.nextBarrier(x, 0); y < size; y = grid.nextBarrier(x, y + 1)) {
+                    pathfinder.setBarrier(x, y);
+                }
+            }
+        }
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(end, end);
+        return pathfinder;
+    }
+}
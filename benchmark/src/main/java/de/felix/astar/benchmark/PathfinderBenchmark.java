@@ -0,0 +1,146 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.benchmark;
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.OpenListType;
+import de.felix.astar.algorithm.Pathfinder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The PathfinderBenchmark class measures the time of {@link Pathfinder#findPath()} for every {@link MapType}, size, diagonal mode
+ * and {@link OpenListType}.
+ * Besides the time per query the nodes expanded by every query and the length of the path are reported,
+ * the allocation rate is reported by the gc profiler added by the {@link BenchmarkRunner}.
+ * <p>
+ * The path cache is disabled, so every invocation searches the same query again.
+ *
+ * @author Felix
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PathfinderBenchmark {
+
+    //Attributes
+
+    /**
+     * The amount of rows and columns of the map.
+     */
+    @Param({"64", "256", "1024", "4096"})
+    public int size;
+
+    /**
+     * The map to search.
+     */
+    @Param({"OPEN", "MAZE", "RANDOM", "NO_PATH"})
+    public MapType mapType;
+
+    /**
+     * Whether or not diagonal movement is allowed.
+     */
+    @Param({"true", "false"})
+    public boolean diagonal;
+
+    /**
+     * The engine mode of the pathfinder.
+     */
+    @Param({"PRIMITIVE", "OBJECT"})
+    public EngineMode engineMode;
+
+    /**
+     * The open list of the pathfinder, the priority queue is only measured when selected with {@code -p openListType=PRIORITY_QUEUE}.
+     */
+    @Param({"BINARY_HEAP", "RADIX_HEAP"})
+    public OpenListType openListType;
+
+    /**
+     * The pathfinder with the start and end node set.
+     */
+    private Pathfinder pathfinder;
+
+    //Methods
+
+    /**
+     * Creates the map once per trial.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        pathfinder = mapType.createPathfinder(size, diagonal, engineMode);
+        pathfinder.setOpenListType(openListType);
+    }
+
+    /**
+     * Searches the path from the top left to the bottom right corner.
+     *
+     * @param counters the counters to add the nodes expanded by the query to.
+     * @return the path, returned so it isn't eliminated.
+     */
+    @Benchmark
+    public List<Node> findPath(QueryCounters counters) {
+        List<Node> path = pathfinder.findPath();
+        counters.queries++;
+        counters.expandedNodes += pathfinder.getExpandedNodes();
+        counters.pathLength += path == null ? 0 : path.size();
+        return path;
+    }
+
+    /**
+     * The QueryCounters class contains the secondary results reported by JMH.
+     * JMH sums event counters over all queries of the measurement, so the values per query are the counters divided by {@code queries}.
+     *
+     * @author Felix
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class QueryCounters {
+
+        /**
+         * The amount of answered queries.
+         */
+        public long queries;
+
+        /**
+         * The amount of nodes expanded by all queries.
+         */
+        public long expandedNodes;
+
+        /**
+         * The amount of nodes of all found paths.
+         */
+        public long pathLength;
+
+        /**
+         * Starts counting every iteration at 0, so warmup queries aren't counted.
+         */
+        @Setup(Level.Iteration)
+        public void clear() {
+            queries = 0;
+            expandedNodes = 0;
+            pathLength = 0;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The AStarSearch class contains the A* algorithm working on cell indices.
+ * It only reads from the {@link GridMap} and writes into the given {@link SearchContext},
+ * so multiple threads can search the same map at once as long as every thread uses its own context.
+ *
+ * @author Felix
+ */
+final class AStarSearch {
+
+    private AStarSearch() {
+    }
+
+    /**
+     * Tries to find the shortest path between the start and the end cell.
+     * If a path was found, it can be retraced by following the parents inside the context from the end cell.
+     *
+     * @param map      the map to search.
+     * @param context  the context to store the state of the search in. Reset before the search starts.
+     * @param start    the index of the start cell.
+     * @param end      the index of the end cell.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     * @param observer the observer to inform about changes, may be null.
+     * @return true, if a path was found, otherwise false.
+     */
+    static boolean search(GridMap map, SearchContext context, int start, int end, boolean diagonal, SearchObserver observer) {
+        return search(map, context, start, end, diagonal, null, observer);
+    }
+
+    /**
+     * Tries to find the shortest path between the start and the end cell, using the landmarks as additional heuristic.
+     * If the landmarks store rounded costs, their heuristic isn't consistent, so closed cells are reopened when a cheaper way is found.
+     *
+     * @param map       the map to search.
+     * @param context   the context to store the state of the search in. Reset before the search starts.
+     * @param start     the index of the start cell.
+     * @param end       the index of the end cell.
+     * @param diagonal  whether or not the algorithm is allowed to do diagonal steps.
+     * @param landmarks the landmarks of the map, may be null to only use the octile distance.
+     * @param observer  the observer to inform about changes, may be null.
+     * @return true, if a path was found, otherwise false.
+     */
+    static boolean search(GridMap map, SearchContext context, int start, int end, boolean diagonal, LandmarkTable landmarks, SearchObserver observer) {
+        int columns = map.getColumns();
+        int endX = end / columns;
+        int endY = end % columns;
+
+        //The heuristic is scaled with the cheapest multiplier, so it never overestimates
+        TerrainCosts costs = TerrainCosts.of(map);
+        int scale = costs != null ? costs.getMinMultiplier() : 1;
+
+        //Forget the last search, priorities might drop if closed cells are reopened
+        context.reset();
+        boolean reopen = landmarks != null && !landmarks.isConsistent();
+        OpenList open = reopen ? context.getGeneralOpenList() : context.getOpenList();
+
+        //Add the start node to the open set.
+        int startH = Pathfinder.distance(start / columns, start % columns, endX, endY) * scale;
+        if (landmarks != null) {
+            startH = Math.max(startH, landmarks.heuristic(start, end));
+        }
+        context.reach(start, 0, SearchContext.NO_PARENT);
+        open.add(start, startH);
+        if (observer != null) {
+            observer.onReach(start, 0, startH, SearchContext.NO_PARENT);
+        }
+
+        //Break when the open set is empty.
+        while (!open.isEmpty()) {
+
+            //Find lowest f cost cell and close it
+            int current = open.poll();
+            context.close(current);
+
+            //Check if we've reached the end.
+            if (current == end) {
+                return true;
+            }
+
+            if (observer != null) {
+                observer.onClose(current);
+            }
+
+            int currentX = current / columns;
+            int currentY = current % columns;
+            int currentG = context.getgCost(current);
+            int barriers = map.getNeighbourBarriers(currentX, currentY);
+
+            //Go through all neighbors from the top left to the bottom right neighbour.
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (x == 0 && y == 0) continue;
+                    if (!diagonal && x != 0 && y != 0) continue;
+                    int xCoordinate = currentX + x;
+                    int yCoordinate = currentY + y;
+
+                    //Skip if the cell is outside of the grid, a barrier or already closed and can't be reopened.
+                    int neighbour = xCoordinate * columns + yCoordinate;
+                    if ((barriers & 1 << (x + 1) * 3 + y + 1) != 0 || context.isClosed(neighbour) && !reopen) {
+                        continue;
+                    }
+
+                    //Go on if the new path to the neighbour is cheaper, unreached cells have the highest possible g cost
+                    int stepCost = x != 0 && y != 0 ? Pathfinder.DIAGONAL_COST : Pathfinder.HORIZONTAL_COST;
+                    int newGCost = currentG + (costs != null ? costs.getStepCost(stepCost, current, neighbour) : stepCost);
+                    if (newGCost >= context.getgCost(neighbour)) {
+                        continue;
+                    }
+
+                    //Stores the cost and parent and marks the cell as open
+                    context.reach(neighbour, newGCost, current);
+                    int hCost = Pathfinder.distance(xCoordinate, yCoordinate, endX, endY) * scale;
+                    if (landmarks != null) {
+                        hCost = Math.max(hCost, landmarks.heuristic(neighbour, end));
+                    }
+                    if (open.contains(neighbour)) {
+                        open.decreaseKey(neighbour, newGCost + hCost);
+                    } else {
+                        open.add(neighbour, newGCost + hCost);
+                    }
+
+                    if (observer != null) {
+                        observer.onReach(neighbour, newGCost, hCost, current);
+                    }
+                }
+            }
+        }
+
+        //No path found
+        return false;
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * The AnytimeSearch class contains weighted A* and Anytime Repairing A* (ARA*).
+ * <p>
+ * Weighted A* orders the open cells by {@code g + w * h}. It expands far less cells than A* on most maps,
+ * but the found path costs up to w times as much as the optimal path.
+ * <p>
+ * ARA* runs weighted A* with a decreasing weight and reuses the costs of every previous iteration.
+ * Within an iteration every cell is expanded at most once. Closed cells that get cheaper are collected as inconsistent
+ * and expanded again by the next iteration. The first path is found as fast as by weighted A*, every further iteration
+ * only repairs the cells that changed. After an iteration the path costs at most the minimum of the weight and
+ * {@code g(end) / min(g + h)} over all open and inconsistent cells times the optimal costs, as no path can be cheaper
+ * than the cheapest of these cells. The search stops when this bound reaches 1 or the budget of the context runs out.
+ * If the {@link CancellationToken} aborts the search after the first path was found, that path is returned with its bound.
+ *
+ * @author Felix
+ */
+final class AnytimeSearch {
+
+    //Constants
+
+    /**
+     * The amount the weight is lowered by between two iterations.
+     */
+    static final double WEIGHT_STEP = 0.5;
+
+    /**
+     * The amount of expansions between two reads of the clock.
+     */
+    private static final int CLOCK_INTERVAL = 64;
+
+    //Attributes
+
+    /**
+     * The map to search.
+     */
+    private final GridMap map;
+
+    /**
+     * The context to store the state of the search in.
+     */
+    private final SearchContext context;
+
+    /**
+     * The open cells ordered by their weighted f-cost.
+     */
+    private final OpenList open;
+
+    /**
+     * The index of the end cell.
+     */
+    private final int end;
+
+    /**
+     * Whether or not the algorithm is allowed to do diagonal steps.
+     */
+    private final boolean diagonal;
+
+    /**
+     * The terrain costs of the map, null if every step costs the HORIZONTAL_COST or DIAGONAL_COST.
+     */
+    private final TerrainCosts costs;
+
+    /**
+     * The factor of the heuristic, i.e. the lowest multiplier of the terrain costs.
+     */
+    private final int scale;
+
+    /**
+     * The observer to inform about changes, may be null.
+     */
+    private final SearchObserver observer;
+
+    /**
+     * The cells closed by the current iteration.
+     */
+    private int[] closed = new int[256];
+
+    /**
+     * The amount of cells closed by the current iteration.
+     */
+    private int closedSize;
+
+    /**
+     * The closed cells that got cheaper during the current iteration, a cell might be contained multiple times.
+     */
+    private int[] inconsistent = new int[64];
+
+    /**
+     * The amount of inconsistent cells.
+     */
+    private int inconsistentSize;
+
+    /**
+     * The amount of cells expanded by all iterations.
+     */
+    private long expansions;
+
+    /**
+     * The proven factor by which the path costs at most more than the optimal path.
+     */
+    private double bound;
+
+    //Methods
+
+    /**
+     * Creates a new search.
+     *
+     * @param map      the map to search.
+     * @param context  the context to store the state of the search in.
+     * @param end      the index of the end cell.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     * @param observer the observer to inform about changes, may be null.
+     */
+    private AnytimeSearch(GridMap map, SearchContext context, int end, boolean diagonal, SearchObserver observer) {
+        this.map = map;
+        this.context = context;
+        this.open = context.getGeneralOpenList();
+        this.end = end;
+        this.diagonal = diagonal;
+        this.costs = TerrainCosts.of(map);
+        this.scale = costs != null ? costs.getMinMultiplier() : 1;
+        this.observer = observer;
+    }
+
+    /**
+     * Tries to find a path between the start and the end cell, using the heuristic weight and the budget of the context.
+     * Afterwards the context contains the {@link SearchContext#getSuboptimalityBound() proven bound} of the path.
+     *
+     * @param map      the map to search.
+     * @param context  the context to store the state of the search in. Reset before the search starts.
+     * @param start    the index of the start cell.
+     * @param end      the index of the end cell.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     * @param anytime  true to improve the path with ARA* until the budget runs out, false to return the first path of weighted A*.
+     * @param observer the observer to inform about changes, may be null.
+     * @return true, if a path was found, otherwise false.
+     */
+    static boolean search(GridMap map, SearchContext context, int start, int end, boolean diagonal, boolean anytime, SearchObserver observer) {
+        return new AnytimeSearch(map, context, end, diagonal, observer).run(start, anytime);
+    }
+
+    /**
+     * Runs the iterations of the search.
+     *
+     * @param start   the index of the start cell.
+     * @param anytime whether or not the path is improved after the first iteration.
+     * @return true, if a path was found, otherwise false.
+     */
+    private boolean run(int start, boolean anytime) {
+        long startTime = System.nanoTime();
+        double weight = context.getHeuristicWeight();
+
+        //Forget the last search
+        context.reset();
+        int startH = heuristic(start);
+        context.reach(start, 0, SearchContext.NO_PARENT);
+        open.add(start, key(0, startH, weight));
+        if (observer != null) {
+            observer.onReach(start, 0, startH, SearchContext.NO_PARENT);
+        }
+
+        //The first path is always searched completely
+        improvePath(weight, SearchContext.UNLIMITED, SearchContext.UNLIMITED, startTime);
+        if (!context.isReached(end)) {
+            return false;
+        }
+
+        bound = weight;
+        if (anytime) {
+            try {
+                improveBound(weight, startTime);
+            } catch (SearchAbortedException e) {
+                //The path of the last iteration is kept, as the proven bound is still valid for it
+            }
+        }
+
+        context.setSuboptimalityBound(bound);
+        correctPathCosts(start);
+        return true;
+    }
+
+    /**
+     * Runs further iterations with a decreasing weight until the path is optimal or the budget runs out.
+     *
+     * @param weight    the weight of the first iteration.
+     * @param startTime the time the search started at.
+     */
+    private void improveBound(double weight, long startTime) {
+        long expansionBudget = context.getExpansionBudget();
+        long timeBudget = context.getTimeBudgetNanos();
+        while (bound > 1) {
+            //Every open and inconsistent cell is a lower bound of the optimal costs
+            int lowerBound = beginIteration();
+            int endG = context.getgCost(end);
+            if (lowerBound >= endG) {
+                bound = 1;
+            } else if (lowerBound > 0) {
+                bound = Math.min(bound, (double) endG / lowerBound);
+            }
+            if (bound <= 1 || expansions >= expansionBudget || System.nanoTime() - startTime >= timeBudget) {
+                return;
+            }
+
+            weight = Math.max(1, Math.min(weight, bound) - WEIGHT_STEP);
+            rekeyOpenCells(weight);
+            if (!improvePath(weight, expansionBudget, timeBudget, startTime)) {
+                return;
+            }
+            if (weight == 1) {
+                //An unweighted iteration proves that the path is optimal
+                bound = 1;
+            }
+        }
+    }
+
+    /**
+     * Expands the cells with the lowest weighted f-cost until no open cell is cheaper than the end cell or the budget runs out.
+     * The budget is checked before a cell is polled, so every closed cell is expanded completely.
+     *
+     * @param weight          the weight of the heuristic.
+     * @param expansionBudget the amount of cells all iterations may expand.
+     * @param timeBudget      the time in nanoseconds the search may take.
+     * @param startTime       the time the search started at.
+     * @return true, if the iteration completed, false if the budget ran out.
+     */
+    private boolean improvePath(double weight, long expansionBudget, long timeBudget, long startTime) {
+        int columns = map.getColumns();
+        while (!open.isEmpty()) {
+            if (expansions >= expansionBudget
+                    || (expansions % CLOCK_INTERVAL == 0 && timeBudget != SearchContext.UNLIMITED && System.nanoTime() - startTime >= timeBudget)) {
+                return false;
+            }
+
+            //The end cell is never cheaper than the cell with the lowest key, it might not be reached yet
+            int current = open.poll();
+            int currentG = context.getgCost(current);
+            int currentKey = key(currentG, heuristic(current), weight);
+            if (currentKey >= context.getgCost(end)) {
+                open.add(current, currentKey);
+                return true;
+            }
+
+            context.close(current);
+            closed = append(closed, closedSize++, current);
+            expansions++;
+            if (observer != null) {
+                observer.onClose(current);
+            }
+
+            int currentX = current / columns;
+            int currentY = current % columns;
+            int barriers = map.getNeighbourBarriers(currentX, currentY);
+
+            //Go through all neighbors from the top left to the bottom right neighbour.
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (x == 0 && y == 0) continue;
+                    if (!diagonal && x != 0 && y != 0) continue;
+
+                    //Closed cells aren't skipped, as they might get cheaper
+                    int neighbour = (currentX + x) * columns + currentY + y;
+                    if ((barriers & 1 << (x + 1) * 3 + y + 1) != 0) {
+                        continue;
+                    }
+
+                    int stepCost = x != 0 && y != 0 ? Pathfinder.DIAGONAL_COST : Pathfinder.HORIZONTAL_COST;
+                    int newGCost = currentG + (costs != null ? costs.getStepCost(stepCost, current, neighbour) : stepCost);
+                    if (newGCost >= context.getgCost(neighbour)) {
+                        continue;
+                    }
+
+                    //Cells closed by this iteration are expanded again by the next one
+                    int hCost = heuristic(neighbour);
+                    if (context.isClosed(neighbour)) {
+                        context.update(neighbour, newGCost, current);
+                        inconsistent = append(inconsistent, inconsistentSize++, neighbour);
+                    } else {
+                        context.reach(neighbour, newGCost, current);
+                        if (open.contains(neighbour)) {
+                            open.decreaseKey(neighbour, key(newGCost, hCost, weight));
+                        } else {
+                            open.add(neighbour, key(newGCost, hCost, weight));
+                        }
+                    }
+
+                    if (observer != null) {
+                        observer.onReach(neighbour, newGCost, hCost, current);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reopens the cells closed by the last iteration and moves all open cells into the list of inconsistent cells,
+     * so they can be added to the open list again with the next weight.
+     *
+     * @return the lowest unweighted f-cost of all open and inconsistent cells or {@link SearchContext#UNREACHED} if there is none.
+     */
+    private int beginIteration() {
+        for (int i = 0; i < closedSize; i++) {
+            context.reopen(closed[i]);
+        }
+        closedSize = 0;
+
+        while (!open.isEmpty()) {
+            inconsistent = append(inconsistent, inconsistentSize++, open.poll());
+        }
+
+        int lowerBound = SearchContext.UNREACHED;
+        for (int i = 0; i < inconsistentSize; i++) {
+            int cell = inconsistent[i];
+            lowerBound = Math.min(lowerBound, context.getgCost(cell) + heuristic(cell));
+        }
+        return lowerBound;
+    }
+
+    /**
+     * Adds all inconsistent cells to the open list using the new weight.
+     *
+     * @param weight the weight of the next iteration.
+     */
+    private void rekeyOpenCells(double weight) {
+        for (int i = 0; i < inconsistentSize; i++) {
+            int cell = inconsistent[i];
+            if (!open.contains(cell)) {
+                open.add(cell, key(context.getgCost(cell), heuristic(cell), weight));
+            }
+        }
+        inconsistentSize = 0;
+    }
+
+    /**
+     * Recomputes the g-costs along the parents of the end cell. Cells of the path might have gotten cheaper after their
+     * successor was reached, so the path can be cheaper than the g-cost of the end cell.
+     *
+     * @param start the index of the start cell.
+     */
+    private void correctPathCosts(int start) {
+        int length = 0;
+        for (int current = end; current != start; current = context.getParent(current)) {
+            closed = append(closed, length++, current);
+        }
+
+        int columns = map.getColumns();
+        int gCost = 0;
+        int previous = start;
+        for (int i = length - 1; i >= 0; i--) {
+            int cell = closed[i];
+            boolean straight = cell / columns == previous / columns || cell % columns == previous % columns;
+            int stepCost = straight ? Pathfinder.HORIZONTAL_COST : Pathfinder.DIAGONAL_COST;
+            gCost += costs != null ? costs.getStepCost(stepCost, previous, cell) : stepCost;
+            context.update(cell, gCost, previous);
+            previous = cell;
+        }
+    }
+
+    /**
+     * Gives the scaled distance of the cell to the end cell.
+     *
+     * @param index the index of the cell.
+     * @return the h-cost.
+     */
+    private int heuristic(int index) {
+        int columns = map.getColumns();
+        return Pathfinder.distance(index / columns, index % columns, end / columns, end % columns) * scale;
+    }
+
+    /**
+     * Gives the priority of a cell inside the open list. The weighted heuristic is rounded down,
+     * so the key never exceeds {@code g + w * h} and the bound of the weight stays valid.
+     *
+     * @param gCost  the g-cost of the cell.
+     * @param hCost  the h-cost of the cell.
+     * @param weight the weight of the heuristic.
+     * @return the key, at most {@link Integer#MAX_VALUE}.
+     */
+    private static int key(int gCost, int hCost, double weight) {
+        return (int) Math.min(gCost + (long) (hCost * weight), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Stores the cell at the given position, growing the array if needed.
+     *
+     * @param cells    the array.
+     * @param position the position.
+     * @param cell     the cell to store.
+     * @return the array or a bigger copy of it.
+     */
+    private static int[] append(int[] cells, int position, int cell) {
+        if (position == cells.length) {
+            cells = Arrays.copyOf(cells, position * 2);
+        }
+        cells[position] = cell;
+        return cells;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The BatchObserver class collects the changes of a search into a {@link NodeUpdateBatch} and delivers it to an {@link INodeBatchListener}
+ * whenever the batch is full or the interval elapsed. The changes are passed on to another observer as well, if present.
+ *
+ * @author Felix
+ */
+final class BatchObserver implements SearchObserver {
+
+    //Constants
+
+    /**
+     * The maximum amount of updates inside one batch.
+     */
+    static final int BATCH_CAPACITY = 4096;
+
+    /**
+     * The amount of updates between two checks of the clock.
+     */
+    private static final int CLOCK_INTERVAL = 256;
+
+    //Attributes
+
+    /**
+     * The listener to deliver the batches to.
+     */
+    private final INodeBatchListener listener;
+
+    /**
+     * The collected updates.
+     */
+    private final NodeUpdateBatch batch;
+
+    /**
+     * The time between two deliveries in nanoseconds, or 0 if batches are only delivered when they are full or flushed.
+     */
+    private final long interval;
+
+    /**
+     * The observer to pass the changes on to, may be null.
+     */
+    private SearchObserver next;
+
+    /**
+     * The start cell of the current search, which like the end cell never becomes open or closed.
+     */
+    private int start = -1;
+
+    /**
+     * The end cell of the current search.
+     */
+    private int end = -1;
+
+    /**
+     * The updates left until the clock is checked again.
+     */
+    private int untilClock = CLOCK_INTERVAL;
+
+    /**
+     * The time of the last delivery.
+     */
+    private long lastDelivery = System.nanoTime();
+
+    //Methods
+
+    /**
+     * Creates a new observer.
+     *
+     * @param listener       the listener to deliver the batches to.
+     * @param intervalMillis the time between two deliveries in milliseconds, or 0 to only deliver full batches and at the end of a search.
+     * @param columns        the amount of columns of the grid.
+     */
+    BatchObserver(INodeBatchListener listener, long intervalMillis, int columns) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("The interval must not be negative!");
+        }
+        this.listener = listener;
+        this.interval = intervalMillis * 1_000_000;
+        this.batch = new NodeUpdateBatch(BATCH_CAPACITY, columns);
+    }
+
+    /**
+     * Prepares the observer for a new search.
+     *
+     * @param next  the observer to pass the changes on to, may be null.
+     * @param start the index of the start cell.
+     * @param end   the index of the end cell.
+     */
+    void begin(SearchObserver next, int start, int end) {
+        this.next = next;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public void onReach(int index, int gCost, int hCost, int parent) {
+        if (next != null) {
+            next.onReach(index, gCost, hCost, parent);
+        }
+        add(index, NodeUpdateKind.G_COST, gCost);
+        add(index, NodeUpdateKind.H_COST, hCost);
+        add(index, NodeUpdateKind.PARENT, parent);
+        if (index != start && index != end) {
+            add(index, NodeUpdateKind.NODE_TYPE, NodeType.OPEN.ordinal());
+        }
+    }
+
+    @Override
+    public void onClose(int index) {
+        if (next != null) {
+            next.onClose(index);
+        }
+        if (index != start && index != end) {
+            add(index, NodeUpdateKind.NODE_TYPE, NodeType.CLOSED.ordinal());
+        }
+    }
+
+    /**
+     * Adds an update and delivers the batch if it is full or the interval elapsed.
+     *
+     * @param index the index of the cell.
+     * @param kind  the changed property.
+     * @param value the new value.
+     */
+    void add(int index, NodeUpdateKind kind, int value) {
+        batch.add(index, kind, value);
+        if (batch.isFull()) {
+            flush();
+        } else if (interval > 0 && --untilClock == 0) {
+            //Reading the clock on every update would cost more than collecting it
+            untilClock = CLOCK_INTERVAL;
+            if (System.nanoTime() - lastDelivery >= interval) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Delivers the collected updates, if there are any.
+     */
+    void flush() {
+        lastDelivery = System.nanoTime();
+        if (batch.size() == 0) {
+            return;
+        }
+        listener.onBatch(batch);
+        batch.clear();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The BatchSearch class answers a batch of {@link PathQuery queries} against a {@link GridSnapshot} in parallel.
+ * Every worker thread uses its own {@link SearchContext}, the results are stored at the position of their query.
+ *
+ * @author Felix
+ */
+final class BatchSearch {
+
+    //Constants
+
+    /**
+     * The amount of queries a fork/join task answers itself instead of splitting them further.
+     */
+    private static final int THRESHOLD = 4;
+
+    //Attributes
+
+    /**
+     * The snapshot to search.
+     */
+    private final GridSnapshot snapshot;
+
+    /**
+     * The queries to answer.
+     */
+    private final PathQuery[] queries;
+
+    /**
+     * The result of every query, at the same position as the query.
+     */
+    private final Object[] results;
+
+    //Methods
+
+    /**
+     * Creates a new batch.
+     *
+     * @param snapshot the snapshot to search.
+     * @param queries  the queries to answer.
+     */
+    BatchSearch(GridSnapshot snapshot, List<PathQuery> queries) {
+        this.snapshot = snapshot;
+        this.queries = queries.toArray(new PathQuery[0]);
+        this.results = new Object[this.queries.length];
+    }
+
+    /**
+     * Answers all queries using fork/join tasks inside the given pool.
+     *
+     * @param pool the pool to run the tasks in.
+     * @return the results in the order of the queries.
+     */
+    List<List<Node>> run(ForkJoinPool pool) {
+        pool.invoke(new QueryTask(0, queries.length));
+        return collect();
+    }
+
+    /**
+     * Answers all queries by splitting them into one chunk per worker and running every chunk on the executor.
+     *
+     * @param executor    the executor to run the chunks on.
+     * @param parallelism the amount of chunks.
+     * @return the results in the order of the queries.
+     */
+    List<List<Node>> run(Executor executor, int parallelism) {
+        int chunks = Math.max(1, Math.min(parallelism, queries.length));
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks];
+        for (int i = 0; i < chunks; i++) {
+            int from = (int) ((long) queries.length * i / chunks);
+            int to = (int) ((long) queries.length * (i + 1) / chunks);
+            futures[i] = CompletableFuture.runAsync(() -> answer(from, to, snapshot.createWorkspace()), executor);
+        }
+        CompletableFuture.allOf(futures).join();
+        return collect();
+    }
+
+    /**
+     * Answers the queries inside the given range.
+     *
+     * @param from    the first query, inclusive.
+     * @param to      the last query, exclusive.
+     * @param context the context to search with, may be null to borrow one of the snapshot.
+     */
+    private void answer(int from, int to, SearchContext context) {
+        if (context == null) {
+            SearchContext workspace = snapshot.acquireWorkspace();
+            try {
+                answer(from, to, workspace);
+            } finally {
+                snapshot.releaseWorkspace(workspace);
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            PathQuery query = queries[i];
+            results[i] = snapshot.findPath(context, query.getStartX(), query.getStartY(), query.getEndX(), query.getEndY(),
+                    query.isDiagonal(), query.getAlgorithm());
+        }
+    }
+
+    /**
+     * Copies the results into a list.
+     *
+     * @return the results in the order of the queries.
+     */
+    @SuppressWarnings("unchecked")
+    private List<List<Node>> collect() {
+        List<List<Node>> list = new ArrayList<>(results.length);
+        for (Object result : results) {
+            list.add((List<Node>) result);
+        }
+        return list;
+    }
+
+    /**
+     * A fork/join task that splits its range of queries in half until it is small enough to be answered directly.
+     * Tasks borrow the contexts of finished tasks from the snapshot, so no more contexts than workers are created.
+     *
+     * @author Felix
+     */
+    private class QueryTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first query, inclusive.
+         */
+        private final int from;
+
+        /**
+         * The last query, exclusive.
+         */
+        private final int to;
+
+        QueryTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                answer(from, to, null);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new QueryTask(from, middle), new QueryTask(middle, to));
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The BidirectionalSearch class contains the bidirectional A* algorithm.
+ * A forward search from the start cell and a backward search from the end cell run until they meet.
+ * <p>
+ * Both searches use the average of the distance to their target and the negated distance to their source as heuristic,
+ * so the keys of a cell are the same in both directions, except for a constant.
+ * Whenever a search steps onto a cell that was reached by the other search, the sum of both g-costs is the cost of a path.
+ * The cheapest of these paths is kept. The searches stop as soon as the sum of the keys they closed last isn't cheaper than
+ * that path, because every path through one of their open cells costs at least as much. Then the kept path is optimal.
+ * <p>
+ * The backward search uses the {@link SearchContext#getReverse() reverse context}. When both searches run on their own thread,
+ * they only read the {@link SearchContext#getPublishedgCost(int) published costs} of each other.
+ * Only the forward search is reported to the observer.
+ *
+ * @author Felix
+ */
+final class BidirectionalSearch {
+
+    //Constants
+
+    /**
+     * The meeting cell before the searches met.
+     */
+    private static final int NONE = -1;
+
+    //Attributes
+
+    /**
+     * The map to search.
+     */
+    private final GridMap map;
+
+    /**
+     * Whether or not the algorithm is allowed to do diagonal steps.
+     */
+    private final boolean diagonal;
+
+    /**
+     * Whether or not both searches run on their own thread.
+     */
+    private final boolean parallel;
+
+    /**
+     * The terrain costs of the map, null if every step costs the HORIZONTAL_COST or DIAGONAL_COST.
+     * A step costs the same in both directions, so the backward search uses them like the forward search.
+     */
+    private final TerrainCosts costs;
+
+    /**
+     * The factor of the heuristic, i.e. the lowest multiplier of the terrain costs.
+     */
+    private final int scale;
+
+    /**
+     * The cost of the cheapest path found so far.
+     */
+    private volatile int bestCost = SearchContext.UNREACHED;
+
+    /**
+     * The cell in which the forward and backward part of the cheapest path meet.
+     */
+    private int meetingCell = NONE;
+
+    /**
+     * Whether or not one of the searches stopped, which stops the other one as well.
+     */
+    private volatile boolean finished;
+
+    //Methods
+
+    /**
+     * Creates a new bidirectional search.
+     *
+     * @param map      the map to search.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     * @param parallel whether or not both searches run on their own thread.
+     */
+    private BidirectionalSearch(GridMap map, boolean diagonal, boolean parallel) {
+        this.map = map;
+        this.diagonal = diagonal;
+        this.parallel = parallel;
+        this.costs = TerrainCosts.of(map);
+        this.scale = costs != null ? costs.getMinMultiplier() : 1;
+    }
+
+    /**
+     * Tries to find the shortest path between the start and the end cell.
+     * If a path was found, it can be retraced using {@link SearchContext#tracePath(int, int, int)} of the given context.
+     *
+     * @param map      the map to search.
+     * @param context  the context to store the state of the search in.
+     * @param start    the index of the start cell.
+     * @param end      the index of the end cell.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     * @param parallel whether or not the backward search runs on another thread of the common {@link java.util.concurrent.ForkJoinPool}.
+     * @param observer the observer to inform about changes of the forward search, may be null.
+     * @return true, if a path was found, otherwise false.
+     */
+    static boolean search(GridMap map, SearchContext context, int start, int end, boolean diagonal, boolean parallel, SearchObserver observer) {
+        BidirectionalSearch search = new BidirectionalSearch(map, diagonal, parallel);
+        Frontier forward = search.new Frontier(context, start, end, false, observer);
+        Frontier backward = search.new Frontier(context.getReverse(), end, start, true, null);
+        forward.other = backward;
+        backward.other = forward;
+
+        //Both sources are published before the other thread starts
+        forward.begin();
+        backward.begin();
+        if (start == end) {
+            search.offer(start, 0);
+        }
+
+        if (parallel) {
+            //An aborted search stops the other one, so the contexts aren't used anymore afterwards
+            ForkJoinTask<?> task = ForkJoinTask.adapt(backward::run).fork();
+            try {
+                forward.run();
+            } finally {
+                search.finished = true;
+                task.join();
+            }
+        } else {
+            //Expand the smaller frontier first, until one of them stops
+            while (true) {
+                Frontier frontier = forward.open.size() <= backward.open.size() ? forward : backward;
+                if (!frontier.expand()) {
+                    break;
+                }
+            }
+        }
+
+        if (search.meetingCell == NONE) {
+            return false;
+        }
+        search.splice(forward, backward, end);
+        return true;
+    }
+
+    /**
+     * Stores the path through the given cell, if it is cheaper than the cheapest path so far.
+     *
+     * @param cell the cell in which both searches met.
+     * @param cost the cost of the path through the cell.
+     */
+    private synchronized void offer(int cell, int cost) {
+        if (cost < bestCost) {
+            bestCost = cost;
+            meetingCell = cell;
+        }
+    }
+
+    /**
+     * Appends the backward part of the cheapest path to the forward search, so the whole path can be retraced from the forward context.
+     *
+     * @param forward  the forward search.
+     * @param backward the backward search.
+     * @param end      the index of the end cell.
+     */
+    private void splice(Frontier forward, Frontier backward, int end) {
+        int columns = map.getColumns();
+        int endX = end / columns;
+        int endY = end % columns;
+        SearchContext context = forward.context;
+        int previous = meetingCell;
+        int meetingCost = context.getgCost(meetingCell) + backward.context.getgCost(meetingCell);
+
+        //Parents of the backward search point towards the end cell
+        for (int cell = backward.context.getParent(meetingCell); cell != SearchContext.NO_PARENT; cell = backward.context.getParent(cell)) {
+            int gCost = meetingCost - backward.context.getgCost(cell);
+            context.reach(cell, gCost, previous);
+            context.close(cell);
+            if (forward.observer != null) {
+                forward.observer.onReach(cell, gCost, Pathfinder.distance(cell / columns, cell % columns, endX, endY) * scale, previous);
+            }
+            previous = cell;
+        }
+    }
+
+    /**
+     * The Frontier class represents one of both searches.
+     *
+     * @author Felix
+     */
+    private class Frontier {
+
+        //Attributes
+
+        /**
+         * The context of this search.
+         */
+        private final SearchContext context;
+
+        /**
+         * The open list of this search.
+         */
+        private final OpenList open;
+
+        /**
+         * The cell this search starts from.
+         */
+        private final int source;
+
+        /**
+         * The cell this search is heading to.
+         */
+        private final int target;
+
+        /**
+         * Whether or not this is the backward search, which walks the steps of the path in reverse.
+         */
+        private final boolean backward;
+
+        /**
+         * The x-coordinate of the cell this search starts from.
+         */
+        private final int sourceX;
+
+        /**
+         * The y-coordinate of the cell this search starts from.
+         */
+        private final int sourceY;
+
+        /**
+         * The x-coordinate of the cell this search is heading to.
+         */
+        private final int targetX;
+
+        /**
+         * The y-coordinate of the cell this search is heading to.
+         */
+        private final int targetY;
+
+        /**
+         * The observer to inform about changes, may be null.
+         */
+        private final SearchObserver observer;
+
+        /**
+         * The search in the opposite direction.
+         */
+        private Frontier other;
+
+        /**
+         * The doubled key of the cell closed last. Keys are closed in ascending order, so no open cell has a lower key.
+         */
+        private volatile int lastKey;
+
+        //Methods
+
+        /**
+         * Creates a new search.
+         *
+         * @param context  the context of this search.
+         * @param source   the cell to start from.
+         * @param target   the cell to head to.
+         * @param backward whether or not this is the backward search.
+         * @param observer the observer to inform about changes, may be null.
+         */
+        private Frontier(SearchContext context, int source, int target, boolean backward, SearchObserver observer) {
+            int columns = map.getColumns();
+            this.context = context;
+            this.open = context.getOpenList();
+            this.source = source;
+            this.target = target;
+            this.backward = backward;
+            this.sourceX = source / columns;
+            this.sourceY = source % columns;
+            this.targetX = target / columns;
+            this.targetY = target % columns;
+            this.observer = observer;
+        }
+
+        /**
+         * Forgets the last search and adds the source to the open list.
+         */
+        private void begin() {
+            context.reset();
+            int hCost = Pathfinder.distance(sourceX, sourceY, targetX, targetY) * scale;
+            context.reach(source, 0, SearchContext.NO_PARENT);
+            open.add(source, hCost);
+            lastKey = hCost;
+            if (parallel) {
+                context.preparePublishing();
+                context.publish(source);
+            }
+            if (observer != null) {
+                observer.onReach(source, 0, hCost, SearchContext.NO_PARENT);
+            }
+        }
+
+        /**
+         * Expands cells until this or the other search stops.
+         */
+        private void run() {
+            try {
+                while (!finished) {
+                    if (!expand()) {
+                        finished = true;
+                    }
+                }
+            } finally {
+                finished = true;
+            }
+        }
+
+        /**
+         * Whether or not a barrier blocks the step from the current cell to its neighbour.
+         * Like in the A* algorithm a path may leave a barrier at the start, but it can't enter one.
+         * The backward search walks the path in reverse, so it checks the cell it leaves.
+         *
+         * @param current   the index of the current cell.
+         * @param neighbour the index of the neighbour.
+         * @return true, if the step is blocked, otherwise false.
+         */
+        private boolean isBlocked(int current, int neighbour) {
+            if (!backward) {
+                return map.isBarrier(neighbour);
+            }
+            return map.isBarrier(current) || neighbour != target && map.isBarrier(neighbour);
+        }
+
+        /**
+         * Gives the g-cost of the cell inside the other search.
+         *
+         * @param index the index of the cell.
+         * @return the g-cost or {@link SearchContext#UNREACHED}.
+         */
+        private int otherCost(int index) {
+            return parallel ? other.context.getPublishedgCost(index) : other.context.getgCost(index);
+        }
+
+        /**
+         * Gives the doubled key of the cell, i.e. the doubled g-cost plus the distance to the target minus the distance to the source.
+         * The doubled keys of both searches add up to twice the cost of the path through the cell.
+         *
+         * @param gCost the g-cost of the cell.
+         * @param x     the x-coordinate of the cell.
+         * @param y     the y-coordinate of the cell.
+         * @return the doubled key.
+         */
+        private int key(int gCost, int x, int y) {
+            return 2 * gCost + (Pathfinder.distance(x, y, targetX, targetY) - Pathfinder.distance(x, y, sourceX, sourceY)) * scale;
+        }
+
+        /**
+         * Closes the open cell with the lowest key and reaches its neighbours.
+         *
+         * @return false, if this search is finished, otherwise true.
+         */
+        private boolean expand() {
+            if (open.isEmpty()) {
+                return false;
+            }
+
+            int rows = map.getRows();
+            int columns = map.getColumns();
+            int current = open.poll();
+            int currentX = current / columns;
+            int currentY = current % columns;
+            int currentG = context.getgCost(current);
+
+            //No open cell of both searches can lead to a cheaper path
+            lastKey = key(currentG, currentX, currentY);
+            if ((long) lastKey + other.lastKey >= 2L * bestCost) {
+                return false;
+            }
+
+            context.close(current);
+            if (observer != null) {
+                observer.onClose(current);
+            }
+
+            //Go through all neighbors from the top left to the bottom right neighbour.
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (x == 0 && y == 0) continue;
+                    if (!diagonal && x != 0 && y != 0) continue;
+                    int xCoordinate = currentX + x;
+                    int yCoordinate = currentY + y;
+
+                    //Skip if cell is outside of the grid.
+                    if (xCoordinate < 0 || xCoordinate >= rows || yCoordinate < 0 || yCoordinate >= columns) {
+                        continue;
+                    }
+
+                    //Skip if the step is blocked by a barrier.
+                    int neighbour = xCoordinate * columns + yCoordinate;
+                    if (isBlocked(current, neighbour)) {
+                        continue;
+                    }
+
+                    //Check if the searches met, the neighbour is reached with at most the new g cost afterwards
+                    int stepCost = x != 0 && y != 0 ? Pathfinder.DIAGONAL_COST : Pathfinder.HORIZONTAL_COST;
+                    int newGCost = currentG + (costs != null ? costs.getStepCost(stepCost, current, neighbour) : stepCost);
+                    int otherG = otherCost(neighbour);
+                    if (otherG != SearchContext.UNREACHED && newGCost + otherG < bestCost) {
+                        offer(neighbour, newGCost + otherG);
+                    }
+
+                    //Skip if the cell is already closed or the new path to it isn't cheaper
+                    if (context.isClosed(neighbour) || newGCost >= context.getgCost(neighbour)) {
+                        continue;
+                    }
+
+                    //Stores the cost and parent and marks the cell as open
+                    context.reach(neighbour, newGCost, current);
+                    int key = key(newGCost, xCoordinate, yCoordinate);
+                    if (open.contains(neighbour)) {
+                        open.decreaseKey(neighbour, key);
+                    } else {
+                        open.add(neighbour, key);
+                    }
+                    if (parallel) {
+                        context.publish(neighbour);
+                    }
+                    if (observer != null) {
+                        observer.onReach(neighbour, newGCost, Pathfinder.distance(xCoordinate, yCoordinate, targetX, targetY) * scale, current);
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.nio.LongBuffer;
+
+/**
+ * The BitGrid class stores the barriers of a grid as a bitset, one bit per cell.
+ * A 16384x16384 grid needs 32 MB instead of one object or byte per cell.
+ * <p>
+ * A cell is addressed by its index, which is calculated as {@code x * columns + y}, so the cells of a row are consecutive bits.
+ * The neighbourhood of a cell is read with at most two words per row and a row is scanned 64 cells at a time.
+ * <p>
+ * The words are either stored on the heap or inside a file mapped by {@link MapFile}, which is searched without copying it.
+ *
+ * @author Felix
+ */
+public final class BitGrid implements GridMap {
+
+    //Constants
+
+    /**
+     * The amount of cells stored inside one word.
+     */
+    private static final int WORD_BITS = 64;
+
+    /**
+     * The three cells of a row that are all outside of the grid.
+     */
+    private static final int OUTSIDE = 0b111;
+
+    //Attributes
+
+    /**
+     * The amount of rows, i.e. the range of the x-coordinate.
+     */
+    private final int rows;
+
+    /**
+     * The amount of columns, i.e. the range of the y-coordinate.
+     */
+    private final int columns;
+
+    /**
+     * The barrier bit of every cell, the cell with the index i is bit {@code i % 64} of word {@code i / 64}.
+     */
+    private final LongBuffer words;
+
+    //Methods
+
+    /**
+     * Creates a new grid without barriers.
+     *
+     * @param rows    the amount of rows the grid should have.
+     * @param columns the amount of columns the grid should have.
+     */
+    public BitGrid(int rows, int columns) {
+        this(rows, columns, LongBuffer.allocate(wordCount(rows, columns)));
+    }
+
+    /**
+     * Creates a new grid using the given words.
+     *
+     * @param rows    the amount of rows.
+     * @param columns the amount of columns.
+     * @param words   the barrier bits, used directly instead of copying them.
+     */
+    BitGrid(int rows, int columns, LongBuffer words) {
+        if (rows < 1 || columns < 1 || (long) rows * columns > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The grid has to have between 1 and " + Integer.MAX_VALUE + " cells!");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        if (words.capacity() < wordCount(rows, columns)) {
+            throw new IllegalArgumentException("The grid needs " + wordCount(rows, columns) + " words!");
+        }
+        this.words = words;
+    }
+
+    /**
+     * Copies the barriers of the given map.
+     *
+     * @param map the map to copy.
+     * @return the new grid.
+     */
+    public static BitGrid copyOf(GridMap map) {
+        //Grids that store their barriers as bits are copied a word at a time
+        BitGrid source = of(map);
+        if (source != null) {
+            LongBuffer sourceWords = source.words.duplicate();
+            sourceWords.clear();
+            LongBuffer words = LongBuffer.allocate(sourceWords.capacity());
+            words.put(sourceWords);
+            words.clear();
+            return new BitGrid(source.rows, source.columns, words);
+        }
+
+        BitGrid grid = new BitGrid(map.getRows(), map.getColumns());
+        for (int i = 0; i < grid.size(); i++) {
+            if (map.isBarrier(i)) {
+                grid.setBarrier(i, true);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Gives the bit grid the given map stores its barriers in.
+     *
+     * @param map the map.
+     * @return the bit grid or null, if the map doesn't store its barriers in one.
+     */
+    static BitGrid of(GridMap map) {
+        if (map instanceof BitGrid) {
+            return (BitGrid) map;
+        }
+        if (map instanceof PrimitiveGrid) {
+            return ((PrimitiveGrid) map).getBarriers();
+        }
+        if (map instanceof GridSnapshot) {
+            return ((GridSnapshot) map).getBarriers();
+        }
+        return null;
+    }
+
+    /**
+     * Gives the amount of words needed to store the given grid.
+     *
+     * @param rows    the amount of rows.
+     * @param columns the amount of columns.
+     * @return the amount of words.
+     */
+    static int wordCount(int rows, int columns) {
+        return (int) (((long) rows * columns + WORD_BITS - 1) / WORD_BITS);
+    }
+
+    /**
+     * Sets whether or not the cell at the given coordinates is a barrier.
+     * A {@link Pathfinder} using this grid has to be changed through {@link Pathfinder#setNodeType(int, int, NodeType)} instead,
+     * otherwise its precomputed data doesn't notice the change. Grids mapped read-only can't be changed.
+     *
+     * @param x       the x-coordinate.
+     * @param y       the y-coordinate.
+     * @param barrier whether or not the cell is a barrier.
+     */
+    public void setBarrier(int x, int y, boolean barrier) {
+        if (!isInsideGrid(x, y)) {
+            throw new IndexOutOfBoundsException("The cell (" + x + ", " + y + ") is outside of the grid!");
+        }
+        setBarrier(index(x, y), barrier);
+    }
+
+    /**
+     * Sets whether or not the cell at the given index is a barrier.
+     *
+     * @param index   the index of the cell.
+     * @param barrier whether or not the cell is a barrier.
+     */
+    void setBarrier(int index, boolean barrier) {
+        int word = index >>> 6;
+        if (barrier) {
+            words.put(word, words.get(word) | 1L << index);
+        } else {
+            words.put(word, words.get(word) & ~(1L << index));
+        }
+    }
+
+    @Override
+    public boolean isBarrier(int index) {
+        return (words.get(index >>> 6) & 1L << index) != 0;
+    }
+
+    /**
+     * Reads the barriers around the cell from the words of the three rows.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return the barrier mask as described by {@link GridMap#getNeighbourBarriers(int, int)}.
+     */
+    @Override
+    public int getNeighbourBarriers(int x, int y) {
+        return readRow(x - 1, y) | readRow(x, y) << 3 | readRow(x + 1, y) << 6;
+    }
+
+    /**
+     * Reads the barrier bits of the cells {@code y - 1}, {@code y} and {@code y + 1} of the row.
+     *
+     * @param x the row.
+     * @param y the column of the middle cell.
+     * @return three bits beginning with the cell {@code y - 1}, cells outside of the grid are barriers.
+     */
+    private int readRow(int x, int y) {
+        if (x < 0 || x >= rows) {
+            return OUTSIDE;
+        }
+
+        //The bits might be spread over two words
+        int first = Math.max(y - 1, 0);
+        int last = Math.min(y + 1, columns - 1);
+        int from = x * columns + first;
+        int offset = from & (WORD_BITS - 1);
+        long word = words.get(from >>> 6) >>> offset;
+        if (WORD_BITS - offset < last - first + 1) {
+            word |= words.get((from >>> 6) + 1) << (WORD_BITS - offset);
+        }
+        int bits = (int) word & (1 << (last - first + 1)) - 1;
+
+        if (y == 0) {
+            bits = bits << 1 | 1;
+        }
+        if (y + 1 >= columns) {
+            bits |= 0b100;
+        }
+        return bits;
+    }
+
+    /**
+     * Gives the first barrier of the row at or behind the given column, scanning a whole word at a time.
+     *
+     * @param x the row.
+     * @param y the first column to check.
+     * @return the column of the barrier or the amount of columns, if there is none.
+     */
+    public int nextBarrier(int x, int y) {
+        return scan(x, y, 0);
+    }
+
+    /**
+     * Gives the first cell of the row at or behind the given column that isn't a barrier, scanning a whole word at a time.
+     *
+     * @param x the row.
+     * @param y the first column to check.
+     * @return the column of the cell or the amount of columns, if there is none.
+     */
+    public int nextFree(int x, int y) {
+        return scan(x, y, -1L);
+    }
+
+    /**
+     * Scans the row for the first bit that differs from the given pattern.
+     *
+     * @param x       the row.
+     * @param y       the first column to check.
+     * @param pattern 0 to find a barrier, all bits set to find a free cell.
+     * @return the column of the found cell or the amount of columns, if there is none.
+     */
+    private int scan(int x, int y, long pattern) {
+        if (y >= columns) {
+            return columns;
+        }
+        int from = x * columns + y;
+        int end = x * columns + columns;
+        int word = from >>> 6;
+
+        //Ignore the cells in front of the first column
+        long bits = (words.get(word) ^ pattern) & -1L << from;
+        while (bits == 0) {
+            word++;
+            if ((long) word * WORD_BITS >= end) {
+                return columns;
+            }
+            bits = words.get(word) ^ pattern;
+        }
+
+        int found = word * WORD_BITS + Long.numberOfTrailingZeros(bits);
+        return found < end ? found - x * columns : columns;
+    }
+
+    /**
+     * Counts all barriers of the grid.
+     *
+     * @return the amount of barriers.
+     */
+    public int countBarriers() {
+        int count = 0;
+        for (int i = 0; i < words.capacity(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * Gives the words storing the barrier bits. Changes write through to the grid.
+     *
+     * @return the words.
+     */
+    LongBuffer getWords() {
+        return words;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+}
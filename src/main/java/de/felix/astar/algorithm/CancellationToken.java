@@ -0,0 +1,113 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CancellationToken class lets another thread abort a running search, see {@link Pathfinder#findPath(CancellationToken)}.
+ * A token can also carry a deadline, after which the search is aborted on its own.
+ * <p>
+ * Searches check their token every {@link SearchContext#CHECK_INTERVAL} expansions, so a search ends shortly after
+ * the token was cancelled or the deadline passed. A token can be shared by any amount of searches.
+ *
+ * @author Felix
+ */
+public final class CancellationToken {
+
+    //Constants
+
+    /**
+     * The deadline of a token without deadline.
+     */
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    //Attributes
+
+    /**
+     * The deadline as value of {@link System#nanoTime()} or {@link CancellationToken#NO_DEADLINE}.
+     */
+    private final long deadline;
+
+    /**
+     * Whether or not the token was cancelled.
+     */
+    private volatile boolean cancelled;
+
+    //Methods
+
+    /**
+     * Creates a new token without deadline.
+     */
+    public CancellationToken() {
+        this.deadline = NO_DEADLINE;
+    }
+
+    /**
+     * Creates a new token with the given deadline.
+     *
+     * @param deadline the deadline as value of {@link System#nanoTime()}.
+     */
+    private CancellationToken(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Creates a new token whose deadline passes after the given time.
+     *
+     * @param timeout the time from now on.
+     * @param unit    the unit of the time.
+     * @return the token.
+     */
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        return new CancellationToken(System.nanoTime() + Math.max(0, unit.toNanos(timeout)));
+    }
+
+    /**
+     * Creates a new token with the given deadline.
+     *
+     * @param deadline the deadline as value of {@link System#nanoTime()}.
+     * @return the token.
+     */
+    public static CancellationToken withDeadline(long deadline) {
+        return new CancellationToken(deadline);
+    }
+
+    /**
+     * Cancels every search using this token. Can be called by any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Whether or not the token was cancelled.
+     *
+     * @return true, if {@link CancellationToken#cancel()} was called, otherwise false.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Whether or not the deadline of the token has passed.
+     *
+     * @return true, if the token has a deadline which has passed, otherwise false.
+     */
+    public boolean isExpired() {
+        return deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * Gives the time left until the deadline passes.
+     *
+     * @return the time in nanoseconds, 0 if it has passed or {@link Long#MAX_VALUE} if the token has no deadline.
+     */
+    public long getRemainingNanos() {
+        return deadline == NO_DEADLINE ? Long.MAX_VALUE : Math.max(0, deadline - System.nanoTime());
+    }
+}
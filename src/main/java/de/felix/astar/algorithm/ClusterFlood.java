@@ -0,0 +1,122 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * The ClusterFlood class calculates the costs from one cell to every other cell of a rectangular area, without leaving it.
+ * Used by the {@link ClusterHierarchy} to connect the entrances of a cluster. Not thread-safe, but cheap to create.
+ *
+ * @author Felix
+ */
+final class ClusterFlood {
+
+    /**
+     * The cost of every cell inside the area, indexed by {@code (x - x0) * width + (y - y0)}.
+     */
+    private final int[] costs;
+
+    /**
+     * The open cells, indexed like the costs.
+     */
+    private final IndexedBinaryHeap open;
+
+    /**
+     * The first x-coordinate of the current area.
+     */
+    private int x0;
+
+    /**
+     * The first y-coordinate of the current area.
+     */
+    private int y0;
+
+    /**
+     * The amount of columns of the current area.
+     */
+    private int width;
+
+    /**
+     * Creates a new flood for areas of at most the given size.
+     *
+     * @param clusterSize the maximum width and height of an area.
+     */
+    ClusterFlood(int clusterSize) {
+        this.costs = new int[clusterSize * clusterSize];
+        this.open = new IndexedBinaryHeap(clusterSize * clusterSize);
+    }
+
+    /**
+     * Calculates the costs from the source to every cell of the given area using Dijkstra's algorithm.
+     *
+     * @param map      the map.
+     * @param x0       the first x-coordinate of the area, inclusive.
+     * @param y0       the first y-coordinate of the area, inclusive.
+     * @param x1       the last x-coordinate of the area, exclusive.
+     * @param y1       the last y-coordinate of the area, exclusive.
+     * @param source   the index of the source cell inside the map.
+     * @param diagonal whether or not diagonal steps are allowed.
+     */
+    void run(GridMap map, int x0, int y0, int x1, int y1, int source, boolean diagonal) {
+        int columns = map.getColumns();
+        this.x0 = x0;
+        this.y0 = y0;
+        this.width = y1 - y0;
+        Arrays.fill(costs, 0, (x1 - x0) * width, SearchContext.UNREACHED);
+        open.clear();
+
+        int sourceLocal = (source / columns - x0) * width + source % columns - y0;
+        costs[sourceLocal] = 0;
+        open.add(sourceLocal, 0);
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            int currentX = current / width;
+            int currentY = current % width;
+
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (x == 0 && y == 0) continue;
+                    if (!diagonal && x != 0 && y != 0) continue;
+                    int localX = currentX + x;
+                    int localY = currentY + y;
+
+                    //Skip if the cell is outside of the area or a barrier
+                    if (localX < 0 || localX >= x1 - x0 || localY < 0 || localY >= width
+                            || map.isBarrier((x0 + localX) * columns + y0 + localY)) {
+                        continue;
+                    }
+
+                    int neighbour = localX * width + localY;
+                    int newCost = costs[current] + (x != 0 && y != 0 ? Pathfinder.DIAGONAL_COST : Pathfinder.HORIZONTAL_COST);
+                    if (newCost >= costs[neighbour]) {
+                        continue;
+                    }
+                    boolean contained = costs[neighbour] != SearchContext.UNREACHED;
+                    costs[neighbour] = newCost;
+                    if (contained) {
+                        open.decreaseKey(neighbour, newCost);
+                    } else {
+                        open.add(neighbour, newCost);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives the cost of the last flood from its source to the given cell.
+     *
+     * @param cell    the index of the cell inside the map, which has to be inside the area.
+     * @param columns the amount of columns of the map.
+     * @return the cost or {@link SearchContext#UNREACHED}.
+     */
+    int getCost(int cell, int columns) {
+        return costs[(cell / columns - x0) * width + cell % columns - y0];
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The ClusterHierarchy class represents the abstract graph used by {@link SearchAlgorithm#HPA_STAR}.
+ * <p>
+ * The grid is split into square clusters. Where two neighbouring clusters touch, every free segment of their border
+ * is an entrance with one transition in its middle or, for long segments, two transitions at its ends.
+ * The cells of all transitions are the abstract nodes. Nodes of the same cluster are connected by the cost of the
+ * shortest path between them inside the cluster, the two cells of a transition are connected by a single step.
+ * <p>
+ * Changed cells are only marked by {@link ClusterHierarchy#invalidate(int, int)}. The next {@link ClusterHierarchy#update()}
+ * recomputes the borders touching changed cells and the clusters whose cells or entrances changed.
+ *
+ * @author Felix
+ */
+final class ClusterHierarchy {
+
+    //Constants
+
+    /**
+     * The default width and height of a cluster.
+     */
+    static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    /**
+     * Entrances of at least this length get a transition at both ends instead of one in the middle.
+     */
+    private static final int SPLIT_LENGTH = 6;
+
+    /**
+     * An empty array of cells.
+     */
+    private static final int[] NONE = new int[0];
+
+    //Attributes
+
+    /**
+     * The map the hierarchy was built from.
+     */
+    private final GridMap map;
+
+    /**
+     * Whether or not the costs inside the clusters were computed with diagonal movement.
+     */
+    private final boolean diagonal;
+
+    /**
+     * The width and height of a cluster.
+     */
+    private final int clusterSize;
+
+    /**
+     * The amount of clusters along the x-axis.
+     */
+    private final int clusterRows;
+
+    /**
+     * The amount of clusters along the y-axis.
+     */
+    private final int clusterColumns;
+
+    /**
+     * The transitions between every cluster and the cluster below it, as pairs of the cell inside and the cell outside the cluster.
+     */
+    private final int[][] southBorders;
+
+    /**
+     * The transitions between every cluster and the cluster right of it, as pairs of the cell inside and the cell outside the cluster.
+     */
+    private final int[][] eastBorders;
+
+    /**
+     * The sorted abstract nodes of every cluster.
+     */
+    private final int[][] nodes;
+
+    /**
+     * The costs between the nodes of every cluster, indexed by {@code from * nodes + to}.
+     */
+    private final int[][] costs;
+
+    /**
+     * The transitions leaving every cluster, as pairs of the position of the node inside {@link ClusterHierarchy#nodes} and the cell outside.
+     */
+    private final int[][] exits;
+
+    /**
+     * The clusters that contain changed cells.
+     */
+    private final BitSet dirtyClusters = new BitSet();
+
+    /**
+     * The south borders that contain changed cells.
+     */
+    private final BitSet dirtySouthBorders = new BitSet();
+
+    /**
+     * The east borders that contain changed cells.
+     */
+    private final BitSet dirtyEastBorders = new BitSet();
+
+    //Methods
+
+    /**
+     * Builds the whole hierarchy of the given map.
+     *
+     * @param map         the map.
+     * @param clusterSize the width and height of a cluster.
+     * @param diagonal    whether or not diagonal movement is allowed.
+     */
+    ClusterHierarchy(GridMap map, int clusterSize, boolean diagonal) {
+        this.map = map;
+        this.diagonal = diagonal;
+        this.clusterSize = clusterSize;
+        this.clusterRows = (map.getRows() + clusterSize - 1) / clusterSize;
+        this.clusterColumns = (map.getColumns() + clusterSize - 1) / clusterSize;
+
+        int clusters = clusterRows * clusterColumns;
+        this.southBorders = new int[clusters][];
+        this.eastBorders = new int[clusters][];
+        this.nodes = new int[clusters][];
+        this.costs = new int[clusters][];
+        this.exits = new int[clusters][];
+
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            southBorders[cluster] = computeSouthBorder(cluster);
+            eastBorders[cluster] = computeEastBorder(cluster);
+        }
+        ClusterFlood flood = new ClusterFlood(clusterSize);
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            buildCluster(cluster, flood);
+        }
+    }
+
+    /**
+     * Marks the cluster and borders containing the given cell as changed.
+     *
+     * @param x the x-coordinate of the changed cell.
+     * @param y the y-coordinate of the changed cell.
+     */
+    void invalidate(int x, int y) {
+        int clusterX = x / clusterSize;
+        int clusterY = y / clusterSize;
+        int cluster = clusterX * clusterColumns + clusterY;
+        dirtyClusters.set(cluster);
+
+        if (x % clusterSize == clusterSize - 1 && clusterX + 1 < clusterRows) {
+            dirtySouthBorders.set(cluster);
+        } else if (x % clusterSize == 0 && clusterX > 0) {
+            dirtySouthBorders.set(cluster - clusterColumns);
+        }
+        if (y % clusterSize == clusterSize - 1 && clusterY + 1 < clusterColumns) {
+            dirtyEastBorders.set(cluster);
+        } else if (y % clusterSize == 0 && clusterY > 0) {
+            dirtyEastBorders.set(cluster - 1);
+        }
+    }
+
+    /**
+     * Rebuilds the changed parts of the hierarchy.
+     * A cluster is rebuilt if one of its cells changed or the transitions of one of its borders changed.
+     */
+    void update() {
+        if (dirtyClusters.isEmpty()) {
+            return;
+        }
+
+        BitSet rebuild = (BitSet) dirtyClusters.clone();
+        for (int cluster = dirtySouthBorders.nextSetBit(0); cluster >= 0; cluster = dirtySouthBorders.nextSetBit(cluster + 1)) {
+            int[] border = computeSouthBorder(cluster);
+            if (!Arrays.equals(border, southBorders[cluster])) {
+                southBorders[cluster] = border;
+                rebuild.set(cluster);
+                rebuild.set(cluster + clusterColumns);
+            }
+        }
+        for (int cluster = dirtyEastBorders.nextSetBit(0); cluster >= 0; cluster = dirtyEastBorders.nextSetBit(cluster + 1)) {
+            int[] border = computeEastBorder(cluster);
+            if (!Arrays.equals(border, eastBorders[cluster])) {
+                eastBorders[cluster] = border;
+                rebuild.set(cluster);
+                rebuild.set(cluster + 1);
+            }
+        }
+
+        ClusterFlood flood = new ClusterFlood(clusterSize);
+        for (int cluster = rebuild.nextSetBit(0); cluster >= 0; cluster = rebuild.nextSetBit(cluster + 1)) {
+            buildCluster(cluster, flood);
+        }
+        dirtyClusters.clear();
+        dirtySouthBorders.clear();
+        dirtyEastBorders.clear();
+    }
+
+    /**
+     * Computes the transitions between the cluster and the cluster below it.
+     *
+     * @param cluster the cluster.
+     * @return the transitions as pairs of the cell inside and the cell outside the cluster.
+     */
+    private int[] computeSouthBorder(int cluster) {
+        int clusterX = cluster / clusterColumns;
+        if (clusterX + 1 >= clusterRows) {
+            return NONE;
+        }
+        int x = (clusterX + 1) * clusterSize - 1;
+        int y0 = (cluster % clusterColumns) * clusterSize;
+        int y1 = Math.min(map.getColumns(), y0 + clusterSize);
+        int columns = map.getColumns();
+        return computeTransitions(x * columns + y0, columns, 1, y1 - y0);
+    }
+
+    /**
+     * Computes the transitions between the cluster and the cluster right of it.
+     *
+     * @param cluster the cluster.
+     * @return the transitions as pairs of the cell inside and the cell outside the cluster.
+     */
+    private int[] computeEastBorder(int cluster) {
+        int clusterY = cluster % clusterColumns;
+        if (clusterY + 1 >= clusterColumns) {
+            return NONE;
+        }
+        int y = (clusterY + 1) * clusterSize - 1;
+        int x0 = (cluster / clusterColumns) * clusterSize;
+        int x1 = Math.min(map.getRows(), x0 + clusterSize);
+        int columns = map.getColumns();
+        return computeTransitions(x0 * columns + y, 1, columns, x1 - x0);
+    }
+
+    /**
+     * Computes the transitions of a border by splitting it into free segments.
+     *
+     * @param first  the first cell inside the cluster.
+     * @param across the offset from a cell inside the cluster to the cell outside.
+     * @param along  the offset from one cell of the border to the next.
+     * @param length the length of the border.
+     * @return the transitions as pairs of the cell inside and the cell outside the cluster.
+     */
+    private int[] computeTransitions(int first, int across, int along, int length) {
+        int[] transitions = new int[2 * length];
+        int count = 0;
+        int segmentStart = -1;
+
+        for (int i = 0; i <= length; i++) {
+            int inside = first + i * along;
+            boolean free = i < length && !map.isBarrier(inside) && !map.isBarrier(inside + across);
+            if (free && segmentStart < 0) {
+                segmentStart = i;
+            } else if (!free && segmentStart >= 0) {
+                int segmentEnd = i - 1;
+                if (segmentEnd - segmentStart + 1 >= SPLIT_LENGTH) {
+                    int start = first + segmentStart * along;
+                    int end = first + segmentEnd * along;
+                    transitions[count++] = start;
+                    transitions[count++] = start + across;
+                    transitions[count++] = end;
+                    transitions[count++] = end + across;
+                } else {
+                    int middle = first + (segmentStart + segmentEnd) / 2 * along;
+                    transitions[count++] = middle;
+                    transitions[count++] = middle + across;
+                }
+                segmentStart = -1;
+            }
+        }
+        return Arrays.copyOf(transitions, count);
+    }
+
+    /**
+     * Collects the nodes and exits of the cluster and computes the costs between its nodes.
+     *
+     * @param cluster the cluster.
+     * @param flood   the flood used to compute the costs.
+     */
+    private void buildCluster(int cluster, ClusterFlood flood) {
+        int clusterX = cluster / clusterColumns;
+        int clusterY = cluster % clusterColumns;
+
+        //Collect the transitions of all four borders as pairs of the inside and outside cell
+        int[] north = clusterX > 0 ? southBorders[cluster - clusterColumns] : NONE;
+        int[] west = clusterY > 0 ? eastBorders[cluster - 1] : NONE;
+        int[] pairs = new int[southBorders[cluster].length + eastBorders[cluster].length + north.length + west.length];
+        int count = 0;
+        for (int[] border : new int[][]{southBorders[cluster], eastBorders[cluster]}) {
+            System.arraycopy(border, 0, pairs, count, border.length);
+            count += border.length;
+        }
+        for (int[] border : new int[][]{north, west}) {
+            //The pairs of these borders are stored from the point of view of the other cluster
+            for (int i = 0; i < border.length; i += 2) {
+                pairs[count++] = border[i + 1];
+                pairs[count++] = border[i];
+            }
+        }
+
+        //Every inside cell is a node, a cell in a corner might belong to two borders
+        int[] cells = new int[count / 2];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = pairs[2 * i];
+        }
+        Arrays.sort(cells);
+        int unique = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (unique == 0 || cells[unique - 1] != cells[i]) {
+                cells[unique++] = cells[i];
+            }
+        }
+        cells = Arrays.copyOf(cells, unique);
+
+        int[] clusterExits = new int[count];
+        for (int i = 0; i < count; i += 2) {
+            clusterExits[i] = Arrays.binarySearch(cells, pairs[i]);
+            clusterExits[i + 1] = pairs[i + 1];
+        }
+
+        //Connect every pair of nodes by the cheapest way inside the cluster
+        int columns = map.getColumns();
+        int[] clusterCosts = new int[unique * unique];
+        for (int from = 0; from < unique; from++) {
+            floodCluster(flood, cluster, cells[from]);
+            for (int to = 0; to < unique; to++) {
+                clusterCosts[from * unique + to] = flood.getCost(cells[to], columns);
+            }
+        }
+
+        nodes[cluster] = cells;
+        costs[cluster] = clusterCosts;
+        exits[cluster] = clusterExits;
+    }
+
+    /**
+     * Floods the cluster from the given cell.
+     *
+     * @param flood   the flood to run.
+     * @param cluster the cluster.
+     * @param source  the cell to flood from, which has to be inside the cluster.
+     */
+    void floodCluster(ClusterFlood flood, int cluster, int source) {
+        int x0 = (cluster / clusterColumns) * clusterSize;
+        int y0 = (cluster % clusterColumns) * clusterSize;
+        int x1 = Math.min(map.getRows(), x0 + clusterSize);
+        int y1 = Math.min(map.getColumns(), y0 + clusterSize);
+        flood.run(map, x0, y0, x1, y1, source, diagonal);
+    }
+
+    /**
+     * Gives the cluster containing the given cell.
+     *
+     * @param cell the index of the cell.
+     * @return the cluster.
+     */
+    int getCluster(int cell) {
+        int columns = map.getColumns();
+        return (cell / columns / clusterSize) * clusterColumns + (cell % columns) / clusterSize;
+    }
+
+    /**
+     * Gives the abstract nodes of the cluster.
+     *
+     * @param cluster the cluster.
+     * @return the sorted cells of the nodes.
+     */
+    int[] getNodes(int cluster) {
+        return nodes[cluster];
+    }
+
+    /**
+     * Gives the costs between the nodes of the cluster.
+     *
+     * @param cluster the cluster.
+     * @return the costs, indexed by {@code from * nodes + to}.
+     */
+    int[] getCosts(int cluster) {
+        return costs[cluster];
+    }
+
+    /**
+     * Gives the transitions leaving the cluster.
+     *
+     * @param cluster the cluster.
+     * @return pairs of the position of the node and the cell outside of the cluster.
+     */
+    int[] getExits(int cluster) {
+        return exits[cluster];
+    }
+
+    /**
+     * Gives the width and height of a cluster.
+     *
+     * @return the cluster size.
+     */
+    int getClusterSize() {
+        return clusterSize;
+    }
+
+    /**
+     * Whether or not the costs inside the clusters were computed with diagonal movement.
+     *
+     * @return true, if diagonal movement is allowed, otherwise false.
+     */
+    boolean isDiagonal() {
+        return diagonal;
+    }
+}
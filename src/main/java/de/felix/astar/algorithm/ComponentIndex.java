@@ -0,0 +1,493 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The ComponentIndex class labels the connected components of the cells that aren't barriers,
+ * so whether or not two cells are connected can be answered without a search.
+ * <p>
+ * The labels are computed in parallel, every thread labels a stripe of rows using union-find and the stripes are joined afterwards.
+ * Changed barriers are applied on the next query. A removed barrier joins the components around it in O(1) using union-find
+ * on the component ids. A new barrier only splits a component if its neighbours aren't connected around it,
+ * in that case the cells of the component are labeled again.
+ *
+ * @author Felix
+ */
+final class ComponentIndex {
+
+    //Constants
+
+    /**
+     * The label of a barrier.
+     */
+    private static final int BARRIER = -1;
+
+    /**
+     * The minimum amount of rows labeled by one thread.
+     */
+    private static final int STRIPE_ROWS = 64;
+
+    /**
+     * The x-offsets of the ring around a cell, in clockwise order.
+     */
+    private static final int[] RING_X = {-1, -1, -1, 0, 1, 1, 1, 0};
+
+    /**
+     * The y-offsets of the ring around a cell, in clockwise order.
+     */
+    private static final int[] RING_Y = {-1, 0, 1, 1, 1, 0, -1, -1};
+
+    //Attributes
+
+    /**
+     * The map to label.
+     */
+    private final GridMap map;
+
+    /**
+     * Whether or not diagonal neighbours are connected.
+     */
+    private final boolean diagonal;
+
+    /**
+     * The component id of every cell or {@link ComponentIndex#BARRIER}.
+     */
+    private final int[] labels;
+
+    /**
+     * The parent of every component id, components with the same root are connected.
+     */
+    private int[] components;
+
+    /**
+     * The amount of component ids in use.
+     */
+    private int componentCount;
+
+    /**
+     * The cells whose barrier changed since the last query.
+     */
+    private int[] changedCells = new int[16];
+
+    /**
+     * The amount of changed cells.
+     */
+    private int changedCount;
+
+    /**
+     * The new barriers that might have split their component.
+     */
+    private int[] splitCells = new int[16];
+
+    /**
+     * The amount of new barriers that might have split their component.
+     */
+    private int splitCount;
+
+    //Methods
+
+    /**
+     * Labels the components of the given map in parallel using the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @param map      the map to label.
+     * @param diagonal whether or not diagonal neighbours are connected.
+     */
+    ComponentIndex(GridMap map, boolean diagonal) {
+        this.map = map;
+        this.diagonal = diagonal;
+        this.labels = new int[map.size()];
+
+        int rows = map.getRows();
+        int columns = map.getColumns();
+        int stripeRows = Math.max(STRIPE_ROWS, rows / (4 * Runtime.getRuntime().availableProcessors()) + 1);
+        int stripes = (rows + stripeRows - 1) / stripeRows;
+
+        //Every stripe only links cells inside of it, so the stripes don't interfere
+        IntStream.range(0, stripes).parallel().forEach(stripe -> {
+            int lastRow = Math.min(rows, (stripe + 1) * stripeRows);
+            for (int x = stripe * stripeRows; x < lastRow; x++) {
+                linkRow(x, x > stripe * stripeRows);
+            }
+        });
+
+        //Join the stripes along their borders
+        for (int stripe = 1; stripe < stripes; stripe++) {
+            int x = stripe * stripeRows;
+            for (int y = 0; y < columns; y++) {
+                int cell = x * columns + y;
+                if (labels[cell] != BARRIER) {
+                    linkAbove(x, y);
+                }
+            }
+        }
+
+        //Point every cell directly to its root. Concurrent writes only shorten the chains other threads walk.
+        IntStream.range(0, labels.length).parallel().forEach(cell -> {
+            if (labels[cell] != BARRIER) {
+                labels[cell] = findCell(cell);
+            }
+        });
+
+        //The root of a component is its first cell, so it is numbered before the other cells read its id
+        components = new int[16];
+        for (int cell = 0; cell < labels.length; cell++) {
+            int root = labels[cell];
+            if (root == cell) {
+                labels[cell] = -2 - newComponent();
+            } else if (root != BARRIER) {
+                labels[cell] = labels[root] < 0 ? -2 - labels[root] : labels[root];
+            }
+        }
+        for (int cell = 0; cell < labels.length; cell++) {
+            if (labels[cell] < BARRIER) {
+                labels[cell] = -2 - labels[cell];
+            }
+        }
+    }
+
+    /**
+     * Links every cell of the row with its neighbours in the same row and, if requested, the row above.
+     *
+     * @param x     the row.
+     * @param above whether or not the cells are linked with the row above.
+     */
+    private void linkRow(int x, boolean above) {
+        int columns = map.getColumns();
+        for (int y = 0; y < columns; y++) {
+            int cell = x * columns + y;
+            if (map.isBarrier(cell)) {
+                labels[cell] = BARRIER;
+                continue;
+            }
+            labels[cell] = cell;
+            if (y > 0 && labels[cell - 1] != BARRIER) {
+                unionCells(cell, cell - 1);
+            }
+            if (above) {
+                linkAbove(x, y);
+            }
+        }
+    }
+
+    /**
+     * Links the cell with its neighbours in the row above.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     */
+    private void linkAbove(int x, int y) {
+        int columns = map.getColumns();
+        int cell = x * columns + y;
+        for (int dy = diagonal ? -1 : 0; dy <= (diagonal ? 1 : 0); dy++) {
+            int neighbourY = y + dy;
+            if (neighbourY >= 0 && neighbourY < columns && labels[cell - columns + dy] != BARRIER) {
+                unionCells(cell, cell - columns + dy);
+            }
+        }
+    }
+
+    /**
+     * Finds the root cell while the labels are built.
+     *
+     * @param cell the cell.
+     * @return the root of its tree.
+     */
+    private int findCell(int cell) {
+        while (labels[cell] != cell) {
+            cell = labels[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Joins the trees of both cells while the labels are built. The lower cell becomes the root, so every root is the first cell of its tree.
+     *
+     * @param cellA the first cell.
+     * @param cellB the second cell.
+     */
+    private void unionCells(int cellA, int cellB) {
+        int rootA = findCell(cellA);
+        int rootB = findCell(cellB);
+        if (rootA < rootB) {
+            labels[rootB] = rootA;
+        } else if (rootB < rootA) {
+            labels[rootA] = rootB;
+        }
+        labels[cellA] = Math.min(rootA, rootB);
+    }
+
+    /**
+     * Creates a new component id.
+     *
+     * @return the id.
+     */
+    private int newComponent() {
+        if (componentCount == components.length) {
+            components = Arrays.copyOf(components, componentCount * 2);
+        }
+        components[componentCount] = componentCount;
+        return componentCount++;
+    }
+
+    /**
+     * Finds the root of the component id.
+     *
+     * @param component the component id.
+     * @return the root id.
+     */
+    private int find(int component) {
+        while (components[component] != component) {
+            components[component] = components[components[component]];
+            component = components[component];
+        }
+        return component;
+    }
+
+    /**
+     * Remembers that the barrier of the cell changed, so the next query updates the labels around it.
+     *
+     * @param index the index of the changed cell.
+     */
+    void invalidate(int index) {
+        if (changedCount == changedCells.length) {
+            changedCells = Arrays.copyOf(changedCells, changedCount * 2);
+        }
+        changedCells[changedCount++] = index;
+    }
+
+    /**
+     * Whether or not a path from the start to the end cell exists.
+     * Like in the A* algorithm a path may leave a barrier at the start, but it can't enter one.
+     *
+     * @param start the index of the start cell.
+     * @param end   the index of the end cell.
+     * @return true, if both cells are connected, otherwise false.
+     */
+    boolean isReachable(int start, int end) {
+        update();
+        if (start == end) {
+            return true;
+        }
+        if (labels[end] == BARRIER) {
+            return false;
+        }
+
+        int component = find(labels[end]);
+        if (labels[start] != BARRIER) {
+            return find(labels[start]) == component;
+        }
+
+        //Check where the path could leave the start
+        int columns = map.getColumns();
+        int startX = start / columns;
+        int startY = start % columns;
+        for (int i = 0; i < RING_X.length; i++) {
+            int x = startX + RING_X[i];
+            int y = startY + RING_Y[i];
+            if ((diagonal || !isCorner(i)) && map.isInsideGrid(x, y)) {
+                int label = labels[x * columns + y];
+                if (label != BARRIER && find(label) == component) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the changed barriers to the labels and labels split components again.
+     */
+    private void update() {
+        int columns = map.getColumns();
+        for (int i = 0; i < changedCount; i++) {
+            int cell = changedCells[i];
+            boolean barrier = map.isBarrier(cell);
+            if (barrier == (labels[cell] == BARRIER)) {
+                continue;
+            }
+
+            if (barrier) {
+                labels[cell] = BARRIER;
+                if (!isRingConnected(cell)) {
+                    if (splitCount == splitCells.length) {
+                        splitCells = Arrays.copyOf(splitCells, splitCount * 2);
+                    }
+                    splitCells[splitCount++] = cell;
+                }
+                continue;
+            }
+
+            //The new cell joins every component around it
+            int component = newComponent();
+            labels[cell] = component;
+            for (int j = 0; j < RING_X.length; j++) {
+                int x = cell / columns + RING_X[j];
+                int y = cell % columns + RING_Y[j];
+                if ((diagonal || !isCorner(j)) && map.isInsideGrid(x, y) && labels[x * columns + y] != BARRIER) {
+                    int root = find(labels[x * columns + y]);
+                    int own = find(component);
+                    components[Math.max(root, own)] = Math.min(root, own);
+                }
+            }
+        }
+        changedCount = 0;
+
+        if (splitCount > 0) {
+            relabelSplitComponents();
+        }
+    }
+
+    /**
+     * Checks whether or not the neighbours of the cell are still connected without it, using only the ring of cells around it.
+     * If they are, every path through the cell can go around it, so its component didn't split.
+     * The labels are used instead of the map, so the changes of one update are checked one after another.
+     *
+     * @param cell the index of the cell.
+     * @return true, if the neighbours are connected around the cell, otherwise false.
+     */
+    private boolean isRingConnected(int cell) {
+        int columns = map.getColumns();
+        int cellX = cell / columns;
+        int cellY = cell % columns;
+        int size = RING_X.length;
+
+        boolean[] free = new boolean[size];
+        int[] groups = new int[size];
+        for (int i = 0; i < size; i++) {
+            int x = cellX + RING_X[i];
+            int y = cellY + RING_Y[i];
+            free[i] = map.isInsideGrid(x, y) && labels[x * columns + y] != BARRIER;
+            groups[i] = i;
+        }
+
+        //Consecutive ring cells touch each other, with diagonal movement the sides touch across a corner as well
+        for (int i = 0; i < size; i++) {
+            int next = (i + 1) % size;
+            int afterNext = (i + 2) % size;
+            if (free[i] && free[next]) {
+                joinGroups(groups, i, next);
+            }
+            if (diagonal && !isCorner(i) && free[i] && free[afterNext]) {
+                joinGroups(groups, i, afterNext);
+            }
+        }
+
+        //Only neighbours of the cell have to stay connected
+        int group = -1;
+        for (int i = 0; i < size; i++) {
+            if (!free[i] || !diagonal && isCorner(i)) {
+                continue;
+            }
+            int root = findGroup(groups, i);
+            if (group == -1) {
+                group = root;
+            } else if (group != root) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether or not the ring cell at the given position is a corner.
+     *
+     * @param position the position inside the ring.
+     * @return true, if the cell is a diagonal neighbour, otherwise false.
+     */
+    private static boolean isCorner(int position) {
+        return RING_X[position] != 0 && RING_Y[position] != 0;
+    }
+
+    /**
+     * Finds the group of the ring cell.
+     *
+     * @param groups   the parent of every ring cell.
+     * @param position the position inside the ring.
+     * @return the position of the root of its group.
+     */
+    private static int findGroup(int[] groups, int position) {
+        while (groups[position] != position) {
+            position = groups[position];
+        }
+        return position;
+    }
+
+    /**
+     * Joins the groups of both ring cells.
+     *
+     * @param groups    the parent of every ring cell.
+     * @param positionA the position of the first cell.
+     * @param positionB the position of the second cell.
+     */
+    private static void joinGroups(int[] groups, int positionA, int positionB) {
+        groups[findGroup(groups, positionA)] = findGroup(groups, positionB);
+    }
+
+    /**
+     * Labels the components around the new barriers that might have split them again by flooding them.
+     * Every part that is still connected gets its own new id.
+     */
+    private void relabelSplitComponents() {
+        int columns = map.getColumns();
+        int firstComponent = componentCount;
+        int[] queue = new int[64];
+
+        for (int i = 0; i < splitCount; i++) {
+            int cell = splitCells[i];
+            for (int j = 0; j < RING_X.length; j++) {
+                int x = cell / columns + RING_X[j];
+                int y = cell % columns + RING_Y[j];
+                if (!diagonal && isCorner(j) || !map.isInsideGrid(x, y)) {
+                    continue;
+                }
+
+                //Cells labeled by this method were already flooded
+                int seed = x * columns + y;
+                if (labels[seed] == BARRIER || labels[seed] >= firstComponent) {
+                    continue;
+                }
+
+                int component = newComponent();
+                int tail = 0;
+                queue[tail++] = seed;
+                labels[seed] = component;
+                for (int head = 0; head < tail; head++) {
+                    int current = queue[head];
+                    int currentX = current / columns;
+                    int currentY = current % columns;
+                    for (int k = 0; k < RING_X.length; k++) {
+                        if (!diagonal && isCorner(k)) continue;
+                        int neighbourX = currentX + RING_X[k];
+                        int neighbourY = currentY + RING_Y[k];
+                        if (!map.isInsideGrid(neighbourX, neighbourY)) continue;
+                        int neighbour = neighbourX * columns + neighbourY;
+                        if (labels[neighbour] == BARRIER || labels[neighbour] >= firstComponent) continue;
+
+                        labels[neighbour] = component;
+                        if (tail == queue.length) {
+                            queue = Arrays.copyOf(queue, queue.length * 2);
+                        }
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+        }
+        splitCount = 0;
+    }
+
+    /**
+     * Whether or not diagonal neighbours are connected.
+     *
+     * @return true, if diagonal movement is allowed, otherwise false.
+     */
+    boolean isDiagonal() {
+        return diagonal;
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The CooperativePlanner class moves many agents through a map without collisions, using windowed hierarchical
+ * cooperative A* (WHCA*). The agents plan one after another with a space-time A* over (cell, time step) and reserve
+ * every planned cell in a shared {@link ReservationTable}, so later agents plan around them. An agent never enters a cell
+ * another agent reserved for the same time step and never swaps its cell with another agent.
+ * <p>
+ * An agent only plans the next {@link CooperativePlanner#getWindow()} time steps, so the searches stay small,
+ * and plans again after half of the window. The remaining costs beyond the window are taken from a {@link FlowField}
+ * of the goal, which is exact and shared by every agent heading to the same goal. Waiting costs as much as a horizontal step,
+ * except at the goal.
+ * <p>
+ * Whenever the window moves on, every agent keeps standing at the end of its plan, so each agent always holds its cells
+ * for the whole window. Its last plan therefore stays possible while the others plan, and no plan ever runs into an agent
+ * whose plan ended. Like every windowed planner it isn't complete: agents facing each other in a dead end wait forever.
+ * <p>
+ * The map mustn't change while planning, not thread-safe.
+ *
+ * @author Felix
+ */
+public final class CooperativePlanner {
+
+    //Constants
+
+    /**
+     * The default amount of time steps an agent plans ahead.
+     */
+    public static final int DEFAULT_WINDOW = 16;
+
+    /**
+     * The largest window, which keeps the space-time search small.
+     */
+    public static final int MAX_WINDOW = 64;
+
+    /**
+     * The costs of waiting for a time step outside of the goal.
+     */
+    static final int WAIT_COST = Pathfinder.HORIZONTAL_COST;
+
+    //Attributes
+
+    /**
+     * The map the agents move in.
+     */
+    private final GridMap map;
+
+    /**
+     * Whether or not diagonal steps are allowed.
+     */
+    private final boolean diagonal;
+
+    /**
+     * The amount of time steps an agent plans ahead.
+     */
+    private final int window;
+
+    /**
+     * The amount of time steps after which an agent plans again.
+     */
+    private final int interval;
+
+    /**
+     * The cells reserved by the agents.
+     */
+    private final ReservationTable reservations;
+
+    /**
+     * The flow field of every goal, shared by the agents heading to it.
+     */
+    private final Map<Integer, FlowField> fields = new HashMap<>();
+
+    /**
+     * The state of the space-time search, indexed by {@link CooperativePlanner#state(int, int, int)}.
+     */
+    private final SearchContext context;
+
+    /**
+     * The current time step.
+     */
+    private int time;
+
+    /**
+     * The amount of agents.
+     */
+    private int agentCount;
+
+    /**
+     * The cell of every agent.
+     */
+    private int[] positions = new int[16];
+
+    /**
+     * The goal of every agent.
+     */
+    private FlowField[] goals = new FlowField[16];
+
+    /**
+     * The planned cells of every agent, one per time step starting at the time of the plan.
+     * Has room for the cells added while the agent keeps standing at the end of its plan.
+     */
+    private int[][] plans = new int[16][];
+
+    /**
+     * The amount of planned cells of every agent.
+     */
+    private int[] planLengths = new int[16];
+
+    /**
+     * The time step every plan starts at.
+     */
+    private int[] planTimes = new int[16];
+
+    /**
+     * The time step at which every agent plans again.
+     */
+    private int[] replanTimes = new int[16];
+
+    /**
+     * The amount of plans made.
+     */
+    private long planCount;
+
+    //Methods
+
+    /**
+     * Creates a new planner with a window of {@link CooperativePlanner#DEFAULT_WINDOW} time steps.
+     *
+     * @param snapshot the map the agents move in.
+     * @param diagonal whether or not diagonal steps are allowed.
+     */
+    public CooperativePlanner(GridSnapshot snapshot, boolean diagonal) {
+        this(snapshot, diagonal, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates a new planner.
+     *
+     * @param snapshot the map the agents move in.
+     * @param diagonal whether or not diagonal steps are allowed.
+     * @param window   the amount of time steps an agent plans ahead.
+     * @throws IllegalArgumentException if the window is lower than 1 or greater than {@link CooperativePlanner#MAX_WINDOW}.
+     */
+    public CooperativePlanner(GridSnapshot snapshot, boolean diagonal, int window) {
+        if (window < 1 || window > MAX_WINDOW) {
+            throw new IllegalArgumentException("The window has to be between 1 and " + MAX_WINDOW + "!");
+        }
+        this.map = snapshot;
+        this.diagonal = diagonal;
+        this.window = window;
+        this.interval = Math.max(1, window / 2);
+        this.reservations = new ReservationTable(window + 1);
+
+        //An agent moves at most one cell per time step, so its search never leaves the square around its cell
+        int side = 2 * window + 1;
+        this.context = new SearchContext(side * side * (window + 1));
+    }
+
+    /**
+     * Adds an agent at the current time. It stays on its cell until it planned in the next {@link CooperativePlanner#step()}.
+     *
+     * @param startX the x-coordinate of the cell of the agent.
+     * @param startY the y-coordinate of the cell of the agent.
+     * @param goalX  the x-coordinate of the goal.
+     * @param goalY  the y-coordinate of the goal.
+     * @return the id of the agent, the agents are numbered from 0 in the order they were added.
+     * @throws IllegalArgumentException if a cell is outside of the grid or another agent reserved the start inside the window.
+     */
+    public int addAgent(int startX, int startY, int goalX, int goalY) {
+        if (!map.isInsideGrid(startX, startY) || !map.isInsideGrid(goalX, goalY)) {
+            throw new IllegalArgumentException("Start and goal have to be inside the grid!");
+        }
+        int start = map.index(startX, startY);
+        for (int t = 0; t <= window; t++) {
+            if (reservations.getAgent(start, time + t) != ReservationTable.FREE) {
+                throw new IllegalArgumentException("The cell " + startX + "/" + startY + " is reserved by another agent!");
+            }
+        }
+        if (agentCount == positions.length) {
+            int capacity = agentCount * 2;
+            positions = Arrays.copyOf(positions, capacity);
+            goals = Arrays.copyOf(goals, capacity);
+            plans = Arrays.copyOf(plans, capacity);
+            planLengths = Arrays.copyOf(planLengths, capacity);
+            planTimes = Arrays.copyOf(planTimes, capacity);
+            replanTimes = Arrays.copyOf(replanTimes, capacity);
+        }
+
+        //Hold the cell for the whole window, so agents planning earlier don't run into it
+        int agent = agentCount++;
+        int[] plan = new int[window + 1 + interval];
+        for (int t = 0; t <= window; t++) {
+            reservations.reserve(start, time + t, agent);
+            plan[t] = start;
+        }
+        positions[agent] = start;
+        goals[agent] = fields.computeIfAbsent(map.index(goalX, goalY), goal -> FlowField.compute(map, goalX, goalY, diagonal));
+        plans[agent] = plan;
+        planLengths[agent] = window + 1;
+        planTimes[agent] = time;
+        replanTimes[agent] = time;
+        return agent;
+    }
+
+    /**
+     * Lets every agent whose plan is due plan again, in the order they were added, then moves every agent one time step along its plan.
+     */
+    public void step() {
+        for (int agent = 0; agent < agentCount; agent++) {
+            if (time >= replanTimes[agent]) {
+                plan(agent);
+            }
+        }
+
+        time++;
+        reservations.advance(time);
+        for (int agent = 0; agent < agentCount; agent++) {
+            int[] plan = plans[agent];
+            int length = planLengths[agent];
+            positions[agent] = plan[Math.min(time - planTimes[agent], length - 1)];
+
+            //Nobody planned beyond the old window yet, so the last cell is still free at the new end of the window
+            if (planTimes[agent] + length - 1 == time + window - 1 && length < plan.length
+                    && reservations.reserve(plan[length - 1], time + window, agent)) {
+                plan[length] = plan[length - 1];
+                planLengths[agent]++;
+            }
+        }
+    }
+
+    /**
+     * Replaces the remaining plan of the agent by a new one for the next window.
+     *
+     * @param agent the agent.
+     */
+    private void plan(int agent) {
+        //Release the old plan, so the search doesn't run into the agent itself
+        int[] plan = plans[agent];
+        for (int t = time - planTimes[agent]; t < planLengths[agent]; t++) {
+            reservations.release(plan[t], planTimes[agent] + t, agent);
+        }
+
+        //The old plan is still possible, so the search always reaches the end of the window
+        int[] cells = search(agent);
+        for (int t = 0; t < cells.length; t++) {
+            reservations.reserve(cells[t], time + t, agent);
+        }
+        System.arraycopy(cells, 0, plan, 0, cells.length);
+        planLengths[agent] = cells.length;
+        planTimes[agent] = time;
+        replanTimes[agent] = time + Math.max(1, Math.min(interval, cells.length - 1));
+        planCount++;
+    }
+
+    /**
+     * Searches the cheapest way for the agent through the window with A* over (cell, time step). The costs of a state are
+     * its costs inside the window plus the costs of its cell in the flow field of the goal, so the agent heads to the goal.
+     *
+     * @param agent the agent.
+     * @return the cells of the agent for every time step, starting with its current cell. Shorter than the window,
+     * if other agents block every way, then it ends at the deepest reachable state.
+     */
+    private int[] search(int agent) {
+        int columns = map.getColumns();
+        int start = positions[agent];
+        int startX = start / columns;
+        int startY = start % columns;
+        FlowField goal = goals[agent];
+        int goalIndex = goal.getGoalX() * columns + goal.getGoalY();
+        TerrainCosts costs = TerrainCosts.of(map);
+
+        context.reset();
+        OpenList open = context.getOpenList();
+        int startState = state(0, 0, 0);
+        int startH = Math.max(0, goal.getCost(startX, startY));
+        context.reach(startState, 0, SearchContext.NO_PARENT);
+        open.add(startState, startH);
+        int deepest = startState;
+        int deepestF = startH;
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            context.close(current);
+            int t = current % (window + 1);
+            int dx = current / (window + 1) / (2 * window + 1) - window;
+            int dy = current / (window + 1) % (2 * window + 1) - window;
+            int currentX = startX + dx;
+            int currentY = startY + dy;
+            int cell = currentX * columns + currentY;
+            int currentG = context.getgCost(current);
+            int currentF = currentG + Math.max(0, goal.getCost(currentX, currentY));
+            if (t > timeOf(deepest) || t == timeOf(deepest) && currentF < deepestF) {
+                deepest = current;
+                deepestF = currentF;
+            }
+            if (t == window) {
+                break;
+            }
+
+            //Waiting is the step to the own cell, which is possible even on a barrier the agent has to leave
+            int barriers = map.getNeighbourBarriers(currentX, currentY) & ~(1 << 4);
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (!diagonal && x != 0 && y != 0) continue;
+                    if ((barriers & 1 << (x + 1) * 3 + y + 1) != 0) continue;
+                    int neighbourX = currentX + x;
+                    int neighbourY = currentY + y;
+                    int neighbour = cell + x * columns + y;
+                    int h = goal.getCost(neighbourX, neighbourY);
+                    if (h < 0 && neighbour != start) continue;
+
+                    //Skip cells taken by other agents and swaps with the agent coming from the neighbour
+                    int nextTime = time + t + 1;
+                    if (reservations.isReserved(neighbour, nextTime, agent)) continue;
+                    int owner = reservations.getAgent(neighbour, nextTime - 1);
+                    if (neighbour != cell && owner != ReservationTable.FREE && owner != agent && reservations.getAgent(cell, nextTime) == owner) {
+                        continue;
+                    }
+
+                    int next = state(dx + x, dy + y, t + 1);
+                    if (context.isClosed(next)) continue;
+                    int stepCost;
+                    if (neighbour == cell) {
+                        stepCost = cell == goalIndex ? 0 : WAIT_COST;
+                    } else {
+                        stepCost = x != 0 && y != 0 ? Pathfinder.DIAGONAL_COST : Pathfinder.HORIZONTAL_COST;
+                        stepCost = costs != null ? costs.getStepCost(stepCost, cell, neighbour) : stepCost;
+                    }
+                    int newGCost = currentG + stepCost;
+                    if (newGCost >= context.getgCost(next)) continue;
+
+                    context.reach(next, newGCost, current);
+                    int f = newGCost + Math.max(0, h);
+                    if (open.contains(next)) {
+                        open.decreaseKey(next, f);
+                    } else {
+                        open.add(next, f);
+                    }
+                }
+            }
+        }
+
+        int[] plan = new int[timeOf(deepest) + 1];
+        for (int current = deepest; current != SearchContext.NO_PARENT; current = context.getParent(current)) {
+            int dx = current / (window + 1) / (2 * window + 1) - window;
+            int dy = current / (window + 1) % (2 * window + 1) - window;
+            plan[timeOf(current)] = (startX + dx) * columns + startY + dy;
+        }
+        return plan;
+    }
+
+    /**
+     * Gives the index of a state of the space-time search.
+     *
+     * @param dx the x-offset of the cell to the cell of the agent.
+     * @param dy the y-offset of the cell to the cell of the agent.
+     * @param t  the time step relative to the current time.
+     * @return the index of the state.
+     */
+    private int state(int dx, int dy, int t) {
+        return ((dx + window) * (2 * window + 1) + dy + window) * (window + 1) + t;
+    }
+
+    /**
+     * Gives the time step of a state of the space-time search.
+     *
+     * @param state the index of the state.
+     * @return the time step relative to the current time.
+     */
+    private int timeOf(int state) {
+        return state % (window + 1);
+    }
+
+    /**
+     * Gives the x-coordinate of the cell of the agent.
+     *
+     * @param agent the agent.
+     * @return the x-coordinate.
+     */
+    public int getX(int agent) {
+        return positions[checkAgent(agent)] / map.getColumns();
+    }
+
+    /**
+     * Gives the y-coordinate of the cell of the agent.
+     *
+     * @param agent the agent.
+     * @return the y-coordinate.
+     */
+    public int getY(int agent) {
+        return positions[checkAgent(agent)] % map.getColumns();
+    }
+
+    /**
+     * Whether or not the agent stands on its goal.
+     *
+     * @param agent the agent.
+     * @return true, if the agent arrived, otherwise false.
+     */
+    public boolean isAtGoal(int agent) {
+        FlowField goal = goals[checkAgent(agent)];
+        return positions[agent] == goal.getGoalX() * map.getColumns() + goal.getGoalY();
+    }
+
+    /**
+     * Whether or not every agent stands on its goal.
+     *
+     * @return true, if all agents arrived, otherwise false.
+     */
+    public boolean isFinished() {
+        for (int agent = 0; agent < agentCount; agent++) {
+            if (!isAtGoal(agent)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives the remaining plan of the agent.
+     *
+     * @param agent the agent.
+     * @return the indices of the cells of the agent from the current time step on, one per time step.
+     */
+    public int[] getPlan(int agent) {
+        int length = planLengths[checkAgent(agent)];
+        return Arrays.copyOfRange(plans[agent], Math.min(time - planTimes[agent], length - 1), length);
+    }
+
+    /**
+     * Checks whether or not the agent exists.
+     *
+     * @param agent the agent.
+     * @return the agent.
+     * @throws IllegalArgumentException if the agent wasn't added.
+     */
+    private int checkAgent(int agent) {
+        if (agent < 0 || agent >= agentCount) {
+            throw new IllegalArgumentException("There is no agent " + agent + "!");
+        }
+        return agent;
+    }
+
+    /**
+     * Gives the amount of agents.
+     *
+     * @return the amount of agents.
+     */
+    public int getAgentCount() {
+        return agentCount;
+    }
+
+    /**
+     * Gives the current time step.
+     *
+     * @return the time.
+     */
+    public int getTime() {
+        return time;
+    }
+
+    /**
+     * Gives the amount of time steps an agent plans ahead.
+     *
+     * @return the window.
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * Gives the amount of plans made so far.
+     *
+     * @return the amount of plans.
+     */
+    public long getPlanCount() {
+        return planCount;
+    }
+
+    /**
+     * Gives the reservations of all agents.
+     *
+     * @return the reservation table.
+     */
+    public ReservationTable getReservations() {
+        return reservations;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The CountingOpenList class wraps an open list and counts its operations for the {@link SearchStats}.
+ * It is only used while statistics are collected, so searches without statistics call the open list directly.
+ *
+ * @author Felix
+ */
+final class CountingOpenList implements OpenList {
+
+    //Attributes
+
+    /**
+     * The wrapped open list.
+     */
+    private final OpenList delegate;
+
+    /**
+     * The amount of added cells.
+     */
+    private long pushes;
+
+    /**
+     * The amount of polled cells.
+     */
+    private long pops;
+
+    /**
+     * The amount of decreased priorities.
+     */
+    private long decreasedKeys;
+
+    /**
+     * The highest amount of cells inside the open list at once.
+     */
+    private int peakSize;
+
+    //Methods
+
+    /**
+     * Creates a new counting open list.
+     *
+     * @param delegate the open list to wrap.
+     */
+    CountingOpenList(OpenList delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void add(int index, int priority) {
+        delegate.add(index, priority);
+        pushes++;
+        peakSize = Math.max(peakSize, delegate.size());
+    }
+
+    @Override
+    public void decreaseKey(int index, int priority) {
+        delegate.decreaseKey(index, priority);
+        decreasedKeys++;
+    }
+
+    @Override
+    public boolean contains(int index) {
+        return delegate.contains(index);
+    }
+
+    @Override
+    public int poll() {
+        pops++;
+        return delegate.poll();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    /**
+     * Adds the operations of a queue that isn't wrapped, like the queue of D* Lite.
+     *
+     * @param pushes        the amount of added cells.
+     * @param pops          the amount of removed cells.
+     * @param decreasedKeys the amount of changed priorities.
+     * @param peakSize      the highest amount of cells inside the queue at once.
+     */
+    void addCounters(long pushes, long pops, long decreasedKeys, int peakSize) {
+        this.pushes += pushes;
+        this.pops += pops;
+        this.decreasedKeys += decreasedKeys;
+        this.peakSize = Math.max(this.peakSize, peakSize);
+    }
+
+    /**
+     * Sets all counters to 0.
+     */
+    void clearCounters() {
+        pushes = 0;
+        pops = 0;
+        decreasedKeys = 0;
+        peakSize = 0;
+    }
+
+    /**
+     * Gives the wrapped open list.
+     *
+     * @return the open list.
+     */
+    OpenList getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Gives the amount of added cells.
+     *
+     * @return the amount of pushes.
+     */
+    long getPushes() {
+        return pushes;
+    }
+
+    /**
+     * Gives the amount of polled cells.
+     *
+     * @return the amount of pops.
+     */
+    long getPops() {
+        return pops;
+    }
+
+    /**
+     * Gives the amount of decreased priorities.
+     *
+     * @return the amount of decrease-key operations.
+     */
+    long getDecreasedKeys() {
+        return decreasedKeys;
+    }
+
+    /**
+     * Gives the highest amount of cells inside the open list at once.
+     *
+     * @return the peak size.
+     */
+    int getPeakSize() {
+        return peakSize;
+    }
+}
@@ -0,0 +1,504 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * The DStarLite class contains the D* Lite algorithm, an incremental version of A* that keeps its search between calls.
+ * <p>
+ * It searches backwards from the end cell, so every cell knows its cost to the end. After barriers changed,
+ * only the cells around them are updated and the changes are propagated as far as costs actually change.
+ * A moved start cell only shifts the priorities by the distance it moved instead of invalidating the search.
+ * Only changing the end cell starts a new search.
+ * <p>
+ * Like the A* algorithm a path may leave a barrier at the start, but it can't enter one.
+ * Changed {@link TerrainCosts terrain costs} are repaired like changed barriers, unless the lowest multiplier changed,
+ * which changes the heuristic and starts a new search.
+ *
+ * @author Felix
+ */
+final class DStarLite {
+
+    //Constants
+
+    /**
+     * The cost of a cell without a way to the end.
+     */
+    private static final int INFINITE = SearchContext.UNREACHED;
+
+    /**
+     * The end cell before the first search.
+     */
+    private static final int NONE = -1;
+
+    //Attributes
+
+    /**
+     * The map to search.
+     */
+    private final GridMap map;
+
+    /**
+     * Whether or not diagonal steps are allowed.
+     */
+    private final boolean diagonal;
+
+    /**
+     * The cost from every cell to the end, as far as it was computed.
+     */
+    private final int[] gCosts;
+
+    /**
+     * The cost from every cell to the end, computed from the costs of its neighbours. A cell is consistent if both costs match.
+     */
+    private final int[] rhsCosts;
+
+    /**
+     * The inconsistent cells, ordered by their key.
+     */
+    private final IndexedLongHeap open;
+
+    /**
+     * The cells whose barrier changed since the last search.
+     */
+    private int[] changedCells = new int[16];
+
+    /**
+     * The amount of changed cells.
+     */
+    private int changedCount;
+
+    /**
+     * The end cell of the current search.
+     */
+    private int goal = NONE;
+
+    /**
+     * The start cell of the last search.
+     */
+    private int start;
+
+    /**
+     * The sum of the distances the start cell moved, added to all new keys so the old keys stay lower bounds.
+     */
+    private int keyModifier;
+
+    /**
+     * The terrain costs of the map, null if every step costs the HORIZONTAL_COST or DIAGONAL_COST.
+     */
+    private TerrainCosts costs;
+
+    /**
+     * The factor of the heuristic, i.e. the lowest multiplier of the terrain costs.
+     */
+    private int scale = 1;
+
+    /**
+     * The amount of cells expanded by the last search.
+     */
+    private int expansions;
+
+    /**
+     * The amount of cells added to the queue by the last search.
+     */
+    private long pushes;
+
+    /**
+     * The amount of cells removed from the queue by the last search.
+     */
+    private long pops;
+
+    /**
+     * The amount of changed keys of queued cells by the last search.
+     */
+    private long keyUpdates;
+
+    /**
+     * The highest amount of queued cells during the last search.
+     */
+    private int peakSize;
+
+    //Methods
+
+    /**
+     * Creates a new planner for the given map.
+     *
+     * @param map      the map to search.
+     * @param diagonal whether or not diagonal steps are allowed.
+     */
+    DStarLite(GridMap map, boolean diagonal) {
+        this.map = map;
+        this.diagonal = diagonal;
+        this.gCosts = new int[map.size()];
+        this.rhsCosts = new int[map.size()];
+        this.open = new IndexedLongHeap(map.size());
+    }
+
+    /**
+     * Remembers that the barrier of the cell changed, so the next search repairs the costs around it.
+     *
+     * @param index the index of the changed cell.
+     */
+    void invalidate(int index) {
+        if (goal == NONE) {
+            return;
+        }
+        if (changedCount == changedCells.length) {
+            changedCells = Arrays.copyOf(changedCells, changedCount * 2);
+        }
+        changedCells[changedCount++] = index;
+    }
+
+    /**
+     * Tries to find the shortest path between the start and the end cell, reusing the last search if the end cell didn't change.
+     * If a path was found, the context contains exactly the cells of the path, so it can be retraced using {@link SearchContext#tracePath(int, int, int)}.
+     *
+     * @param context  the context to store the path in.
+     * @param start    the index of the start cell.
+     * @param end      the index of the end cell.
+     * @param observer the observer to inform about the cells of the path, may be null.
+     * @return true, if a path was found, otherwise false.
+     */
+    boolean search(SearchContext context, int start, int end, SearchObserver observer) {
+        long closedCount = context.getClosedCount();
+        long generatedCount = context.getGeneratedCount();
+        expansions = 0;
+        pushes = 0;
+        pops = 0;
+        keyUpdates = 0;
+        peakSize = open.size();
+        try {
+            return plan(context, start, end, observer);
+        } finally {
+            //Storing the path closes only its cells, the statistics of the context count the work of the planner instead
+            context.setStatistics(closedCount + expansions, generatedCount + pushes);
+            CountingOpenList counting = context.getCountingOpenList();
+            if (counting != null) {
+                counting.addCounters(pushes, pops, keyUpdates, peakSize);
+            }
+        }
+    }
+
+    /**
+     * Repairs the costs around the changed cells, expands inconsistent cells and stores the path.
+     *
+     * @param context  the context to store the path in.
+     * @param start    the index of the start cell.
+     * @param end      the index of the end cell.
+     * @param observer the observer to inform about the cells of the path, may be null.
+     * @return true, if a path was found, otherwise false.
+     */
+    private boolean plan(SearchContext context, int start, int end, SearchObserver observer) {
+        costs = TerrainCosts.of(map);
+        int newScale = costs != null ? costs.getMinMultiplier() : 1;
+        if (end != goal || newScale != scale) {
+            //The keys of a different heuristic can't be compared
+            scale = newScale;
+            initialize(start, end);
+        } else if (start != this.start) {
+            //Keys of the queued cells were computed for the old start cell
+            keyModifier += heuristic(this.start, start);
+            this.start = start;
+        }
+
+        //Repair the costs of every cell that has a step into a changed cell
+        for (int i = 0; i < changedCount; i++) {
+            int changed = changedCells[i];
+            int columns = map.getColumns();
+            int changedX = changed / columns;
+            int changedY = changed % columns;
+            if (changed != goal) {
+                rhsCosts[changed] = lookahead(changed);
+                updateCell(changed);
+            }
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (x == 0 && y == 0) continue;
+                    if (!diagonal && x != 0 && y != 0) continue;
+                    if (!map.isInsideGrid(changedX + x, changedY + y)) continue;
+                    int neighbour = (changedX + x) * columns + changedY + y;
+                    if (neighbour != goal) {
+                        rhsCosts[neighbour] = lookahead(neighbour);
+                        updateCell(neighbour);
+                    }
+                }
+            }
+        }
+        changedCount = 0;
+
+        computeShortestPath(context);
+        if (rhsCosts[start] == INFINITE) {
+            return false;
+        }
+        storePath(context, observer);
+        return true;
+    }
+
+    /**
+     * Forgets the last search and starts a new one towards the given end cell.
+     *
+     * @param start the index of the start cell.
+     * @param end   the index of the end cell.
+     */
+    private void initialize(int start, int end) {
+        Arrays.fill(gCosts, INFINITE);
+        Arrays.fill(rhsCosts, INFINITE);
+        open.clear();
+        changedCount = 0;
+        keyModifier = 0;
+        this.goal = end;
+        this.start = start;
+        rhsCosts[end] = 0;
+        queue(end, key(end));
+    }
+
+    /**
+     * Expands inconsistent cells until the start cell is consistent and no queued cell can change its cost.
+     * The search can be aborted between two expansions, the remaining inconsistent cells stay queued for the next search.
+     *
+     * @param context the context whose cancellation token is checked.
+     */
+    private void computeShortestPath(SearchContext context) {
+        int columns = map.getColumns();
+        while (open.peekPriority() < key(start) || rhsCosts[start] > gCosts[start]) {
+            if ((expansions & SearchContext.CHECK_INTERVAL - 1) == 0) {
+                context.checkCancellation();
+            }
+            int current = open.peek();
+            long oldKey = open.peekPriority();
+            long newKey = key(current);
+            expansions++;
+
+            //The key was computed for an older start cell
+            if (oldKey < newKey) {
+                queue(current, newKey);
+                continue;
+            }
+
+            int oldGCost = gCosts[current];
+            boolean overconsistent = oldGCost > rhsCosts[current];
+            if (overconsistent) {
+                gCosts[current] = rhsCosts[current];
+                dequeue(current);
+            } else {
+                gCosts[current] = INFINITE;
+                updateCell(current);
+            }
+
+            //Cells can only step into the current cell if it isn't a barrier
+            if (map.isBarrier(current)) {
+                continue;
+            }
+
+            int currentX = current / columns;
+            int currentY = current % columns;
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (x == 0 && y == 0) continue;
+                    if (!diagonal && x != 0 && y != 0) continue;
+                    if (!map.isInsideGrid(currentX + x, currentY + y)) continue;
+                    int neighbour = (currentX + x) * columns + currentY + y;
+                    if (neighbour == goal) {
+                        continue;
+                    }
+
+                    int stepCost = stepCost(x != 0 && y != 0, neighbour, current);
+                    if (overconsistent) {
+                        //The neighbour might reach the end cheaper through the current cell
+                        int cost = gCosts[current] + stepCost;
+                        if (cost < rhsCosts[neighbour]) {
+                            rhsCosts[neighbour] = cost;
+                            updateCell(neighbour);
+                        }
+                    } else if (oldGCost != INFINITE && rhsCosts[neighbour] == oldGCost + stepCost) {
+                        //The neighbour used the old cost of the current cell
+                        rhsCosts[neighbour] = lookahead(neighbour);
+                        updateCell(neighbour);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the cheapest cost from the cell to the end through one of its neighbours.
+     *
+     * @param index the index of the cell.
+     * @return the cost or {@link DStarLite#INFINITE}.
+     */
+    private int lookahead(int index) {
+        int columns = map.getColumns();
+        int cellX = index / columns;
+        int cellY = index % columns;
+        int best = INFINITE;
+        for (int x = -1; x <= 1; x++) {
+            for (int y = -1; y <= 1; y++) {
+                if (x == 0 && y == 0) continue;
+                if (!diagonal && x != 0 && y != 0) continue;
+                if (!map.isInsideGrid(cellX + x, cellY + y)) continue;
+                int neighbour = (cellX + x) * columns + cellY + y;
+                if (map.isBarrier(neighbour) || gCosts[neighbour] == INFINITE) {
+                    continue;
+                }
+                int cost = gCosts[neighbour] + stepCost(x != 0 && y != 0, index, neighbour);
+                best = Math.min(best, cost);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Queues the cell if it is inconsistent, otherwise removes it from the queue.
+     *
+     * @param index the index of the cell.
+     */
+    private void updateCell(int index) {
+        if (gCosts[index] != rhsCosts[index]) {
+            queue(index, key(index));
+        } else {
+            dequeue(index);
+        }
+    }
+
+    /**
+     * Adds the cell to the queue or changes its key, counting the operation.
+     *
+     * @param index the index of the cell.
+     * @param key   the key of the cell.
+     */
+    private void queue(int index, long key) {
+        if (open.contains(index)) {
+            keyUpdates++;
+        } else {
+            pushes++;
+        }
+        open.update(index, key);
+        peakSize = Math.max(peakSize, open.size());
+    }
+
+    /**
+     * Removes the cell from the queue, if it is contained, counting the operation.
+     *
+     * @param index the index of the cell.
+     */
+    private void dequeue(int index) {
+        if (open.contains(index)) {
+            pops++;
+            open.remove(index);
+        }
+    }
+
+    /**
+     * Gives the key of the cell. Cells are ordered by their estimated path cost first and their cost to the end second.
+     *
+     * @param index the index of the cell.
+     * @return the key, both parts combined into one number.
+     */
+    private long key(int index) {
+        int cost = Math.min(gCosts[index], rhsCosts[index]);
+        if (cost == INFINITE) {
+            return Long.MAX_VALUE;
+        }
+        long estimate = (long) cost + heuristic(start, index) + keyModifier;
+        return estimate << 32 | cost;
+    }
+
+    /**
+     * Gives the heuristic costs between two cells.
+     *
+     * @param indexA the index of the first cell.
+     * @param indexB the index of the second cell.
+     * @return the distance between both cells.
+     */
+    private int heuristic(int indexA, int indexB) {
+        int columns = map.getColumns();
+        return Pathfinder.distance(indexA / columns, indexA % columns, indexB / columns, indexB % columns) * scale;
+    }
+
+    /**
+     * Gives the cost of a step between two neighbours, which is the same in both directions.
+     *
+     * @param diagonalStep whether or not the step is diagonal.
+     * @param from         the index of the cell the step leaves.
+     * @param to           the index of the cell the step enters.
+     * @return the cost of the step.
+     */
+    private int stepCost(boolean diagonalStep, int from, int to) {
+        int stepCost = diagonalStep ? Pathfinder.DIAGONAL_COST : Pathfinder.HORIZONTAL_COST;
+        return costs != null ? costs.getStepCost(stepCost, from, to) : stepCost;
+    }
+
+    /**
+     * Follows the cheapest neighbours from the start to the end cell and stores the path inside the context.
+     *
+     * @param context  the context to store the path in.
+     * @param observer the observer to inform about the cells of the path, may be null.
+     */
+    private void storePath(SearchContext context, SearchObserver observer) {
+        int columns = map.getColumns();
+        context.reset();
+        context.reach(start, 0, SearchContext.NO_PARENT);
+        context.close(start);
+        if (observer != null) {
+            observer.onReach(start, 0, heuristic(start, goal), SearchContext.NO_PARENT);
+        }
+
+        int current = start;
+        int gCost = 0;
+        while (current != goal) {
+            int currentX = current / columns;
+            int currentY = current % columns;
+            int next = NONE;
+            int nextCost = INFINITE;
+            int nextStep = 0;
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (x == 0 && y == 0) continue;
+                    if (!diagonal && x != 0 && y != 0) continue;
+                    if (!map.isInsideGrid(currentX + x, currentY + y)) continue;
+                    int neighbour = (currentX + x) * columns + currentY + y;
+                    if (map.isBarrier(neighbour) || gCosts[neighbour] == INFINITE) {
+                        continue;
+                    }
+                    int stepCost = stepCost(x != 0 && y != 0, current, neighbour);
+                    if (gCosts[neighbour] + stepCost < nextCost) {
+                        next = neighbour;
+                        nextCost = gCosts[neighbour] + stepCost;
+                        nextStep = stepCost;
+                    }
+                }
+            }
+
+            gCost += nextStep;
+            context.reach(next, gCost, current);
+            context.close(next);
+            if (observer != null) {
+                observer.onReach(next, gCost, heuristic(next, goal), current);
+            }
+            current = next;
+        }
+    }
+
+    /**
+     * Gives the amount of cells expanded by the last search.
+     *
+     * @return the amount of expansions.
+     */
+    int getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Whether or not diagonal steps are allowed.
+     *
+     * @return true, if diagonal movement is allowed, otherwise false.
+     */
+    boolean isDiagonal() {
+        return diagonal;
+    }
+}
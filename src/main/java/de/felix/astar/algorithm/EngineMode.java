@@ -0,0 +1,26 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The EngineMode Enum represents how a {@link Pathfinder} stores its grid.
+ *
+ * @author Felix
+ */
+public enum EngineMode {
+
+    /**
+     * Every cell is a {@link Node} object. Required for listeners, e.g. by the visualization.
+     */
+    OBJECT,
+
+    /**
+     * Every cell is stored inside flat primitive arrays of a {@link PrimitiveGrid}.
+     * {@link Node} objects are only created as views on demand.
+     */
+    PRIMITIVE
+}
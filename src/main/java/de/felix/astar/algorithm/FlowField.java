@@ -0,0 +1,387 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The FlowField class stores the costs from every cell to one goal and the direction of the next step of every cell,
+ * so any amount of units heading to the same goal only need one flood instead of one search per unit.
+ * <p>
+ * The map is flooded once backwards from the goal with Dijkstra's algorithm, which gives the integration field:
+ * the costs of the cheapest path from every cell to the goal, using the same step costs, terrain costs and movement rules as a search.
+ * Afterwards every cell points to the neighbour its cheapest path continues with. This pass only reads the integration field,
+ * so large fields split it into bands of rows and run them in parallel.
+ * <p>
+ * A direction is stored as a byte in the layout of {@link GridMap#getNeighbourBarriers(int, int)}: {@code (dx + 1) * 3 + dy + 1}.
+ * Like a search, a unit may leave a barrier cell, but never enters one. A field is immutable and can be shared between threads,
+ * it belongs to the barriers and terrain costs it was computed for.
+ *
+ * @author Felix
+ */
+public final class FlowField {
+
+    //Constants
+
+    /**
+     * The direction of the goal, which has no next step.
+     */
+    public static final byte GOAL = 4;
+
+    /**
+     * The direction of a cell that doesn't reach the goal.
+     */
+    public static final byte NONE = -1;
+
+    /**
+     * The minimal amount of cells of a field whose directions are calculated in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * The amount of bands per thread of the pool, so threads that finish early can take over work.
+     */
+    private static final int BANDS_PER_THREAD = 4;
+
+    //Attributes
+
+    /**
+     * The amount of rows of the map.
+     */
+    private final int rows;
+
+    /**
+     * The amount of columns of the map.
+     */
+    private final int columns;
+
+    /**
+     * The index of the goal.
+     */
+    private final int goal;
+
+    /**
+     * Whether or not the field was computed with diagonal movement.
+     */
+    private final boolean diagonal;
+
+    /**
+     * The costs from every cell to the goal, {@link SearchContext#UNREACHED} for cells that don't reach it.
+     */
+    private final int[] costs;
+
+    /**
+     * The direction of the next step of every cell.
+     */
+    private final byte[] directions;
+
+    //Methods
+
+    /**
+     * Creates a new field.
+     *
+     * @param rows       the amount of rows.
+     * @param columns    the amount of columns.
+     * @param goal       the index of the goal.
+     * @param diagonal   whether or not the field was computed with diagonal movement.
+     * @param costs      the costs of every cell.
+     * @param directions the direction of every cell.
+     */
+    private FlowField(int rows, int columns, int goal, boolean diagonal, int[] costs, byte[] directions) {
+        this.rows = rows;
+        this.columns = columns;
+        this.goal = goal;
+        this.diagonal = diagonal;
+        this.costs = costs;
+        this.directions = directions;
+    }
+
+    /**
+     * Computes the field of the given goal using the common {@link ForkJoinPool}.
+     *
+     * @param map      the map.
+     * @param goalX    the x-coordinate of the goal.
+     * @param goalY    the y-coordinate of the goal.
+     * @param diagonal whether or not diagonal steps are allowed.
+     * @return the field.
+     */
+    public static FlowField compute(GridMap map, int goalX, int goalY, boolean diagonal) {
+        return compute(map, goalX, goalY, diagonal, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the field of the given goal. Fields with at least {@link FlowField#PARALLEL_THRESHOLD} cells calculate
+     * their directions in the given pool, smaller ones in the calling thread.
+     *
+     * @param map      the map.
+     * @param goalX    the x-coordinate of the goal.
+     * @param goalY    the y-coordinate of the goal.
+     * @param diagonal whether or not diagonal steps are allowed.
+     * @param pool     the pool to calculate the directions in.
+     * @return the field.
+     * @throws IllegalArgumentException if the goal is outside of the grid.
+     */
+    public static FlowField compute(GridMap map, int goalX, int goalY, boolean diagonal, ForkJoinPool pool) {
+        if (!map.isInsideGrid(goalX, goalY)) {
+            throw new IllegalArgumentException("The goal has to be inside the grid!");
+        }
+        int rows = map.getRows();
+        int goal = map.index(goalX, goalY);
+        int[] costs = integrate(map, goal, diagonal);
+        byte[] directions = new byte[map.size()];
+
+        if (map.size() < PARALLEL_THRESHOLD || pool.getParallelism() == 1) {
+            point(map, costs, directions, goal, diagonal, 0, rows);
+        } else {
+            //Every band writes its own rows and only reads costs of free cells, which no band writes
+            int bands = Math.min(rows, pool.getParallelism() * BANDS_PER_THREAD);
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(bands);
+            for (int band = 0; band < bands; band++) {
+                int fromX = (int) ((long) rows * band / bands);
+                int toX = (int) ((long) rows * (band + 1) / bands);
+                tasks.add(pool.submit(() -> point(map, costs, directions, goal, diagonal, fromX, toX)));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+        return new FlowField(rows, map.getColumns(), goal, diagonal, costs, directions);
+    }
+
+    /**
+     * Calculates the costs between the source and every cell using Dijkstra's algorithm.
+     * The costs of a step are the same in both directions, so they are the costs to the source as well.
+     * Barrier cells aren't entered, a barrier source doesn't reach any other cell.
+     *
+     * @param map      the map.
+     * @param source   the index of the source.
+     * @param diagonal whether or not diagonal steps are allowed.
+     * @return the costs of every cell, {@link SearchContext#UNREACHED} for cells that aren't connected to the source.
+     */
+    static int[] integrate(GridMap map, int source, boolean diagonal) {
+        int columns = map.getColumns();
+        int size = map.size();
+        TerrainCosts terrainCosts = TerrainCosts.of(map);
+        int[] costs = new int[size];
+        Arrays.fill(costs, SearchContext.UNREACHED);
+        costs[source] = 0;
+        if (map.isBarrier(source)) {
+            return costs;
+        }
+
+        //The costs are polled in ascending order, so a radix heap fits
+        OpenList open = new RadixHeap(size);
+        open.add(source, 0);
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            int currentX = current / columns;
+            int currentY = current % columns;
+            int currentCost = costs[current];
+            int barriers = map.getNeighbourBarriers(currentX, currentY);
+
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (x == 0 && y == 0) continue;
+                    if (!diagonal && x != 0 && y != 0) continue;
+                    if ((barriers & 1 << (x + 1) * 3 + y + 1) != 0) continue;
+
+                    int neighbour = (currentX + x) * columns + currentY + y;
+                    int stepCost = x != 0 && y != 0 ? Pathfinder.DIAGONAL_COST : Pathfinder.HORIZONTAL_COST;
+                    int newCost = currentCost + (terrainCosts != null ? terrainCosts.getStepCost(stepCost, current, neighbour) : stepCost);
+                    if (newCost >= costs[neighbour]) {
+                        continue;
+                    }
+                    boolean contained = costs[neighbour] != SearchContext.UNREACHED;
+                    costs[neighbour] = newCost;
+                    if (contained) {
+                        open.decreaseKey(neighbour, newCost);
+                    } else {
+                        open.add(neighbour, newCost);
+                    }
+                }
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Points every cell of the given rows to its cheapest free neighbour. Barrier cells get the costs of leaving them,
+     * as they are never entered, no other cell reads them.
+     *
+     * @param map        the map.
+     * @param costs      the integration field.
+     * @param directions receives the directions.
+     * @param goal       the index of the goal.
+     * @param diagonal   whether or not diagonal steps are allowed.
+     * @param fromX      the first row, inclusive.
+     * @param toX        the last row, exclusive.
+     */
+    private static void point(GridMap map, int[] costs, byte[] directions, int goal, boolean diagonal, int fromX, int toX) {
+        int columns = map.getColumns();
+        TerrainCosts terrainCosts = TerrainCosts.of(map);
+        for (int currentX = fromX; currentX < toX; currentX++) {
+            for (int currentY = 0; currentY < columns; currentY++) {
+                int current = currentX * columns + currentY;
+                if (current == goal) {
+                    directions[current] = GOAL;
+                    continue;
+                }
+
+                //Ties keep the first neighbour from the top left to the bottom right
+                int barriers = map.getNeighbourBarriers(currentX, currentY);
+                int best = SearchContext.UNREACHED;
+                byte direction = NONE;
+                for (int x = -1; x <= 1; x++) {
+                    for (int y = -1; y <= 1; y++) {
+                        if (x == 0 && y == 0) continue;
+                        if (!diagonal && x != 0 && y != 0) continue;
+                        int bit = (x + 1) * 3 + y + 1;
+                        if ((barriers & 1 << bit) != 0) continue;
+
+                        int neighbour = current + x * columns + y;
+                        if (costs[neighbour] == SearchContext.UNREACHED) continue;
+                        int stepCost = x != 0 && y != 0 ? Pathfinder.DIAGONAL_COST : Pathfinder.HORIZONTAL_COST;
+                        int cost = costs[neighbour] + (terrainCosts != null ? terrainCosts.getStepCost(stepCost, current, neighbour) : stepCost);
+                        if (cost < best) {
+                            best = cost;
+                            direction = (byte) bit;
+                        }
+                    }
+                }
+                directions[current] = direction;
+                if (map.isBarrier(current)) {
+                    costs[current] = best;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives the costs of the cheapest path from the given cell to the goal.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return the costs or -1, if the cell doesn't reach the goal.
+     */
+    public int getCost(int x, int y) {
+        int cost = costs[x * columns + y];
+        return cost == SearchContext.UNREACHED ? -1 : cost;
+    }
+
+    /**
+     * Gives the direction of the next step of the given cell.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return the direction as {@code (dx + 1) * 3 + dy + 1}, {@link FlowField#GOAL} for the goal
+     * or {@link FlowField#NONE}, if the cell doesn't reach the goal.
+     */
+    public byte getDirection(int x, int y) {
+        return directions[x * columns + y];
+    }
+
+    /**
+     * Gives the cell a unit on the given cell moves to next.
+     *
+     * @param index the index of the cell, calculated as {@code x * columns + y}.
+     * @return the index of the next cell, the goal itself for the goal or -1, if the cell doesn't reach the goal.
+     */
+    public int next(int index) {
+        byte direction = directions[index];
+        if (direction == NONE) {
+            return -1;
+        }
+        return index + (direction / 3 - 1) * columns + direction % 3 - 1;
+    }
+
+    /**
+     * Whether or not a unit on the given cell reaches the goal.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return true, if the cell is connected to the goal, otherwise false.
+     */
+    public boolean isReachable(int x, int y) {
+        return directions[x * columns + y] != NONE;
+    }
+
+    /**
+     * Follows the directions from the given cell to the goal.
+     *
+     * @param x the x-coordinate of the first cell.
+     * @param y the y-coordinate of the first cell.
+     * @return the cells to the goal or null, if the cell doesn't reach the goal.
+     */
+    public GridPath trace(int x, int y) {
+        int cell = x * columns + y;
+        if (directions[cell] == NONE) {
+            return null;
+        }
+
+        //The costs drop with every step, so the directions always end at the goal
+        int[] cells = new int[16];
+        int size = 0;
+        cells[size++] = cell;
+        while (cell != goal) {
+            cell = next(cell);
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+            }
+            cells[size++] = cell;
+        }
+        return new GridPath(Arrays.copyOf(cells, size), columns, costs[x * columns + y]);
+    }
+
+    /**
+     * Gives the x-coordinate of the goal.
+     *
+     * @return the x-coordinate.
+     */
+    public int getGoalX() {
+        return goal / columns;
+    }
+
+    /**
+     * Gives the y-coordinate of the goal.
+     *
+     * @return the y-coordinate.
+     */
+    public int getGoalY() {
+        return goal % columns;
+    }
+
+    /**
+     * Whether or not the field was computed with diagonal movement.
+     *
+     * @return true, if diagonal steps are allowed, otherwise false.
+     */
+    public boolean isDiagonal() {
+        return diagonal;
+    }
+
+    /**
+     * Gives the amount of rows of the map.
+     *
+     * @return the amount of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gives the amount of columns of the map.
+     *
+     * @return the amount of columns.
+     */
+    public int getColumns() {
+        return columns;
+    }
+}
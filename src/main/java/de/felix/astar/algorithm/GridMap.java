@@ -0,0 +1,110 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The GridMap interface represents the passability of every cell of a grid, i.e. the information the algorithm reads from the map.
+ * A cell is addressed by its index, which is calculated as {@code x * columns + y}.
+ *
+ * @author Felix
+ */
+public interface GridMap {
+
+    /**
+     * Gives the amount of rows, i.e. the range of the x-coordinate.
+     *
+     * @return the amount of rows.
+     */
+    int getRows();
+
+    /**
+     * Gives the amount of columns, i.e. the range of the y-coordinate.
+     *
+     * @return the amount of columns.
+     */
+    int getColumns();
+
+    /**
+     * Whether or not the cell at the given index is a barrier.
+     *
+     * @param index the index of the cell.
+     * @return true, if the cell cannot be entered, otherwise false.
+     */
+    boolean isBarrier(int index);
+
+    /**
+     * Whether or not the cell at the given coordinates is a barrier.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return true, if the cell cannot be entered, otherwise false.
+     */
+    default boolean isBarrier(int x, int y) {
+        return isBarrier(index(x, y));
+    }
+
+    /**
+     * Gives the barriers around the cell at the given coordinates as a mask.
+     * The neighbour at the offset (dx, dy) is the bit {@code (dx + 1) * 3 + dy + 1}, the cell itself is bit 4.
+     * Neighbours outside of the grid are set like barriers.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the mask of the blocked neighbours.
+     */
+    default int getNeighbourBarriers(int x, int y) {
+        int mask = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (!isInsideGrid(x + dx, y + dy) || isBarrier(index(x + dx, y + dy))) {
+                    mask |= 1 << (dx + 1) * 3 + dy + 1;
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Gives the movement cost multipliers of the cells, see {@link TerrainCosts}.
+     *
+     * @return the terrain costs or null, if every step costs the HORIZONTAL_COST or DIAGONAL_COST.
+     */
+    default TerrainCosts getTerrainCosts() {
+        return null;
+    }
+
+    /**
+     * Gives the index of the cell at the given coordinates.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the cell index.
+     */
+    default int index(int x, int y) {
+        return x * getColumns() + y;
+    }
+
+    /**
+     * Gives the amount of cells.
+     *
+     * @return rows times columns.
+     */
+    default int size() {
+        return getRows() * getColumns();
+    }
+
+    /**
+     * Checks whether or not the given coordinates are inside of the grid.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return true, if the point is in the grid, otherwise false.
+     */
+    default boolean isInsideGrid(int x, int y) {
+        return x >= 0 && x < getRows() && y >= 0 && y < getColumns();
+    }
+}
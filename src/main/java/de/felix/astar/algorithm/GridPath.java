@@ -0,0 +1,290 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * The GridPath class represents a found path as a packed array of cell indices, calculated as {@code x * columns + y}.
+ * It doesn't create a {@link Node} per cell and doesn't change the grid it was found in, so paths can be read without allocations.
+ * The first cell is the start and the last cell is the end. A path is immutable and can be shared between threads.
+ * <p>
+ * Consecutive cells of a path returned by a search are neighbours. {@link GridPath#waypoints()} compresses straight runs
+ * into their first and last cell, {@link GridPath#smooth(GridMap, boolean)} additionally pulls the path tight
+ * around the barriers, so consecutive cells are connected by lines of any angle.
+ *
+ * @author Felix
+ */
+public final class GridPath {
+
+    //Attributes
+
+    /**
+     * The indices of the cells of the path, the first one is the start. Never modified after construction.
+     */
+    private final int[] cells;
+
+    /**
+     * The amount of columns of the grid, to calculate the coordinates.
+     */
+    private final int columns;
+
+    /**
+     * The costs of the grid path this path was created from.
+     */
+    private final int cost;
+
+    //Methods
+
+    /**
+     * Creates a new path.
+     *
+     * @param cells   the indices of the cells, owned by the path from now on.
+     * @param columns the amount of columns of the grid.
+     * @param cost    the costs of the path.
+     */
+    GridPath(int[] cells, int columns, int cost) {
+        this.cells = cells;
+        this.columns = columns;
+        this.cost = cost;
+    }
+
+    /**
+     * Gives the amount of cells.
+     *
+     * @return the size.
+     */
+    public int size() {
+        return cells.length;
+    }
+
+    /**
+     * Gives the index of the cell at the given position, which is calculated as {@code x * columns + y}.
+     *
+     * @param position the position inside the path, 0 is the start.
+     * @return the cell index.
+     */
+    public int getIndex(int position) {
+        return cells[position];
+    }
+
+    /**
+     * Gives the x-coordinate of the cell at the given position.
+     *
+     * @param position the position inside the path, 0 is the start.
+     * @return the x-coordinate.
+     */
+    public int getX(int position) {
+        return cells[position] / columns;
+    }
+
+    /**
+     * Gives the y-coordinate of the cell at the given position.
+     *
+     * @param position the position inside the path, 0 is the start.
+     * @return the y-coordinate.
+     */
+    public int getY(int position) {
+        return cells[position] % columns;
+    }
+
+    /**
+     * Gives the costs of the grid path this path was created from, i.e. the g-cost of the end node.
+     * Compressing or smoothing a path keeps its costs, {@link GridPath#getLength()} tells how much shorter a smoothed path is.
+     *
+     * @return the costs.
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Gives the euclidean length of the lines between the centers of consecutive cells, measured in cells.
+     *
+     * @return the length.
+     */
+    public double getLength() {
+        double length = 0;
+        for (int i = 1; i < cells.length; i++) {
+            int dx = getX(i) - getX(i - 1);
+            int dy = getY(i) - getY(i - 1);
+            length += Math.sqrt(dx * dx + dy * dy);
+        }
+        return length;
+    }
+
+    /**
+     * Whether or not all consecutive cells are neighbours, which is true for every path returned by a search.
+     *
+     * @return true, if every step moves to a neighbour, otherwise false.
+     */
+    public boolean isContinuous() {
+        for (int i = 1; i < cells.length; i++) {
+            if (Math.abs(getX(i) - getX(i - 1)) > 1 || Math.abs(getY(i) - getY(i - 1)) > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the indices of all cells into a new array.
+     *
+     * @return the cell indices, the first one is the start.
+     */
+    public int[] toArray() {
+        return cells.clone();
+    }
+
+    /**
+     * Compresses straight runs, so only the start, the end and the cells where the direction changes are kept.
+     *
+     * @return the waypoints of this path.
+     */
+    public GridPath waypoints() {
+        if (cells.length <= 2) {
+            return this;
+        }
+
+        int[] waypoints = new int[cells.length];
+        int size = 0;
+        waypoints[size++] = cells[0];
+        for (int i = 1; i < cells.length - 1; i++) {
+            int inX = getX(i) - getX(i - 1);
+            int inY = getY(i) - getY(i - 1);
+            int outX = getX(i + 1) - getX(i);
+            int outY = getY(i + 1) - getY(i);
+
+            //Keep the cell, unless both lines point into the same direction
+            if (inX * outY != inY * outX || inX * outX + inY * outY <= 0) {
+                waypoints[size++] = cells[i];
+            }
+        }
+        waypoints[size++] = cells[cells.length - 1];
+        return size == cells.length ? this : new GridPath(Arrays.copyOf(waypoints, size), columns, cost);
+    }
+
+    /**
+     * Restores every cell of a path whose consecutive cells lie on a straight or diagonal line, e.g. after {@link GridPath#waypoints()}.
+     *
+     * @return the path with all cells.
+     * @throws IllegalStateException if two consecutive cells neither lie on a straight nor on a diagonal line, e.g. after smoothing.
+     */
+    public GridPath expand() {
+        int length = 1;
+        for (int i = 1; i < cells.length; i++) {
+            int dx = Math.abs(getX(i) - getX(i - 1));
+            int dy = Math.abs(getY(i) - getY(i - 1));
+            if (dx != 0 && dy != 0 && dx != dy) {
+                throw new IllegalStateException("The cells " + (i - 1) + " and " + i + " aren't connected by a straight or diagonal line!");
+            }
+            length += Math.max(dx, dy);
+        }
+        if (length == cells.length) {
+            return this;
+        }
+
+        int[] expanded = new int[length];
+        int position = 0;
+        expanded[position++] = cells[0];
+        for (int i = 1; i < cells.length; i++) {
+            int step = Integer.signum(getX(i) - getX(i - 1)) * columns + Integer.signum(getY(i) - getY(i - 1));
+            for (int cell = cells[i - 1] + step; cell != cells[i]; cell += step) {
+                expanded[position++] = cell;
+            }
+            expanded[position++] = cells[i];
+        }
+        return new GridPath(expanded, columns, cost);
+    }
+
+    /**
+     * Pulls the path tight like a string: a waypoint is skipped whenever the waypoints before and after it can see each other.
+     * The result connects its cells by lines of any angle that only cross free cells, so it is never longer than this path.
+     *
+     * @param map      the grid the path was found in.
+     * @param diagonal whether or not diagonal steps are allowed. Without them, a line passing exactly through the corner
+     *                 between two cells needs one of the cells beside the corner to be free.
+     * @return the smoothed path.
+     */
+    public GridPath smooth(GridMap map, boolean diagonal) {
+        GridPath waypoints = waypoints();
+        if (waypoints.cells.length <= 2) {
+            return waypoints;
+        }
+
+        int[] smoothed = new int[waypoints.cells.length];
+        int size = 0;
+        int anchor = waypoints.cells[0];
+        smoothed[size++] = anchor;
+        for (int i = 1; i < waypoints.cells.length - 1; i++) {
+            if (!hasLineOfSight(map, anchor, waypoints.cells[i + 1], diagonal)) {
+                anchor = waypoints.cells[i];
+                smoothed[size++] = anchor;
+            }
+        }
+        smoothed[size++] = waypoints.cells[waypoints.cells.length - 1];
+        return new GridPath(Arrays.copyOf(smoothed, size), columns, cost);
+    }
+
+    /**
+     * Checks whether or not the line between the centers of the given cells only crosses free cells.
+     * Walks through every cell the line touches, the first cell itself isn't checked, as a path may leave a barrier.
+     *
+     * @param map      the grid.
+     * @param from     the index of the first cell.
+     * @param to       the index of the last cell.
+     * @param diagonal whether or not the line may pass through the corner between two barriers.
+     * @return true, if the line doesn't touch a barrier, otherwise false.
+     */
+    static boolean hasLineOfSight(GridMap map, int from, int to, boolean diagonal) {
+        int columns = map.getColumns();
+        int x = from / columns;
+        int y = from % columns;
+        int endX = to / columns;
+        int endY = to % columns;
+        int stepX = Integer.signum(endX - x);
+        int stepY = Integer.signum(endY - y);
+        int dx = Math.abs(endX - x) * 2;
+        int dy = Math.abs(endY - y) * 2;
+
+        //The sign of the error tells whether the line leaves the current cell horizontally or vertically
+        int error = (dx - dy) / 2;
+        while (x != endX || y != endY) {
+            if (error > 0) {
+                x += stepX;
+                error -= dy;
+            } else if (error < 0) {
+                y += stepY;
+                error += dx;
+            } else {
+                //The line passes exactly through the corner of the cell
+                if (!diagonal && map.isBarrier(x + stepX, y) && map.isBarrier(x, y + stepY)) {
+                    return false;
+                }
+                x += stepX;
+                y += stepY;
+                error += dx - dy;
+            }
+            if (map.isBarrier(x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("GridPath{cost=").append(cost).append(", cells=[");
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append('(').append(getX(i)).append('/').append(getY(i)).append(')');
+        }
+        return builder.append("]}").toString();
+    }
+}
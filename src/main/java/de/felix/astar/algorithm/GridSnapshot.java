@@ -0,0 +1,475 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The GridSnapshot class represents an immutable copy of the barriers of a map.
+ * It can be shared between threads without locks, every thread searches it using its own {@link SearchContext}.
+ *
+ * @author Felix
+ */
+public final class GridSnapshot implements GridMap {
+
+    //Attributes
+
+    /**
+     * The amount of rows, i.e. the range of the x-coordinate.
+     */
+    private final int rows;
+
+    /**
+     * The amount of columns, i.e. the range of the y-coordinate.
+     */
+    private final int columns;
+
+    /**
+     * The barriers of the grid. Never modified after construction.
+     */
+    private final BitGrid barriers;
+
+    /**
+     * The movement cost multipliers of the cells, null if every cell has the multiplier 1. Never modified after construction.
+     */
+    private final TerrainCosts terrainCosts;
+
+    /**
+     * The jump distances for diagonal movement, computed on first use.
+     */
+    private volatile JumpTable diagonalJumpTable;
+
+    /**
+     * The jump distances without diagonal movement, computed on first use.
+     */
+    private volatile JumpTable straightJumpTable;
+
+    /**
+     * The cluster hierarchy for diagonal movement, computed on first use.
+     */
+    private volatile ClusterHierarchy diagonalHierarchy;
+
+    /**
+     * The cluster hierarchy without diagonal movement, computed on first use.
+     */
+    private volatile ClusterHierarchy straightHierarchy;
+
+    /**
+     * The connected components for diagonal movement, null until they are built.
+     */
+    private volatile ComponentIndex diagonalComponents;
+
+    /**
+     * The connected components without diagonal movement, null until they are built.
+     */
+    private volatile ComponentIndex straightComponents;
+
+    /**
+     * The landmarks for diagonal movement, computed on first use.
+     */
+    private volatile LandmarkTable diagonalLandmarks;
+
+    /**
+     * The landmarks without diagonal movement, computed on first use.
+     */
+    private volatile LandmarkTable straightLandmarks;
+
+    /**
+     * Gives the algorithms access to the jump tables and hierarchies.
+     */
+    private final SearchIndex searchIndex = new SnapshotIndex();
+
+    /**
+     * The contexts of finished searches that didn't pass their own context, reused by the next ones.
+     * A context is only created while all others are in use, so there are never more than concurrent searches.
+     */
+    private final ConcurrentLinkedQueue<SearchContext> workspaces = new ConcurrentLinkedQueue<>();
+
+    //Methods
+
+    /**
+     * Creates a new snapshot of the given barriers.
+     *
+     * @param barriers     the barriers, owned by the snapshot from now on.
+     * @param terrainCosts the terrain costs owned by the snapshot from now on, may be null.
+     */
+    private GridSnapshot(BitGrid barriers, TerrainCosts terrainCosts) {
+        this.rows = barriers.getRows();
+        this.columns = barriers.getColumns();
+        this.barriers = barriers;
+        this.terrainCosts = terrainCosts;
+    }
+
+    /**
+     * Creates an immutable copy of the given map.
+     *
+     * @param map the map to copy.
+     * @return the snapshot.
+     */
+    public static GridSnapshot copyOf(GridMap map) {
+        if (map instanceof GridSnapshot) {
+            return (GridSnapshot) map;
+        }
+
+        //Uniform costs don't change any step, so they aren't copied
+        TerrainCosts terrainCosts = TerrainCosts.of(map);
+        return new GridSnapshot(BitGrid.copyOf(map), terrainCosts != null ? TerrainCosts.copyOf(terrainCosts) : null);
+    }
+
+    /**
+     * Creates a new search context that is big enough to search this snapshot.
+     *
+     * @return the new context.
+     */
+    public SearchContext createWorkspace() {
+        return new SearchContext(size());
+    }
+
+    /**
+     * Labels the connected components of the snapshot in parallel, so queries between unconnected cells are answered without a search.
+     * The labels need four bytes per cell and movement mode, so they are only built when asked for.
+     *
+     * @param diagonal whether or not diagonal neighbours are connected.
+     */
+    public void buildComponentIndex(boolean diagonal) {
+        if (diagonal && diagonalComponents == null) {
+            diagonalComponents = new ComponentIndex(this, true);
+        } else if (!diagonal && straightComponents == null) {
+            straightComponents = new ComponentIndex(this, false);
+        }
+    }
+
+    /**
+     * Whether or not the connected components of the snapshot are labeled.
+     *
+     * @param diagonal whether or not diagonal neighbours are connected.
+     * @return true, if the component index of the movement mode was built, otherwise false.
+     */
+    public boolean hasComponentIndex(boolean diagonal) {
+        return (diagonal ? diagonalComponents : straightComponents) != null;
+    }
+
+    /**
+     * Checks whether or not a path between the given points exists, without searching it.
+     * Builds the component index of the movement mode, if it wasn't built yet.
+     *
+     * @param startX   the x-coordinate of the start.
+     * @param startY   the y-coordinate of the start.
+     * @param endX     the x-coordinate of the end.
+     * @param endY     the y-coordinate of the end.
+     * @param diagonal whether or not diagonal steps are allowed.
+     * @return true, if both points are inside the grid and connected, otherwise false.
+     */
+    public boolean isReachable(int startX, int startY, int endX, int endY, boolean diagonal) {
+        if (!isInsideGrid(startX, startY) || !isInsideGrid(endX, endY)) {
+            return false;
+        }
+        buildComponentIndex(diagonal);
+        return searchIndex.getComponents(diagonal).isReachable(index(startX, startY), index(endX, endY));
+    }
+
+    /**
+     * Tries to find the shortest path between the given points using a context reused from earlier searches of this snapshot.
+     *
+     * @param startX   the x-coordinate of the start.
+     * @param startY   the y-coordinate of the start.
+     * @param endX     the x-coordinate of the end.
+     * @param endY     the y-coordinate of the end.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     * @return If a path was found, a list of all nodes which lead to the target node, otherwise null.
+     */
+    public List<Node> findPath(int startX, int startY, int endX, int endY, boolean diagonal) {
+        SearchContext context = acquireWorkspace();
+        try {
+            return findPath(context, startX, startY, endX, endY, diagonal);
+        } finally {
+            releaseWorkspace(context);
+        }
+    }
+
+    /**
+     * Takes a context of a finished search or creates a new one, if all contexts are in use.
+     *
+     * @return the context, used by the calling thread only until it is released.
+     */
+    SearchContext acquireWorkspace() {
+        SearchContext context = workspaces.poll();
+        return context != null ? context : createWorkspace();
+    }
+
+    /**
+     * Gives a context back to the snapshot, so the next search can reuse it.
+     *
+     * @param context the context taken with {@link #acquireWorkspace()}, mustn't be used afterwards.
+     */
+    void releaseWorkspace(SearchContext context) {
+        workspaces.offer(context);
+    }
+
+    /**
+     * Tries to find the shortest path between the given points.
+     * The returned nodes are detached from any grid, the first node is the start and the last node is the end.
+     *
+     * @param context  the context to store the state of the search in. Must not be used by another thread at the same time.
+     * @param startX   the x-coordinate of the start.
+     * @param startY   the y-coordinate of the start.
+     * @param endX     the x-coordinate of the end.
+     * @param endY     the y-coordinate of the end.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     * @return If a path was found, a list of all nodes which lead to the target node, otherwise null.
+     */
+    public List<Node> findPath(SearchContext context, int startX, int startY, int endX, int endY, boolean diagonal) {
+        return findPath(context, startX, startY, endX, endY, diagonal, SearchAlgorithm.A_STAR);
+    }
+
+    /**
+     * Tries to find the shortest path between the given points using the given algorithm.
+     * The returned nodes are detached from any grid, the first node is the start and the last node is the end.
+     * The search is aborted by the {@link SearchContext#setCancellationToken(CancellationToken) cancellation token} of the context,
+     * {@link SearchContext#getStatus()} tells why it stopped.
+     *
+     * @param context   the context to store the state of the search in. Must not be used by another thread at the same time.
+     * @param startX    the x-coordinate of the start.
+     * @param startY    the y-coordinate of the start.
+     * @param endX      the x-coordinate of the end.
+     * @param endY      the y-coordinate of the end.
+     * @param diagonal  whether or not the algorithm is allowed to do diagonal steps.
+     * @param algorithm the algorithm to use.
+     * @return If a path was found, a list of all nodes which lead to the target node, otherwise null.
+     */
+    public List<Node> findPath(SearchContext context, int startX, int startY, int endX, int endY, boolean diagonal, SearchAlgorithm algorithm) {
+        if (!search(context, startX, startY, endX, endY, diagonal, algorithm)) {
+            return null;
+        }
+        return retracePath(context, index(startX, startY), index(endX, endY));
+    }
+
+    /**
+     * Tries to find the shortest path between the given points using the given algorithm, without creating a node per cell.
+     * Behaves like {@link GridSnapshot#findPath(SearchContext, int, int, int, int, boolean, SearchAlgorithm)}.
+     *
+     * @param context   the context to store the state of the search in. Must not be used by another thread at the same time.
+     * @param startX    the x-coordinate of the start.
+     * @param startY    the y-coordinate of the start.
+     * @param endX      the x-coordinate of the end.
+     * @param endY      the y-coordinate of the end.
+     * @param diagonal  whether or not the algorithm is allowed to do diagonal steps.
+     * @param algorithm the algorithm to use.
+     * @return the cells of the path or null, if no path was found.
+     */
+    public GridPath findGridPath(SearchContext context, int startX, int startY, int endX, int endY, boolean diagonal, SearchAlgorithm algorithm) {
+        if (!search(context, startX, startY, endX, endY, diagonal, algorithm)) {
+            return null;
+        }
+        int end = index(endX, endY);
+        return new GridPath(context.tracePath(index(startX, startY), end, columns), columns, context.getgCost(end));
+    }
+
+    /**
+     * Floods the snapshot once backwards from the goal, so any amount of units heading to it can read their next step
+     * from the field instead of searching a path each. Large fields are computed in the common {@link ForkJoinPool}.
+     *
+     * @param goalX    the x-coordinate of the goal.
+     * @param goalY    the y-coordinate of the goal.
+     * @param diagonal whether or not diagonal steps are allowed.
+     * @return the flow field of the goal.
+     */
+    public FlowField createFlowField(int goalX, int goalY, boolean diagonal) {
+        return FlowField.compute(this, goalX, goalY, diagonal);
+    }
+
+    /**
+     * Searches the shortest path between the given points, so it can be retraced from the context.
+     *
+     * @param context   the context to store the state of the search in.
+     * @param startX    the x-coordinate of the start.
+     * @param startY    the y-coordinate of the start.
+     * @param endX      the x-coordinate of the end.
+     * @param endY      the y-coordinate of the end.
+     * @param diagonal  whether or not the algorithm is allowed to do diagonal steps.
+     * @param algorithm the algorithm to use.
+     * @return true, if a path was found, otherwise false.
+     */
+    private boolean search(SearchContext context, int startX, int startY, int endX, int endY, boolean diagonal, SearchAlgorithm algorithm) {
+        if (!isInsideGrid(startX, startY) || !isInsideGrid(endX, endY)) {
+            throw new IllegalArgumentException("Start and end have to be inside the grid!");
+        }
+        if (context.getCapacity() < size()) {
+            throw new IllegalArgumentException("The search context is too small for this grid!");
+        }
+
+        int start = index(startX, startY);
+        int end = index(endX, endY);
+        ComponentIndex components = searchIndex.getComponents(diagonal);
+        if (components != null && !components.isReachable(start, end)) {
+            context.setStatus(SearchStatus.NO_PATH);
+            return false;
+        }
+        return algorithm.search(this, context, start, end, diagonal, searchIndex, null);
+    }
+
+    /**
+     * Answers all queries in parallel using the common {@link ForkJoinPool}.
+     *
+     * @param queries the queries to answer.
+     * @return for every query, at the same position, a list of all nodes which lead to the target node or null if no path was found.
+     */
+    public List<List<Node>> findPaths(List<PathQuery> queries) {
+        return findPaths(queries, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Answers all queries in parallel using the given {@link ForkJoinPool}.
+     * Every worker thread of the pool keeps one search context for all queries it answers.
+     *
+     * @param queries the queries to answer.
+     * @param pool    the pool to run the searches in.
+     * @return for every query, at the same position, a list of all nodes which lead to the target node or null if no path was found.
+     */
+    public List<List<Node>> findPaths(List<PathQuery> queries, ForkJoinPool pool) {
+        return new BatchSearch(this, queries).run(pool);
+    }
+
+    /**
+     * Answers all queries in parallel using the given executor.
+     * The queries are split into one chunk per worker and every chunk is searched with its own search context.
+     *
+     * @param queries     the queries to answer.
+     * @param executor    the executor to run the searches on.
+     * @param parallelism the amount of chunks, usually the amount of threads of the executor.
+     * @return for every query, at the same position, a list of all nodes which lead to the target node or null if no path was found.
+     */
+    public List<List<Node>> findPaths(List<PathQuery> queries, Executor executor, int parallelism) {
+        return new BatchSearch(this, queries).run(executor, parallelism);
+    }
+
+    /**
+     * Retraces the path from the end to the start cell into detached nodes.
+     *
+     * @param context the context of the finished search.
+     * @param start   the index of the start cell.
+     * @param end     the index of the end cell.
+     * @return a list with all nodes of the path.
+     */
+    private List<Node> retracePath(SearchContext context, int start, int end) {
+        int[] cells = context.tracePath(start, end, columns);
+        List<Node> path = new ArrayList<>(cells.length);
+        Node previous = null;
+
+        //Walk through the whole path from the start cell
+        for (int cell : cells) {
+            NodeType nodeType = cell == end ? NodeType.END : cell == start ? NodeType.START : NodeType.PATH;
+            Node node = new Node(nodeType, cell / columns, cell % columns);
+            node.setgCost(context.getgCost(cell));
+            node.setParent(previous);
+            path.add(node);
+            previous = node;
+        }
+        return path;
+    }
+
+    /**
+     * Implementation of the {@link SearchIndex} that computes the data on first use.
+     * As the snapshot never changes, the data is never updated. If multiple threads race they compute equal data and one of them is kept.
+     *
+     * @author Felix
+     */
+    private class SnapshotIndex implements SearchIndex {
+
+        @Override
+        public JumpTable getJumpTable(boolean diagonal) {
+            JumpTable table = diagonal ? diagonalJumpTable : straightJumpTable;
+            if (table == null) {
+                table = new JumpTable(GridSnapshot.this, diagonal);
+                if (diagonal) {
+                    diagonalJumpTable = table;
+                } else {
+                    straightJumpTable = table;
+                }
+            }
+            return table;
+        }
+
+        @Override
+        public ClusterHierarchy getHierarchy(boolean diagonal) {
+            ClusterHierarchy hierarchy = diagonal ? diagonalHierarchy : straightHierarchy;
+            if (hierarchy == null) {
+                hierarchy = new ClusterHierarchy(GridSnapshot.this, ClusterHierarchy.DEFAULT_CLUSTER_SIZE, diagonal);
+                if (diagonal) {
+                    diagonalHierarchy = hierarchy;
+                } else {
+                    straightHierarchy = hierarchy;
+                }
+            }
+            return hierarchy;
+        }
+
+        @Override
+        public DStarLite getPlanner(boolean diagonal) {
+            //A planner can't be shared between threads, as the snapshot never changes there is nothing to repair anyway
+            return new DStarLite(GridSnapshot.this, diagonal);
+        }
+
+        @Override
+        public ComponentIndex getComponents(boolean diagonal) {
+            //Without changed barriers the components are only read, so they can be shared between threads
+            return diagonal ? diagonalComponents : straightComponents;
+        }
+
+        @Override
+        public LandmarkTable getLandmarks(boolean diagonal) {
+            LandmarkTable landmarks = diagonal ? diagonalLandmarks : straightLandmarks;
+            if (landmarks == null) {
+                landmarks = LandmarkTable.compute(GridSnapshot.this, diagonal);
+                if (diagonal) {
+                    diagonalLandmarks = landmarks;
+                } else {
+                    straightLandmarks = landmarks;
+                }
+            }
+            return landmarks;
+        }
+    }
+
+    /**
+     * Gives the barriers of this snapshot, which must not be changed.
+     *
+     * @return the barriers.
+     */
+    BitGrid getBarriers() {
+        return barriers;
+    }
+
+    @Override
+    public boolean isBarrier(int index) {
+        return barriers.isBarrier(index);
+    }
+
+    @Override
+    public int getNeighbourBarriers(int x, int y) {
+        return barriers.getNeighbourBarriers(x, y);
+    }
+
+    @Override
+    public TerrainCosts getTerrainCosts() {
+        return terrainCosts;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * The HierarchicalSearch class contains the HPA* algorithm.
+ * <p>
+ * The start and end cell are connected to the abstract nodes of their clusters, then the abstract graph of the
+ * {@link ClusterHierarchy} is searched using A*. Every edge of the abstract path is refined by a short A* search on the grid,
+ * loops where the refined segments cross each other are cut.
+ * If the abstract graph doesn't connect start and end, e.g. because they are only connected by diagonal steps across
+ * a cluster border, the whole grid is searched instead, so a path is found whenever one exists.
+ * Paths are close to optimal, but not guaranteed to be optimal.
+ *
+ * @author Felix
+ */
+final class HierarchicalSearch {
+
+    private HierarchicalSearch() {
+    }
+
+    /**
+     * Tries to find a path between the start and the end cell.
+     * If a path was found, the context contains exactly the cells of the path, so it can be retraced using {@link SearchContext#tracePath(int, int, int)}.
+     *
+     * @param map       the map to search.
+     * @param hierarchy the up to date hierarchy of the map.
+     * @param context   the context to store the state of the search in.
+     * @param start     the index of the start cell.
+     * @param end       the index of the end cell.
+     * @param diagonal  whether or not the algorithm is allowed to do diagonal steps.
+     * @param observer  the observer to inform about the flat search, if the abstract graph doesn't connect start and end. May be null.
+     * @return true, if a path was found, otherwise false.
+     */
+    static boolean search(GridMap map, ClusterHierarchy hierarchy, SearchContext context, int start, int end, boolean diagonal, SearchObserver observer) {
+        int[] abstractPath = searchAbstract(map, hierarchy, context, start, end);
+        if (abstractPath == null) {
+            return AStarSearch.search(map, context, start, end, diagonal, observer);
+        }
+
+        //Refine every abstract edge, the first cell of every segment is the last one of the previous segment
+        int columns = map.getColumns();
+        int[][] segments = new int[abstractPath.length - 1][];
+        int length = 1;
+        for (int i = 0; i < segments.length; i++) {
+            if (!AStarSearch.search(map, context, abstractPath[i], abstractPath[i + 1], diagonal, null)) {
+                return AStarSearch.search(map, context, start, end, diagonal, observer);
+            }
+            segments[i] = context.tracePath(abstractPath[i], abstractPath[i + 1], columns);
+            length += segments[i].length - 1;
+        }
+
+        //Segments may cross each other, so a cell visited twice cuts the loop between both visits.
+        //The g-cost of a reached cell stores its position, positions behind the current end are outdated.
+        context.reset();
+        int[] path = new int[length];
+        path[0] = start;
+        context.reach(start, 0, SearchContext.NO_PARENT);
+        length = 1;
+        for (int[] segment : segments) {
+            for (int i = 1; i < segment.length; i++) {
+                int cell = segment[i];
+                int position = context.isReached(cell) ? context.getgCost(cell) : -1;
+                if (position >= 0 && position < length && path[position] == cell) {
+                    length = position + 1;
+                } else {
+                    context.reach(cell, length, SearchContext.NO_PARENT);
+                    path[length++] = cell;
+                }
+            }
+        }
+
+        //Store the whole path inside the context
+        path = Arrays.copyOf(path, length);
+        context.storePath(path, map);
+        return true;
+    }
+
+    /**
+     * Searches the abstract graph extended by the start and end cell.
+     *
+     * @param map       the map.
+     * @param hierarchy the hierarchy of the map.
+     * @param context   the context to store the state of the search in.
+     * @param start     the index of the start cell.
+     * @param end       the index of the end cell.
+     * @return the cells of the abstract path beginning with the start cell, or null if the abstract graph doesn't connect them.
+     */
+    private static int[] searchAbstract(GridMap map, ClusterHierarchy hierarchy, SearchContext context, int start, int end) {
+        //Like in the A* algorithm barriers can be left but not entered
+        if (map.isBarrier(end)) {
+            return null;
+        }
+
+        int columns = map.getColumns();
+        int endX = end / columns;
+        int endY = end % columns;
+
+        //Connect start and end to the nodes of their clusters
+        ClusterFlood flood = new ClusterFlood(hierarchy.getClusterSize());
+        int startCluster = hierarchy.getCluster(start);
+        int endCluster = hierarchy.getCluster(end);
+        int[] startNodes = hierarchy.getNodes(startCluster);
+        int[] endNodes = hierarchy.getNodes(endCluster);
+
+        hierarchy.floodCluster(flood, startCluster, start);
+        int[] startCosts = new int[startNodes.length];
+        for (int i = 0; i < startNodes.length; i++) {
+            startCosts[i] = flood.getCost(startNodes[i], columns);
+        }
+        int direct = startCluster == endCluster ? flood.getCost(end, columns) : SearchContext.UNREACHED;
+
+        hierarchy.floodCluster(flood, endCluster, end);
+        int[] endCosts = new int[endNodes.length];
+        for (int i = 0; i < endNodes.length; i++) {
+            endCosts[i] = flood.getCost(endNodes[i], columns);
+        }
+
+        //Search the abstract graph
+        context.reset();
+        OpenList open = context.getOpenList();
+        context.reach(start, 0, SearchContext.NO_PARENT);
+        open.add(start, Pathfinder.distance(start / columns, start % columns, endX, endY));
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            context.close(current);
+            if (current == end) {
+                return retraceAbstractPath(context, start, end);
+            }
+            int gCost = context.getgCost(current);
+
+            if (current == start) {
+                for (int i = 0; i < startNodes.length; i++) {
+                    relax(context, startNodes[i], gCost, startCosts[i], current, endX, endY, columns);
+                }
+                relax(context, end, gCost, direct, current, endX, endY, columns);
+            }
+
+            //The start cell might be a node itself
+            int cluster = hierarchy.getCluster(current);
+            int[] clusterNodes = hierarchy.getNodes(cluster);
+            int position = Arrays.binarySearch(clusterNodes, current);
+            if (position < 0) {
+                continue;
+            }
+
+            //Edges inside the cluster
+            int[] clusterCosts = hierarchy.getCosts(cluster);
+            for (int i = 0; i < clusterNodes.length; i++) {
+                relax(context, clusterNodes[i], gCost, clusterCosts[position * clusterNodes.length + i], current, endX, endY, columns);
+            }
+
+            //Edges into the neighbouring clusters
+            int[] exits = hierarchy.getExits(cluster);
+            for (int i = 0; i < exits.length; i += 2) {
+                if (exits[i] == position) {
+                    relax(context, exits[i + 1], gCost, Pathfinder.HORIZONTAL_COST, current, endX, endY, columns);
+                }
+            }
+
+            //Edge to the end cell
+            if (cluster == endCluster) {
+                int endPosition = Arrays.binarySearch(endNodes, current);
+                relax(context, end, gCost, endCosts[endPosition], current, endX, endY, columns);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores a cheaper way to the given abstract node and adds it to the open list.
+     *
+     * @param context the context of the abstract search.
+     * @param node    the cell of the node.
+     * @param gCost   the g-cost of the current node.
+     * @param cost    the cost of the edge or {@link SearchContext#UNREACHED} if there is no edge.
+     * @param parent  the cell of the current node.
+     * @param endX    the x-coordinate of the end cell.
+     * @param endY    the y-coordinate of the end cell.
+     * @param columns the amount of columns of the grid.
+     */
+    private static void relax(SearchContext context, int node, int gCost, int cost, int parent, int endX, int endY, int columns) {
+        if (cost == SearchContext.UNREACHED || node == parent || context.isClosed(node)) {
+            return;
+        }
+        int newGCost = gCost + cost;
+        if (newGCost >= context.getgCost(node)) {
+            return;
+        }
+
+        OpenList open = context.getOpenList();
+        context.reach(node, newGCost, parent);
+        int fCost = newGCost + Pathfinder.distance(node / columns, node % columns, endX, endY);
+        if (open.contains(node)) {
+            open.decreaseKey(node, fCost);
+        } else {
+            open.add(node, fCost);
+        }
+    }
+
+    /**
+     * Retraces the abstract path from the end to the start cell.
+     *
+     * @param context the context of the abstract search.
+     * @param start   the index of the start cell.
+     * @param end     the index of the end cell.
+     * @return the cells of the abstract path beginning with the start cell.
+     */
+    private static int[] retraceAbstractPath(SearchContext context, int start, int end) {
+        int length = 1;
+        for (int current = end; current != start; current = context.getParent(current)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int current = end, i = length - 1; i >= 0; current = context.getParent(current), i--) {
+            path[i] = current;
+        }
+        return path;
+    }
+}
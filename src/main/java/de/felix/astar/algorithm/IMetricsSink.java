@@ -0,0 +1,23 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The IMetricsSink represents a receiver of the {@link SearchStats} of every query of a {@link Pathfinder},
+ * e.g. to aggregate them like {@link SearchMetrics} or to export them to a monitoring system.
+ *
+ * @author Felix
+ */
+public interface IMetricsSink {
+
+    /**
+     * Called after every query on the thread that ran it. Sinks shared between multiple pathfinders have to be thread-safe.
+     *
+     * @param stats the statistics of the query.
+     */
+    void record(SearchStats stats);
+}
@@ -0,0 +1,24 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The INodeBatchListener represents a listener that receives the node updates of a {@link Pathfinder} in chunks
+ * instead of one call per update like the {@link INodeUpdateListener}.
+ *
+ * @author Felix
+ */
+public interface INodeBatchListener {
+
+    /**
+     * Called with the updates collected since the last call, on the thread that changed the nodes.
+     * The batch is reused afterwards, so its content has to be copied if it is needed later.
+     *
+     * @param batch the collected updates.
+     */
+    void onBatch(NodeUpdateBatch batch);
+}
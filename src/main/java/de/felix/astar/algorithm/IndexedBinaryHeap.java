@@ -0,0 +1,168 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * The IndexedBinaryHeap class represents a binary min-heap of cells that knows the position of every contained cell.
+ * This allows membership tests in O(1) and changing the priority of a contained cell in O(log n).
+ *
+ * @author Felix
+ */
+class IndexedBinaryHeap implements OpenList {
+
+    //Constants
+
+    /**
+     * The position of a cell that isn't contained.
+     */
+    private static final int ABSENT = -1;
+
+    //Attributes
+
+    /**
+     * The contained cells in heap order.
+     */
+    private int[] cells;
+
+    /**
+     * The priority of the cell at the same position in {@link IndexedBinaryHeap#cells}.
+     */
+    private int[] priorities;
+
+    /**
+     * The position of every cell inside the heap or {@link IndexedBinaryHeap#ABSENT}.
+     */
+    private final int[] positions;
+
+    /**
+     * The amount of contained cells.
+     */
+    private int size;
+
+    //Methods
+
+    /**
+     * Creates a new, empty heap.
+     *
+     * @param capacity the amount of cells inside the grid, i.e. the highest index plus one.
+     */
+    IndexedBinaryHeap(int capacity) {
+        int initialSize = Math.max(16, Math.min(capacity, 1024));
+        this.cells = new int[initialSize];
+        this.priorities = new int[initialSize];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    @Override
+    public void add(int index, int priority) {
+        if (size == cells.length) {
+            int newLength = Math.min(positions.length, cells.length * 2);
+            cells = Arrays.copyOf(cells, newLength);
+            priorities = Arrays.copyOf(priorities, newLength);
+        }
+        siftUp(size++, index, priority);
+    }
+
+    @Override
+    public void decreaseKey(int index, int priority) {
+        siftUp(positions[index], index, priority);
+    }
+
+    @Override
+    public boolean contains(int index) {
+        return positions[index] != ABSENT;
+    }
+
+    @Override
+    public int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int first = cells[0];
+        positions[first] = ABSENT;
+
+        //Move the last cell to the top and let it sink down
+        if (--size > 0) {
+            siftDown(0, cells[size], priorities[size]);
+        }
+        return first;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        //Only touch the contained cells, so clearing is cheap for big grids
+        for (int i = 0; i < size; i++) {
+            positions[cells[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    /**
+     * Places the cell at the given position and moves it up until its parent has a lower or equal priority.
+     *
+     * @param position the position to start from.
+     * @param index    the index of the cell.
+     * @param priority the priority of the cell.
+     */
+    private void siftUp(int position, int index, int priority) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            place(position, cells[parent], priorities[parent]);
+            position = parent;
+        }
+        place(position, index, priority);
+    }
+
+    /**
+     * Places the cell at the given position and moves it down until both children have a higher or equal priority.
+     *
+     * @param position the position to start from.
+     * @param index    the index of the cell.
+     * @param priority the priority of the cell.
+     */
+    private void siftDown(int position, int index, int priority) {
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && priorities[right] < priorities[child]) {
+                child = right;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            place(position, cells[child], priorities[child]);
+            position = child;
+        }
+        place(position, index, priority);
+    }
+
+    /**
+     * Stores the cell at the given position.
+     *
+     * @param position the position inside the heap.
+     * @param index    the index of the cell.
+     * @param priority the priority of the cell.
+     */
+    private void place(int position, int index, int priority) {
+        cells[position] = index;
+        priorities[position] = priority;
+        positions[index] = position;
+    }
+}
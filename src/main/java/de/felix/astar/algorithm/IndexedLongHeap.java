@@ -0,0 +1,223 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * The IndexedLongHeap class represents a binary min-heap of cells with long priorities that knows the position of every contained cell.
+ * Unlike the {@link IndexedBinaryHeap} priorities can be increased and cells can be removed, which incremental searches need.
+ *
+ * @author Felix
+ */
+final class IndexedLongHeap {
+
+    //Constants
+
+    /**
+     * The position of a cell that isn't contained.
+     */
+    private static final int ABSENT = -1;
+
+    //Attributes
+
+    /**
+     * The contained cells in heap order.
+     */
+    private int[] cells;
+
+    /**
+     * The priority of the cell at the same position in {@link IndexedLongHeap#cells}.
+     */
+    private long[] priorities;
+
+    /**
+     * The position of every cell inside the heap or {@link IndexedLongHeap#ABSENT}.
+     */
+    private final int[] positions;
+
+    /**
+     * The amount of contained cells.
+     */
+    private int size;
+
+    //Methods
+
+    /**
+     * Creates a new, empty heap.
+     *
+     * @param capacity the amount of cells inside the grid, i.e. the highest index plus one.
+     */
+    IndexedLongHeap(int capacity) {
+        int initialSize = Math.max(16, Math.min(capacity, 1024));
+        this.cells = new int[initialSize];
+        this.priorities = new long[initialSize];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    /**
+     * Adds the cell or changes its priority, if it is already contained.
+     *
+     * @param index    the index of the cell.
+     * @param priority the new priority.
+     */
+    void update(int index, long priority) {
+        int position = positions[index];
+        if (position == ABSENT) {
+            if (size == cells.length) {
+                int newLength = Math.min(positions.length, cells.length * 2);
+                cells = Arrays.copyOf(cells, newLength);
+                priorities = Arrays.copyOf(priorities, newLength);
+            }
+            siftUp(size++, index, priority);
+        } else if (priority < priorities[position]) {
+            siftUp(position, index, priority);
+        } else {
+            siftDown(position, index, priority);
+        }
+    }
+
+    /**
+     * Removes the cell, if it is contained.
+     *
+     * @param index the index of the cell.
+     */
+    void remove(int index) {
+        int position = positions[index];
+        if (position == ABSENT) {
+            return;
+        }
+        positions[index] = ABSENT;
+
+        //Move the last cell into the gap, it might have to go up or down
+        if (--size > position) {
+            int last = cells[size];
+            long priority = priorities[size];
+            siftUp(position, last, priority);
+            if (positions[last] == position) {
+                siftDown(position, last, priority);
+            }
+        }
+    }
+
+    /**
+     * Whether or not the cell is contained.
+     *
+     * @param index the index of the cell.
+     * @return true, if the cell is contained, otherwise false.
+     */
+    boolean contains(int index) {
+        return positions[index] != ABSENT;
+    }
+
+    /**
+     * Gives the cell with the lowest priority without removing it.
+     *
+     * @return the index of the cell.
+     */
+    int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return cells[0];
+    }
+
+    /**
+     * Gives the lowest priority.
+     *
+     * @return the lowest priority or {@link Long#MAX_VALUE} if the heap is empty.
+     */
+    long peekPriority() {
+        return size == 0 ? Long.MAX_VALUE : priorities[0];
+    }
+
+    /**
+     * Whether or not the heap is empty.
+     *
+     * @return true, if no cell is contained, otherwise false.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gives the amount of contained cells.
+     *
+     * @return the size of the heap.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all cells.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[cells[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    /**
+     * Places the cell at the given position and moves it up until its parent has a lower or equal priority.
+     *
+     * @param position the position to start from.
+     * @param index    the index of the cell.
+     * @param priority the priority of the cell.
+     */
+    private void siftUp(int position, int index, long priority) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            place(position, cells[parent], priorities[parent]);
+            position = parent;
+        }
+        place(position, index, priority);
+    }
+
+    /**
+     * Places the cell at the given position and moves it down until both children have a higher or equal priority.
+     *
+     * @param position the position to start from.
+     * @param index    the index of the cell.
+     * @param priority the priority of the cell.
+     */
+    private void siftDown(int position, int index, long priority) {
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && priorities[right] < priorities[child]) {
+                child = right;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            place(position, cells[child], priorities[child]);
+            position = child;
+        }
+        place(position, index, priority);
+    }
+
+    /**
+     * Stores the cell at the given position.
+     *
+     * @param position the position inside the heap.
+     * @param index    the index of the cell.
+     * @param priority the priority of the cell.
+     */
+    private void place(int position, int index, long priority) {
+        cells[position] = index;
+        priorities[position] = priority;
+        positions[index] = position;
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The JumpPointSearch class contains the Jump Point Search algorithm working on cell indices.
+ * Instead of adding every neighbour to the open list, it scans along straight and diagonal lines
+ * and only adds the cells where an optimal path might change its direction, the so called jump points.
+ * <p>
+ * Like the A* algorithm diagonal steps are allowed between two barriers. Without diagonal movement vertical scans
+ * check for horizontal jump points, so every turn of a path is a jump point.
+ * The parents inside the {@link SearchContext} are jump points, so consecutive cells of a path aren't neighbours.
+ *
+ * @author Felix
+ */
+final class JumpPointSearch {
+
+    //Constants
+
+    /**
+     * The amount of directions.
+     */
+    static final int DIRECTIONS = 8;
+
+    /**
+     * The x-component of every direction.
+     */
+    static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+
+    /**
+     * The y-component of every direction.
+     */
+    static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    /**
+     * The value returned by a jump that didn't find a jump point.
+     */
+    private static final int NONE = -1;
+
+    //Methods
+
+    private JumpPointSearch() {
+    }
+
+    /**
+     * Gives the direction with the given components.
+     *
+     * @param dx the x-component, -1, 0 or 1.
+     * @param dy the y-component, -1, 0 or 1.
+     * @return the index of the direction.
+     */
+    static int direction(int dx, int dy) {
+        int direction = (dx + 1) * 3 + dy + 1;
+        return direction > 4 ? direction - 1 : direction;
+    }
+
+    /**
+     * Whether or not the given coordinates are inside the grid and not a barrier.
+     *
+     * @param map the map.
+     * @param x   the x-coordinate.
+     * @param y   the y-coordinate.
+     * @return true, if the cell can be entered, otherwise false.
+     */
+    static boolean isWalkable(GridMap map, int x, int y) {
+        return x >= 0 && x < map.getRows() && y >= 0 && y < map.getColumns() && !map.isBarrier(x * map.getColumns() + y);
+    }
+
+    /**
+     * Whether or not the cell has a neighbour that can only be reached optimally through it, when it is entered in the given direction.
+     *
+     * @param map      the map.
+     * @param x        the x-coordinate of the cell.
+     * @param y        the y-coordinate of the cell.
+     * @param dx       the x-component of the direction.
+     * @param dy       the y-component of the direction.
+     * @param diagonal whether or not diagonal movement is allowed.
+     * @return true, if the cell has a forced neighbour, otherwise false.
+     */
+    static boolean hasForcedNeighbour(GridMap map, int x, int y, int dx, int dy, boolean diagonal) {
+        if (!diagonal) {
+            if (dx != 0) {
+                return isWalkable(map, x, y - 1) && !isWalkable(map, x - dx, y - 1)
+                        || isWalkable(map, x, y + 1) && !isWalkable(map, x - dx, y + 1);
+            }
+            return isWalkable(map, x - 1, y) && !isWalkable(map, x - 1, y - dy)
+                    || isWalkable(map, x + 1, y) && !isWalkable(map, x + 1, y - dy);
+        }
+
+        if (dx != 0 && dy != 0) {
+            return isWalkable(map, x - dx, y + dy) && !isWalkable(map, x - dx, y)
+                    || isWalkable(map, x + dx, y - dy) && !isWalkable(map, x, y - dy);
+        }
+        if (dx != 0) {
+            return isWalkable(map, x + dx, y + 1) && !isWalkable(map, x, y + 1)
+                    || isWalkable(map, x + dx, y - 1) && !isWalkable(map, x, y - 1);
+        }
+        return isWalkable(map, x + 1, y + dy) && !isWalkable(map, x + 1, y)
+                || isWalkable(map, x - 1, y + dy) && !isWalkable(map, x - 1, y);
+    }
+
+    /**
+     * Tries to find the shortest path between the start and the end cell.
+     * If a path was found, it can be retraced using {@link SearchContext#tracePath(int, int, int)}.
+     *
+     * @param map      the map to search.
+     * @param context  the context to store the state of the search in. Reset before the search starts.
+     * @param start    the index of the start cell.
+     * @param end      the index of the end cell.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     * @param table    the precomputed jump distances for {@link SearchAlgorithm#JPS_PLUS} or null to scan the grid.
+     * @param observer the observer to inform about changes, may be null.
+     * @return true, if a path was found, otherwise false.
+     */
+    static boolean search(GridMap map, SearchContext context, int start, int end, boolean diagonal, JumpTable table, SearchObserver observer) {
+        int columns = map.getColumns();
+        int endX = end / columns;
+        int endY = end % columns;
+        int[] directions = new int[DIRECTIONS];
+
+        //Forget the last search
+        context.reset();
+        OpenList open = context.getOpenList();
+
+        //Add the start node to the open set.
+        int startH = Pathfinder.distance(start / columns, start % columns, endX, endY);
+        context.reach(start, 0, SearchContext.NO_PARENT);
+        open.add(start, startH);
+        if (observer != null) {
+            observer.onReach(start, 0, startH, SearchContext.NO_PARENT);
+        }
+
+        //Break when the open set is empty.
+        while (!open.isEmpty()) {
+
+            //Find lowest f cost cell and close it
+            int current = open.poll();
+            context.close(current);
+
+            //Check if we've reached the end.
+            if (current == end) {
+                return true;
+            }
+
+            if (observer != null) {
+                observer.onClose(current);
+            }
+
+            int currentX = current / columns;
+            int currentY = current % columns;
+            int currentG = context.getgCost(current);
+
+            //Only follow the directions in which the path could continue optimally
+            int count = prune(map, current, context.getParent(current), diagonal, directions);
+            for (int i = 0; i < count; i++) {
+                int direction = directions[i];
+                int jumpPoint = table != null
+                        ? lookup(table, current, direction, end, columns)
+                        : jump(map, currentX, currentY, DX[direction], DY[direction], end, diagonal);
+
+                //Skip if no jump point was found or it is already closed.
+                if (jumpPoint == NONE || context.isClosed(jumpPoint)) {
+                    continue;
+                }
+
+                //Jumps are straight or diagonal lines, so the octile distance is their exact cost
+                int jumpX = jumpPoint / columns;
+                int jumpY = jumpPoint % columns;
+                int newGCost = currentG + Pathfinder.distance(currentX, currentY, jumpX, jumpY);
+                if (newGCost >= context.getgCost(jumpPoint)) {
+                    continue;
+                }
+
+                context.reach(jumpPoint, newGCost, current);
+                int hCost = Pathfinder.distance(jumpX, jumpY, endX, endY);
+                if (open.contains(jumpPoint)) {
+                    open.decreaseKey(jumpPoint, newGCost + hCost);
+                } else {
+                    open.add(jumpPoint, newGCost + hCost);
+                }
+
+                if (observer != null) {
+                    observer.onReach(jumpPoint, newGCost, hCost, current);
+                }
+            }
+        }
+
+        //No path found
+        return false;
+    }
+
+    /**
+     * Collects the directions that have to be followed from the cell, depending on the direction it was reached from.
+     *
+     * @param map        the map.
+     * @param current    the index of the cell.
+     * @param parent     the index of its parent or {@link SearchContext#NO_PARENT}.
+     * @param diagonal   whether or not diagonal movement is allowed.
+     * @param directions the array to store the directions in.
+     * @return the amount of stored directions.
+     */
+    private static int prune(GridMap map, int current, int parent, boolean diagonal, int[] directions) {
+        int count = 0;
+
+        //The start cell has to look into every direction
+        if (parent == SearchContext.NO_PARENT) {
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                if (diagonal || DX[direction] == 0 || DY[direction] == 0) {
+                    directions[count++] = direction;
+                }
+            }
+            return count;
+        }
+
+        int columns = map.getColumns();
+        int x = current / columns;
+        int y = current % columns;
+        int dx = Integer.signum(x - parent / columns);
+        int dy = Integer.signum(y - parent % columns);
+
+        if (!diagonal) {
+            if (dx != 0) {
+                directions[count++] = direction(dx, 0);
+                directions[count++] = direction(0, 1);
+                directions[count++] = direction(0, -1);
+            } else {
+                directions[count++] = direction(0, dy);
+                directions[count++] = direction(1, 0);
+                directions[count++] = direction(-1, 0);
+            }
+            return count;
+        }
+
+        if (dx != 0 && dy != 0) {
+            directions[count++] = direction(0, dy);
+            directions[count++] = direction(dx, 0);
+            directions[count++] = direction(dx, dy);
+            if (!isWalkable(map, x - dx, y)) {
+                directions[count++] = direction(-dx, dy);
+            }
+            if (!isWalkable(map, x, y - dy)) {
+                directions[count++] = direction(dx, -dy);
+            }
+        } else if (dx != 0) {
+            directions[count++] = direction(dx, 0);
+            if (!isWalkable(map, x, y + 1)) {
+                directions[count++] = direction(dx, 1);
+            }
+            if (!isWalkable(map, x, y - 1)) {
+                directions[count++] = direction(dx, -1);
+            }
+        } else {
+            directions[count++] = direction(0, dy);
+            if (!isWalkable(map, x + 1, y)) {
+                directions[count++] = direction(1, dy);
+            }
+            if (!isWalkable(map, x - 1, y)) {
+                directions[count++] = direction(-1, dy);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Scans from the given cell into the given direction until a jump point, a barrier or the border of the grid is reached.
+     *
+     * @param map      the map.
+     * @param x        the x-coordinate of the cell to start from.
+     * @param y        the y-coordinate of the cell to start from.
+     * @param dx       the x-component of the direction.
+     * @param dy       the y-component of the direction.
+     * @param end      the index of the end cell, which is always a jump point.
+     * @param diagonal whether or not diagonal movement is allowed.
+     * @return the index of the jump point or {@link JumpPointSearch#NONE}.
+     */
+    private static int jump(GridMap map, int x, int y, int dx, int dy, int end, boolean diagonal) {
+        int columns = map.getColumns();
+        while (true) {
+            x += dx;
+            y += dy;
+            if (!isWalkable(map, x, y)) {
+                return NONE;
+            }
+
+            int index = x * columns + y;
+            if (index == end || hasForcedNeighbour(map, x, y, dx, dy, diagonal)) {
+                return index;
+            }
+
+            //Diagonal and vertical scans stop where a scan to the side finds a jump point
+            if (diagonal && dx != 0 && dy != 0) {
+                if (jump(map, x, y, dx, 0, end, true) != NONE || jump(map, x, y, 0, dy, end, true) != NONE) {
+                    return index;
+                }
+            } else if (!diagonal && dy != 0) {
+                if (jump(map, x, y, 1, 0, end, false) != NONE || jump(map, x, y, -1, 0, end, false) != NONE) {
+                    return index;
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up the jump from the given cell into the given direction inside the precomputed table.
+     * As the table doesn't know the end cell, the jump stops early if the end cell can be reached from the line.
+     *
+     * @param table     the precomputed jump distances.
+     * @param current   the index of the cell to start from.
+     * @param direction the direction.
+     * @param end       the index of the end cell.
+     * @param columns   the amount of columns of the grid.
+     * @return the index of the jump point or {@link JumpPointSearch#NONE}.
+     */
+    private static int lookup(JumpTable table, int current, int direction, int end, int columns) {
+        int distance = table.get(direction, current);
+        int reach = Math.abs(distance);
+        int x = current / columns;
+        int y = current % columns;
+        int dx = DX[direction];
+        int dy = DY[direction];
+        int toEndX = end / columns - x;
+        int toEndY = end % columns - y;
+
+        if (dx != 0 && dy != 0) {
+            //Stop where the row or column of the end cell is crossed, so the straight scans from there can find it
+            if (Integer.signum(toEndX) == dx && Integer.signum(toEndY) == dy) {
+                int steps = Math.min(Math.abs(toEndX), Math.abs(toEndY));
+                if (steps <= reach) {
+                    return (x + steps * dx) * columns + y + steps * dy;
+                }
+            }
+        } else if (dx != 0) {
+            //The end cell lies on the scanned line
+            if (toEndY == 0 && Integer.signum(toEndX) == dx && Math.abs(toEndX) <= reach) {
+                return end;
+            }
+        } else if (Integer.signum(toEndY) == dy && Math.abs(toEndY) <= reach) {
+            //Vertical scans without diagonal movement look to the side as well
+            if (toEndX == 0 || !table.isDiagonal()) {
+                return x * columns + end % columns;
+            }
+        }
+
+        if (distance <= 0) {
+            return NONE;
+        }
+        return (x + distance * dx) * columns + y + distance * dy;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The JumpTable class stores the precomputed jump distances used by {@link SearchAlgorithm#JPS_PLUS}.
+ * <p>
+ * For every cell and direction it stores how many steps a jump from the cell takes.
+ * A positive distance leads to a jump point, a distance of zero or below means that no jump point is found
+ * and the negated value is the amount of steps until the next barrier or the border of the grid.
+ * Runs longer than {@link Short#MAX_VALUE} are cut and end in an artificial jump point, which costs an additional expansion but keeps the result optimal.
+ *
+ * @author Felix
+ */
+final class JumpTable {
+
+    //Constants
+
+    /**
+     * The longest distance that can be stored.
+     */
+    private static final int MAX_DISTANCE = Short.MAX_VALUE;
+
+    //Attributes
+
+    /**
+     * Whether or not the table was computed for diagonal movement.
+     */
+    private final boolean diagonal;
+
+    /**
+     * The distances of every direction, indexed by {@code direction * cells + cell}.
+     */
+    private final short[] distances;
+
+    /**
+     * The amount of cells.
+     */
+    private final int cells;
+
+    //Methods
+
+    /**
+     * Computes the jump distances of the given map.
+     *
+     * @param map      the map to compute the distances of.
+     * @param diagonal whether or not diagonal movement is allowed.
+     */
+    JumpTable(GridMap map, boolean diagonal) {
+        this.diagonal = diagonal;
+        this.cells = map.size();
+        this.distances = new short[JumpPointSearch.DIRECTIONS * cells];
+
+        //Straight directions first, because diagonal and vertical jump points depend on them
+        if (diagonal) {
+            for (int direction = 0; direction < JumpPointSearch.DIRECTIONS; direction++) {
+                if (JumpPointSearch.DX[direction] == 0 || JumpPointSearch.DY[direction] == 0) {
+                    compute(map, direction);
+                }
+            }
+            for (int direction = 0; direction < JumpPointSearch.DIRECTIONS; direction++) {
+                if (JumpPointSearch.DX[direction] != 0 && JumpPointSearch.DY[direction] != 0) {
+                    compute(map, direction);
+                }
+            }
+        } else {
+            compute(map, JumpPointSearch.direction(1, 0));
+            compute(map, JumpPointSearch.direction(-1, 0));
+            compute(map, JumpPointSearch.direction(0, 1));
+            compute(map, JumpPointSearch.direction(0, -1));
+        }
+    }
+
+    /**
+     * Computes the distances of a single direction.
+     * Cells are visited from the far end of the direction, so the distance of the next cell is always known.
+     *
+     * @param map       the map.
+     * @param direction the direction.
+     */
+    private void compute(GridMap map, int direction) {
+        int rows = map.getRows();
+        int columns = map.getColumns();
+        int dx = JumpPointSearch.DX[direction];
+        int dy = JumpPointSearch.DY[direction];
+        int offset = direction * cells;
+
+        for (int i = 0; i < rows; i++) {
+            int x = dx > 0 ? rows - 1 - i : i;
+            for (int j = 0; j < columns; j++) {
+                int y = dy > 0 ? columns - 1 - j : j;
+                int nextX = x + dx;
+                int nextY = y + dy;
+
+                int distance;
+                if (!JumpPointSearch.isWalkable(map, nextX, nextY)) {
+                    distance = 0;
+                } else if (isJumpPoint(map, nextX, nextY, dx, dy)) {
+                    distance = 1;
+                } else {
+                    int next = distances[offset + nextX * columns + nextY];
+                    distance = next > 0 ? next + 1 : next - 1;
+                    if (Math.abs(distance) > MAX_DISTANCE) {
+                        distance = MAX_DISTANCE;
+                    }
+                }
+                distances[offset + x * columns + y] = (short) distance;
+            }
+        }
+    }
+
+    /**
+     * Whether or not the walkable cell is a jump point when it is reached in the given direction, ignoring the end cell.
+     *
+     * @param map the map.
+     * @param x   the x-coordinate of the cell.
+     * @param y   the y-coordinate of the cell.
+     * @param dx  the x-component of the direction.
+     * @param dy  the y-component of the direction.
+     * @return true, if the cell is a jump point, otherwise false.
+     */
+    private boolean isJumpPoint(GridMap map, int x, int y, int dx, int dy) {
+        if (JumpPointSearch.hasForcedNeighbour(map, x, y, dx, dy, diagonal)) {
+            return true;
+        }
+
+        int index = x * map.getColumns() + y;
+        if (diagonal && dx != 0 && dy != 0) {
+            return get(JumpPointSearch.direction(dx, 0), index) > 0 || get(JumpPointSearch.direction(0, dy), index) > 0;
+        }
+        if (!diagonal && dy != 0) {
+            return get(JumpPointSearch.direction(1, 0), index) > 0 || get(JumpPointSearch.direction(-1, 0), index) > 0;
+        }
+        return false;
+    }
+
+    /**
+     * Gives the jump distance of the cell in the given direction.
+     *
+     * @param direction the direction.
+     * @param index     the index of the cell.
+     * @return the distance to the jump point if positive, otherwise the negated distance to the next barrier.
+     */
+    int get(int direction, int index) {
+        return distances[direction * cells + index];
+    }
+
+    /**
+     * Whether or not the table was computed for diagonal movement.
+     *
+     * @return true, if diagonal movement was allowed, otherwise false.
+     */
+    boolean isDiagonal() {
+        return diagonal;
+    }
+}
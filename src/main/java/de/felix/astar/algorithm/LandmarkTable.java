@@ -0,0 +1,391 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The LandmarkTable class stores the costs from a few landmark cells to every cell of a map, for the ALT heuristic
+ * (A*, landmarks and triangle inequality) of {@link SearchAlgorithm#ALT}.
+ * <p>
+ * For every landmark L the costs d(L, n) - d(L, t) and d(L, t) - d(L, n) never exceed the costs between n and t,
+ * so the largest of these differences is a lower bound of the remaining costs. On maze-like maps it is far tighter
+ * than the octile distance, as it knows about the walls between the cells.
+ * <p>
+ * The landmarks are spread around the border of the largest connected area and flooded in parallel with Dijkstra's algorithm.
+ * Every landmark stores one {@code char} per cell. Costs above {@link LandmarkTable#UNREACHED} are stored in coarser units,
+ * which keeps the bound admissible, but no longer consistent, so the search reopens closed cells if needed.
+ * The table belongs to the barriers and terrain costs it was computed for and has to be recomputed after they changed.
+ *
+ * @author Felix
+ */
+public final class LandmarkTable {
+
+    //Constants
+
+    /**
+     * The default amount of landmarks.
+     */
+    public static final int DEFAULT_LANDMARKS = 8;
+
+    /**
+     * The stored cost of a cell that isn't connected to the landmark.
+     */
+    static final char UNREACHED = Character.MAX_VALUE;
+
+    //Attributes
+
+    /**
+     * The amount of rows, i.e. the range of the x-coordinate.
+     */
+    private final int rows;
+
+    /**
+     * The amount of columns, i.e. the range of the y-coordinate.
+     */
+    private final int columns;
+
+    /**
+     * Whether or not the costs were computed with diagonal movement.
+     */
+    private final boolean diagonal;
+
+    /**
+     * The index of every landmark cell.
+     */
+    private final int[] landmarks;
+
+    /**
+     * The unit of the stored costs of every landmark, 1 if the costs are exact.
+     */
+    private final int[] units;
+
+    /**
+     * The costs from every landmark to every cell in its unit, or {@link LandmarkTable#UNREACHED}.
+     */
+    private final char[][] costs;
+
+    /**
+     * Whether or not all costs are exact, so the heuristic is consistent.
+     */
+    private final boolean consistent;
+
+    //Methods
+
+    /**
+     * Creates a new table.
+     *
+     * @param rows      the amount of rows.
+     * @param columns   the amount of columns.
+     * @param diagonal  whether or not the costs were computed with diagonal movement.
+     * @param landmarks the index of every landmark cell.
+     * @param units     the unit of the costs of every landmark.
+     * @param costs     the costs of every landmark, one per cell.
+     */
+    LandmarkTable(int rows, int columns, boolean diagonal, int[] landmarks, int[] units, char[][] costs) {
+        this.rows = rows;
+        this.columns = columns;
+        this.diagonal = diagonal;
+        this.landmarks = landmarks;
+        this.units = units;
+        this.costs = costs;
+
+        boolean exact = true;
+        for (int unit : units) {
+            exact &= unit == 1;
+        }
+        this.consistent = exact;
+    }
+
+    /**
+     * Computes the table for {@link LandmarkTable#DEFAULT_LANDMARKS} landmarks using the common {@link ForkJoinPool}.
+     *
+     * @param map      the map.
+     * @param diagonal whether or not diagonal steps are allowed.
+     * @return the table.
+     */
+    public static LandmarkTable compute(GridMap map, boolean diagonal) {
+        return compute(map, DEFAULT_LANDMARKS, diagonal, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the table, flooding the map from every landmark in parallel.
+     * Maps with less connected border cells than landmarks get fewer landmarks.
+     *
+     * @param map      the map.
+     * @param count    the amount of landmarks.
+     * @param diagonal whether or not diagonal steps are allowed.
+     * @param pool     the pool to run the floods in.
+     * @return the table.
+     */
+    public static LandmarkTable compute(GridMap map, int count, boolean diagonal, ForkJoinPool pool) {
+        if (count < 1) {
+            throw new IllegalArgumentException("At least one landmark is needed!");
+        }
+        int[] landmarks = selectLandmarks(map, count, diagonal);
+        int[] units = new int[landmarks.length];
+        char[][] costs = new char[landmarks.length][];
+
+        //Every flood writes its own slots, joining the tasks publishes them
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(landmarks.length);
+        for (int i = 0; i < landmarks.length; i++) {
+            int landmark = i;
+            tasks.add(pool.submit(() -> costs[landmark] = flood(map, landmarks[landmark], diagonal, units, landmark)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return new LandmarkTable(map.getRows(), map.getColumns(), diagonal, landmarks, units, costs);
+    }
+
+    /**
+     * Selects the landmarks on the border of the largest connected area: the area is split into sectors of equal angle
+     * around its center and the cell farthest from the center becomes the landmark of its sector.
+     * Landmarks behind the start or the end, seen from the other one, give the tightest bounds.
+     *
+     * @param map      the map.
+     * @param count    the amount of sectors.
+     * @param diagonal whether or not diagonal steps are allowed.
+     * @return the indices of the landmarks, at most one per sector.
+     */
+    private static int[] selectLandmarks(GridMap map, int count, boolean diagonal) {
+        int columns = map.getColumns();
+        int size = map.size();
+        BitGrid visited = new BitGrid(map.getRows(), columns);
+        int[] cells = new int[size];
+
+        //Find the largest area first, then collect its cells again
+        int seed = -1;
+        int largest = 0;
+        for (int cell = 0; cell < size; cell++) {
+            if (!visited.isBarrier(cell) && !map.isBarrier(cell)) {
+                int area = collectArea(map, cell, diagonal, visited, cells);
+                if (area > largest) {
+                    largest = area;
+                    seed = cell;
+                }
+            }
+        }
+        if (seed < 0) {
+            return new int[0];
+        }
+        visited = new BitGrid(map.getRows(), columns);
+        collectArea(map, seed, diagonal, visited, cells);
+
+        double centerX = 0;
+        double centerY = 0;
+        for (int i = 0; i < largest; i++) {
+            centerX += cells[i] / columns;
+            centerY += cells[i] % columns;
+        }
+        centerX /= largest;
+        centerY /= largest;
+
+        int[] landmarks = new int[count];
+        double[] distances = new double[count];
+        Arrays.fill(landmarks, -1);
+        Arrays.fill(distances, -1);
+        for (int i = 0; i < largest; i++) {
+            double dx = cells[i] / columns - centerX;
+            double dy = cells[i] % columns - centerY;
+            int sector = Math.min(count - 1, (int) ((Math.atan2(dy, dx) + Math.PI) / (2 * Math.PI) * count));
+            double distance = dx * dx + dy * dy;
+            if (distance > distances[sector]) {
+                distances[sector] = distance;
+                landmarks[sector] = cells[i];
+            }
+        }
+        return Arrays.stream(landmarks).filter(landmark -> landmark >= 0).toArray();
+    }
+
+    /**
+     * Collects the cells connected to the seed with a breadth-first search and marks them as visited.
+     *
+     * @param map      the map.
+     * @param seed     the index of a free cell that wasn't visited yet.
+     * @param diagonal whether or not diagonal steps are allowed.
+     * @param visited  the visited cells, stored as barriers.
+     * @param cells    receives the indices of the collected cells.
+     * @return the amount of collected cells.
+     */
+    private static int collectArea(GridMap map, int seed, boolean diagonal, BitGrid visited, int[] cells) {
+        int columns = map.getColumns();
+        int head = 0;
+        int tail = 0;
+        cells[tail++] = seed;
+        visited.setBarrier(seed, true);
+        while (head < tail) {
+            int current = cells[head++];
+            int currentX = current / columns;
+            int currentY = current % columns;
+            int barriers = map.getNeighbourBarriers(currentX, currentY);
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (x == 0 && y == 0) continue;
+                    if (!diagonal && x != 0 && y != 0) continue;
+                    int neighbour = (currentX + x) * columns + currentY + y;
+                    if ((barriers & 1 << (x + 1) * 3 + y + 1) != 0 || visited.isBarrier(neighbour)) {
+                        continue;
+                    }
+                    visited.setBarrier(neighbour, true);
+                    cells[tail++] = neighbour;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Calculates the costs from the landmark to every cell using Dijkstra's algorithm and stores them in the smallest
+     * unit that fits every cost into a {@code char}.
+     *
+     * @param map      the map.
+     * @param source   the index of the landmark.
+     * @param diagonal whether or not diagonal steps are allowed.
+     * @param units    receives the unit at the position of the landmark.
+     * @param landmark the position of the landmark.
+     * @return the costs of every cell in the unit.
+     */
+    private static char[] flood(GridMap map, int source, boolean diagonal, int[] units, int landmark) {
+        int size = map.size();
+        int[] costs = FlowField.integrate(map, source, diagonal);
+        int maxCost = 0;
+        for (int cost : costs) {
+            if (cost != SearchContext.UNREACHED && cost > maxCost) {
+                maxCost = cost;
+            }
+        }
+
+        //Rounding down keeps every stored cost below the real one
+        int unit = maxCost / (UNREACHED - 1) + 1;
+        char[] stored = new char[size];
+        for (int cell = 0; cell < size; cell++) {
+            stored[cell] = costs[cell] == SearchContext.UNREACHED ? UNREACHED : (char) (costs[cell] / unit);
+        }
+        units[landmark] = unit;
+        return stored;
+    }
+
+    /**
+     * Gives a lower bound of the costs between the given cells, the largest difference of their costs to any landmark.
+     *
+     * @param cell   the index of the first cell.
+     * @param target the index of the second cell.
+     * @return the lower bound, 0 if no landmark reaches both cells.
+     */
+    int heuristic(int cell, int target) {
+        int bound = 0;
+        for (int i = 0; i < costs.length; i++) {
+            char[] landmarkCosts = costs[i];
+            int cellCost = landmarkCosts[cell];
+            int targetCost = landmarkCosts[target];
+            if (cellCost == UNREACHED || targetCost == UNREACHED) {
+                continue;
+            }
+
+            //Both costs might have been rounded down by almost a unit
+            int unit = units[i];
+            int difference = Math.abs(cellCost - targetCost);
+            int lowerBound = unit == 1 ? difference : Math.max(0, difference - 1) * unit;
+            if (lowerBound > bound) {
+                bound = lowerBound;
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Whether or not all costs are stored exactly, so the heuristic never drops by more than the costs of a step.
+     *
+     * @return true, if the heuristic is consistent, otherwise false.
+     */
+    boolean isConsistent() {
+        return consistent;
+    }
+
+    /**
+     * Gives the amount of landmarks.
+     *
+     * @return the amount of landmarks.
+     */
+    public int getCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * Gives the index of a landmark cell, calculated as {@code x * columns + y}.
+     *
+     * @param landmark the position of the landmark.
+     * @return the cell index.
+     */
+    public int getLandmark(int landmark) {
+        return landmarks[landmark];
+    }
+
+    /**
+     * Gives the costs from a landmark to a cell, rounded down to the unit of the landmark.
+     *
+     * @param landmark the position of the landmark.
+     * @param cell     the index of the cell.
+     * @return the costs or -1, if the cell isn't connected to the landmark.
+     */
+    public int getCost(int landmark, int cell) {
+        char cost = costs[landmark][cell];
+        return cost == UNREACHED ? -1 : cost * units[landmark];
+    }
+
+    /**
+     * Gives the unit of the stored costs of a landmark.
+     *
+     * @param landmark the position of the landmark.
+     * @return the unit, 1 if the costs are exact.
+     */
+    int getUnit(int landmark) {
+        return units[landmark];
+    }
+
+    /**
+     * Gives the stored costs of a landmark, which must not be changed.
+     *
+     * @param landmark the position of the landmark.
+     * @return the costs in the unit of the landmark.
+     */
+    char[] getCosts(int landmark) {
+        return costs[landmark];
+    }
+
+    /**
+     * Whether or not the costs were computed with diagonal movement.
+     *
+     * @return true, if diagonal steps were allowed, otherwise false.
+     */
+    public boolean isDiagonal() {
+        return diagonal;
+    }
+
+    /**
+     * Gives the amount of rows of the map.
+     *
+     * @return the amount of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gives the amount of columns of the map.
+     *
+     * @return the amount of columns.
+     */
+    public int getColumns() {
+        return columns;
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The MapFile class reads and writes maps in a binary format that can be searched without parsing it.
+ * <p>
+ * All numbers are stored in little-endian byte order. A file consists of
+ * <ul>
+ * <li>a header of {@link MapFile#HEADER_SIZE} bytes: the magic bytes {@code ASTM}, the version as short, the flags as short,
+ * the amount of rows and columns as int and 16 reserved bytes,</li>
+ * <li>the barrier payload: the words of a {@link BitGrid}, one bit per cell,</li>
+ * <li>the cost payload, if {@link MapFile#FLAG_COSTS} is set: one unsigned byte per cell,</li>
+ * <li>the landmark payload, if {@link MapFile#FLAG_LANDMARKS} is set: the amount of landmarks and the movement as int,
+ * the cell and the unit of every landmark as int and the costs of every landmark, one unsigned short per cell.</li>
+ * </ul>
+ * The barrier payload starts at a multiple of 8, so it is mapped directly as the words of a {@link BitGrid}.
+ *
+ * @author Felix
+ */
+public final class MapFile {
+
+    //Constants
+
+    /**
+     * The first four bytes of every map file.
+     */
+    private static final int MAGIC = 'A' | 'S' << 8 | 'T' << 16 | 'M' << 24;
+
+    /**
+     * The version of the format written by this class.
+     */
+    private static final short VERSION = 1;
+
+    /**
+     * The flag marking that the file contains a cost payload.
+     */
+    static final short FLAG_COSTS = 1;
+
+    /**
+     * The flag marking that the file contains a landmark payload.
+     */
+    static final short FLAG_LANDMARKS = 2;
+
+    /**
+     * The size of the header in bytes.
+     */
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * The amount of bytes written at once.
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private MapFile() {
+    }
+
+    /**
+     * Maps the barriers of the file read-only. The map opens without reading or copying the cells,
+     * they are loaded by the operating system when a search reads them.
+     *
+     * @param file the map file.
+     * @return the barriers of the file.
+     * @throws IOException if the file can't be read or isn't a valid map file.
+     */
+    public static BitGrid map(Path file) throws IOException {
+        return map(file, false);
+    }
+
+    /**
+     * Maps the barriers of the file. If the mapping is writable, barriers changed in the grid are written into the file.
+     *
+     * @param file     the map file.
+     * @param writable whether or not the grid can be changed.
+     * @return the barriers of the file.
+     * @throws IOException if the file can't be read or isn't a valid map file.
+     */
+    public static BitGrid map(Path file, boolean writable) throws IOException {
+        StandardOpenOption[] options = writable
+                ? new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+
+        //The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            Header header = readHeader(file, channel);
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, HEADER_SIZE, header.barrierSize);
+            LongBuffer words = buffer.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            return new BitGrid(header.rows, header.columns, words);
+        }
+    }
+
+    /**
+     * Reads the cost payload of the file into the multipliers of new terrain costs with bulk reads,
+     * so they can be set with {@link Pathfinder#setTerrainCosts(TerrainCosts)}.
+     *
+     * @param file the map file.
+     * @return the terrain costs or null, if the file doesn't contain a cost payload.
+     * @throws IOException if the file can't be read, isn't a valid map file or contains an invalid multiplier.
+     */
+    public static TerrainCosts readCosts(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(file, channel);
+            if ((header.flags & FLAG_COSTS) == 0) {
+                return null;
+            }
+
+            byte[] multipliers = new byte[header.rows * header.columns];
+            read(file, channel, ByteBuffer.wrap(multipliers), HEADER_SIZE + header.barrierSize);
+            try {
+                return new TerrainCosts(header.rows, header.columns, multipliers);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + " contains invalid costs!", e);
+            }
+        }
+    }
+
+    /**
+     * Reads the landmark payload of the file, so the landmarks can be set with {@link Pathfinder#setLandmarks(LandmarkTable)}.
+     * They only fit the barriers and terrain costs they were written with.
+     *
+     * @param file the map file.
+     * @return the landmarks or null, if the file doesn't contain a landmark payload.
+     * @throws IOException if the file can't be read, isn't a valid map file or contains invalid landmarks.
+     */
+    public static LandmarkTable readLandmarks(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(file, channel);
+            if ((header.flags & FLAG_LANDMARKS) == 0) {
+                return null;
+            }
+
+            int size = header.rows * header.columns;
+            long position = HEADER_SIZE + header.barrierSize + ((header.flags & FLAG_COSTS) != 0 ? size : 0);
+            ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            position = read(file, channel, buffer, position);
+            buffer.flip();
+            int count = buffer.getInt();
+            int movement = buffer.getInt();
+            if (count < 0 || count > Character.MAX_VALUE || (movement & ~1) != 0) {
+                throw new IOException(file + " contains invalid landmarks!");
+            }
+
+            buffer = ByteBuffer.allocate(2 * count * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            position = read(file, channel, buffer, position);
+            buffer.flip();
+            int[] landmarks = new int[count];
+            int[] units = new int[count];
+            for (int i = 0; i < count; i++) {
+                landmarks[i] = buffer.getInt();
+            }
+            for (int i = 0; i < count; i++) {
+                units[i] = buffer.getInt();
+                if (landmarks[i] < 0 || landmarks[i] >= size || units[i] < 1) {
+                    throw new IOException(file + " contains invalid landmarks!");
+                }
+            }
+
+            char[][] costs = new char[count][size];
+            for (int i = 0; i < count; i++) {
+                buffer = ByteBuffer.allocate(size * Character.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                position = read(file, channel, buffer, position);
+                buffer.flip();
+                buffer.asCharBuffer().get(costs[i]);
+            }
+            return new LandmarkTable(header.rows, header.columns, movement == 1, landmarks, units, costs);
+        }
+    }
+
+    /**
+     * Fills the buffer with the bytes of the file starting at the given position.
+     *
+     * @param file     the map file, used for the error messages.
+     * @param channel  the opened file.
+     * @param buffer   the buffer to fill.
+     * @param position the position of the first byte.
+     * @return the position after the last read byte.
+     * @throws IOException if the file can't be read or ends before the buffer is full.
+     */
+    private static long read(Path file, FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException(file + " is truncated!");
+            }
+            position += read;
+        }
+        return position;
+    }
+
+    /**
+     * Reads and validates the header of the file.
+     *
+     * @param file    the map file, used for the error messages.
+     * @param channel the opened file.
+     * @return the header.
+     * @throws IOException if the file can't be read or isn't a valid map file.
+     */
+    private static Header readHeader(Path file, FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException(file + " is not a map file!");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException(file + " has the unsupported version " + version + "!");
+        }
+        short flags = buffer.getShort();
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+        if (rows < 1 || columns < 1 || (long) rows * columns > Integer.MAX_VALUE) {
+            throw new IOException(file + " has the invalid size " + rows + "x" + columns + "!");
+        }
+
+        Header header = new Header(flags, rows, columns);
+        long costSize = (flags & FLAG_COSTS) != 0 ? (long) rows * columns : 0;
+        if (channel.size() < HEADER_SIZE + header.barrierSize + costSize) {
+            throw new IOException(file + " is truncated!");
+        }
+        return header;
+    }
+
+    /**
+     * Writes the barriers and the terrain costs of the map into the file, replacing its content.
+     * The barriers of a {@link BitGrid} or a {@link GridSnapshot} are written a word at a time,
+     * so a {@link Pathfinder} is written fastest using its {@link Pathfinder#snapshot()}.
+     *
+     * @param map  the map to write.
+     * @param file the file to write to.
+     * @throws IOException if the file can't be written.
+     */
+    public static void write(GridMap map, Path file) throws IOException {
+        write(map, null, file);
+    }
+
+    /**
+     * Writes the barriers, the terrain costs and the given landmarks of the map into the file, replacing its content.
+     * The landmarks are read with {@link MapFile#readLandmarks(Path)}, so they don't have to be computed again.
+     *
+     * @param map       the map to write.
+     * @param landmarks the landmarks of the map, may be null.
+     * @param file      the file to write to.
+     * @throws IOException if the file can't be written.
+     */
+    public static void write(GridMap map, LandmarkTable landmarks, Path file) throws IOException {
+        if (landmarks != null && (landmarks.getRows() != map.getRows() || landmarks.getColumns() != map.getColumns())) {
+            throw new IllegalArgumentException("The landmarks have to be of size " + map.getRows() + "x" + map.getColumns() + "!");
+        }
+        BitGrid grid = BitGrid.of(map);
+        if (grid == null) {
+            grid = BitGrid.copyOf(map);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            TerrainCosts costs = TerrainCosts.of(map);
+            buffer.putShort((short) ((costs != null ? FLAG_COSTS : 0) | (landmarks != null ? FLAG_LANDMARKS : 0)));
+            buffer.putInt(grid.getRows());
+            buffer.putInt(grid.getColumns());
+            buffer.position(HEADER_SIZE);
+
+            LongBuffer words = grid.getWords();
+            int wordCount = BitGrid.wordCount(grid.getRows(), grid.getColumns());
+            for (int i = 0; i < wordCount; i++) {
+                if (!buffer.hasRemaining()) {
+                    flush(channel, buffer);
+                }
+                buffer.putLong(words.get(i));
+            }
+            flush(channel, buffer);
+
+            //The multipliers are stored as bytes already
+            if (costs != null) {
+                ByteBuffer multipliers = ByteBuffer.wrap(costs.getMultipliers());
+                while (multipliers.hasRemaining()) {
+                    channel.write(multipliers);
+                }
+            }
+            if (landmarks != null) {
+                writeLandmarks(channel, buffer, landmarks);
+            }
+        }
+    }
+
+    /**
+     * Writes the landmark payload into the channel.
+     *
+     * @param channel   the channel to write to.
+     * @param buffer    an empty buffer to collect the bytes in.
+     * @param landmarks the landmarks to write.
+     * @throws IOException if the channel can't be written.
+     */
+    private static void writeLandmarks(FileChannel channel, ByteBuffer buffer, LandmarkTable landmarks) throws IOException {
+        int count = landmarks.getCount();
+        buffer.putInt(count);
+        buffer.putInt(landmarks.isDiagonal() ? 1 : 0);
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush(channel, buffer);
+            }
+            buffer.putInt(landmarks.getLandmark(i));
+        }
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush(channel, buffer);
+            }
+            buffer.putInt(landmarks.getUnit(i));
+        }
+        for (int i = 0; i < count; i++) {
+            char[] costs = landmarks.getCosts(i);
+            for (char cost : costs) {
+                if (buffer.remaining() < Character.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putChar(cost);
+            }
+        }
+        flush(channel, buffer);
+    }
+
+    /**
+     * Writes the content of the buffer into the channel and clears it.
+     *
+     * @param channel the channel to write to.
+     * @param buffer  the buffer to write.
+     * @throws IOException if the channel can't be written.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * The Header class holds the values of the header of a map file.
+     */
+    private static final class Header {
+
+        /**
+         * The flags of the file.
+         */
+        private final short flags;
+
+        /**
+         * The amount of rows.
+         */
+        private final int rows;
+
+        /**
+         * The amount of columns.
+         */
+        private final int columns;
+
+        /**
+         * The size of the barrier payload in bytes.
+         */
+        private final long barrierSize;
+
+        /**
+         * Creates a new header.
+         *
+         * @param flags   the flags.
+         * @param rows    the amount of rows.
+         * @param columns the amount of columns.
+         */
+        private Header(short flags, int rows, int columns) {
+            this.flags = flags;
+            this.rows = rows;
+            this.columns = columns;
+            this.barrierSize = (long) BitGrid.wordCount(rows, columns) * Long.BYTES;
+        }
+    }
+}
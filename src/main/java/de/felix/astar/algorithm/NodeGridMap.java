@@ -0,0 +1,80 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The NodeGridMap class lets the algorithm read the barriers of a grid of {@link Node} objects.
+ *
+ * @author Felix
+ */
+class NodeGridMap implements GridMap {
+
+    /**
+     * The grid of nodes.
+     */
+    private final Node[][] grid;
+
+    /**
+     * The amount of columns, i.e. the range of the y-coordinate.
+     */
+    private final int columns;
+
+    /**
+     * The movement cost multipliers of the cells, null if every cell has the multiplier 1.
+     */
+    private TerrainCosts terrainCosts;
+
+    /**
+     * Creates a new map reading from the given grid.
+     *
+     * @param grid    the grid of nodes.
+     * @param columns the amount of columns the grid has.
+     */
+    NodeGridMap(Node[][] grid, int columns) {
+        this.grid = grid;
+        this.columns = columns;
+    }
+
+    /**
+     * Gives the node at the given index.
+     *
+     * @param index the index of the cell.
+     * @return the node.
+     */
+    Node getNode(int index) {
+        return grid[index / columns][index % columns];
+    }
+
+    @Override
+    public boolean isBarrier(int index) {
+        return getNode(index).getNodeType() == NodeType.BARRIER;
+    }
+
+    @Override
+    public int getRows() {
+        return grid.length;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public TerrainCosts getTerrainCosts() {
+        return terrainCosts;
+    }
+
+    /**
+     * Sets the movement cost multipliers of the cells.
+     *
+     * @param terrainCosts the terrain costs or null.
+     */
+    void setTerrainCosts(TerrainCosts terrainCosts) {
+        this.terrainCosts = terrainCosts;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * The NodeUpdateBatch class represents a chunk of node updates, stored as three parallel arrays of cell index, kind and value.
+ * Updates are coalesced: if the same property of the same node changes multiple times inside one batch,
+ * only its first position and its last value are kept.
+ *
+ * @author Felix
+ */
+public final class NodeUpdateBatch {
+
+    //Constants
+
+    /**
+     * All update kinds, cached so they don't have to be copied on every lookup.
+     */
+    private static final NodeUpdateKind[] KINDS = NodeUpdateKind.values();
+
+    /**
+     * All node types, cached so they don't have to be copied on every lookup.
+     */
+    private static final NodeType[] NODE_TYPES = NodeType.values();
+
+    /**
+     * The key of an empty slot of the coalescing table.
+     */
+    private static final long EMPTY = -1;
+
+    //Attributes
+
+    /**
+     * The amount of columns of the grid, to calculate the coordinates.
+     */
+    private final int columns;
+
+    /**
+     * The cell index of every update.
+     */
+    private final int[] cells;
+
+    /**
+     * The ordinal of the {@link NodeUpdateKind} of every update.
+     */
+    private final byte[] kinds;
+
+    /**
+     * The value of every update.
+     */
+    private final int[] values;
+
+    /**
+     * The keys of the coalescing table, combining cell and kind, or {@link NodeUpdateBatch#EMPTY}.
+     */
+    private final long[] keys;
+
+    /**
+     * The position of the update stored under the key at the same slot.
+     */
+    private final int[] positions;
+
+    /**
+     * The shift turning a hashed key into a slot of the coalescing table.
+     */
+    private final int shift;
+
+    /**
+     * The slot of every update inside the coalescing table, to clear only the used slots.
+     */
+    private final int[] slots;
+
+    /**
+     * The amount of updates.
+     */
+    private int size;
+
+    //Methods
+
+    /**
+     * Creates a new, empty batch.
+     *
+     * @param capacity the maximum amount of updates.
+     * @param columns  the amount of columns of the grid.
+     */
+    NodeUpdateBatch(int capacity, int columns) {
+        this.columns = columns;
+        this.cells = new int[capacity];
+        this.kinds = new byte[capacity];
+        this.values = new int[capacity];
+        this.slots = new int[capacity];
+
+        //At most half of the table is used, so probe sequences stay short
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) * 2;
+        this.keys = new long[tableSize];
+        this.positions = new int[tableSize];
+        this.shift = Long.SIZE - Integer.numberOfTrailingZeros(tableSize);
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Adds an update or overwrites the value of the update of the same property of the same cell.
+     *
+     * @param index the index of the cell.
+     * @param kind  the changed property.
+     * @param value the new value.
+     */
+    void add(int index, NodeUpdateKind kind, int value) {
+        long key = (long) index * KINDS.length + kind.ordinal();
+        int mask = keys.length - 1;
+        int slot = (int) (key * 0x9E3779B97F4A7C15L >>> shift);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[positions[slot]] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        positions[slot] = size;
+        slots[size] = slot;
+        cells[size] = index;
+        kinds[size] = (byte) kind.ordinal();
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Whether or not no more updates fit into this batch.
+     *
+     * @return true, if the batch is full, otherwise false.
+     */
+    boolean isFull() {
+        return size == cells.length;
+    }
+
+    /**
+     * Removes all updates.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            keys[slots[i]] = EMPTY;
+        }
+        size = 0;
+    }
+
+    /**
+     * Gives the amount of updates.
+     *
+     * @return the size.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gives the index of the updated cell, which is calculated as {@code x * columns + y}.
+     *
+     * @param position the position of the update inside this batch.
+     * @return the cell index.
+     */
+    public int getIndex(int position) {
+        return cells[position];
+    }
+
+    /**
+     * Gives the x-coordinate of the updated node.
+     *
+     * @param position the position of the update inside this batch.
+     * @return the x-coordinate.
+     */
+    public int getX(int position) {
+        return cells[position] / columns;
+    }
+
+    /**
+     * Gives the y-coordinate of the updated node.
+     *
+     * @param position the position of the update inside this batch.
+     * @return the y-coordinate.
+     */
+    public int getY(int position) {
+        return cells[position] % columns;
+    }
+
+    /**
+     * Gives the changed property.
+     *
+     * @param position the position of the update inside this batch.
+     * @return the kind of the update.
+     */
+    public NodeUpdateKind getKind(int position) {
+        return KINDS[kinds[position]];
+    }
+
+    /**
+     * Gives the new value of the property, see {@link NodeUpdateKind}.
+     *
+     * @param position the position of the update inside this batch.
+     * @return the value.
+     */
+    public int getValue(int position) {
+        return values[position];
+    }
+
+    /**
+     * Gives the new type of the node.
+     *
+     * @param position the position of the update inside this batch.
+     * @return the node type.
+     * @throws IllegalStateException if the update doesn't change the type.
+     */
+    public NodeType getNodeType(int position) {
+        if (kinds[position] != NodeUpdateKind.NODE_TYPE.ordinal()) {
+            throw new IllegalStateException("The update at " + position + " doesn't change the node type!");
+        }
+        return NODE_TYPES[values[position]];
+    }
+}
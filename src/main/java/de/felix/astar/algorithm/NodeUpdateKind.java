@@ -0,0 +1,35 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The NodeUpdateKind Enum represents which property of a node changed inside a {@link NodeUpdateBatch}.
+ *
+ * @author Felix
+ */
+public enum NodeUpdateKind {
+
+    /**
+     * The {@link NodeType} changed, the value is its ordinal.
+     */
+    NODE_TYPE,
+
+    /**
+     * The g-costs changed, the value are the new g-costs.
+     */
+    G_COST,
+
+    /**
+     * The h-costs changed, the value are the new h-costs.
+     */
+    H_COST,
+
+    /**
+     * The parent changed, the value is the index of the new parent or -1, if the node has no parent.
+     */
+    PARENT
+}
@@ -0,0 +1,142 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The NodeView class represents a {@link Node} whose state isn't stored inside the object but read from a {@link PrimitiveGrid}
+ * and the {@link SearchContext} of the last search of the pathfinder.
+ * Views are created on demand, so two views of the same cell are equal, but not the same object.
+ * Listeners of views are never called.
+ *
+ * @author Felix
+ */
+class NodeView extends Node {
+
+    /**
+     * The pathfinder which owns the grid. Used to calculate the h-costs.
+     */
+    private final Pathfinder pathfinder;
+
+    /**
+     * The grid storing the type of this node.
+     */
+    private final PrimitiveGrid grid;
+
+    /**
+     * The index of the viewed cell inside the grid.
+     */
+    private final int index;
+
+    /**
+     * Creates a new view of the given cell.
+     *
+     * @param pathfinder the pathfinder which owns the grid.
+     * @param grid       the grid storing the type of the node.
+     * @param index      the index of the cell.
+     */
+    NodeView(Pathfinder pathfinder, PrimitiveGrid grid, int index) {
+        super(grid.getX(index), grid.getY(index));
+        this.pathfinder = pathfinder;
+        this.grid = grid;
+        this.index = index;
+    }
+
+    /**
+     * Writes the new type into the grid.
+     * Like {@link Node#setNodeType(NodeType)} this is preventing the start and end node from getting the NodeType {@link NodeType#OPEN} or {@link NodeType#CLOSED}
+     *
+     * @param nodeType the new type of this node.
+     */
+    @Override
+    protected void setNodeType(NodeType nodeType) {
+        NodeType current = grid.getNodeType(index);
+        if ((current == NodeType.START || current == NodeType.END)
+                && (nodeType == NodeType.OPEN || nodeType == NodeType.CLOSED)) {
+            return;
+        }
+        grid.setNodeType(index, nodeType);
+    }
+
+    /**
+     * Gives the type stored inside the grid. Unevaluated cells that were reached by the last search are shown as
+     * {@link NodeType#OPEN}, {@link NodeType#CLOSED} or {@link NodeType#PATH}.
+     *
+     * @return the type of this node.
+     */
+    @Override
+    public NodeType getNodeType() {
+        NodeType nodeType = grid.getNodeType(index);
+        if (nodeType != NodeType.UNEVALUATED) {
+            return nodeType;
+        }
+
+        //Nothing was searched yet
+        SearchContext context = pathfinder.getSearchContext();
+        if (context == null) {
+            return NodeType.UNEVALUATED;
+        }
+
+        switch (context.getState(index)) {
+            case SearchContext.OPEN:
+                return NodeType.OPEN;
+            case SearchContext.CLOSED:
+                return NodeType.CLOSED;
+            case SearchContext.PATH:
+                return NodeType.PATH;
+            default:
+                return NodeType.UNEVALUATED;
+        }
+    }
+
+    @Override
+    public int getfCost() {
+        return getgCost() + gethCost();
+    }
+
+    @Override
+    public int getgCost() {
+        SearchContext context = pathfinder.getSearchContext();
+        int gCost = context == null ? SearchContext.UNREACHED : context.getgCost(index);
+        return gCost == SearchContext.UNREACHED ? 0 : gCost;
+    }
+
+    @Override
+    public int gethCost() {
+        SearchContext context = pathfinder.getSearchContext();
+        if (context == null || !context.isReached(index)) {
+            return 0;
+        }
+        return pathfinder.heuristic(index);
+    }
+
+    @Override
+    public Node getParent() {
+        SearchContext context = pathfinder.getSearchContext();
+        int parent = context == null ? SearchContext.NO_PARENT : context.getParent(index);
+        return parent == SearchContext.NO_PARENT ? null : new NodeView(pathfinder, grid, parent);
+    }
+
+    /**
+     * Two views are equal if they view the same cell of the same grid.
+     *
+     * @param obj the other object.
+     * @return true, if both view the same cell, otherwise false.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof NodeView)) {
+            return false;
+        }
+        NodeView other = (NodeView) obj;
+        return other.grid == grid && other.index == index;
+    }
+
+    @Override
+    public int hashCode() {
+        return index;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The OpenList interface represents the collection of open cells of the A* algorithm.
+ * Cells are identified by their index inside the grid and ordered by an integer priority, usually the f-cost.
+ *
+ * @author Felix
+ */
+interface OpenList {
+
+    /**
+     * Adds a cell that isn't contained yet.
+     *
+     * @param index    the index of the cell.
+     * @param priority the priority of the cell, lower priorities are polled first.
+     */
+    void add(int index, int priority);
+
+    /**
+     * Lowers the priority of a cell that is already contained.
+     *
+     * @param index    the index of the cell.
+     * @param priority the new priority, which must not be higher than the old one.
+     */
+    void decreaseKey(int index, int priority);
+
+    /**
+     * Whether or not the given cell is contained.
+     *
+     * @param index the index of the cell.
+     * @return true, if the cell is contained, otherwise false.
+     */
+    boolean contains(int index);
+
+    /**
+     * Removes the cell with the lowest priority.
+     *
+     * @return the index of the removed cell.
+     */
+    int poll();
+
+    /**
+     * Gives the amount of contained cells.
+     *
+     * @return the size.
+     */
+    int size();
+
+    /**
+     * Removes all cells.
+     */
+    void clear();
+
+    /**
+     * Whether or not the list is empty.
+     *
+     * @return true, if no cell is contained, otherwise false.
+     */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The OpenListType Enum represents the data structure used for the open collection of the {@link Pathfinder}.
+ *
+ * @author Felix
+ */
+public enum OpenListType {
+
+    /**
+     * A binary heap indexed by the cell, with O(1) membership tests and O(log n) decrease-key.
+     */
+    BINARY_HEAP {
+        @Override
+        OpenList create(int capacity) {
+            return new IndexedBinaryHeap(capacity);
+        }
+    },
+
+    /**
+     * A radix heap, with O(1) amortized operations for monotone integer priorities like the f-costs of a grid search.
+     * Fastest when the open list is big, e.g. on open maps, because adding and decreasing a priority don't compare priorities.
+     */
+    RADIX_HEAP {
+        @Override
+        OpenList create(int capacity) {
+            return new RadixHeap(capacity);
+        }
+
+        @Override
+        boolean isMonotone() {
+            return true;
+        }
+    },
+
+    /**
+     * A {@link java.util.PriorityQueue}, with O(n) membership tests and decrease-key.
+     * Only kept in order to compare it to the other implementations.
+     */
+    PRIORITY_QUEUE {
+        @Override
+        OpenList create(int capacity) {
+            return new PriorityQueueOpenList(capacity);
+        }
+    };
+
+    /**
+     * Creates a new, empty open list.
+     *
+     * @param capacity the amount of cells inside the grid.
+     * @return the open list.
+     */
+    abstract OpenList create(int capacity);
+
+    /**
+     * Whether or not the open list requires that no cell gets a lower priority than the last polled one.
+     *
+     * @return true, if the priorities have to be monotone, otherwise false.
+     */
+    boolean isMonotone() {
+        return false;
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The PathCache class stores the results of the last searches of a {@link Pathfinder}, so repeated queries don't search again.
+ * It holds a bounded amount of results and evicts the least recently used one when it is full.
+ * <p>
+ * A changed barrier only removes the results it affects. A new barrier affects the paths leading through its cell.
+ * A removed barrier affects the paths that could become cheaper through its cell, i.e. the cell lies inside the area
+ * an optimal search has to explore, and all failed searches.
+ * Changed {@link TerrainCosts terrain costs} are handled the same way, but never affect failed searches.
+ *
+ * @author Felix
+ */
+public final class PathCache {
+
+    //Attributes
+
+    /**
+     * The cached results in the order of their last use.
+     */
+    private final LinkedHashMap<Key, Result> entries;
+
+    /**
+     * The maximum amount of cached results.
+     */
+    private final int capacity;
+
+    /**
+     * The amount of columns of the grid.
+     */
+    private final int columns;
+
+    /**
+     * The amount of queries answered from the cache.
+     */
+    private long hits;
+
+    /**
+     * The amount of queries that had to search.
+     */
+    private long misses;
+
+    /**
+     * The amount of results removed because the cache was full.
+     */
+    private long evictions;
+
+    /**
+     * The amount of results removed because a barrier changed.
+     */
+    private long invalidations;
+
+    //Methods
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param capacity the maximum amount of cached results.
+     * @param columns  the amount of columns of the grid.
+     */
+    PathCache(int capacity, int columns) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the cache has to be positive!");
+        }
+        this.capacity = capacity;
+        this.columns = columns;
+        this.entries = new LinkedHashMap<Key, Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Result> eldest) {
+                if (size() > PathCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks up the result of a search and counts a hit or a miss.
+     *
+     * @param start     the index of the start cell.
+     * @param end       the index of the end cell.
+     * @param diagonal  whether or not diagonal movement was allowed.
+     * @param algorithm the algorithm that searched.
+     * @return the cached result or null, if the search isn't cached.
+     */
+    Result get(int start, int end, boolean diagonal, SearchAlgorithm algorithm) {
+        Result result = entries.get(new Key(start, end, diagonal, algorithm));
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    /**
+     * Stores the result of a search.
+     *
+     * @param start     the index of the start cell.
+     * @param end       the index of the end cell.
+     * @param diagonal  whether or not diagonal movement was allowed.
+     * @param algorithm the algorithm that searched.
+     * @param cells     the cells of the found path, beginning with the start cell, or null if no path was found.
+     * @param cost      the cost of the found path.
+     */
+    void put(int start, int end, boolean diagonal, SearchAlgorithm algorithm, int[] cells, int cost) {
+        entries.put(new Key(start, end, diagonal, algorithm), new Result(cells, cost));
+    }
+
+    /**
+     * Removes the results affected by a changed barrier.
+     *
+     * @param index   the index of the changed cell.
+     * @param barrier whether or not the cell became a barrier.
+     * @param scale   the lowest multiplier of the terrain costs, 1 without terrain costs.
+     */
+    void invalidate(int index, boolean barrier, int scale) {
+        invalidate(index, barrier, !barrier, scale);
+    }
+
+    /**
+     * Removes the results affected by a changed terrain cost multiplier.
+     *
+     * @param index     the index of the changed cell.
+     * @param increased whether or not the cell became more expensive.
+     * @param scale     the lowest multiplier of the terrain costs after the change.
+     */
+    void invalidateCost(int index, boolean increased, int scale) {
+        invalidate(index, increased, false, scale);
+    }
+
+    /**
+     * Removes the results affected by a changed cell.
+     *
+     * @param index   the index of the changed cell.
+     * @param blocked whether or not paths through the cell got more expensive, otherwise paths through it might have become cheaper.
+     * @param failed  whether or not failed searches are affected.
+     * @param scale   the lowest multiplier of the terrain costs.
+     */
+    private void invalidate(int index, boolean blocked, boolean failed, int scale) {
+        int x = index / columns;
+        int y = index % columns;
+        Iterator<Map.Entry<Key, Result>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Result> next = iterator.next();
+            Key key = next.getKey();
+            Result result = next.getValue();
+
+            boolean affected;
+            if (blocked) {
+                //The path is blocked, failed searches stay failed
+                affected = result.cells != null && Arrays.binarySearch(result.sortedCells, index) >= 0;
+            } else if (result.cells == null) {
+                //The cell might connect both areas
+                affected = failed;
+            } else {
+                //A path through the cell costs at least the distances to the start and to the end
+                long lowerBound = (long) (Pathfinder.distance(key.start / columns, key.start % columns, x, y)
+                        + Pathfinder.distance(x, y, key.end / columns, key.end % columns)) * scale;
+                affected = lowerBound < result.cost;
+            }
+
+            if (affected) {
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Removes all cached results. The counters are kept.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gives the amount of cached results.
+     *
+     * @return the size of the cache.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gives the maximum amount of cached results.
+     *
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gives the amount of queries answered from the cache.
+     *
+     * @return the amount of hits.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gives the amount of queries that had to search.
+     *
+     * @return the amount of misses.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gives the amount of results removed because the cache was full.
+     *
+     * @return the amount of evictions.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gives the amount of results removed because a barrier changed.
+     *
+     * @return the amount of invalidations.
+     */
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * The Key class identifies a search by its start and end cell, its diagonal mode and its algorithm.
+     *
+     * @author Felix
+     */
+    private static final class Key {
+
+        /**
+         * The index of the start cell.
+         */
+        private final int start;
+
+        /**
+         * The index of the end cell.
+         */
+        private final int end;
+
+        /**
+         * Whether or not diagonal movement was allowed.
+         */
+        private final boolean diagonal;
+
+        /**
+         * The algorithm that searched.
+         */
+        private final SearchAlgorithm algorithm;
+
+        /**
+         * Creates a new key.
+         *
+         * @param start     the index of the start cell.
+         * @param end       the index of the end cell.
+         * @param diagonal  whether or not diagonal movement was allowed.
+         * @param algorithm the algorithm that searched.
+         */
+        private Key(int start, int end, boolean diagonal, SearchAlgorithm algorithm) {
+            this.start = start;
+            this.end = end;
+            this.diagonal = diagonal;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) object;
+            return start == key.start && end == key.end && diagonal == key.diagonal && algorithm == key.algorithm;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((start * 31 + end) * 31 + (diagonal ? 1 : 0)) * 31 + algorithm.ordinal();
+        }
+    }
+
+    /**
+     * The Result class represents the cached result of a search.
+     *
+     * @author Felix
+     */
+    static final class Result {
+
+        /**
+         * The cells of the path beginning with the start cell, or null if no path was found.
+         */
+        final int[] cells;
+
+        /**
+         * The cells of the path in ascending order, to find the paths leading through a cell.
+         */
+        private final int[] sortedCells;
+
+        /**
+         * The cost of the path.
+         */
+        private final int cost;
+
+        /**
+         * Creates a new result.
+         *
+         * @param cells the cells of the path beginning with the start cell, or null if no path was found.
+         * @param cost  the cost of the path.
+         */
+        private Result(int[] cells, int cost) {
+            this.cells = cells;
+            this.cost = cells == null ? 0 : cost;
+            if (cells == null) {
+                this.sortedCells = null;
+                return;
+            }
+
+            this.sortedCells = cells.clone();
+            Arrays.sort(sortedCells);
+        }
+    }
+}
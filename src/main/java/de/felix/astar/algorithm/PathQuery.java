@@ -0,0 +1,125 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The PathQuery class represents a single start and end pair of a batch of searches.
+ * Queries with equal coordinates, movement and algorithm are equal.
+ *
+ * @author Felix
+ */
+public final class PathQuery {
+
+    /**
+     * The x-coordinate of the start.
+     */
+    private final int startX;
+
+    /**
+     * The y-coordinate of the start.
+     */
+    private final int startY;
+
+    /**
+     * The x-coordinate of the end.
+     */
+    private final int endX;
+
+    /**
+     * The y-coordinate of the end.
+     */
+    private final int endY;
+
+    /**
+     * Whether or not the algorithm is allowed to do diagonal steps.
+     */
+    private final boolean diagonal;
+
+    /**
+     * The algorithm used to answer the query.
+     */
+    private final SearchAlgorithm algorithm;
+
+    /**
+     * Creates a new query that is answered using {@link SearchAlgorithm#A_STAR}.
+     *
+     * @param startX   the x-coordinate of the start.
+     * @param startY   the y-coordinate of the start.
+     * @param endX     the x-coordinate of the end.
+     * @param endY     the y-coordinate of the end.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     */
+    public PathQuery(int startX, int startY, int endX, int endY, boolean diagonal) {
+        this(startX, startY, endX, endY, diagonal, SearchAlgorithm.A_STAR);
+    }
+
+    /**
+     * Creates a new query.
+     *
+     * @param startX    the x-coordinate of the start.
+     * @param startY    the y-coordinate of the start.
+     * @param endX      the x-coordinate of the end.
+     * @param endY      the y-coordinate of the end.
+     * @param diagonal  whether or not the algorithm is allowed to do diagonal steps.
+     * @param algorithm the algorithm used to answer the query.
+     */
+    public PathQuery(int startX, int startY, int endX, int endY, boolean diagonal, SearchAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        this.startX = startX;
+        this.startY = startY;
+        this.endX = endX;
+        this.endY = endY;
+        this.diagonal = diagonal;
+    }
+
+    public int getStartX() {
+        return startX;
+    }
+
+    public int getStartY() {
+        return startY;
+    }
+
+    public int getEndX() {
+        return endX;
+    }
+
+    public int getEndY() {
+        return endY;
+    }
+
+    public boolean isDiagonal() {
+        return diagonal;
+    }
+
+    public SearchAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof PathQuery)) {
+            return false;
+        }
+        PathQuery query = (PathQuery) object;
+        return startX == query.startX && startY == query.startY && endX == query.endX && endY == query.endY
+                && diagonal == query.diagonal && algorithm == query.algorithm;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = startX;
+        hash = 31 * hash + startY;
+        hash = 31 * hash + endX;
+        hash = 31 * hash + endY;
+        hash = 31 * hash + (diagonal ? 1 : 0);
+        return 31 * hash + algorithm.hashCode();
+    }
+}
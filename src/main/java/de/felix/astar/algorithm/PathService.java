@@ -0,0 +1,659 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The PathService class answers {@link PathQuery queries} against a {@link GridSnapshot} asynchronously,
+ * so the calling thread isn't blocked while the search runs.
+ * <p>
+ * Every search runs on a virtual thread if the JVM supports them, otherwise on a pool of one thread per search that may run at once.
+ * At most {@code maxInFlight} searches run at the same time, up to {@code maxQueued} more wait for a free slot and
+ * every further query is rejected with a {@link RejectedExecutionException}, so a saturated service pushes back instead of piling up work.
+ * <p>
+ * Equal queries against the same map version are coalesced: while a search for a query is queued or running,
+ * an equal query is answered by the same search. The map version changes with every {@link PathService#update(GridSnapshot)}.
+ * Cancelling a returned future aborts the search once nobody else waits for its result.
+ *
+ * @author Felix
+ */
+public final class PathService implements AutoCloseable {
+
+    //Constants
+
+    /**
+     * The default amount of searches waiting for a free slot.
+     */
+    public static final int DEFAULT_MAX_QUEUED = 1024;
+
+    //Attributes
+
+    /**
+     * The executor running the searches.
+     */
+    private final Executor executor;
+
+    /**
+     * The executor created by this service, shut down when the service is closed. Null if the executor was passed in.
+     */
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * Whether or not the searches run on virtual threads.
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * The maximum amount of searches running at the same time.
+     */
+    private final int maxInFlight;
+
+    /**
+     * The maximum amount of searches waiting for a free slot.
+     */
+    private final int maxQueued;
+
+    /**
+     * Guards the admission state: the snapshot, the version, the searches, the queue and the running searches.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The queued and running searches that still accept equal queries.
+     */
+    private final Map<Key, Search> searches = new HashMap<>();
+
+    /**
+     * The searches waiting for a free slot, in the order they were submitted.
+     */
+    private final ArrayDeque<Search> queue = new ArrayDeque<>();
+
+    /**
+     * The search contexts of finished searches. At most one per running search is ever created.
+     */
+    private final ConcurrentLinkedQueue<SearchContext> workspaces = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The snapshot new queries are answered against.
+     */
+    private GridSnapshot snapshot;
+
+    /**
+     * The version of the snapshot, increased by every update.
+     */
+    private long version;
+
+    /**
+     * The amount of running searches.
+     */
+    private int running;
+
+    /**
+     * Whether or not the service was closed.
+     */
+    private boolean closed;
+
+    /**
+     * The amount of queries.
+     */
+    private final LongAdder queries = new LongAdder();
+
+    /**
+     * The amount of queries answered by the search of an equal query.
+     */
+    private final LongAdder coalescedQueries = new LongAdder();
+
+    /**
+     * The amount of queries rejected because the queue was full or the service was closed.
+     */
+    private final LongAdder rejectedQueries = new LongAdder();
+
+    /**
+     * The amount of finished searches.
+     */
+    private final LongAdder completedSearches = new LongAdder();
+
+    /**
+     * The amount of searches abandoned because every future waiting for them was cancelled.
+     */
+    private final LongAdder cancelledSearches = new LongAdder();
+
+    //Methods
+
+    /**
+     * Creates a new service that runs one search per available processor at the same time
+     * and queues up to {@link PathService#DEFAULT_MAX_QUEUED} more.
+     *
+     * @param snapshot the snapshot to search.
+     */
+    public PathService(GridSnapshot snapshot) {
+        this(snapshot, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * Creates a new service running the searches on virtual threads or, if the JVM doesn't support them, on a bounded pool.
+     *
+     * @param snapshot    the snapshot to search.
+     * @param maxInFlight the maximum amount of searches running at the same time.
+     * @param maxQueued   the maximum amount of searches waiting for a free slot.
+     */
+    public PathService(GridSnapshot snapshot, int maxInFlight, int maxQueued) {
+        this(snapshot, maxInFlight, maxQueued, createExecutor(maxInFlight), true);
+    }
+
+    /**
+     * Creates a new service running the searches on the given executor, which isn't shut down by {@link PathService#close()}.
+     *
+     * @param snapshot    the snapshot to search.
+     * @param maxInFlight the maximum amount of searches running at the same time.
+     * @param maxQueued   the maximum amount of searches waiting for a free slot.
+     * @param executor    the executor to run the searches on.
+     */
+    public PathService(GridSnapshot snapshot, int maxInFlight, int maxQueued, Executor executor) {
+        this(snapshot, maxInFlight, maxQueued, executor, false);
+    }
+
+    /**
+     * Creates a new service.
+     *
+     * @param snapshot    the snapshot to search.
+     * @param maxInFlight the maximum amount of searches running at the same time.
+     * @param maxQueued   the maximum amount of searches waiting for a free slot.
+     * @param executor    the executor to run the searches on.
+     * @param owned       whether or not the executor was created by this service.
+     */
+    private PathService(GridSnapshot snapshot, int maxInFlight, int maxQueued, Executor executor, boolean owned) {
+        if (maxInFlight < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("At least one search has to run and the queue can't be negative!");
+        }
+        this.snapshot = snapshot;
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.executor = executor;
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+        this.virtualThreads = owned && !(executor instanceof ThreadPoolExecutor);
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per search. Before Java 21 virtual threads don't exist,
+     * so a fixed pool of daemon threads is created instead, as at most {@code threads} searches run at once anyway.
+     *
+     * @param threads the maximum amount of searches running at the same time.
+     * @return the executor.
+     */
+    private static ExecutorService createExecutor(int threads) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            //Not present or, as a preview feature, not enabled
+            return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "PathService");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Searches the path of the given query asynchronously.
+     * The future completes with a list of all nodes which lead to the target node or null if no path exists.
+     * It fails with a {@link RejectedExecutionException} if the queue is full or the service is closed,
+     * and with an {@link IllegalArgumentException} if start or end are outside the grid.
+     * <p>
+     * Futures of equal queries are independent of each other, each receives its own list of nodes.
+     *
+     * @param query the query to answer.
+     * @return the future of the path.
+     */
+    public CompletableFuture<List<Node>> findPath(PathQuery query) {
+        queries.increment();
+        Search search;
+        CompletableFuture<List<Node>> future;
+        synchronized (lock) {
+            if (closed) {
+                return reject("The service is closed!");
+            }
+
+            //Answer an equal query by its queued or running search
+            Key key = new Key(version, query);
+            search = searches.get(key);
+            if (search != null) {
+                coalescedQueries.increment();
+                return search.subscribe();
+            }
+            if (running >= maxInFlight && queue.size() >= maxQueued) {
+                return reject("Too many queries, " + maxInFlight + " are running and " + maxQueued + " are queued!");
+            }
+
+            search = new Search(key, snapshot);
+            future = search.subscribe();
+            searches.put(key, search);
+            if (running >= maxInFlight) {
+                queue.add(search);
+                return future;
+            }
+            running++;
+        }
+        start(search);
+        return future;
+    }
+
+    /**
+     * Searches the path between the given points asynchronously using {@link SearchAlgorithm#A_STAR}, see {@link PathService#findPath(PathQuery)}.
+     *
+     * @param startX   the x-coordinate of the start.
+     * @param startY   the y-coordinate of the start.
+     * @param endX     the x-coordinate of the end.
+     * @param endY     the y-coordinate of the end.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     * @return the future of the path.
+     */
+    public CompletableFuture<List<Node>> findPath(int startX, int startY, int endX, int endY, boolean diagonal) {
+        return findPath(new PathQuery(startX, startY, endX, endY, diagonal));
+    }
+
+    /**
+     * Counts a rejected query.
+     *
+     * @param message the reason of the rejection.
+     * @return a future failed with a {@link RejectedExecutionException}.
+     */
+    private CompletableFuture<List<Node>> reject(String message) {
+        rejectedQueries.increment();
+        CompletableFuture<List<Node>> future = new CompletableFuture<>();
+        future.completeExceptionally(new RejectedExecutionException(message));
+        return future;
+    }
+
+    /**
+     * Runs the given search on the executor.
+     *
+     * @param search the search that holds a slot.
+     */
+    private void start(Search search) {
+        try {
+            executor.execute(search);
+        } catch (RejectedExecutionException e) {
+            finish(search, null, e);
+        }
+    }
+
+    /**
+     * Frees the slot of the given search, starts the next queued one and completes the futures waiting for the result.
+     *
+     * @param search  the finished search.
+     * @param path    the found path or null.
+     * @param failure the exception thrown by the search or null.
+     */
+    private void finish(Search search, List<Node> path, Throwable failure) {
+        Search next;
+        List<CompletableFuture<List<Node>>> subscribers;
+        synchronized (lock) {
+            searches.remove(search.key, search);
+            search.done = true;
+            subscribers = new ArrayList<>(search.subscribers);
+            next = queue.poll();
+            if (next == null) {
+                running--;
+            }
+        }
+        completedSearches.increment();
+        if (next != null) {
+            start(next);
+        }
+
+        for (int i = 0; i < subscribers.size(); i++) {
+            if (failure != null) {
+                subscribers.get(i).completeExceptionally(failure);
+            } else {
+                subscribers.get(i).complete(i == 0 ? path : copyPath(path));
+            }
+        }
+    }
+
+    /**
+     * Removes a cancelled future from its search and abandons the search, if no other future waits for it.
+     * A queued search is removed from the queue, a running one is aborted through its token.
+     *
+     * @param search the search.
+     * @param future the cancelled future.
+     */
+    private void unsubscribe(Search search, CompletableFuture<List<Node>> future) {
+        synchronized (lock) {
+            if (search.done || !search.subscribers.remove(future) || !search.subscribers.isEmpty()) {
+                return;
+            }
+            search.done = true;
+            searches.remove(search.key, search);
+            if (!queue.remove(search)) {
+                search.token.cancel();
+            }
+        }
+        cancelledSearches.increment();
+    }
+
+    /**
+     * Copies the given path, so every caller can change its nodes without affecting the others.
+     *
+     * @param path the path to copy, may be null.
+     * @return the copy or null.
+     */
+    private static List<Node> copyPath(List<Node> path) {
+        if (path == null) {
+            return null;
+        }
+        List<Node> copy = new ArrayList<>(path.size());
+        Node previous = null;
+        for (Node node : path) {
+            Node next = new Node(node.getNodeType(), node.getX(), node.getY());
+            next.setgCost(node.getgCost());
+            next.setParent(previous);
+            copy.add(next);
+            previous = next;
+        }
+        return copy;
+    }
+
+    /**
+     * Replaces the snapshot new queries are answered against and increases the map version.
+     * Queued and running searches still answer their queries against the old snapshot, but aren't coalesced with new queries.
+     *
+     * @param snapshot the new snapshot.
+     */
+    public void update(GridSnapshot snapshot) {
+        synchronized (lock) {
+            this.snapshot = snapshot;
+            this.version++;
+        }
+    }
+
+    /**
+     * Gives the snapshot new queries are answered against.
+     *
+     * @return the snapshot.
+     */
+    public GridSnapshot getSnapshot() {
+        synchronized (lock) {
+            return snapshot;
+        }
+    }
+
+    /**
+     * Gives the version of the map, which starts at zero and increases with every {@link PathService#update(GridSnapshot)}.
+     *
+     * @return the version.
+     */
+    public long getVersion() {
+        synchronized (lock) {
+            return version;
+        }
+    }
+
+    /**
+     * Rejects all further queries and cancels the futures of all queued searches. Running searches are finished.
+     * An executor created by this service is shut down.
+     */
+    @Override
+    public void close() {
+        List<Search> abandoned;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            abandoned = new ArrayList<>(queue);
+            queue.clear();
+            for (Search search : abandoned) {
+                search.done = true;
+                searches.remove(search.key, search);
+            }
+        }
+        for (Search search : abandoned) {
+            cancelledSearches.increment();
+            for (CompletableFuture<List<Node>> future : search.subscribers) {
+                future.cancel(false);
+            }
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Whether or not the searches run on virtual threads.
+     *
+     * @return true, if a virtual thread is started per search, otherwise false.
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Gives the maximum amount of searches running at the same time.
+     *
+     * @return the maximum amount of searches in flight.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Gives the maximum amount of searches waiting for a free slot.
+     *
+     * @return the capacity of the queue.
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * Gives the amount of running searches.
+     *
+     * @return the amount of searches in flight.
+     */
+    public int getInFlight() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    /**
+     * Gives the amount of searches waiting for a free slot.
+     *
+     * @return the amount of queued searches.
+     */
+    public int getQueued() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Gives the amount of queries, including coalesced and rejected ones.
+     *
+     * @return the amount of queries.
+     */
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    /**
+     * Gives the amount of queries answered by the search of an equal query.
+     *
+     * @return the amount of coalesced queries.
+     */
+    public long getCoalescedQueries() {
+        return coalescedQueries.sum();
+    }
+
+    /**
+     * Gives the amount of queries rejected because the queue was full or the service was closed.
+     *
+     * @return the amount of rejected queries.
+     */
+    public long getRejectedQueries() {
+        return rejectedQueries.sum();
+    }
+
+    /**
+     * Gives the amount of finished searches, including aborted ones.
+     *
+     * @return the amount of completed searches.
+     */
+    public long getCompletedSearches() {
+        return completedSearches.sum();
+    }
+
+    /**
+     * Gives the amount of searches abandoned because every future waiting for them was cancelled or the service was closed.
+     *
+     * @return the amount of cancelled searches.
+     */
+    public long getCancelledSearches() {
+        return cancelledSearches.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "PathService{inFlight=" + getInFlight() + ", queued=" + getQueued() + ", queries=" + getQueries()
+                + ", coalesced=" + getCoalescedQueries() + ", rejected=" + getRejectedQueries()
+                + ", completed=" + getCompletedSearches() + ", cancelled=" + getCancelledSearches() + "}";
+    }
+
+    /**
+     * Identifies equal queries against the same map version.
+     *
+     * @author Felix
+     */
+    private static final class Key {
+
+        /**
+         * The version of the map the query is answered against.
+         */
+        private final long version;
+
+        /**
+         * The query.
+         */
+        private final PathQuery query;
+
+        Key(long version, PathQuery query) {
+            this.version = version;
+            this.query = query;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) object;
+            return version == key.version && query.equals(key.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(version) + query.hashCode();
+        }
+    }
+
+    /**
+     * A single search answering one or more equal queries. Its subscribers are guarded by the lock of the service.
+     *
+     * @author Felix
+     */
+    private final class Search implements Runnable {
+
+        /**
+         * The key of the query.
+         */
+        private final Key key;
+
+        /**
+         * The snapshot the query is answered against.
+         */
+        private final GridSnapshot snapshot;
+
+        /**
+         * Aborts the search once nobody waits for its result anymore.
+         */
+        private final CancellationToken token = new CancellationToken();
+
+        /**
+         * The futures waiting for the result.
+         */
+        private final List<CompletableFuture<List<Node>>> subscribers = new ArrayList<>(1);
+
+        /**
+         * Whether or not the search finished or was abandoned, so it doesn't accept subscribers anymore.
+         */
+        private boolean done;
+
+        Search(Key key, GridSnapshot snapshot) {
+            this.key = key;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Creates a new future waiting for the result of this search. Called while holding the lock of the service.
+         *
+         * @return the future.
+         */
+        CompletableFuture<List<Node>> subscribe() {
+            CompletableFuture<List<Node>> future = new CompletableFuture<>();
+            subscribers.add(future);
+            future.whenComplete((path, failure) -> {
+                if (future.isCancelled()) {
+                    unsubscribe(this, future);
+                }
+            });
+            return future;
+        }
+
+        @Override
+        public void run() {
+            SearchContext context = null;
+            List<Node> path = null;
+            Throwable failure = null;
+            try {
+                //Every running search needs its own context, finished ones are reused
+                context = workspaces.poll();
+                if (context == null || context.getCapacity() < snapshot.size()) {
+                    context = snapshot.createWorkspace();
+                }
+                context.setCancellationToken(token);
+                PathQuery query = key.query;
+                path = snapshot.findPath(context, query.getStartX(), query.getStartY(), query.getEndX(), query.getEndY(),
+                        query.isDiagonal(), query.getAlgorithm());
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                //Errors complete the subscribers as well, otherwise the slot of the search would never be released
+                if (context != null) {
+                    context.setCancellationToken(null);
+                    workspaces.offer(context);
+                }
+                finish(this, path, failure);
+            }
+        }
+    }
+}
@@ -7,12 +7,10 @@
 package de.felix.astar.algorithm;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * The Pathfinder class represents a Grid in which the A* algorithm can be executed after setting a start and an end node.
@@ -26,34 +24,152 @@ public class Pathfinder {
     /**
      * The costs for a horizontal or vertical move inside the grid.
      */
-    private static final int HORIZONTAL_COST = 10;
+    static final int HORIZONTAL_COST = 10;
 
     /**
      * The costs for a diagonal move inside the grid.
      */
-    private static final int DIAGONAL_COST = 14;
+    static final int DIAGONAL_COST = 14;
 
     //Attributes
 
     /**
-     * Stores all nodes as a grid.
+     * Stores all nodes as a grid. Only used by {@link EngineMode#OBJECT}.
      */
     private Node[][] grid;
 
+    /**
+     * Stores all cells as primitive arrays. Only used by {@link EngineMode#PRIMITIVE}.
+     */
+    private PrimitiveGrid primitiveGrid;
+
+    /**
+     * The grid the algorithm reads the barriers from, either the {@link PrimitiveGrid} or a {@link NodeGridMap}.
+     */
+    private GridMap gridMap;
+
+    /**
+     * Mirrors the search into the nodes of the grid. Only used by {@link EngineMode#OBJECT}.
+     */
+    private SearchObserver nodeObserver;
+
+    /**
+     * The observer collecting the updates for the {@link INodeBatchListener}, null if no listener is set.
+     */
+    private BatchObserver batchObserver;
+
+    /**
+     * The algorithm used by {@link Pathfinder#findPath()}.
+     */
+    private SearchAlgorithm searchAlgorithm = SearchAlgorithm.A_STAR;
+
+    /**
+     * The precomputed jump distances for {@link SearchAlgorithm#JPS_PLUS}. Discarded when a barrier changes.
+     */
+    private JumpTable jumpTable;
+
+    /**
+     * The abstract graph for {@link SearchAlgorithm#HPA_STAR}. Updated incrementally when a barrier changes.
+     */
+    private ClusterHierarchy hierarchy;
+
+    /**
+     * The incremental planner for {@link SearchAlgorithm#D_STAR_LITE}. Informed about every changed barrier.
+     */
+    private DStarLite planner;
+
+    /**
+     * Whether or not the connected components are labeled, to answer unreachable queries without a search.
+     */
+    private boolean componentIndexEnabled;
+
+    /**
+     * The connected components for diagonal movement, null until they are needed. Informed about every changed barrier.
+     */
+    private ComponentIndex diagonalComponents;
+
+    /**
+     * The connected components without diagonal movement, null until they are needed. Informed about every changed barrier.
+     */
+    private ComponentIndex straightComponents;
+
+    /**
+     * The landmark costs for {@link SearchAlgorithm#ALT}. Discarded when a barrier or the terrain costs change.
+     */
+    private LandmarkTable landmarks;
+
+    /**
+     * The amount of landmarks computed for {@link SearchAlgorithm#ALT}.
+     */
+    private int landmarkCount = LandmarkTable.DEFAULT_LANDMARKS;
+
+    /**
+     * The results of the last searches, null if caching is disabled.
+     */
+    private PathCache pathCache;
+
+    /**
+     * The width and height of a cluster of the {@link ClusterHierarchy}.
+     */
+    private int clusterSize = ClusterHierarchy.DEFAULT_CLUSTER_SIZE;
+
+    /**
+     * Gives the algorithms access to the jump table and the hierarchy.
+     */
+    private final SearchIndex searchIndex = new GridIndex();
+
+    /**
+     * The way the grid is stored.
+     */
+    private EngineMode engineMode;
+
+    /**
+     * The amount of rows, i.e. the range of the x-coordinate.
+     */
+    private int rows;
+
+    /**
+     * The amount of columns, i.e. the range of the y-coordinate.
+     */
+    private int columns;
+
     /**
      * Whether or not diagonal movement is allowed.
      */
     private boolean diagonal;
 
     /**
-     * Stores all open nodes that have to be evaluated.
+     * Stores the costs, parents, open and closed nodes of the current search.
+     * Reset in O(1) at the beginning of every search, so {@link Pathfinder#findPath()} can be called repeatedly.
+     * Created by the first search, as it needs several times the memory of a {@link BitGrid}.
      */
-    private PriorityQueue<Node> openCollection;
+    private SearchContext searchContext;
 
     /**
-     * Stores all closed nodes that are evaluated.
+     * The index of the end node of the last search, -1 if nothing was searched yet.
+     * The views compute their h-costs towards this cell, so they don't change when the end node is moved after the search.
      */
-    private Set<Node> closedCollection;
+    private int searchedEnd = -1;
+
+    /**
+     * The data structure used for the open collection.
+     */
+    private OpenListType openListType = OpenListType.BINARY_HEAP;
+
+    /**
+     * The factor the heuristic is multiplied with by weighted and anytime searches.
+     */
+    private double heuristicWeight = SearchContext.DEFAULT_HEURISTIC_WEIGHT;
+
+    /**
+     * The time in nanoseconds anytime searches may spend improving their path.
+     */
+    private long timeBudget = SearchContext.UNLIMITED;
+
+    /**
+     * The amount of nodes anytime searches may expand.
+     */
+    private long expansionBudget = SearchContext.UNLIMITED;
 
     /**
      * The starting node inside the grid.
@@ -65,6 +181,26 @@ public class Pathfinder {
      */
     private Node endNode;
 
+    /**
+     * Whether or not the statistics of every query are collected.
+     */
+    private boolean statsEnabled;
+
+    /**
+     * The sink receiving the statistics of every query, may be null.
+     */
+    private IMetricsSink metricsSink;
+
+    /**
+     * The statistics of the last query that collected them.
+     */
+    private SearchStats lastStats;
+
+    /**
+     * Whether or not the last query was answered by the path cache.
+     */
+    private boolean cacheHit;
+
     //Methods
 
     /**
@@ -78,9 +214,31 @@ public class Pathfinder {
      * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
      */
     public Pathfinder(int rows, int columns, boolean diagonal) {
+        this(rows, columns, diagonal, EngineMode.OBJECT);
+    }
+
+    /**
+     * Creates a new A* Pathfinder using the given {@link EngineMode}.
+     * In {@link EngineMode#PRIMITIVE} no {@link Node} objects are created until they are requested,
+     * e.g. by {@link Pathfinder#getNode(int, int)}, {@link Pathfinder#getGrid()} or as result of {@link Pathfinder#findPath()}.
+     *
+     * @param rows       the amount of rows the grid should have.
+     * @param columns    the amount of columns the grid should have.
+     * @param diagonal   whether or not the algorithm is allowed to do diagonal steps.
+     * @param engineMode the way the grid should be stored.
+     */
+    public Pathfinder(int rows, int columns, boolean diagonal, EngineMode engineMode) {
         this.diagonal = diagonal;
-        this.openCollection = new PriorityQueue<>(Comparator.comparingInt(Node::getfCost));
-        this.closedCollection = new HashSet<>();
+        this.engineMode = engineMode;
+        this.rows = rows;
+        this.columns = columns;
+
+        if (engineMode == EngineMode.PRIMITIVE) {
+            this.primitiveGrid = new PrimitiveGrid(rows, columns);
+            this.gridMap = primitiveGrid;
+            return;
+        }
+
         this.grid = new Node[rows][columns];
 
         //Fill grid
@@ -89,7 +247,25 @@ public class Pathfinder {
                 this.grid[x][y] = new Node(x, y);
             }
         }
+        this.gridMap = new NodeGridMap(grid, columns);
+        this.nodeObserver = new NodeObserver();
+
+    }
 
+    /**
+     * Creates a new A* Pathfinder in {@link EngineMode#PRIMITIVE} searching the given barriers.
+     * The grid is used directly, so changing its barriers has to be done through this pathfinder afterwards.
+     *
+     * @param barriers the barriers of the grid.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     */
+    public Pathfinder(BitGrid barriers, boolean diagonal) {
+        this.diagonal = diagonal;
+        this.engineMode = EngineMode.PRIMITIVE;
+        this.rows = barriers.getRows();
+        this.columns = barriers.getColumns();
+        this.primitiveGrid = new PrimitiveGrid(barriers);
+        this.gridMap = primitiveGrid;
     }
 
     /**
@@ -103,7 +279,7 @@ public class Pathfinder {
         if (!isInsideGrid(x, y)) {
             return;
         }
-        setNodeType(this.grid[x][y], nodeType);
+        setNodeType(getNode(x, y), nodeType);
     }
 
     /**
@@ -113,6 +289,28 @@ public class Pathfinder {
      * @param nodeType the new type.
      */
     public void setNodeType(Node node, NodeType nodeType) {
+        if ((nodeType == NodeType.BARRIER) != (node.getNodeType() == NodeType.BARRIER)) {
+            jumpTable = null;
+            landmarks = null;
+
+            //Only the clusters around the node have to be rebuilt
+            if (hierarchy != null) {
+                hierarchy.invalidate(node.getX(), node.getY());
+            }
+            if (planner != null) {
+                planner.invalidate(index(node));
+            }
+            if (diagonalComponents != null) {
+                diagonalComponents.invalidate(index(node));
+            }
+            if (straightComponents != null) {
+                straightComponents.invalidate(index(node));
+            }
+            if (pathCache != null) {
+                pathCache.invalidate(index(node), nodeType == NodeType.BARRIER, heuristicScale());
+            }
+        }
+
         if (nodeType == NodeType.START) {
             if (startNode != null) {
                 setNodeType(startNode, NodeType.UNEVALUATED);
@@ -123,25 +321,54 @@ public class Pathfinder {
                 setNodeType(endNode, NodeType.UNEVALUATED);
             }
             endNode = node;
-        } else if (this.startNode == node) {
+        } else if (isSameNode(this.startNode, node)) {
             this.startNode = null;
-        } else if (this.endNode == node) {
+        } else if (isSameNode(this.endNode, node)) {
             this.endNode = null;
         }
 
         node.setNodeType(nodeType);
+        if (batchObserver != null) {
+            batchObserver.add(index(node), NodeUpdateKind.NODE_TYPE, node.getNodeType().ordinal());
+        }
+    }
+
+    /**
+     * Gives the heuristic costs of the given cell to the end node of the last search. Used by {@link NodeView}.
+     *
+     * @param index the index of the cell inside the {@link PrimitiveGrid}.
+     * @return the distance to the end node of the last search or 0 if nothing was searched yet.
+     */
+    int heuristic(int index) {
+        if (searchedEnd < 0) {
+            return 0;
+        }
+        return distance(primitiveGrid.getX(index), primitiveGrid.getY(index), primitiveGrid.getX(searchedEnd), primitiveGrid.getY(searchedEnd))
+                * heuristicScale();
+    }
+
+    /**
+     * Gives the factor of the heuristic, i.e. the lowest multiplier of the terrain costs.
+     *
+     * @return the lowest multiplier or 1, if there are no terrain costs.
+     */
+    private int heuristicScale() {
+        TerrainCosts costs = TerrainCosts.of(gridMap);
+        return costs != null ? costs.getMinMultiplier() : 1;
     }
 
     /**
-     * Gives the costs of the distance between two nodes using the DIAGONAL_COST and HORIZONTAL_COST constants.
+     * Gives the costs of the distance between two points using the DIAGONAL_COST and HORIZONTAL_COST constants.
      *
-     * @param nodeA the first node.
-     * @param nodeB the second node.
+     * @param xA the x-coordinate of the first point.
+     * @param yA the y-coordinate of the first point.
+     * @param xB the x-coordinate of the second point.
+     * @param yB the y-coordinate of the second point.
      * @return the absolute distance.
      */
-    private int distance(Node nodeA, Node nodeB) {
-        int distanceX = Math.abs(nodeA.getX() - nodeB.getX());
-        int distanceY = Math.abs(nodeA.getY() - nodeB.getY());
+    static int distance(int xA, int yA, int xB, int yB) {
+        int distanceX = Math.abs(xA - xB);
+        int distanceY = Math.abs(yA - yB);
 
         if (distanceX > distanceY) {
             return DIAGONAL_COST * distanceY + HORIZONTAL_COST * (distanceX - distanceY);
@@ -150,6 +377,18 @@ public class Pathfinder {
         return DIAGONAL_COST * distanceX + HORIZONTAL_COST * (distanceY - distanceX);
     }
 
+    /**
+     * Checks whether or not both nodes are located at the same coordinates.
+     * Needed because in {@link EngineMode#PRIMITIVE} multiple views of the same node can exist.
+     *
+     * @param nodeA the first node, may be null.
+     * @param nodeB the second node, may be null.
+     * @return true, if both nodes aren't null and have the same coordinates, otherwise false.
+     */
+    private static boolean isSameNode(Node nodeA, Node nodeB) {
+        return nodeA != null && nodeB != null && nodeA.getX() == nodeB.getX() && nodeA.getY() == nodeB.getY();
+    }
+
     /**
      * Checks whether or not the given coordinates are inside of the defined grid.
      *
@@ -158,34 +397,64 @@ public class Pathfinder {
      * @return true, if the point is in the gird, otherwise false.
      */
     public boolean isInsideGrid(int x, int y) {
-        return x >= 0 && x < grid.length && y >= 0 && y < grid[x].length;
+        return x >= 0 && x < rows && y >= 0 && y < columns;
     }
 
     /**
-     * Retraces the path from the end to the starting node.
+     * Checks whether or not a path between the given points exists, without searching it.
+     * Enables the component index, if it isn't enabled yet, so the first call labels the connected components of the grid.
      *
-     * @return a list with all nodes of the path.
+     * @param startX the x-coordinate of the start.
+     * @param startY the y-coordinate of the start.
+     * @param endX   the x-coordinate of the end.
+     * @param endY   the y-coordinate of the end.
+     * @return true, if both points are inside the grid and connected, otherwise false.
      */
-    private List<Node> retracePath() {
-        List<Node> path = new ArrayList<>();
-        Node currentNode = endNode;
-
-        //Walk through the whole path until reaching the start node
-        while (currentNode != startNode) {
-            path.add(currentNode);
-            currentNode = currentNode.getParent();
+    public boolean isReachable(int startX, int startY, int endX, int endY) {
+        if (!isInsideGrid(startX, startY) || !isInsideGrid(endX, endY)) {
+            return false;
         }
-        path.add(startNode);
+        setComponentIndexEnabled(true);
+        return searchIndex.getComponents(diagonal).isReachable(startX * columns + startY, endX * columns + endY);
+    }
 
-        //Reverse the path so the first node is the start node
-        Collections.reverse(path);
+    /**
+     * Collects the nodes of the path and marks them.
+     *
+     * @param cells the cells of the path inside the search context, the first cell is the start node.
+     * @return a list with all nodes of the path.
+     */
+    private List<Node> retracePath(int[] cells) {
+        List<Node> path = new ArrayList<>(cells.length);
+        for (int cell : cells) {
+            path.add(getNode(cell));
+        }
 
         //Change type of all nodes to PATH except for start and end so they can still be identified
-        for (Node node : path) {
-            if (node == startNode || node == endNode) {
+        for (int i = 0; i < path.size(); i++) {
+            boolean inner = i > 0 && i < path.size() - 1;
+            if (batchObserver != null) {
+                batchObserver.add(cells[i], NodeUpdateKind.G_COST, searchContext.getgCost(cells[i]));
+                batchObserver.add(cells[i], NodeUpdateKind.PARENT, i == 0 ? SearchContext.NO_PARENT : cells[i - 1]);
+                if (inner) {
+                    batchObserver.add(cells[i], NodeUpdateKind.NODE_TYPE, NodeType.PATH.ordinal());
+                }
+            }
+            if (engineMode == EngineMode.PRIMITIVE) {
+                //Views show marked cells as PATH
+                if (inner) {
+                    searchContext.markPath(cells[i]);
+                }
                 continue;
             }
-            node.setNodeType(NodeType.PATH);
+
+            //Cells between jump points or cached paths weren't reached by the search itself
+            Node node = path.get(i);
+            node.setgCost(searchContext.getgCost(cells[i]));
+            node.setParent(i == 0 ? null : path.get(i - 1));
+            if (inner) {
+                node.setNodeType(NodeType.PATH);
+            }
         }
 
         return path;
@@ -201,78 +470,334 @@ public class Pathfinder {
      * otherwise null.
      */
     public List<Node> findPath() {
+        return findPath(null);
+    }
+
+    /**
+     * Tries to find the shortest path between the start and the endpoint, until the token is cancelled or its deadline passes.
+     * The token is checked every {@link SearchContext#CHECK_INTERVAL} expansions. An aborted search returns null like a
+     * search without path, {@link Pathfinder#getLastStatus()} tells why it stopped. Afterwards the pathfinder can be used as before.
+     *
+     * @param token the token to abort the search with, may be null.
+     * @return If a path was found, a list of all nodes which lead to the target node,
+     * otherwise null.
+     */
+    public List<Node> findPath(CancellationToken token) {
+        return query(token, this::retracePath);
+    }
+
+    /**
+     * Tries to find the shortest path between the start and the endpoint without creating nodes or marking the path inside the grid.
+     * In {@link EngineMode#OBJECT} the nodes reached by the search are still updated. Otherwise it behaves like {@link Pathfinder#findPath()}.
+     *
+     * @return the cells of the path or null, if no path was found.
+     */
+    public GridPath findGridPath() {
+        return findGridPath(null);
+    }
+
+    /**
+     * Tries to find the shortest path between the start and the endpoint without creating nodes or marking the path inside the grid,
+     * until the token is cancelled or its deadline passes, see {@link Pathfinder#findPath(CancellationToken)}.
+     *
+     * @param token the token to abort the search with, may be null.
+     * @return the cells of the path or null, if no path was found or the search was aborted.
+     */
+    public GridPath findGridPath(CancellationToken token) {
+        return query(token, cells -> new GridPath(cells, columns, searchContext.getgCost(cells[cells.length - 1])));
+    }
+
+    /**
+     * Floods the grid once backwards from the endpoint, so any amount of units heading to it can read their next step
+     * from the field instead of searching a path each. The field belongs to the current barriers and terrain costs.
+     *
+     * @return the flow field of the endpoint.
+     */
+    public FlowField createFlowField() {
+        if (endNode == null) {
+            throw new NullPointerException("The end node has to be set before creating a flow field!");
+        }
+        return FlowField.compute(gridMap, endNode.getX(), endNode.getY(), diagonal);
+    }
+
+    /**
+     * Creates a planner that moves many agents through a {@link Pathfinder#snapshot()} of this grid without collisions.
+     *
+     * @param window the amount of time steps an agent plans ahead.
+     * @return the planner.
+     */
+    public CooperativePlanner createCooperativePlanner(int window) {
+        return new CooperativePlanner(snapshot(), diagonal, window);
+    }
+
+    /**
+     * Searches the shortest path between the start and the endpoint, delivers the batched updates and records the statistics.
+     *
+     * @param token  the token to abort the search with, may be null.
+     * @param result creates the result from the cells of the path, the first one is the start.
+     * @param <T>    the type of the result.
+     * @return the result or null, if no path was found or the search was aborted.
+     */
+    private <T> T query(CancellationToken token, Function<int[], T> result) {
         if (startNode == null || endNode == null) {
             throw new NullPointerException("Start and end node have to be set before starting the algorithm!");
         }
 
-        //Add the start node to the open set.
-        openCollection.add(startNode);
+        int start = index(startNode);
+        int end = index(endNode);
+        if (batchObserver == null && !isCollectingStats()) {
+            int[] cells = findCells(start, end, token);
+            return cells == null ? null : result.apply(cells);
+        }
 
-        //Break when the open set is empty.
-        while (openCollection.size() > 0) {
+        long startTime = System.nanoTime();
+        int[] cells;
+        T path;
+        if (batchObserver != null) {
+            batchObserver.begin(engineMode == EngineMode.OBJECT ? nodeObserver : null, start, end);
+        }
+        try {
+            cells = findCells(start, end, token);
+            path = cells == null ? null : result.apply(cells);
+        } finally {
+            //The rest of the updates is delivered when the search is done
+            if (batchObserver != null) {
+                batchObserver.flush();
+            }
+        }
+
+        if (isCollectingStats()) {
+            int pathCost = cells == null ? -1 : searchContext.getgCost(end);
+            lastStats = new SearchStats(searchAlgorithm, cacheHit, searchContext, System.nanoTime() - startTime,
+                    cells == null ? 0 : cells.length, pathCost);
+            if (metricsSink != null) {
+                metricsSink.record(lastStats);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Searches the shortest path between the given cells.
+     *
+     * @param start the index of the start node.
+     * @param end   the index of the end node.
+     * @param token the token to abort the search with, may be null.
+     * @return the cells of the path, the first one is the start, or null, if no path was found or the search was aborted.
+     */
+    private int[] findCells(int start, int end, CancellationToken token) {
+        SearchContext context = getWorkspace();
+        context.clearStatistics();
+        cacheHit = false;
+        searchedEnd = end;
+
+        //Answer repeated queries from the cache
+        PathCache cache = searchAlgorithm.isCacheable() ? pathCache : null;
+        PathCache.Result cached = cache != null ? cache.get(start, end, diagonal, searchAlgorithm) : null;
+        if (cached != null) {
+            cacheHit = true;
+            if (cached.cells == null) {
+                context.setStatus(SearchStatus.NO_PATH);
+                return null;
+            }
+            context.storePath(cached.cells, gridMap);
+            context.setStatus(SearchStatus.PATH_FOUND);
+            return cached.cells;
+        }
 
-            //Find lowest f cost node and close it
-            Node currentNode = openCollection.poll();
-            closedCollection.add(currentNode);
+        //Nodes are only updated in object mode, views read directly from the search context
+        SearchObserver observer = batchObserver != null ? batchObserver : engineMode == EngineMode.OBJECT ? nodeObserver : null;
+        boolean found = false;
 
-            //Check if we've reached the end.
-            if (currentNode == endNode) {
-                //Retrace path
-                return retracePath();
+        //With the component index cells in different components are answered without a search
+        ComponentIndex components = searchIndex.getComponents(diagonal);
+        if (components == null || components.isReachable(start, end)) {
+            context.setCancellationToken(token);
+            try {
+                found = searchAlgorithm.search(gridMap, context, start, end, diagonal, searchIndex, observer);
+            } finally {
+                context.setCancellationToken(null);
             }
+        } else {
+            context.setStatus(SearchStatus.NO_PATH);
+        }
 
-            //Mark nodes as closed
-            currentNode.setNodeType(NodeType.CLOSED);
+        if (!found) {
+            //Aborted searches aren't cached, as there might be a path
+            if (cache != null && context.getStatus() == SearchStatus.NO_PATH) {
+                cache.put(start, end, diagonal, searchAlgorithm, null, 0);
+            }
+            return null;
+        }
 
-            //Go through all neighbors from the top left to the bottom right neighbour.
-            for (int x = -1; x <= 1; x++) {
-                for (int y = -1; y <= 1; y++) {
-                    if (x == 0 && y == 0) continue;
-                    if (!diagonal && (x == -1 && y == -1 || x == 1 && y == 1 || x == 1 && y == -1 || x == -1 && y == 1))
-                        continue;
-                    int xCoordinate = currentNode.getX() + x;
-                    int yCoordinate = currentNode.getY() + y;
+        //Walk through the whole path until reaching the start node, the first cell is the start node
+        int[] cells = searchContext.tracePath(start, end, columns);
+        if (cache != null) {
+            cache.put(start, end, diagonal, searchAlgorithm, cells, searchContext.getgCost(end));
+        }
+        return cells;
+    }
 
-                    //Skip if node is outside of the grid.
-                    if (!isInsideGrid(xCoordinate, yCoordinate)) {
-                        continue;
-                    }
+    /**
+     * Gives the reason why the last call of {@link Pathfinder#findPath(CancellationToken)} stopped.
+     *
+     * @return the status of the last query.
+     */
+    public SearchStatus getLastStatus() {
+        return getWorkspace().getStatus();
+    }
 
-                    //Get the neighbour node object from the grid.
-                    Node neighbour = grid[xCoordinate][yCoordinate];
+    /**
+     * Gives the amount of nodes expanded by the last call of {@link Pathfinder#findPath()}.
+     * Queries answered by the path cache or without a search because the nodes aren't connected expand no nodes.
+     *
+     * @return the amount of expanded nodes.
+     */
+    public int getExpandedNodes() {
+        if (searchContext == null) {
+            return 0;
+        }
+        SearchContext reverse = searchContext.getReverseIfPresent();
+        return (int) (searchContext.getClosedCount() + (reverse != null ? reverse.getClosedCount() : 0));
+    }
 
-                    //Skip if the node is a barrier or already closed.
-                    if (neighbour.getNodeType() == NodeType.BARRIER || closedCollection.contains(neighbour)) {
-                        continue;
-                    }
+    /**
+     * Sets whether or not the statistics of every query are collected, see {@link Pathfinder#getLastStats()}.
+     * Without statistics and without a {@link IMetricsSink} the operations of the open list aren't counted and the time isn't measured.
+     *
+     * @param statsEnabled whether or not statistics are collected.
+     */
+    public void setStatsEnabled(boolean statsEnabled) {
+        this.statsEnabled = statsEnabled;
+        updateCounting();
+    }
 
-                    //Calculate the new g cost for the neighbour node;
-                    int newGCost = currentNode.getgCost() + distance(currentNode, neighbour);
+    /**
+     * Whether or not the statistics of every query are collected.
+     *
+     * @return true, if statistics are collected, otherwise false.
+     */
+    public boolean isStatsEnabled() {
+        return statsEnabled;
+    }
 
-                    //Go on if the new path to the neighbour is cheaper or the neighbour isn't open
-                    if (newGCost < neighbour.getgCost() || !openCollection.contains(neighbour)) {
+    /**
+     * Gives the statistics of the last query of {@link Pathfinder#findPath()} that collected them.
+     *
+     * @return the statistics or null, if no query collected them yet.
+     */
+    public SearchStats getLastStats() {
+        return lastStats;
+    }
 
-                        //Set G, H and F cost for neighbour
-                        neighbour.setgCost(newGCost);
-                        neighbour.sethCost(distance(neighbour, endNode));
+    /**
+     * Sets the sink receiving the statistics of every query, e.g. a {@link SearchMetrics}. Statistics are collected while a sink is set.
+     *
+     * @param metricsSink the sink or null to remove it.
+     */
+    public void setMetricsSink(IMetricsSink metricsSink) {
+        this.metricsSink = metricsSink;
+        updateCounting();
+    }
 
-                        //Set the parent to be able to retrace the final path
-                        neighbour.setParent(currentNode);
+    /**
+     * Gives the sink receiving the statistics of every query.
+     *
+     * @return the sink or null, if none is set.
+     */
+    public IMetricsSink getMetricsSink() {
+        return metricsSink;
+    }
 
-                        //Add the parent to the open set if it isn't already
-                        if (!openCollection.contains(neighbour)) {
-                            openCollection.add(neighbour);
+    /**
+     * Whether or not queries collect statistics.
+     *
+     * @return true, if statistics are enabled or a sink is set, otherwise false.
+     */
+    private boolean isCollectingStats() {
+        return statsEnabled || metricsSink != null;
+    }
 
-                            //Mark node as open
-                            neighbour.setNodeType(NodeType.OPEN);
-                        }
-                    }
-                }
-            }
+    /**
+     * Counts the operations of the open list only while statistics are collected.
+     */
+    private void updateCounting() {
+        if (searchContext != null) {
+            searchContext.setCounting(isCollectingStats());
         }
+    }
 
-        //No path found
-        return null;
+    /**
+     * Answers all queries in parallel on a {@link Pathfinder#snapshot()} of this grid using the common {@link java.util.concurrent.ForkJoinPool}.
+     * The start and end node of this pathfinder are neither used nor changed.
+     *
+     * @param queries the queries to answer.
+     * @return for every query, at the same position, a list of all nodes which lead to the target node or null if no path was found.
+     */
+    public List<List<Node>> findPaths(List<PathQuery> queries) {
+        return snapshot().findPaths(queries);
+    }
+
+    /**
+     * Gives the node at the given index.
+     *
+     * @param index the index of the cell.
+     * @return the node or a view of it.
+     */
+    private Node getNode(int index) {
+        if (engineMode == EngineMode.PRIMITIVE) {
+            return new NodeView(this, primitiveGrid, index);
+        }
+        return grid[index / columns][index % columns];
+    }
+
+    /**
+     * Gives the search context, created on first use.
+     *
+     * @return the search context.
+     */
+    private SearchContext getWorkspace() {
+        if (searchContext == null) {
+            searchContext = new SearchContext(rows * columns, openListType);
+            searchContext.setCounting(isCollectingStats());
+            searchContext.setHeuristicWeight(heuristicWeight);
+            searchContext.setTimeBudget(timeBudget, TimeUnit.NANOSECONDS);
+            searchContext.setExpansionBudget(expansionBudget);
+        }
+        return searchContext;
+    }
+
+    /**
+     * Gives the search context of the last search. Used by {@link NodeView}.
+     *
+     * @return the search context or null, if nothing was searched yet.
+     */
+    SearchContext getSearchContext() {
+        return searchContext;
+    }
+
+    /**
+     * Creates an immutable copy of the barriers of this grid.
+     * The snapshot is not affected by later changes and can be searched by multiple threads at once.
+     *
+     * @return the snapshot.
+     */
+    public GridSnapshot snapshot() {
+        GridSnapshot snapshot = GridSnapshot.copyOf(gridMap);
+        if (componentIndexEnabled) {
+            snapshot.buildComponentIndex(diagonal);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gives the index of the given node, which is used to identify it inside the open collection.
+     *
+     * @param node the node.
+     * @return the index of the node.
+     */
+    private int index(Node node) {
+        return node.getX() * columns + node.getY();
     }
 
     /**
@@ -316,6 +841,86 @@ public class Pathfinder {
         this.diagonal = diagonal;
     }
 
+    /**
+     * Sets the movement cost multipliers of all cells, e.g. loaded by {@link MapFile#readCosts(java.nio.file.Path)}.
+     * The costs are used directly, so changing them has to be done through this pathfinder afterwards
+     * or they have to be set again. Setting new costs clears the path cache.
+     *
+     * @param terrainCosts the terrain costs or null, so every step costs the HORIZONTAL_COST or DIAGONAL_COST.
+     * @throws IllegalArgumentException if the costs don't have the size of the grid.
+     */
+    public void setTerrainCosts(TerrainCosts terrainCosts) {
+        if (terrainCosts != null && (terrainCosts.getRows() != rows || terrainCosts.getColumns() != columns)) {
+            throw new IllegalArgumentException("The terrain costs have to be of size " + rows + "x" + columns + "!");
+        }
+        if (engineMode == EngineMode.PRIMITIVE) {
+            primitiveGrid.setTerrainCosts(terrainCosts);
+        } else {
+            ((NodeGridMap) gridMap).setTerrainCosts(terrainCosts);
+        }
+
+        //Every step might have changed
+        planner = null;
+        landmarks = null;
+        if (pathCache != null) {
+            pathCache.clear();
+        }
+    }
+
+    /**
+     * Gives the movement cost multipliers of all cells.
+     *
+     * @return the terrain costs or null, if none are set.
+     */
+    public TerrainCosts getTerrainCosts() {
+        return gridMap.getTerrainCosts();
+    }
+
+    /**
+     * Sets the movement cost multiplier of the node at the given coordinates, if they are inside the grid.
+     * Creates the terrain costs if none are set. Only the cached paths affected by the change are removed.
+     *
+     * @param x          the x-coordinate.
+     * @param y          the y-coordinate.
+     * @param multiplier the new multiplier between 1 and 255, see {@link TerrainCosts}.
+     */
+    public void setCostMultiplier(int x, int y, int multiplier) {
+        if (!isInsideGrid(x, y)) {
+            return;
+        }
+        TerrainCosts costs = gridMap.getTerrainCosts();
+        if (costs == null) {
+            costs = new TerrainCosts(rows, columns);
+            setTerrainCosts(costs);
+        }
+
+        int index = x * columns + y;
+        int oldMultiplier = costs.getMultiplier(index);
+        if (oldMultiplier == multiplier) {
+            return;
+        }
+        costs.setMultiplier(index, multiplier);
+        landmarks = null;
+        if (planner != null) {
+            planner.invalidate(index);
+        }
+        if (pathCache != null) {
+            pathCache.invalidateCost(index, multiplier > oldMultiplier, heuristicScale());
+        }
+    }
+
+    /**
+     * Gives the movement cost multiplier of the node at the given coordinates.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the multiplier, 1 if no terrain costs are set.
+     */
+    public int getCostMultiplier(int x, int y) {
+        TerrainCosts costs = gridMap.getTerrainCosts();
+        return costs != null ? costs.getMultiplier(x, y) : TerrainCosts.MIN_MULTIPLIER;
+    }
+
     /**
      * Getter for the startNode attribute.
      *
@@ -334,15 +939,288 @@ public class Pathfinder {
         return endNode;
     }
 
+    /**
+     * Gives the node at the given coordinates.
+     * In {@link EngineMode#PRIMITIVE} a new view of the cell is created on every call.
+     *
+     * @param x the x-coordinate of the node.
+     * @param y the y-coordinate of the node.
+     * @return the node, or null if the coordinates are outside of the grid.
+     */
+    public Node getNode(int x, int y) {
+        if (!isInsideGrid(x, y)) {
+            return null;
+        }
+        if (engineMode == EngineMode.PRIMITIVE) {
+            return new NodeView(this, primitiveGrid, primitiveGrid.index(x, y));
+        }
+        return grid[x][y];
+    }
+
     /**
      * Gives the currently used grid.
+     * In {@link EngineMode#PRIMITIVE} a new grid of views is created on every call, which is expensive for big grids.
      *
      * @return the grid.
      */
     public Node[][] getGrid() {
+        if (engineMode == EngineMode.PRIMITIVE) {
+            Node[][] views = new Node[rows][columns];
+            for (int x = 0; x < rows; x++) {
+                for (int y = 0; y < columns; y++) {
+                    views[x][y] = getNode(x, y);
+                }
+            }
+            return views;
+        }
         return grid;
     }
 
+    /**
+     * Gives the way the grid is stored.
+     *
+     * @return the engine mode.
+     */
+    public EngineMode getEngineMode() {
+        return engineMode;
+    }
+
+    /**
+     * Sets the algorithm used to find a path.
+     *
+     * @param searchAlgorithm the new algorithm.
+     */
+    public void setSearchAlgorithm(SearchAlgorithm searchAlgorithm) {
+        this.searchAlgorithm = searchAlgorithm;
+    }
+
+    /**
+     * Gives the algorithm used to find a path.
+     *
+     * @return the search algorithm.
+     */
+    public SearchAlgorithm getSearchAlgorithm() {
+        return searchAlgorithm;
+    }
+
+    /**
+     * Sets the width and height of the clusters used by {@link SearchAlgorithm#HPA_STAR}.
+     * Bigger clusters make the abstract graph smaller, but the rebuild after a changed barrier more expensive.
+     *
+     * @param clusterSize the new cluster size, at least 2.
+     */
+    public void setClusterSize(int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("The cluster size has to be at least 2!");
+        }
+        this.clusterSize = clusterSize;
+        this.hierarchy = null;
+
+        //Hierarchical paths depend on the clusters
+        if (pathCache != null) {
+            pathCache.clear();
+        }
+    }
+
+    /**
+     * Gives the width and height of the clusters used by {@link SearchAlgorithm#HPA_STAR}.
+     *
+     * @return the cluster size.
+     */
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    /**
+     * Sets whether or not the connected components of the grid are labeled, so queries between unconnected cells are answered
+     * without a search. Enabling labels the components of the current movement mode in parallel right away,
+     * the other movement mode is labeled when it is queried the first time. Both are kept and updated when barriers change,
+     * each needs four bytes per cell. Disabled by default, as a search would be faster than labeling a big map for a single query.
+     *
+     * @param enabled whether or not the components are labeled.
+     */
+    public void setComponentIndexEnabled(boolean enabled) {
+        this.componentIndexEnabled = enabled;
+        if (enabled) {
+            searchIndex.getComponents(diagonal);
+        } else {
+            diagonalComponents = null;
+            straightComponents = null;
+        }
+    }
+
+    /**
+     * Whether or not the connected components of the grid are labeled.
+     *
+     * @return true, if the component index is enabled, otherwise false.
+     */
+    public boolean isComponentIndexEnabled() {
+        return componentIndexEnabled;
+    }
+
+    /**
+     * Sets the amount of landmarks computed for {@link SearchAlgorithm#ALT}. More landmarks give a better heuristic,
+     * but take longer to compute and need two bytes per cell each.
+     *
+     * @param landmarkCount the new amount of landmarks, at least 1.
+     */
+    public void setLandmarkCount(int landmarkCount) {
+        if (landmarkCount < 1) {
+            throw new IllegalArgumentException("At least one landmark is needed!");
+        }
+        this.landmarkCount = landmarkCount;
+        this.landmarks = null;
+    }
+
+    /**
+     * Gives the amount of landmarks computed for {@link SearchAlgorithm#ALT}.
+     *
+     * @return the amount of landmarks.
+     */
+    public int getLandmarkCount() {
+        return landmarkCount;
+    }
+
+    /**
+     * Sets precomputed landmarks for {@link SearchAlgorithm#ALT}, e.g. read by {@link MapFile#readLandmarks(java.nio.file.Path)},
+     * so they don't have to be computed by the first search. They have to belong to the current barriers and terrain costs,
+     * otherwise the found paths might not be optimal. They are discarded when a barrier or the terrain costs change.
+     *
+     * @param landmarks the landmarks or null to compute them on first use.
+     */
+    public void setLandmarks(LandmarkTable landmarks) {
+        if (landmarks != null && (landmarks.getRows() != rows || landmarks.getColumns() != columns)) {
+            throw new IllegalArgumentException("The landmarks have to be of size " + rows + "x" + columns + "!");
+        }
+        this.landmarks = landmarks;
+    }
+
+    /**
+     * Gives the landmarks of the current barriers, computed on first use for the current movement.
+     *
+     * @return the landmarks.
+     */
+    public LandmarkTable getLandmarks() {
+        return searchIndex.getLandmarks(diagonal);
+    }
+
+    /**
+     * Sets the listener that receives the changes of the nodes in batches. Changes of the same property of the same node
+     * inside one batch are coalesced. A batch is delivered whenever it is full, the interval elapsed and at the end of every search,
+     * changes made outside of a search are delivered with the next search or {@link Pathfinder#flushNodeUpdates()}.
+     * Without a listener a search doesn't collect anything.
+     * <p>
+     * In {@link EngineMode#OBJECT} the nodes and their {@link INodeUpdateListener} are still updated.
+     *
+     * @param listener       the listener or null to remove it.
+     * @param intervalMillis the minimal time between two deliveries during a search in milliseconds,
+     *                       0 to only deliver full batches and at the end of a search.
+     */
+    public void setBatchListener(INodeBatchListener listener, long intervalMillis) {
+        if (batchObserver != null) {
+            batchObserver.flush();
+        }
+        this.batchObserver = listener == null ? null : new BatchObserver(listener, intervalMillis, columns);
+    }
+
+    /**
+     * Delivers the changes collected since the last batch to the {@link INodeBatchListener}, if there are any.
+     */
+    public void flushNodeUpdates() {
+        if (batchObserver != null) {
+            batchObserver.flush();
+        }
+    }
+
+    /**
+     * Enables caching the results of {@link Pathfinder#findPath()}, so repeated queries with the same start, end,
+     * diagonal mode and algorithm don't search again. Changed barriers only remove the affected results.
+     *
+     * @param capacity the maximum amount of cached results, 0 to disable caching.
+     */
+    public void setPathCacheCapacity(int capacity) {
+        this.pathCache = capacity == 0 ? null : new PathCache(capacity, columns);
+    }
+
+    /**
+     * Gives the cache of the results of {@link Pathfinder#findPath()}, which also counts its hits, misses and evictions.
+     *
+     * @return the cache or null, if caching is disabled.
+     */
+    public PathCache getPathCache() {
+        return pathCache;
+    }
+
+    /**
+     * Sets the data structure used for the open collection.
+     * Must not be called while the algorithm is running.
+     *
+     * @param openListType the new open list type.
+     */
+    public void setOpenListType(OpenListType openListType) {
+        this.openListType = openListType;
+        if (searchContext != null) {
+            searchContext.setOpenListType(openListType);
+        }
+    }
+
+    /**
+     * Gives the data structure used for the open collection.
+     *
+     * @return the open list type.
+     */
+    public OpenListType getOpenListType() {
+        return openListType;
+    }
+
+    /**
+     * Sets the factor the heuristic is multiplied with by {@link SearchAlgorithm#WEIGHTED_A_STAR}
+     * and by the first iteration of {@link SearchAlgorithm#ANYTIME}.
+     *
+     * @param heuristicWeight the weight, at least 1.
+     * @throws IllegalArgumentException if the weight is lower than 1.
+     * @see SearchContext#setHeuristicWeight(double)
+     */
+    public void setHeuristicWeight(double heuristicWeight) {
+        getWorkspace().setHeuristicWeight(heuristicWeight);
+        this.heuristicWeight = heuristicWeight;
+    }
+
+    /**
+     * Gives the factor the heuristic is multiplied with by weighted and anytime searches.
+     *
+     * @return the weight.
+     */
+    public double getHeuristicWeight() {
+        return heuristicWeight;
+    }
+
+    /**
+     * Sets the time and the amount of expansions {@link SearchAlgorithm#ANYTIME} may spend on a query.
+     * The first path is always completed, afterwards it is improved until one of the budgets runs out.
+     *
+     * @param time            the time or {@link SearchContext#UNLIMITED}.
+     * @param unit            the unit of the time.
+     * @param expansionBudget the amount of expanded nodes or {@link SearchContext#UNLIMITED}.
+     * @throws IllegalArgumentException if a budget is negative.
+     */
+    public void setSearchBudget(long time, TimeUnit unit, long expansionBudget) {
+        SearchContext context = getWorkspace();
+        context.setTimeBudget(time, unit);
+        context.setExpansionBudget(expansionBudget);
+        this.timeBudget = context.getTimeBudgetNanos();
+        this.expansionBudget = expansionBudget;
+    }
+
+    /**
+     * Gives the factor by which the last found path costs at most more than the optimal path.
+     *
+     * @return the suboptimality bound, see {@link SearchContext#getSuboptimalityBound()}.
+     */
+    public double getSuboptimalityBound() {
+        return getWorkspace().getSuboptimalityBound();
+    }
+
     /**
      * Whether or not the pathfinder allows diagonal movement
      *
@@ -351,4 +1229,91 @@ public class Pathfinder {
     public boolean isDiagonal() {
         return diagonal;
     }
+
+    /**
+     * Implementation of the {@link SearchIndex} that computes the precomputed data on first use
+     * and recomputes it if the barriers or the diagonal mode changed since the last computation.
+     * The planner and the components are kept and repair themselves, the components are only labeled if they are enabled.
+     *
+     * @author Felix
+     */
+    private class GridIndex implements SearchIndex {
+
+        @Override
+        public JumpTable getJumpTable(boolean diagonal) {
+            if (jumpTable == null || jumpTable.isDiagonal() != diagonal) {
+                jumpTable = new JumpTable(gridMap, diagonal);
+            }
+            return jumpTable;
+        }
+
+        @Override
+        public ClusterHierarchy getHierarchy(boolean diagonal) {
+            if (hierarchy == null || hierarchy.isDiagonal() != diagonal) {
+                hierarchy = new ClusterHierarchy(gridMap, clusterSize, diagonal);
+            }
+            hierarchy.update();
+            return hierarchy;
+        }
+
+        @Override
+        public DStarLite getPlanner(boolean diagonal) {
+            if (planner == null || planner.isDiagonal() != diagonal) {
+                planner = new DStarLite(gridMap, diagonal);
+            }
+            return planner;
+        }
+
+        @Override
+        public ComponentIndex getComponents(boolean diagonal) {
+            if (!componentIndexEnabled) {
+                return null;
+            }
+            if (diagonal && diagonalComponents == null) {
+                diagonalComponents = new ComponentIndex(gridMap, true);
+            } else if (!diagonal && straightComponents == null) {
+                straightComponents = new ComponentIndex(gridMap, false);
+            }
+            return diagonal ? diagonalComponents : straightComponents;
+        }
+
+        @Override
+        public LandmarkTable getLandmarks(boolean diagonal) {
+            if (landmarks == null || landmarks.isDiagonal() != diagonal) {
+                landmarks = LandmarkTable.compute(gridMap, landmarkCount, diagonal, ForkJoinPool.commonPool());
+            }
+            return landmarks;
+        }
+    }
+
+    /**
+     * Implementation of the {@link SearchObserver} that writes the costs, parents and types of the search into the nodes of the grid,
+     * so the {@link INodeUpdateListener} of every node is called like before.
+     *
+     * @author Felix
+     */
+    private class NodeObserver implements SearchObserver {
+
+        @Override
+        public void onReach(int index, int gCost, int hCost, int parent) {
+            Node node = getNode(index);
+
+            //Set G, H and F cost for the node
+            node.setgCost(gCost);
+            node.sethCost(hCost);
+
+            //Set the parent to be able to retrace the final path
+            node.setParent(parent == SearchContext.NO_PARENT ? null : getNode(parent));
+
+            //Mark node as open
+            if (node.getNodeType() != NodeType.OPEN) {
+                node.setNodeType(NodeType.OPEN);
+            }
+        }
+
+        @Override
+        public void onClose(int index) {
+            getNode(index).setNodeType(NodeType.CLOSED);
+        }
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The PrimitiveGrid class stores a grid without one {@link Node} object per cell.
+ * A cell is addressed by its index, which is calculated as {@code x * columns + y}.
+ * The barriers are stored inside a {@link BitGrid}, the few cells of other types like the start and end node inside a map.
+ * The state of a search is stored separately inside a {@link SearchContext}.
+ *
+ * @author Felix
+ */
+class PrimitiveGrid implements GridMap {
+
+    //Attributes
+
+    /**
+     * The amount of rows, i.e. the range of the x-coordinate.
+     */
+    private final int rows;
+
+    /**
+     * The amount of columns, i.e. the range of the y-coordinate.
+     */
+    private final int columns;
+
+    /**
+     * The barrier bit of every cell.
+     */
+    private final BitGrid barriers;
+
+    /**
+     * The {@link NodeType} of every cell that is neither {@link NodeType#UNEVALUATED} nor {@link NodeType#BARRIER}.
+     */
+    private final Map<Integer, NodeType> types = new HashMap<>();
+
+    /**
+     * The movement cost multipliers of the cells, null if every cell has the multiplier 1.
+     */
+    private TerrainCosts terrainCosts;
+
+    //Methods
+
+    /**
+     * Creates a new primitive grid in which all cells are {@link NodeType#UNEVALUATED}.
+     *
+     * @param rows    the amount of rows the grid should have.
+     * @param columns the amount of columns the grid should have.
+     */
+    PrimitiveGrid(int rows, int columns) {
+        this(new BitGrid(rows, columns));
+    }
+
+    /**
+     * Creates a new primitive grid using the given barriers, all other cells are {@link NodeType#UNEVALUATED}.
+     *
+     * @param barriers the barriers, used directly instead of copying them.
+     */
+    PrimitiveGrid(BitGrid barriers) {
+        this.rows = barriers.getRows();
+        this.columns = barriers.getColumns();
+        this.barriers = barriers;
+    }
+
+    @Override
+    public int index(int x, int y) {
+        return x * columns + y;
+    }
+
+    /**
+     * Gives the x-coordinate of the given cell.
+     *
+     * @param index the cell index.
+     * @return the x-coordinate.
+     */
+    int getX(int index) {
+        return index / columns;
+    }
+
+    /**
+     * Gives the y-coordinate of the given cell.
+     *
+     * @param index the cell index.
+     * @return the y-coordinate.
+     */
+    int getY(int index) {
+        return index % columns;
+    }
+
+    NodeType getNodeType(int index) {
+        if (barriers.isBarrier(index)) {
+            return NodeType.BARRIER;
+        }
+        return types.getOrDefault(index, NodeType.UNEVALUATED);
+    }
+
+    void setNodeType(int index, NodeType nodeType) {
+        //Only changed barriers are written, so a read-only grid can still get a start and an end
+        if ((nodeType == NodeType.BARRIER) != barriers.isBarrier(index)) {
+            barriers.setBarrier(index, nodeType == NodeType.BARRIER);
+        }
+        if (nodeType == NodeType.BARRIER || nodeType == NodeType.UNEVALUATED) {
+            types.remove(index);
+        } else {
+            types.put(index, nodeType);
+        }
+    }
+
+    /**
+     * Gives the barriers of this grid.
+     *
+     * @return the barriers.
+     */
+    BitGrid getBarriers() {
+        return barriers;
+    }
+
+    @Override
+    public boolean isBarrier(int index) {
+        return barriers.isBarrier(index);
+    }
+
+    @Override
+    public int getNeighbourBarriers(int x, int y) {
+        return barriers.getNeighbourBarriers(x, y);
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public TerrainCosts getTerrainCosts() {
+        return terrainCosts;
+    }
+
+    /**
+     * Sets the movement cost multipliers of the cells.
+     *
+     * @param terrainCosts the terrain costs or null.
+     */
+    void setTerrainCosts(TerrainCosts terrainCosts) {
+        this.terrainCosts = terrainCosts;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.PriorityQueue;
+
+/**
+ * The PriorityQueueOpenList class represents an open list backed by a {@link PriorityQueue}, like the original implementation.
+ * Membership tests and decrease-key are O(n), because the queue doesn't know where a cell is stored.
+ *
+ * @author Felix
+ */
+class PriorityQueueOpenList implements OpenList {
+
+    /**
+     * The priority of every cell, read by the comparator of the queue.
+     */
+    private final int[] priorities;
+
+    /**
+     * The queue of cells.
+     */
+    private final PriorityQueue<Integer> queue;
+
+    /**
+     * Creates a new, empty open list.
+     *
+     * @param capacity the amount of cells inside the grid, i.e. the highest index plus one.
+     */
+    PriorityQueueOpenList(int capacity) {
+        this.priorities = new int[capacity];
+        this.queue = new PriorityQueue<>((a, b) -> Integer.compare(priorities[a], priorities[b]));
+    }
+
+    @Override
+    public void add(int index, int priority) {
+        priorities[index] = priority;
+        queue.add(index);
+    }
+
+    @Override
+    public void decreaseKey(int index, int priority) {
+        //The queue has to be re-sifted, so the cell is removed and added again
+        queue.remove(index);
+        add(index, priority);
+    }
+
+    @Override
+    public boolean contains(int index) {
+        return queue.contains(index);
+    }
+
+    @Override
+    public int poll() {
+        return queue.remove();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public void clear() {
+        queue.clear();
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * The RadixHeap class represents a monotone priority queue of cells, i.e. no cell may get a lower priority than the last polled one.
+ * The f-costs of the A* algorithm are monotone, because the heuristic is consistent.
+ * <p>
+ * Cells are put into the bucket of the highest bit in which their priority differs from the last polled priority.
+ * Bucket 0 holds the cells with exactly the last polled priority. Polling empties the first non-empty bucket into lower buckets,
+ * every cell can only move down 32 times, so all operations take O(1) amortized time.
+ * Adding and decreasing a priority never compare priorities at all.
+ *
+ * @author Felix
+ */
+class RadixHeap implements OpenList {
+
+    //Constants
+
+    /**
+     * The amount of buckets, one for each bit of a priority and one for the last polled priority.
+     */
+    private static final int BUCKETS = Integer.SIZE + 1;
+
+    /**
+     * The bucket of a cell that isn't contained.
+     */
+    private static final byte ABSENT = -1;
+
+    //Attributes
+
+    /**
+     * The cells of every bucket.
+     */
+    private final int[][] cells = new int[BUCKETS][];
+
+    /**
+     * The priorities of the cells at the same position in {@link RadixHeap#cells}.
+     */
+    private final int[][] priorities = new int[BUCKETS][];
+
+    /**
+     * The amount of cells inside every bucket.
+     */
+    private final int[] bucketSizes = new int[BUCKETS];
+
+    /**
+     * The bucket of every cell or {@link RadixHeap#ABSENT}.
+     */
+    private final byte[] buckets;
+
+    /**
+     * The position of every contained cell inside its bucket.
+     */
+    private final int[] positions;
+
+    /**
+     * The last polled priority.
+     */
+    private int last;
+
+    /**
+     * The amount of contained cells.
+     */
+    private int size;
+
+    //Methods
+
+    /**
+     * Creates a new, empty heap.
+     *
+     * @param capacity the amount of cells inside the grid, i.e. the highest index plus one.
+     */
+    RadixHeap(int capacity) {
+        this.buckets = new byte[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(buckets, ABSENT);
+        for (int i = 0; i < BUCKETS; i++) {
+            cells[i] = new int[16];
+            priorities[i] = new int[16];
+        }
+    }
+
+    @Override
+    public void add(int index, int priority) {
+        if (priority < last) {
+            throw new IllegalArgumentException("The priority " + priority + " is lower than the last polled priority " + last + "!");
+        }
+        insert(index, priority);
+        size++;
+    }
+
+    @Override
+    public void decreaseKey(int index, int priority) {
+        if (priority < last) {
+            throw new IllegalArgumentException("The priority " + priority + " is lower than the last polled priority " + last + "!");
+        }
+        remove(index);
+        insert(index, priority);
+    }
+
+    @Override
+    public boolean contains(int index) {
+        return buckets[index] != ABSENT;
+    }
+
+    @Override
+    public int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        if (bucketSizes[0] == 0) {
+            //The lowest priority is inside the first non-empty bucket
+            int bucket = 1;
+            while (bucketSizes[bucket] == 0) {
+                bucket++;
+            }
+            int[] bucketCells = cells[bucket];
+            int[] bucketPriorities = priorities[bucket];
+            int count = bucketSizes[bucket];
+            int min = bucketPriorities[0];
+            for (int i = 1; i < count; i++) {
+                min = Math.min(min, bucketPriorities[i]);
+            }
+
+            //Relative to the new last priority every cell of the bucket belongs into a lower bucket
+            last = min;
+            bucketSizes[bucket] = 0;
+            for (int i = 0; i < count; i++) {
+                insert(bucketCells[i], bucketPriorities[i]);
+            }
+        }
+
+        //Cells of the same priority are polled in the reverse order of their insertion
+        int position = --bucketSizes[0];
+        int index = cells[0][position];
+        buckets[index] = ABSENT;
+        size--;
+        return index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        //Only touch the contained cells, so clearing is cheap for big grids
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            for (int i = 0; i < bucketSizes[bucket]; i++) {
+                buckets[cells[bucket][i]] = ABSENT;
+            }
+            bucketSizes[bucket] = 0;
+        }
+        size = 0;
+        last = 0;
+    }
+
+    /**
+     * Appends the cell to the bucket of its priority.
+     *
+     * @param index    the index of the cell.
+     * @param priority the priority of the cell.
+     */
+    private void insert(int index, int priority) {
+        int bucket = Integer.SIZE - Integer.numberOfLeadingZeros(priority ^ last);
+        int position = bucketSizes[bucket]++;
+        if (position == cells[bucket].length) {
+            cells[bucket] = Arrays.copyOf(cells[bucket], position * 2);
+            priorities[bucket] = Arrays.copyOf(priorities[bucket], position * 2);
+        }
+        cells[bucket][position] = index;
+        priorities[bucket][position] = priority;
+        buckets[index] = (byte) bucket;
+        positions[index] = position;
+    }
+
+    /**
+     * Removes the cell from its bucket by moving the last cell of the bucket into its position.
+     *
+     * @param index the index of the cell.
+     */
+    private void remove(int index) {
+        int bucket = buckets[index];
+        int position = positions[index];
+        int lastPosition = --bucketSizes[bucket];
+        int moved = cells[bucket][lastPosition];
+        cells[bucket][position] = moved;
+        priorities[bucket][position] = priorities[bucket][lastPosition];
+        positions[moved] = position;
+        buckets[index] = ABSENT;
+    }
+}
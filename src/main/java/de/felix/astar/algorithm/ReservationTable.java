@@ -0,0 +1,314 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * The ReservationTable class stores which agent occupies which cell at which time step, so cooperating agents
+ * can plan paths that avoid each other. Only a window of {@link ReservationTable#getDepth()} time steps starting at the
+ * current time is stored: every time step owns a slot of a ring, which is reused once the time advanced past it.
+ * <p>
+ * A slot is an open addressing hash table of the reserved cells with linear probing, so a reservation takes two ints
+ * and a lookup usually touches a single cache line. Not thread-safe.
+ *
+ * @author Felix
+ */
+public final class ReservationTable {
+
+    //Constants
+
+    /**
+     * The agent of a cell that isn't reserved.
+     */
+    public static final int FREE = -1;
+
+    /**
+     * The marker of an empty position inside a slot.
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * The initial capacity of a slot, a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    //Attributes
+
+    /**
+     * The amount of time steps stored.
+     */
+    private final int depth;
+
+    /**
+     * The reserved cells of every slot, {@link ReservationTable#EMPTY} for empty positions.
+     */
+    private final int[][] cells;
+
+    /**
+     * The agent of the cell at the same position of every slot.
+     */
+    private final int[][] agents;
+
+    /**
+     * The amount of reservations of every slot.
+     */
+    private final int[] sizes;
+
+    /**
+     * The first stored time step.
+     */
+    private int time;
+
+    //Methods
+
+    /**
+     * Creates a new, empty table starting at time step 0.
+     *
+     * @param depth the amount of time steps to store, starting at the current time.
+     * @throws IllegalArgumentException if the depth is lower than 1.
+     */
+    public ReservationTable(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("The depth has to be at least 1!");
+        }
+        this.depth = depth;
+        this.cells = new int[depth][INITIAL_CAPACITY];
+        this.agents = new int[depth][INITIAL_CAPACITY];
+        this.sizes = new int[depth];
+        for (int[] slot : cells) {
+            Arrays.fill(slot, EMPTY);
+        }
+    }
+
+    /**
+     * Gives the agent that reserved the cell at the given time.
+     *
+     * @param cell the index of the cell.
+     * @param time the time step.
+     * @return the agent or {@link ReservationTable#FREE}, if the cell isn't reserved or the time is outside of the window.
+     */
+    public int getAgent(int cell, int time) {
+        if (!isInsideWindow(time)) {
+            return FREE;
+        }
+        int slot = time % depth;
+        int position = find(cells[slot], cell);
+        return position < 0 ? FREE : agents[slot][position];
+    }
+
+    /**
+     * Whether or not the cell is reserved by another agent at the given time.
+     *
+     * @param cell  the index of the cell.
+     * @param time  the time step.
+     * @param agent the agent asking.
+     * @return true, if another agent reserved the cell, otherwise false.
+     */
+    public boolean isReserved(int cell, int time, int agent) {
+        int owner = getAgent(cell, time);
+        return owner != FREE && owner != agent;
+    }
+
+    /**
+     * Reserves the cell at the given time for the agent.
+     *
+     * @param cell  the index of the cell.
+     * @param time  the time step, inside the window.
+     * @param agent the agent, at least 0.
+     * @return true, if the cell is reserved for the agent now, false if another agent reserved it before.
+     * @throws IllegalArgumentException if the time is outside of the window or the agent is negative.
+     */
+    public boolean reserve(int cell, int time, int agent) {
+        if (!isInsideWindow(time)) {
+            throw new IllegalArgumentException("The time step " + time + " is outside of the window!");
+        }
+        if (agent < 0) {
+            throw new IllegalArgumentException("The agent has to be at least 0!");
+        }
+        int slot = time % depth;
+        int position = find(cells[slot], cell);
+        if (position >= 0) {
+            return agents[slot][position] == agent;
+        }
+
+        //Keep at least half of the positions empty, so probes stay short
+        if (sizes[slot] * 2 >= cells[slot].length) {
+            grow(slot);
+        }
+        int[] slotCells = cells[slot];
+        int mask = slotCells.length - 1;
+        position = hash(cell) & mask;
+        while (slotCells[position] != EMPTY) {
+            position = position + 1 & mask;
+        }
+        slotCells[position] = cell;
+        agents[slot][position] = agent;
+        sizes[slot]++;
+        return true;
+    }
+
+    /**
+     * Removes the reservation of the cell at the given time, if the agent owns it.
+     *
+     * @param cell  the index of the cell.
+     * @param time  the time step.
+     * @param agent the agent.
+     * @return true, if the reservation was removed, otherwise false.
+     */
+    public boolean release(int cell, int time, int agent) {
+        if (!isInsideWindow(time)) {
+            return false;
+        }
+        int slot = time % depth;
+        int[] slotCells = cells[slot];
+        int[] slotAgents = agents[slot];
+        int position = find(slotCells, cell);
+        if (position < 0 || slotAgents[position] != agent) {
+            return false;
+        }
+
+        //Shift the following cells of the probe sequence back, so no lookup stops at the gap
+        int mask = slotCells.length - 1;
+        int gap = position;
+        for (int next = gap + 1 & mask; slotCells[next] != EMPTY; next = next + 1 & mask) {
+            int home = hash(slotCells[next]) & mask;
+            if ((next - home & mask) >= (next - gap & mask)) {
+                slotCells[gap] = slotCells[next];
+                slotAgents[gap] = slotAgents[next];
+                gap = next;
+            }
+        }
+        slotCells[gap] = EMPTY;
+        sizes[slot]--;
+        return true;
+    }
+
+    /**
+     * Moves the window to the given time, forgetting all reservations before it.
+     *
+     * @param time the new first time step.
+     * @throws IllegalArgumentException if the time lies before the current time.
+     */
+    public void advance(int time) {
+        if (time < this.time) {
+            throw new IllegalArgumentException("The time can't go back!");
+        }
+        for (int t = this.time; t < time && t < this.time + depth; t++) {
+            int slot = t % depth;
+            if (sizes[slot] > 0) {
+                Arrays.fill(cells[slot], EMPTY);
+                sizes[slot] = 0;
+            }
+        }
+        this.time = time;
+    }
+
+    /**
+     * Removes all reservations, keeping the current time.
+     */
+    public void clear() {
+        for (int slot = 0; slot < depth; slot++) {
+            Arrays.fill(cells[slot], EMPTY);
+            sizes[slot] = 0;
+        }
+    }
+
+    /**
+     * Whether or not the time step is stored by the table.
+     *
+     * @param time the time step.
+     * @return true, if the time lies inside the window, otherwise false.
+     */
+    public boolean isInsideWindow(int time) {
+        return time >= this.time && time - this.time < depth;
+    }
+
+    /**
+     * Gives the first stored time step.
+     *
+     * @return the current time.
+     */
+    public int getTime() {
+        return time;
+    }
+
+    /**
+     * Gives the amount of stored time steps.
+     *
+     * @return the depth.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gives the amount of reservations inside the window.
+     *
+     * @return the amount of reservations.
+     */
+    public int size() {
+        int size = 0;
+        for (int slotSize : sizes) {
+            size += slotSize;
+        }
+        return size;
+    }
+
+    /**
+     * Searches the position of the cell inside a slot.
+     *
+     * @param slotCells the cells of the slot.
+     * @param cell      the index of the cell.
+     * @return the position or -1, if the cell isn't reserved.
+     */
+    private static int find(int[] slotCells, int cell) {
+        int mask = slotCells.length - 1;
+        for (int position = hash(cell) & mask; slotCells[position] != EMPTY; position = position + 1 & mask) {
+            if (slotCells[position] == cell) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Doubles the capacity of a slot and inserts its reservations again.
+     *
+     * @param slot the slot.
+     */
+    private void grow(int slot) {
+        int[] oldCells = cells[slot];
+        int[] oldAgents = agents[slot];
+        int[] newCells = new int[oldCells.length * 2];
+        int[] newAgents = new int[newCells.length];
+        Arrays.fill(newCells, EMPTY);
+        int mask = newCells.length - 1;
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldCells[i] == EMPTY) continue;
+            int position = hash(oldCells[i]) & mask;
+            while (newCells[position] != EMPTY) {
+                position = position + 1 & mask;
+            }
+            newCells[position] = oldCells[i];
+            newAgents[position] = oldAgents[i];
+        }
+        cells[slot] = newCells;
+        agents[slot] = newAgents;
+    }
+
+    /**
+     * Spreads neighbouring cells over the slot.
+     *
+     * @param cell the index of the cell.
+     * @return the hash.
+     */
+    private static int hash(int cell) {
+        int hash = cell * 0x9E3779B9;
+        return hash ^ hash >>> 16;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The SearchAbortedException is thrown out of a running search when its {@link CancellationToken} was cancelled or expired.
+ * It unwinds the search from wherever the token was checked and is caught by {@link SearchAlgorithm}, so it never reaches the caller.
+ * It has no stack trace, as it is control flow rather than an error.
+ *
+ * @author Felix
+ */
+final class SearchAbortedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The reason why the search was aborted.
+     */
+    private final SearchStatus status;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param status the reason why the search was aborted.
+     */
+    SearchAbortedException(SearchStatus status) {
+        super(status.name(), null, false, false);
+        this.status = status;
+    }
+
+    /**
+     * Gives the reason why the search was aborted.
+     *
+     * @return {@link SearchStatus#CANCELLED} or {@link SearchStatus#DEADLINE_EXCEEDED}.
+     */
+    SearchStatus getStatus() {
+        return status;
+    }
+}
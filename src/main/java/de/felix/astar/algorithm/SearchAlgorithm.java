@@ -0,0 +1,180 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The SearchAlgorithm Enum represents the algorithm used to find a path.
+ * All {@link SearchAlgorithm#isOptimal() optimal} algorithms find paths with the same costs.
+ *
+ * @author Felix
+ */
+public enum SearchAlgorithm {
+
+    /**
+     * The plain A* algorithm, expanding every neighbour of a node.
+     */
+    A_STAR,
+
+    /**
+     * Jump Point Search, which only expands the nodes where the optimal path might change its direction.
+     * Falls back to A* on maps with {@link TerrainCosts}, as jumping assumes that every step costs the same.
+     */
+    JPS,
+
+    /**
+     * Jump Point Search using precomputed jump distances, so jumping is a lookup instead of a scan.
+     * The distances are computed once per map and have to be recomputed after barriers changed.
+     * Falls back to A* on maps with {@link TerrainCosts}.
+     */
+    JPS_PLUS,
+
+    /**
+     * Hierarchical pathfinding, which searches a graph of the entrances between clusters of the grid and refines the result.
+     * Much faster on big maps, but the paths are only near optimal. Changed barriers only rebuild the affected clusters.
+     * Falls back to A* on maps with {@link TerrainCosts}, as the clusters are connected using uniform step costs.
+     */
+    HPA_STAR,
+
+    /**
+     * Bidirectional A*, which searches from the start and the end cell at the same time until both searches meet.
+     * On big open maps both searches together explore a smaller area than a single search.
+     */
+    BIDIRECTIONAL,
+
+    /**
+     * Bidirectional A* running the backward search on another thread of the common {@link java.util.concurrent.ForkJoinPool}.
+     * Only worth it for long paths, as the threads have to publish their costs to each other.
+     */
+    BIDIRECTIONAL_PARALLEL,
+
+    /**
+     * D* Lite, which keeps its search between calls and only repairs the part affected by changed barriers.
+     * It searches from the end cell, so replanning is cheap as long as the end stays the same, even if the start moves.
+     */
+    D_STAR_LITE,
+
+    /**
+     * Weighted A*, which multiplies the heuristic with the {@link SearchContext#setHeuristicWeight(double) heuristic weight}.
+     * It heads for the end cell more greedily and expands far less nodes than A*,
+     * but the found path costs up to the weight times as much as the optimal path.
+     */
+    WEIGHTED_A_STAR,
+
+    /**
+     * Anytime Repairing A* (ARA*), which finds a path with weighted A* first and improves it with a decreasing weight,
+     * until the path is optimal or the {@link SearchContext#setTimeBudget(long, java.util.concurrent.TimeUnit) time budget}
+     * or {@link SearchContext#setExpansionBudget(long) expansion budget} runs out.
+     * The bound of the returned path is given by {@link SearchContext#getSuboptimalityBound()}.
+     */
+    ANYTIME,
+
+    /**
+     * A* using the ALT heuristic of a {@link LandmarkTable}, i.e. the costs to a few landmarks and the triangle inequality.
+     * On maze-like maps the heuristic is far better informed than the octile distance, so less nodes are expanded.
+     * The landmarks are computed once per map and have to be recomputed after barriers or terrain costs changed.
+     */
+    ALT;
+
+    /**
+     * Runs this algorithm and stores why it stopped as {@link SearchContext#getStatus() status} of the context.
+     *
+     * @param map      the map to search.
+     * @param context  the context to store the state of the search in.
+     * @param start    the index of the start cell.
+     * @param end      the index of the end cell.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     * @param index    the precomputed data of the map.
+     * @param observer the observer to inform about changes, may be null.
+     * @return true, if a path was found, false if there is none or the search was aborted, see {@link SearchContext#getStatus()}.
+     */
+    boolean search(GridMap map, SearchContext context, int start, int end, boolean diagonal, SearchIndex index, SearchObserver observer) {
+        boolean found;
+        try {
+            //Tokens cancelled before the search started abort it without expanding a cell
+            context.checkCancellation();
+            found = run(map, context, start, end, diagonal, index, observer);
+        } catch (SearchAbortedException e) {
+            context.setStatus(e.getStatus());
+            return false;
+        }
+        context.setStatus(found ? SearchStatus.PATH_FOUND : SearchStatus.NO_PATH);
+        return found;
+    }
+
+    /**
+     * Runs this algorithm without handling aborted searches.
+     *
+     * @param map      the map to search.
+     * @param context  the context to store the state of the search in.
+     * @param start    the index of the start cell.
+     * @param end      the index of the end cell.
+     * @param diagonal whether or not the algorithm is allowed to do diagonal steps.
+     * @param index    the precomputed data of the map.
+     * @param observer the observer to inform about changes, may be null.
+     * @return true, if a path was found, otherwise false.
+     * @throws SearchAbortedException if the cancellation token of the context aborted the search.
+     */
+    private boolean run(GridMap map, SearchContext context, int start, int end, boolean diagonal, SearchIndex index, SearchObserver observer) {
+        if (!supportsTerrainCosts() && TerrainCosts.of(map) != null) {
+            return AStarSearch.search(map, context, start, end, diagonal, observer);
+        }
+
+        switch (this) {
+            case JPS:
+                return JumpPointSearch.search(map, context, start, end, diagonal, null, observer);
+            case JPS_PLUS:
+                return JumpPointSearch.search(map, context, start, end, diagonal, index.getJumpTable(diagonal), observer);
+            case BIDIRECTIONAL:
+                return BidirectionalSearch.search(map, context, start, end, diagonal, false, observer);
+            case BIDIRECTIONAL_PARALLEL:
+                return BidirectionalSearch.search(map, context, start, end, diagonal, true, observer);
+            case D_STAR_LITE:
+                return index.getPlanner(diagonal).search(context, start, end, observer);
+            case HPA_STAR:
+                boolean found = HierarchicalSearch.search(map, index.getHierarchy(diagonal), context, start, end, diagonal, observer);
+                context.setSuboptimalityBound(Double.POSITIVE_INFINITY);
+                return found;
+            case WEIGHTED_A_STAR:
+                return AnytimeSearch.search(map, context, start, end, diagonal, false, observer);
+            case ANYTIME:
+                return AnytimeSearch.search(map, context, start, end, diagonal, true, observer);
+            case ALT:
+                return AStarSearch.search(map, context, start, end, diagonal, index.getLandmarks(diagonal), observer);
+            default:
+                return AStarSearch.search(map, context, start, end, diagonal, observer);
+        }
+    }
+
+    /**
+     * Whether or not this algorithm finds the cheapest path on maps with {@link TerrainCosts}.
+     *
+     * @return true, if the algorithm uses the terrain costs, false if A* is used instead.
+     */
+    public boolean supportsTerrainCosts() {
+        return this != JPS && this != JPS_PLUS && this != HPA_STAR;
+    }
+
+    /**
+     * Whether or not this algorithm always finds the cheapest path.
+     * {@link SearchAlgorithm#ANYTIME} only finds it if its budget doesn't run out.
+     *
+     * @return true, if the found paths are optimal, otherwise false.
+     */
+    public boolean isOptimal() {
+        return this != HPA_STAR && this != WEIGHTED_A_STAR && this != ANYTIME;
+    }
+
+    /**
+     * Whether or not the found paths only depend on the map, the start and the end, so they can be cached.
+     * The paths of weighted and anytime searches depend on the heuristic weight and budget of the context.
+     *
+     * @return true, if the paths can be cached, otherwise false.
+     */
+    boolean isCacheable() {
+        return this != WEIGHTED_A_STAR && this != ANYTIME;
+    }
+}
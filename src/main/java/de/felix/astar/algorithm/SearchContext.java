@@ -0,0 +1,739 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The SearchContext class stores the per-cell state of a search, i.e. the g-costs, parents and whether a cell is open or closed.
+ * Every cell is stamped with the generation in which it was written. Cells with an older stamp count as unreached,
+ * so starting a new search only increments the generation instead of clearing all arrays.
+ * <p>
+ * A context is the workspace of a single search at a time and must not be shared between threads,
+ * but it can be reused for any amount of searches on maps that aren't bigger than its capacity.
+ *
+ * @author Felix
+ */
+public final class SearchContext {
+
+    //Constants
+
+    /**
+     * The g-cost of a cell that hasn't been reached by the current search.
+     */
+    static final int UNREACHED = Integer.MAX_VALUE;
+
+    /**
+     * The parent index of a cell without parent.
+     */
+    static final int NO_PARENT = -1;
+
+    /**
+     * The state of a cell that was reached and is waiting in the open list.
+     */
+    static final byte OPEN = 1;
+
+    /**
+     * The state of a cell that was evaluated.
+     */
+    static final byte CLOSED = 2;
+
+    /**
+     * The state of a cell that is part of the found path.
+     */
+    static final byte PATH = 3;
+
+    /**
+     * The weight of the heuristic used by default, i.e. paths cost at most twice as much as the optimal path.
+     */
+    public static final double DEFAULT_HEURISTIC_WEIGHT = 2;
+
+    /**
+     * The budget that never runs out.
+     */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    /**
+     * The amount of expansions between two checks of the {@link CancellationToken}, a power of two.
+     */
+    public static final int CHECK_INTERVAL = 256;
+
+    //Attributes
+
+    /**
+     * The generation of the current search. Cells stamped with another generation are unreached.
+     */
+    private int generation;
+
+    /**
+     * The generation in which every cell was written last.
+     */
+    private final int[] stamps;
+
+    /**
+     * The g-cost of every cell. Only valid if the cell is stamped with the current generation.
+     */
+    private final int[] gCosts;
+
+    /**
+     * The index of the parent of every cell. Only valid if the cell is stamped with the current generation.
+     */
+    private final int[] parents;
+
+    /**
+     * The state of every cell. Only valid if the cell is stamped with the current generation.
+     */
+    private final byte[] states;
+
+    /**
+     * The open cells of the current search.
+     */
+    private OpenList openList;
+
+    /**
+     * The data structure used for the open list.
+     */
+    private OpenListType openListType;
+
+    /**
+     * The context of the backward search of bidirectional algorithms, created on first use.
+     */
+    private SearchContext reverse;
+
+    /**
+     * The g-costs published for other threads, combined with the generation in the upper 32 bits. Created on first use.
+     */
+    private AtomicLongArray published;
+
+    /**
+     * The amount of cells closed since the statistics were cleared.
+     */
+    private long closedCount;
+
+    /**
+     * The amount of cells reached for the first time since the statistics were cleared.
+     */
+    private long generatedCount;
+
+    /**
+     * The open list of searches whose priorities aren't monotone, if the open list type requires monotone priorities. Created on first use.
+     */
+    private OpenList generalOpenList;
+
+    /**
+     * The factor the heuristic is multiplied with by weighted and anytime searches.
+     */
+    private double heuristicWeight = DEFAULT_HEURISTIC_WEIGHT;
+
+    /**
+     * The time in nanoseconds anytime searches may spend improving their path.
+     */
+    private long timeBudget = UNLIMITED;
+
+    /**
+     * The amount of cells anytime searches may expand.
+     */
+    private long expansionBudget = UNLIMITED;
+
+    /**
+     * The factor by which the path of the last search costs at most more than the optimal path.
+     */
+    private double suboptimalityBound = 1;
+
+    /**
+     * The token to abort searches with, may be null.
+     */
+    private CancellationToken cancellationToken;
+
+    /**
+     * The reason why the last search stopped.
+     */
+    private SearchStatus status = SearchStatus.NO_PATH;
+
+    //Methods
+
+    /**
+     * Creates a new search context using a {@link OpenListType#BINARY_HEAP}.
+     *
+     * @param capacity the amount of cells of the biggest grid to search.
+     */
+    public SearchContext(int capacity) {
+        this(capacity, OpenListType.BINARY_HEAP);
+    }
+
+    /**
+     * Creates a new search context.
+     *
+     * @param capacity     the amount of cells of the biggest grid to search.
+     * @param openListType the data structure used for the open list.
+     */
+    public SearchContext(int capacity, OpenListType openListType) {
+        this.generation = 1;
+        this.stamps = new int[capacity];
+        this.gCosts = new int[capacity];
+        this.parents = new int[capacity];
+        this.states = new byte[capacity];
+        this.openList = openListType.create(capacity);
+        this.openListType = openListType;
+    }
+
+    /**
+     * Forgets the state of the last search. Only the open list is cleared, every other cell becomes outdated by a new generation.
+     */
+    void reset() {
+        openList.clear();
+        if (generalOpenList != null) {
+            generalOpenList.clear();
+        }
+        suboptimalityBound = 1;
+        generation++;
+
+        //Every stamp could match again after an overflow, so they are cleared once
+        if (generation == 0) {
+            Arrays.fill(stamps, 0);
+            if (published != null) {
+                published = new AtomicLongArray(stamps.length);
+            }
+            generation = 1;
+        }
+    }
+
+    /**
+     * Whether or not the cell was reached by the current search.
+     *
+     * @param index the index of the cell.
+     * @return true, if the cell was reached, otherwise false.
+     */
+    boolean isReached(int index) {
+        return stamps[index] == generation;
+    }
+
+    /**
+     * Gives the g-cost of the cell.
+     *
+     * @param index the index of the cell.
+     * @return the g-cost or {@link SearchContext#UNREACHED}.
+     */
+    int getgCost(int index) {
+        return stamps[index] == generation ? gCosts[index] : UNREACHED;
+    }
+
+    /**
+     * Gives the parent of the cell.
+     *
+     * @param index the index of the cell.
+     * @return the index of the parent or {@link SearchContext#NO_PARENT}.
+     */
+    int getParent(int index) {
+        return stamps[index] == generation ? parents[index] : NO_PARENT;
+    }
+
+    /**
+     * Gives the state of the cell.
+     *
+     * @param index the index of the cell.
+     * @return {@link SearchContext#OPEN}, {@link SearchContext#CLOSED}, {@link SearchContext#PATH} or 0 if unreached.
+     */
+    byte getState(int index) {
+        return stamps[index] == generation ? states[index] : 0;
+    }
+
+    /**
+     * Whether or not the cell was closed by the current search.
+     *
+     * @param index the index of the cell.
+     * @return true, if the cell is closed, otherwise false.
+     */
+    boolean isClosed(int index) {
+        return stamps[index] == generation && states[index] >= CLOSED;
+    }
+
+    /**
+     * Stores a new or cheaper way to the cell and marks it as open.
+     *
+     * @param index  the index of the cell.
+     * @param gCost  the new g-cost.
+     * @param parent the index of the parent.
+     */
+    void reach(int index, int gCost, int parent) {
+        if (stamps[index] != generation) {
+            generatedCount++;
+        }
+        stamps[index] = generation;
+        gCosts[index] = gCost;
+        parents[index] = parent;
+        states[index] = OPEN;
+    }
+
+    /**
+     * Stores a cheaper way to a reached cell without changing whether it is open or closed.
+     *
+     * @param index  the index of the cell.
+     * @param gCost  the new g-cost.
+     * @param parent the index of the parent.
+     */
+    void update(int index, int gCost, int parent) {
+        gCosts[index] = gCost;
+        parents[index] = parent;
+    }
+
+    /**
+     * Marks a reached cell as closed.
+     *
+     * @param index the index of the cell.
+     */
+    void close(int index) {
+        states[index] = CLOSED;
+
+        //Every search closes the cells it expands, so they are aborted from here
+        if ((++closedCount & CHECK_INTERVAL - 1) == 0 && cancellationToken != null) {
+            checkCancellation();
+        }
+    }
+
+    /**
+     * Aborts the running search, if the cancellation token was cancelled or its deadline passed.
+     * Searches that don't close cells have to call this every {@link SearchContext#CHECK_INTERVAL} expansions
+     * at a point where their own data is consistent.
+     *
+     * @throws SearchAbortedException if the search has to be aborted.
+     */
+    void checkCancellation() {
+        CancellationToken token = cancellationToken;
+        if (token == null) {
+            return;
+        }
+        if (token.isCancelled()) {
+            throw new SearchAbortedException(SearchStatus.CANCELLED);
+        }
+        if (token.isExpired()) {
+            throw new SearchAbortedException(SearchStatus.DEADLINE_EXCEEDED);
+        }
+    }
+
+    /**
+     * Marks a closed cell as reached but not closed, so it is expanded again when it becomes cheaper.
+     *
+     * @param index the index of the cell.
+     */
+    void reopen(int index) {
+        states[index] = OPEN;
+    }
+
+    /**
+     * Gives the amount of cells closed since the statistics were cleared, i.e. the amount of expanded cells.
+     * Unlike the cells themselves the statistics are kept by {@link SearchContext#reset()},
+     * so searches consisting of multiple searches, like HPA*, are counted completely.
+     *
+     * @return the amount of closed cells.
+     */
+    long getClosedCount() {
+        return closedCount;
+    }
+
+    /**
+     * Gives the amount of cells reached for the first time since the statistics were cleared.
+     *
+     * @return the amount of generated cells.
+     */
+    long getGeneratedCount() {
+        return generatedCount;
+    }
+
+    /**
+     * Overwrites the statistics, for searches like D* Lite that expand cells without closing them inside the context.
+     *
+     * @param closedCount    the amount of expanded cells.
+     * @param generatedCount the amount of generated cells.
+     */
+    void setStatistics(long closedCount, long generatedCount) {
+        this.closedCount = closedCount;
+        this.generatedCount = generatedCount;
+    }
+
+    /**
+     * Sets whether or not the operations of the open list are counted. Counting wraps the open list into a {@link CountingOpenList},
+     * so searches without statistics don't pay for it. The reverse context is changed as well.
+     *
+     * @param counting whether or not the operations are counted.
+     */
+    void setCounting(boolean counting) {
+        openList = counting(openList, counting);
+        if (generalOpenList != null) {
+            generalOpenList = counting(generalOpenList, counting);
+        }
+        if (reverse != null) {
+            reverse.setCounting(counting);
+        }
+    }
+
+    /**
+     * Wraps the open list into a {@link CountingOpenList} or unwraps it.
+     *
+     * @param open     the open list.
+     * @param counting whether or not the operations should be counted.
+     * @return the wrapped or unwrapped open list.
+     */
+    private static OpenList counting(OpenList open, boolean counting) {
+        if (counting && !(open instanceof CountingOpenList)) {
+            return new CountingOpenList(open);
+        } else if (!counting && open instanceof CountingOpenList) {
+            return ((CountingOpenList) open).getDelegate();
+        }
+        return open;
+    }
+
+    /**
+     * Gives the counted open list.
+     *
+     * @return the counting open list or null, if the operations aren't counted.
+     */
+    CountingOpenList getCountingOpenList() {
+        return openList instanceof CountingOpenList ? (CountingOpenList) openList : null;
+    }
+
+    /**
+     * Gives the counted open list of searches whose priorities aren't monotone.
+     *
+     * @return the counting open list or null, if the operations aren't counted or no such search used this context yet.
+     */
+    CountingOpenList getGeneralCountingOpenList() {
+        return generalOpenList instanceof CountingOpenList ? (CountingOpenList) generalOpenList : null;
+    }
+
+    /**
+     * Sets all statistics of this and the reverse context to 0.
+     */
+    void clearStatistics() {
+        closedCount = 0;
+        generatedCount = 0;
+        if (openList instanceof CountingOpenList) {
+            ((CountingOpenList) openList).clearCounters();
+        }
+        if (generalOpenList instanceof CountingOpenList) {
+            ((CountingOpenList) generalOpenList).clearCounters();
+        }
+        if (reverse != null) {
+            reverse.clearStatistics();
+        }
+    }
+
+    /**
+     * Marks a reached cell as part of the path.
+     *
+     * @param index the index of the cell.
+     */
+    void markPath(int index) {
+        states[index] = PATH;
+    }
+
+    /**
+     * Retraces the path of the current search from the end to the start cell.
+     * Consecutive cells of the parent chain that aren't neighbours, e.g. jump points, are connected by the straight or
+     * diagonal line between them. Cells on these lines are reached with their g-cost and the previous cell as parent,
+     * so they can be read like the other cells of the path. Only algorithms without terrain costs skip cells,
+     * so the g-costs of the lines are computed with uniform step costs.
+     *
+     * @param start   the index of the start cell.
+     * @param end     the index of the end cell, which has to be reached.
+     * @param columns the amount of columns of the grid.
+     * @return the indices of all cells of the path, the first one is the start cell.
+     */
+    int[] tracePath(int start, int end, int columns) {
+        //Count the cells first, so the path can be filled from the back
+        int length = 1;
+        for (int current = end; current != start; current = parents[current]) {
+            int parent = parents[current];
+            length += Math.max(Math.abs(current / columns - parent / columns), Math.abs(current % columns - parent % columns));
+        }
+
+        int[] path = new int[length];
+        int position = length - 1;
+        for (int current = end; current != start; ) {
+            int parent = parents[current];
+            path[position--] = current;
+
+            //Fill the line between the parent and the current cell
+            int dx = Integer.signum(current / columns - parent / columns);
+            int dy = Integer.signum(current % columns - parent % columns);
+            int step = dx * columns + dy;
+            int stepCost = dx != 0 && dy != 0 ? Pathfinder.DIAGONAL_COST : Pathfinder.HORIZONTAL_COST;
+            int gCost = gCosts[current];
+            for (int cell = current - step; cell != parent; cell -= step) {
+                gCost -= stepCost;
+                reach(cell, gCost, cell - step);
+                states[cell] = CLOSED;
+                path[position--] = cell;
+            }
+            current = parent;
+        }
+        path[0] = start;
+        return path;
+    }
+
+    /**
+     * Forgets the last search and stores the given path instead, so it can be retraced using {@link SearchContext#tracePath(int, int, int)}.
+     * Every cell of the path is closed and reached with its g-cost and the previous cell as parent.
+     *
+     * @param cells the cells of the path, the first one is the start cell. Consecutive cells have to be neighbours.
+     * @param map   the map of the path, its terrain costs are added up.
+     */
+    void storePath(int[] cells, GridMap map) {
+        int columns = map.getColumns();
+        TerrainCosts costs = TerrainCosts.of(map);
+        reset();
+        int gCost = 0;
+        int previous = NO_PARENT;
+        for (int cell : cells) {
+            if (previous != NO_PARENT) {
+                boolean straight = cell / columns == previous / columns || cell % columns == previous % columns;
+                int stepCost = straight ? Pathfinder.HORIZONTAL_COST : Pathfinder.DIAGONAL_COST;
+                gCost += costs != null ? costs.getStepCost(stepCost, previous, cell) : stepCost;
+            }
+            reach(cell, gCost, previous);
+            states[cell] = CLOSED;
+            previous = cell;
+        }
+    }
+
+    /**
+     * Gives the context used for the backward search of bidirectional algorithms.
+     * It has the same capacity and open list type as this context and belongs to the same thread.
+     *
+     * @return the reverse context.
+     */
+    SearchContext getReverse() {
+        if (reverse == null) {
+            reverse = new SearchContext(stamps.length, openListType);
+            reverse.setCounting(openList instanceof CountingOpenList);
+            reverse.setCancellationToken(cancellationToken);
+        }
+        return reverse;
+    }
+
+    /**
+     * Gives the context used for the backward search of bidirectional algorithms without creating it.
+     *
+     * @return the reverse context or null, if no bidirectional search used this context yet.
+     */
+    SearchContext getReverseIfPresent() {
+        return reverse;
+    }
+
+    /**
+     * Makes sure that g-costs can be published. Has to be called before other threads read the published costs.
+     */
+    void preparePublishing() {
+        if (published == null) {
+            published = new AtomicLongArray(stamps.length);
+        }
+    }
+
+    /**
+     * Publishes the current g-cost of the cell, so other threads can read it using {@link SearchContext#getPublishedgCost(int)}.
+     *
+     * @param index the index of the cell.
+     */
+    void publish(int index) {
+        published.set(index, (long) generation << 32 | gCosts[index]);
+    }
+
+    /**
+     * Gives the last published g-cost of the cell. Can be called by any thread.
+     * The cost might be outdated, but it is always the cost of an existing path of the current search.
+     *
+     * @param index the index of the cell.
+     * @return the published g-cost or {@link SearchContext#UNREACHED}.
+     */
+    int getPublishedgCost(int index) {
+        long value = published.get(index);
+        return (int) (value >>> 32) == generation ? (int) value : UNREACHED;
+    }
+
+    /**
+     * Gives the open cells of the current search.
+     *
+     * @return the open list.
+     */
+    OpenList getOpenList() {
+        return openList;
+    }
+
+    /**
+     * Gives an open list that accepts priorities lower than the last polled one, e.g. the f-costs of an inflated heuristic.
+     * If the open list type requires monotone priorities, a {@link OpenListType#BINARY_HEAP} is used instead.
+     *
+     * @return the open list.
+     */
+    OpenList getGeneralOpenList() {
+        if (!openListType.isMonotone()) {
+            return openList;
+        }
+        if (generalOpenList == null) {
+            generalOpenList = counting(OpenListType.BINARY_HEAP.create(stamps.length), openList instanceof CountingOpenList);
+        }
+        return generalOpenList;
+    }
+
+    /**
+     * Sets the factor the heuristic is multiplied with by {@link SearchAlgorithm#WEIGHTED_A_STAR} and {@link SearchAlgorithm#ANYTIME}.
+     * The found paths cost at most the weight times the costs of the optimal path.
+     *
+     * @param heuristicWeight the weight, at least 1.
+     * @throws IllegalArgumentException if the weight is lower than 1.
+     */
+    public void setHeuristicWeight(double heuristicWeight) {
+        if (!(heuristicWeight >= 1) || Double.isInfinite(heuristicWeight)) {
+            throw new IllegalArgumentException("The heuristic weight has to be at least 1, but was " + heuristicWeight + "!");
+        }
+        this.heuristicWeight = heuristicWeight;
+    }
+
+    /**
+     * Gives the factor the heuristic is multiplied with by weighted and anytime searches.
+     *
+     * @return the weight.
+     */
+    public double getHeuristicWeight() {
+        return heuristicWeight;
+    }
+
+    /**
+     * Sets the time a {@link SearchAlgorithm#ANYTIME} search may spend improving its path, measured from the start of the search.
+     * The first path is always completed, so it is returned even if it took longer.
+     *
+     * @param time the time or {@link SearchContext#UNLIMITED}.
+     * @param unit the unit of the time.
+     * @throws IllegalArgumentException if the time is negative.
+     */
+    public void setTimeBudget(long time, TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("The time budget must not be negative!");
+        }
+        this.timeBudget = time == UNLIMITED ? UNLIMITED : unit.toNanos(time);
+    }
+
+    /**
+     * Gives the time anytime searches may spend improving their path.
+     *
+     * @return the time in nanoseconds or {@link SearchContext#UNLIMITED}.
+     */
+    public long getTimeBudgetNanos() {
+        return timeBudget;
+    }
+
+    /**
+     * Sets the amount of cells a {@link SearchAlgorithm#ANYTIME} search may expand, counting every expansion of all its iterations.
+     * The first path is always completed, so it is returned even if it needed more expansions.
+     *
+     * @param expansionBudget the amount of expansions or {@link SearchContext#UNLIMITED}.
+     * @throws IllegalArgumentException if the amount is negative.
+     */
+    public void setExpansionBudget(long expansionBudget) {
+        if (expansionBudget < 0) {
+            throw new IllegalArgumentException("The expansion budget must not be negative!");
+        }
+        this.expansionBudget = expansionBudget;
+    }
+
+    /**
+     * Gives the amount of cells anytime searches may expand.
+     *
+     * @return the amount of expansions or {@link SearchContext#UNLIMITED}.
+     */
+    public long getExpansionBudget() {
+        return expansionBudget;
+    }
+
+    /**
+     * Gives the factor by which the path of the last search costs at most more than the optimal path.
+     * It is 1 for optimal algorithms, the proven bound for weighted and anytime searches
+     * and {@link Double#POSITIVE_INFINITY} for {@link SearchAlgorithm#HPA_STAR}, which proves no bound.
+     *
+     * @return the suboptimality bound.
+     */
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    /**
+     * Sets the token that aborts the searches using this context, e.g. {@link GridSnapshot#findPath(SearchContext, int, int, int, int, boolean)}.
+     * It is checked every {@link SearchContext#CHECK_INTERVAL} expansions. An aborted search returns no path
+     * and {@link SearchContext#getStatus()} tells why, afterwards the context can be used for the next search.
+     *
+     * @param cancellationToken the token or null, if searches can't be aborted.
+     */
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+        if (reverse != null) {
+            reverse.setCancellationToken(cancellationToken);
+        }
+    }
+
+    /**
+     * Gives the token that aborts the searches using this context.
+     *
+     * @return the token or null, if searches can't be aborted.
+     */
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Gives the reason why the last search stopped.
+     *
+     * @return the status of the last search.
+     */
+    public SearchStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the reason why the current search stopped.
+     *
+     * @param status the status.
+     */
+    void setStatus(SearchStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Sets the suboptimality bound of the current search, see {@link SearchContext#getSuboptimalityBound()}.
+     *
+     * @param suboptimalityBound the bound.
+     */
+    void setSuboptimalityBound(double suboptimalityBound) {
+        this.suboptimalityBound = suboptimalityBound;
+    }
+
+    /**
+     * Gives the amount of cells of the biggest grid this context can search.
+     *
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return stamps.length;
+    }
+
+    /**
+     * Replaces the data structure used for the open list.
+     *
+     * @param openListType the new open list type.
+     */
+    void setOpenListType(OpenListType openListType) {
+        boolean counting = openList instanceof CountingOpenList;
+        this.openList = openListType.create(stamps.length);
+        this.openListType = openListType;
+        this.generalOpenList = null;
+        setCounting(counting);
+        if (reverse != null) {
+            reverse.setOpenListType(openListType);
+        }
+    }
+}
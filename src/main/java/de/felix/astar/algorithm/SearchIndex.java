@@ -0,0 +1,56 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The SearchIndex interface gives access to the precomputed data of a map, which some {@link SearchAlgorithm}s need.
+ * The data is computed on first use, so algorithms that don't need it don't pay for it.
+ *
+ * @author Felix
+ */
+interface SearchIndex {
+
+    /**
+     * Gives the jump distances of the map.
+     *
+     * @param diagonal whether or not diagonal movement is allowed.
+     * @return the up to date jump table.
+     */
+    JumpTable getJumpTable(boolean diagonal);
+
+    /**
+     * Gives the cluster hierarchy of the map.
+     *
+     * @param diagonal whether or not diagonal movement is allowed.
+     * @return the up to date hierarchy.
+     */
+    ClusterHierarchy getHierarchy(boolean diagonal);
+
+    /**
+     * Gives the incremental planner of the map, which keeps its search between calls.
+     *
+     * @param diagonal whether or not diagonal movement is allowed.
+     * @return the planner, which knows about all barriers changed since its last search.
+     */
+    DStarLite getPlanner(boolean diagonal);
+
+    /**
+     * Gives the connected components of the map, if they are labeled. Searches without them just don't detect unreachable ends early.
+     *
+     * @param diagonal whether or not diagonal movement is allowed.
+     * @return the components, which know about all barriers changed since they were labeled, or null if they aren't labeled.
+     */
+    ComponentIndex getComponents(boolean diagonal);
+
+    /**
+     * Gives the landmark costs of the map.
+     *
+     * @param diagonal whether or not diagonal movement is allowed.
+     * @return the up to date landmark table.
+     */
+    LandmarkTable getLandmarks(boolean diagonal);
+}
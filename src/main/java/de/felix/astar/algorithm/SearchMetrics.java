@@ -0,0 +1,196 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The SearchMetrics class is a {@link IMetricsSink} that aggregates the {@link SearchStats} of all queries
+ * as counters and {@link Histogram histograms}. It can be shared by multiple pathfinders on multiple threads.
+ *
+ * @author Felix
+ */
+public final class SearchMetrics implements IMetricsSink {
+
+    //Attributes
+
+    /**
+     * The amount of queries.
+     */
+    private final LongAdder queries = new LongAdder();
+
+    /**
+     * The amount of queries that found a path.
+     */
+    private final LongAdder pathsFound = new LongAdder();
+
+    /**
+     * The amount of queries answered by the path cache.
+     */
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * The amount of nodes generated by all queries.
+     */
+    private final LongAdder generatedNodes = new LongAdder();
+
+    /**
+     * The amount of nodes added to the open list by all queries.
+     */
+    private final LongAdder heapPushes = new LongAdder();
+
+    /**
+     * The amount of nodes polled from the open list by all queries.
+     */
+    private final LongAdder heapPops = new LongAdder();
+
+    /**
+     * The wall time of every query in nanoseconds.
+     */
+    private final Histogram wallTimes = new Histogram();
+
+    /**
+     * The amount of nodes expanded by every query.
+     */
+    private final Histogram expandedNodes = new Histogram();
+
+    /**
+     * The peak size of the open list of every query.
+     */
+    private final Histogram peakOpenSizes = new Histogram();
+
+    /**
+     * The length of every found path.
+     */
+    private final Histogram pathLengths = new Histogram();
+
+    //Methods
+
+    @Override
+    public void record(SearchStats stats) {
+        queries.increment();
+        if (stats.isPathFound()) {
+            pathsFound.increment();
+            pathLengths.record(stats.getPathLength());
+        }
+        if (stats.isCacheHit()) {
+            cacheHits.increment();
+        }
+        generatedNodes.add(stats.getGeneratedNodes());
+        heapPushes.add(stats.getHeapPushes());
+        heapPops.add(stats.getHeapPops());
+        wallTimes.record(stats.getWallTimeNanos());
+        expandedNodes.record(stats.getExpandedNodes());
+        peakOpenSizes.record(stats.getPeakOpenSize());
+    }
+
+    /**
+     * Gives the amount of recorded queries.
+     *
+     * @return the amount of queries.
+     */
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    /**
+     * Gives the amount of queries that found a path.
+     *
+     * @return the amount of found paths.
+     */
+    public long getPathsFound() {
+        return pathsFound.sum();
+    }
+
+    /**
+     * Gives the amount of queries answered by the path cache.
+     *
+     * @return the amount of cache hits.
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Gives the amount of nodes generated by all queries.
+     *
+     * @return the amount of generated nodes.
+     */
+    public long getGeneratedNodes() {
+        return generatedNodes.sum();
+    }
+
+    /**
+     * Gives the amount of nodes added to the open list by all queries.
+     *
+     * @return the amount of pushes.
+     */
+    public long getHeapPushes() {
+        return heapPushes.sum();
+    }
+
+    /**
+     * Gives the amount of nodes polled from the open list by all queries.
+     *
+     * @return the amount of pops.
+     */
+    public long getHeapPops() {
+        return heapPops.sum();
+    }
+
+    /**
+     * Gives the histogram of the wall time of every query in nanoseconds.
+     *
+     * @return the wall times.
+     */
+    public Histogram getWallTimes() {
+        return wallTimes;
+    }
+
+    /**
+     * Gives the histogram of the amount of nodes expanded by every query. Its sum is the amount of nodes expanded by all queries.
+     *
+     * @return the expanded nodes.
+     */
+    public Histogram getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Gives the histogram of the peak size of the open list of every query.
+     *
+     * @return the peak open list sizes.
+     */
+    public Histogram getPeakOpenSizes() {
+        return peakOpenSizes;
+    }
+
+    /**
+     * Gives the histogram of the length of every found path.
+     *
+     * @return the path lengths.
+     */
+    public Histogram getPathLengths() {
+        return pathLengths;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchMetrics{" +
+                "queries=" + getQueries() +
+                ", pathsFound=" + getPathsFound() +
+                ", cacheHits=" + getCacheHits() +
+                ", generatedNodes=" + getGeneratedNodes() +
+                ", heapPushes=" + getHeapPushes() +
+                ", heapPops=" + getHeapPops() +
+                ", wallTimes={" + wallTimes + '}' +
+                ", expandedNodes={" + expandedNodes + '}' +
+                ", peakOpenSizes={" + peakOpenSizes + '}' +
+                ", pathLengths={" + pathLengths + '}' +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The SearchObserver interface is informed about every change the algorithm makes to its {@link SearchContext}.
+ * Used to mirror the search into {@link Node} objects, e.g. for the visualization.
+ *
+ * @author Felix
+ */
+interface SearchObserver {
+
+    /**
+     * Called when a cell was reached for the first time or a cheaper way to it was found.
+     *
+     * @param index  the index of the cell.
+     * @param gCost  the new g-cost.
+     * @param hCost  the h-cost.
+     * @param parent the index of the new parent or {@link SearchContext#NO_PARENT}.
+     */
+    void onReach(int index, int gCost, int hCost, int parent);
+
+    /**
+     * Called when a cell is closed. Not called for the end cell.
+     *
+     * @param index the index of the cell.
+     */
+    void onClose(int index);
+}
@@ -0,0 +1,290 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The SearchStats class contains the statistics of a single query of {@link Pathfinder#findPath()}.
+ * They are collected if enabled by {@link Pathfinder#setStatsEnabled(boolean)} or a {@link IMetricsSink} is set.
+ * <p>
+ * The counts include both directions of bidirectional searches and all searches of HPA*.
+ * D* Lite repairs its own data instead of searching, so only the cells of the extracted path are counted.
+ * Queries answered by the path cache or without a search because start and end aren't connected count no operations.
+ *
+ * @author Felix
+ */
+public final class SearchStats {
+
+    //Attributes
+
+    /**
+     * The algorithm used for the query.
+     */
+    private final SearchAlgorithm algorithm;
+
+    /**
+     * Whether or not a path was found.
+     */
+    private final boolean pathFound;
+
+    /**
+     * The reason why the search stopped.
+     */
+    private final SearchStatus status;
+
+    /**
+     * Whether or not the query was answered by the path cache.
+     */
+    private final boolean cacheHit;
+
+    /**
+     * The amount of expanded nodes.
+     */
+    private final long expandedNodes;
+
+    /**
+     * The amount of nodes reached for the first time.
+     */
+    private final long generatedNodes;
+
+    /**
+     * The amount of nodes added to the open list.
+     */
+    private final long heapPushes;
+
+    /**
+     * The amount of nodes polled from the open list.
+     */
+    private final long heapPops;
+
+    /**
+     * The amount of decreased priorities inside the open list.
+     */
+    private final long decreasedKeys;
+
+    /**
+     * The highest amount of nodes inside the open list at once.
+     */
+    private final int peakOpenSize;
+
+    /**
+     * The time the query took in nanoseconds.
+     */
+    private final long wallTimeNanos;
+
+    /**
+     * The amount of nodes of the path.
+     */
+    private final int pathLength;
+
+    /**
+     * The costs of the path.
+     */
+    private final int pathCost;
+
+    /**
+     * The factor by which the path costs at most more than the optimal path.
+     */
+    private final double suboptimalityBound;
+
+    //Methods
+
+    /**
+     * Creates new statistics.
+     *
+     * @param algorithm     the algorithm used for the query.
+     * @param cacheHit      whether or not the query was answered by the path cache.
+     * @param context       the context of the query, the counts of its reverse context are added.
+     * @param wallTimeNanos the time the query took in nanoseconds.
+     * @param pathLength    the amount of nodes of the path, 0 if no path was found.
+     * @param pathCost      the costs of the path, -1 if no path was found.
+     */
+    SearchStats(SearchAlgorithm algorithm, boolean cacheHit, SearchContext context, long wallTimeNanos, int pathLength, int pathCost) {
+        this.algorithm = algorithm;
+        this.pathFound = pathLength > 0;
+        this.status = context.getStatus();
+        this.cacheHit = cacheHit;
+        this.wallTimeNanos = wallTimeNanos;
+        this.pathLength = pathLength;
+        this.pathCost = pathCost;
+        this.suboptimalityBound = context.getSuboptimalityBound();
+
+        long expanded = 0;
+        long generated = 0;
+        long pushes = 0;
+        long pops = 0;
+        long decreased = 0;
+        int peak = 0;
+        for (SearchContext current : new SearchContext[]{context, context.getReverseIfPresent()}) {
+            if (current == null) {
+                continue;
+            }
+            expanded += current.getClosedCount();
+            generated += current.getGeneratedCount();
+            for (CountingOpenList open : new CountingOpenList[]{current.getCountingOpenList(), current.getGeneralCountingOpenList()}) {
+                if (open != null) {
+                    pushes += open.getPushes();
+                    pops += open.getPops();
+                    decreased += open.getDecreasedKeys();
+                    peak += open.getPeakSize();
+                }
+            }
+        }
+        this.expandedNodes = expanded;
+        this.generatedNodes = generated;
+        this.heapPushes = pushes;
+        this.heapPops = pops;
+        this.decreasedKeys = decreased;
+        this.peakOpenSize = peak;
+    }
+
+    /**
+     * Gives the algorithm used for the query.
+     *
+     * @return the algorithm.
+     */
+    public SearchAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Whether or not a path was found.
+     *
+     * @return true, if a path was found, otherwise false.
+     */
+    public boolean isPathFound() {
+        return pathFound;
+    }
+
+    /**
+     * Gives the reason why the search stopped.
+     *
+     * @return the status.
+     */
+    public SearchStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Whether or not the query was answered by the path cache.
+     *
+     * @return true, if the result was cached, otherwise false.
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * Gives the amount of expanded, i.e. closed, nodes.
+     *
+     * @return the amount of expanded nodes.
+     */
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Gives the amount of nodes reached for the first time.
+     *
+     * @return the amount of generated nodes.
+     */
+    public long getGeneratedNodes() {
+        return generatedNodes;
+    }
+
+    /**
+     * Gives the amount of nodes added to the open list.
+     *
+     * @return the amount of pushes.
+     */
+    public long getHeapPushes() {
+        return heapPushes;
+    }
+
+    /**
+     * Gives the amount of nodes polled from the open list.
+     *
+     * @return the amount of pops.
+     */
+    public long getHeapPops() {
+        return heapPops;
+    }
+
+    /**
+     * Gives the amount of decreased priorities inside the open list, i.e. of cheaper paths to open nodes.
+     *
+     * @return the amount of decrease-key operations.
+     */
+    public long getDecreasedKeys() {
+        return decreasedKeys;
+    }
+
+    /**
+     * Gives the highest amount of nodes inside the open list at once.
+     * For bidirectional searches the peaks of both directions are added.
+     *
+     * @return the peak size of the open list.
+     */
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    /**
+     * Gives the time the query took, including the cache lookup and the retracing of the path.
+     *
+     * @return the wall time in nanoseconds.
+     */
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    /**
+     * Gives the amount of nodes of the path, including the start and end node.
+     *
+     * @return the path length or 0, if no path was found.
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Gives the costs of the path using the DIAGONAL_COST and HORIZONTAL_COST constants.
+     *
+     * @return the path costs or -1, if no path was found.
+     */
+    public int getPathCost() {
+        return pathCost;
+    }
+
+    /**
+     * Gives the factor by which the path costs at most more than the optimal path, see {@link SearchContext#getSuboptimalityBound()}.
+     *
+     * @return the suboptimality bound.
+     */
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchStats{" +
+                "algorithm=" + algorithm +
+                ", pathFound=" + pathFound +
+                ", status=" + status +
+                ", cacheHit=" + cacheHit +
+                ", expandedNodes=" + expandedNodes +
+                ", generatedNodes=" + generatedNodes +
+                ", heapPushes=" + heapPushes +
+                ", heapPops=" + heapPops +
+                ", decreasedKeys=" + decreasedKeys +
+                ", peakOpenSize=" + peakOpenSize +
+                ", wallTimeNanos=" + wallTimeNanos +
+                ", pathLength=" + pathLength +
+                ", pathCost=" + pathCost +
+                ", suboptimalityBound=" + suboptimalityBound +
+                '}';
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+/**
+ * The SearchStatus Enum represents the reason why a search stopped.
+ *
+ * @author Felix
+ */
+public enum SearchStatus {
+
+    /**
+     * A path was found.
+     */
+    PATH_FOUND,
+
+    /**
+     * The search was completed, but there is no path between start and end.
+     */
+    NO_PATH,
+
+    /**
+     * The search was aborted, because its {@link CancellationToken} was cancelled.
+     */
+    CANCELLED,
+
+    /**
+     * The search was aborted, because the deadline of its {@link CancellationToken} passed.
+     */
+    DEADLINE_EXCEEDED;
+
+    /**
+     * Whether or not the search was aborted before it was completed.
+     *
+     * @return true, if the search was cancelled or ran out of time, otherwise false.
+     */
+    public boolean isAborted() {
+        return this == CANCELLED || this == DEADLINE_EXCEEDED;
+    }
+}
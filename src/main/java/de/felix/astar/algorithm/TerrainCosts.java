@@ -0,0 +1,295 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+package de.felix.astar.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * The TerrainCosts class stores a movement cost multiplier for every cell of a grid, one unsigned byte per cell.
+ * A multiplier is between 1 and 255, a cell with the multiplier 1 costs like a cell without terrain costs.
+ * <p>
+ * A step costs the HORIZONTAL_COST or DIAGONAL_COST times the mean multiplier of the cell it leaves and the cell it enters,
+ * i.e. half of the step is walked inside each of both cells. So a step costs the same in both directions,
+ * which bidirectional searches and D* Lite rely on. Both step costs are even, so the costs stay integers.
+ * <p>
+ * The heuristic is the octile distance times the lowest multiplier of the grid, so it never overestimates and paths stay optimal.
+ * The lowest multiplier is tracked using the amount of cells of every multiplier, so changing a cell takes constant time.
+ * <p>
+ * A cell is addressed by its index, which is calculated as {@code x * columns + y}.
+ *
+ * @author Felix
+ */
+public final class TerrainCosts {
+
+    //Constants
+
+    /**
+     * The lowest multiplier.
+     */
+    public static final int MIN_MULTIPLIER = 1;
+
+    /**
+     * The highest multiplier.
+     */
+    public static final int MAX_MULTIPLIER = 255;
+
+    //Attributes
+
+    /**
+     * The amount of rows, i.e. the range of the x-coordinate.
+     */
+    private final int rows;
+
+    /**
+     * The amount of columns, i.e. the range of the y-coordinate.
+     */
+    private final int columns;
+
+    /**
+     * The multiplier of every cell as unsigned byte.
+     */
+    private final byte[] multipliers;
+
+    /**
+     * The amount of cells of every multiplier.
+     */
+    private final int[] counts = new int[MAX_MULTIPLIER + 1];
+
+    /**
+     * The lowest multiplier of the grid.
+     */
+    private int minMultiplier;
+
+    //Methods
+
+    /**
+     * Creates new costs where every cell has the multiplier 1.
+     *
+     * @param rows    the amount of rows.
+     * @param columns the amount of columns.
+     */
+    public TerrainCosts(int rows, int columns) {
+        this(rows, columns, filled(rows, columns));
+    }
+
+    /**
+     * Creates new costs using the given multipliers, e.g. loaded from a file.
+     * The array is used directly instead of copying it, so it must not be changed afterwards.
+     *
+     * @param rows        the amount of rows.
+     * @param columns     the amount of columns.
+     * @param multipliers the multiplier of every cell as unsigned byte, at the index {@code x * columns + y}.
+     * @throws IllegalArgumentException if the array doesn't match the size or contains a multiplier of 0.
+     */
+    public TerrainCosts(int rows, int columns, byte[] multipliers) {
+        if (rows < 1 || columns < 1 || (long) rows * columns != multipliers.length) {
+            throw new IllegalArgumentException("The grid has " + (long) rows * columns + " cells, but " + multipliers.length + " multipliers were given!");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.multipliers = multipliers;
+        for (byte multiplier : multipliers) {
+            counts[multiplier & 0xFF]++;
+        }
+        if (counts[0] != 0) {
+            throw new IllegalArgumentException(counts[0] + " cells have the multiplier 0!");
+        }
+        updateMinMultiplier();
+    }
+
+    /**
+     * Creates an array of multipliers that are all 1.
+     *
+     * @param rows    the amount of rows.
+     * @param columns the amount of columns.
+     * @return the multipliers.
+     */
+    private static byte[] filled(int rows, int columns) {
+        byte[] multipliers = new byte[Math.max(rows * columns, 0)];
+        Arrays.fill(multipliers, (byte) MIN_MULTIPLIER);
+        return multipliers;
+    }
+
+    /**
+     * Copies the given costs.
+     *
+     * @param costs the costs to copy.
+     * @return the new costs.
+     */
+    public static TerrainCosts copyOf(TerrainCosts costs) {
+        return new TerrainCosts(costs.rows, costs.columns, costs.multipliers.clone());
+    }
+
+    /**
+     * Gives the terrain costs the map has to be searched with.
+     *
+     * @param map the map.
+     * @return the costs or null, if the map has none or every cell has the multiplier 1.
+     */
+    static TerrainCosts of(GridMap map) {
+        TerrainCosts costs = map.getTerrainCosts();
+        return costs == null || costs.isUniform() ? null : costs;
+    }
+
+    /**
+     * Gives the multiplier of the cell at the given coordinates.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the multiplier.
+     */
+    public int getMultiplier(int x, int y) {
+        return getMultiplier(x * columns + y);
+    }
+
+    /**
+     * Gives the multiplier of the cell at the given index.
+     *
+     * @param index the index of the cell.
+     * @return the multiplier.
+     */
+    public int getMultiplier(int index) {
+        return multipliers[index] & 0xFF;
+    }
+
+    /**
+     * Sets the multiplier of the cell at the given coordinates.
+     * A {@link Pathfinder} using these costs has to be changed through {@link Pathfinder#setCostMultiplier(int, int, int)} instead,
+     * otherwise its cached paths don't notice the change.
+     *
+     * @param x          the x-coordinate.
+     * @param y          the y-coordinate.
+     * @param multiplier the new multiplier between 1 and 255.
+     */
+    public void setMultiplier(int x, int y, int multiplier) {
+        if (x < 0 || x >= rows || y < 0 || y >= columns) {
+            throw new IndexOutOfBoundsException("The cell (" + x + ", " + y + ") is outside of the grid!");
+        }
+        setMultiplier(x * columns + y, multiplier);
+    }
+
+    /**
+     * Sets the multiplier of the cell at the given index.
+     *
+     * @param index      the index of the cell.
+     * @param multiplier the new multiplier between 1 and 255.
+     */
+    void setMultiplier(int index, int multiplier) {
+        checkMultiplier(multiplier);
+        counts[multipliers[index] & 0xFF]--;
+        counts[multiplier]++;
+        multipliers[index] = (byte) multiplier;
+        updateMinMultiplier();
+    }
+
+    /**
+     * Sets the multiplier of every cell inside the given rectangle, a row at a time.
+     * Like {@link TerrainCosts#setMultiplier(int, int, int)} a {@link Pathfinder} using these costs doesn't notice the change,
+     * so the costs have to be set again using {@link Pathfinder#setTerrainCosts(TerrainCosts)}.
+     *
+     * @param fromX      the lowest x-coordinate.
+     * @param fromY      the lowest y-coordinate.
+     * @param toX        the highest x-coordinate, inclusive.
+     * @param toY        the highest y-coordinate, inclusive.
+     * @param multiplier the new multiplier between 1 and 255.
+     */
+    public void fill(int fromX, int fromY, int toX, int toY, int multiplier) {
+        checkMultiplier(multiplier);
+        if (fromX < 0 || fromY < 0 || toX >= rows || toY >= columns || fromX > toX || fromY > toY) {
+            throw new IndexOutOfBoundsException("The rectangle (" + fromX + ", " + fromY + ") to (" + toX + ", " + toY + ") is outside of the grid!");
+        }
+        for (int x = fromX; x <= toX; x++) {
+            int from = x * columns + fromY;
+            int to = x * columns + toY + 1;
+            for (int i = from; i < to; i++) {
+                counts[multipliers[i] & 0xFF]--;
+            }
+            Arrays.fill(multipliers, from, to, (byte) multiplier);
+        }
+        counts[multiplier] += (toX - fromX + 1) * (toY - fromY + 1);
+        updateMinMultiplier();
+    }
+
+    /**
+     * Checks whether or not the multiplier is between 1 and 255.
+     *
+     * @param multiplier the multiplier.
+     */
+    private static void checkMultiplier(int multiplier) {
+        if (multiplier < MIN_MULTIPLIER || multiplier > MAX_MULTIPLIER) {
+            throw new IllegalArgumentException("The multiplier " + multiplier + " is not between " + MIN_MULTIPLIER + " and " + MAX_MULTIPLIER + "!");
+        }
+    }
+
+    /**
+     * Finds the lowest multiplier that is used by a cell.
+     */
+    private void updateMinMultiplier() {
+        int min = MIN_MULTIPLIER;
+        while (counts[min] == 0) {
+            min++;
+        }
+        minMultiplier = min;
+    }
+
+    /**
+     * Gives the cost of a step between two neighbours.
+     *
+     * @param stepCost the cost of the step without terrain, i.e. HORIZONTAL_COST or DIAGONAL_COST.
+     * @param from     the index of the cell the step leaves.
+     * @param to       the index of the cell the step enters.
+     * @return the cost of the step.
+     */
+    int getStepCost(int stepCost, int from, int to) {
+        return stepCost * ((multipliers[from] & 0xFF) + (multipliers[to] & 0xFF)) >> 1;
+    }
+
+    /**
+     * Gives the lowest multiplier of the grid. The heuristic is scaled with it, so it never overestimates the costs.
+     *
+     * @return the lowest multiplier.
+     */
+    public int getMinMultiplier() {
+        return minMultiplier;
+    }
+
+    /**
+     * Whether or not every cell has the multiplier 1, i.e. the costs don't change any step.
+     *
+     * @return true, if the costs are uniform, otherwise false.
+     */
+    public boolean isUniform() {
+        return counts[MIN_MULTIPLIER] == multipliers.length;
+    }
+
+    /**
+     * Gives the multipliers of all cells as unsigned bytes. Changes write through to the costs without updating the lowest multiplier.
+     *
+     * @return the multipliers.
+     */
+    byte[] getMultipliers() {
+        return multipliers;
+    }
+
+    /**
+     * Gives the amount of rows.
+     *
+     * @return the amount of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gives the amount of columns.
+     *
+     * @return the amount of columns.
+     */
+    public int getColumns() {
+        return columns;
+    }
+}
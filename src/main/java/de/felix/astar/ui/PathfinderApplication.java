@@ -6,6 +6,7 @@
 
 package de.felix.astar.ui;
 
+import de.felix.astar.algorithm.CancellationToken;
 import de.felix.astar.algorithm.INodeUpdateListener;
 import de.felix.astar.algorithm.Node;
 import de.felix.astar.algorithm.NodeType;
@@ -102,9 +103,19 @@ public class PathfinderApplication extends Application {
     private Pathfinder pathfinder;
 
     /**
-     * The thread in which the {@link Pathfinder#findPath()}-Method will be executed.
+     * The thread in which the {@link Pathfinder#findPath(CancellationToken)}-Method will be executed.
      */
-    private Thread pathfinderThread;
+    private volatile Thread pathfinderThread;
+
+    /**
+     * The token to stop the {@link PathfinderApplication#pathfinderThread} with.
+     */
+    private CancellationToken cancellationToken;
+
+    /**
+     * The lock the {@link PathfinderApplication#pathfinderThread} waits on while the algorithm is paused.
+     */
+    private final Object pauseLock = new Object();
 
     /**
      * Stores the latest key that is currently pressed.
@@ -125,7 +136,7 @@ public class PathfinderApplication extends Application {
     /**
      * Stores the current {@link Status} of the UI.
      */
-    private Status status = Status.EDITING;
+    private volatile Status status = Status.EDITING;
 
     /**
      * UI label representing the current {@link Status}.
@@ -175,13 +186,23 @@ public class PathfinderApplication extends Application {
      */
     private void startPathfinding() {
         if (status == Status.PAUSED) {
-            pathfinderThread.resume();
-            setStatus(Status.RUNNING);
+            synchronized (pauseLock) {
+                setStatus(Status.RUNNING);
+                pauseLock.notifyAll();
+            }
             return;
         }
 
+        CancellationToken token = new CancellationToken();
+        cancellationToken = token;
         pathfinderThread = new Thread(() -> {
-            if (pathfinder.findPath() != null) {
+            boolean found = pathfinder.findPath(token) != null;
+
+            //A stopped search doesn't change the status anymore
+            if (token.isCancelled()) {
+                return;
+            }
+            if (found) {
                 Platform.runLater(() -> setStatus(Status.COMPLETED));
             } else {
                 Platform.runLater(() -> setStatus(Status.FAILED));
@@ -193,10 +214,10 @@ public class PathfinderApplication extends Application {
 
     /**
      * Pauses the {@link PathfinderApplication#pathfinderThread}, if currently running.
+     * The thread waits inside the next node update until the algorithm is resumed or stopped.
      */
     private void pausePathfinding() {
         if (status == Status.RUNNING) {
-            this.pathfinderThread.suspend();
             setStatus(Status.PAUSED);
         }
     }
@@ -238,11 +259,15 @@ public class PathfinderApplication extends Application {
      * Stops the pathfinder, removes all UI components and calls {@link PathfinderApplication#initialize()} again.
      */
     private void reinitialize() {
-        //Dispose old objects
-        if (this.pathfinderThread != null) {
-            this.pathfinderThread.stop();
+        //Dispose old objects, the old search ends on its own after being cancelled
+        if (this.cancellationToken != null) {
+            this.cancellationToken.cancel();
         }
-        this.pathfinderThread = null;
+        synchronized (pauseLock) {
+            this.pathfinderThread = null;
+            pauseLock.notifyAll();
+        }
+        this.cancellationToken = null;
         this.pathfinder = null;
         this.root.getChildren().clear();
         this.root = null;
@@ -586,8 +611,22 @@ public class PathfinderApplication extends Application {
 
         @Override
         public void onUpdate(Node node) {
-            //Sleep for the delay, if present and the algorithm is running
-            if (nodeUpdateDelay > 0 && status.isActive()) {
+            //Wait while the algorithm is paused, a stopped pathfinder thread isn't the current one anymore
+            if (status == Status.PAUSED && Thread.currentThread() == pathfinderThread) {
+                synchronized (pauseLock) {
+                    while (status == Status.PAUSED && Thread.currentThread() == pathfinderThread) {
+                        try {
+                            pauseLock.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }
+            }
+
+            //Sleep for the delay, if present and the algorithm is running, a stopped one finishes as fast as possible
+            if (nodeUpdateDelay > 0 && status.isActive() && Thread.currentThread() == pathfinderThread) {
                 try {
                     Thread.sleep(nodeUpdateDelay);
                 } catch (InterruptedException e) {
@@ -0,0 +1,132 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.OpenListType;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.SearchAlgorithm;
+import de.felix.astar.algorithm.SearchContext;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AnytimeSearchTest {
+
+    private static final int SIZE = 64;
+
+    private static Pathfinder randomPathfinder(long seed, boolean diagonal, EngineMode engineMode) {
+        Random random = new Random(seed);
+        Pathfinder pathfinder = TestMaps.randomPathfinder(SIZE, diagonal, engineMode, random, SIZE * SIZE * 3 / 10);
+        pathfinder.setStartNode(random.nextInt(SIZE), random.nextInt(SIZE));
+        pathfinder.setEndNode(random.nextInt(SIZE), random.nextInt(SIZE));
+        return pathfinder;
+    }
+
+    @Test
+    public void testWeightedBound() {
+        for (EngineMode engineMode : EngineMode.values()) {
+            for (long seed = 0; seed < 20; seed++) {
+                Pathfinder pathfinder = randomPathfinder(seed, seed % 2 == 0, engineMode);
+                int optimal = TestMaps.cost(pathfinder.findPath());
+                for (double weight : new double[]{1, 1.2, 2, 5}) {
+                    pathfinder.setSearchAlgorithm(SearchAlgorithm.WEIGHTED_A_STAR);
+                    pathfinder.setHeuristicWeight(weight);
+                    int cost = TestMaps.cost(pathfinder.findPath());
+                    if (optimal < 0) {
+                        assertEquals(-1, cost);
+                        continue;
+                    }
+                    assertEquals(weight, pathfinder.getSuboptimalityBound(), 0);
+                    assertTrue(seed + ": " + cost, cost >= optimal && cost <= weight * optimal);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAnytimeWithoutBudget() {
+        for (long seed = 0; seed < 20; seed++) {
+            Pathfinder pathfinder = randomPathfinder(seed, seed % 2 == 0, EngineMode.PRIMITIVE);
+            int optimal = TestMaps.cost(pathfinder.findPath());
+            pathfinder.setSearchAlgorithm(SearchAlgorithm.ANYTIME);
+            pathfinder.setHeuristicWeight(3);
+            List<Node> path = pathfinder.findPath();
+            assertEquals(optimal, TestMaps.cost(path));
+            if (path != null) {
+                assertEquals(1, pathfinder.getSuboptimalityBound(), 0);
+
+                //The costs of the path are recomputed, so they increase step by step
+                for (int i = 0; i + 1 < path.size(); i++) {
+                    int step = Math.abs(path.get(i).getgCost() - path.get(i + 1).getgCost());
+                    assertTrue(step == 10 || step == 14);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testExpansionBudget() {
+        Pathfinder pathfinder = randomPathfinder(7, true, EngineMode.PRIMITIVE);
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(SIZE - 1, SIZE - 1);
+        int optimal = TestMaps.cost(pathfinder.findPath());
+        assertTrue(optimal > 0);
+
+        pathfinder.setSearchAlgorithm(SearchAlgorithm.ANYTIME);
+        pathfinder.setHeuristicWeight(4);
+        pathfinder.setStatsEnabled(true);
+        for (long budget : new long[]{0, 1, 100, 1000, 10000, SearchContext.UNLIMITED}) {
+            pathfinder.setSearchBudget(SearchContext.UNLIMITED, TimeUnit.NANOSECONDS, budget);
+            int cost = TestMaps.cost(pathfinder.findPath());
+            double bound = pathfinder.getSuboptimalityBound();
+            assertEquals(bound, pathfinder.getLastStats().getSuboptimalityBound(), 0);
+
+            //The first path is always found, improving it stops at the budget
+            assertTrue(budget + ": " + cost, cost >= optimal && cost <= bound * optimal);
+            assertTrue(bound >= 1 && bound <= 4);
+        }
+        assertEquals(optimal, TestMaps.cost(pathfinder.findPath()));
+
+        //Without time the first path is returned
+        pathfinder.setSearchBudget(0, TimeUnit.MILLISECONDS, SearchContext.UNLIMITED);
+        assertTrue(TestMaps.cost(pathfinder.findPath()) <= 4 * optimal);
+    }
+
+    @Test
+    public void testOpenListTypes() {
+        //The weighted keys aren't monotone, so the radix heap is replaced by a binary heap
+        for (OpenListType openListType : OpenListType.values()) {
+            Pathfinder pathfinder = randomPathfinder(3, true, EngineMode.PRIMITIVE);
+            int optimal = TestMaps.cost(pathfinder.findPath());
+            pathfinder.setOpenListType(openListType);
+            pathfinder.setSearchAlgorithm(SearchAlgorithm.ANYTIME);
+            assertEquals(openListType.name(), optimal, TestMaps.cost(pathfinder.findPath()));
+        }
+    }
+
+    @Test
+    public void testNotCached() {
+        Pathfinder pathfinder = randomPathfinder(11, true, EngineMode.PRIMITIVE);
+        pathfinder.setPathCacheCapacity(8);
+        pathfinder.setSearchAlgorithm(SearchAlgorithm.WEIGHTED_A_STAR);
+        pathfinder.setStatsEnabled(true);
+        pathfinder.findPath();
+        pathfinder.setHeuristicWeight(1);
+        pathfinder.findPath();
+        assertFalse(pathfinder.getLastStats().isCacheHit());
+        assertEquals(1, pathfinder.getSuboptimalityBound(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWeight() {
+        new Pathfinder(4, 4, true).setHeuristicWeight(0.5);
+    }
+}
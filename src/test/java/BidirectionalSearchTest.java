@@ -0,0 +1,102 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.GridSnapshot;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.PathQuery;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.SearchAlgorithm;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BidirectionalSearchTest {
+
+    private static final int SIZE = 40;
+
+    @Test
+    public void testSameCosts() {
+        for (EngineMode engineMode : EngineMode.values()) {
+            for (boolean diagonal : new boolean[]{true, false}) {
+                for (long seed = 0; seed < 20; seed++) {
+                    Random random = new Random(seed);
+                    Pathfinder pathfinder = new Pathfinder(SIZE, SIZE, diagonal, engineMode);
+                    int density = random.nextInt(40);
+                    for (int x = 0; x < SIZE; x++) {
+                        for (int y = 0; y < SIZE; y++) {
+                            if (random.nextInt(100) < density) {
+                                pathfinder.setBarrier(x, y);
+                            }
+                        }
+                    }
+
+                    for (int query = 0; query < 5; query++) {
+                        pathfinder.setStartNode(random.nextInt(SIZE), random.nextInt(SIZE));
+                        pathfinder.setEndNode(random.nextInt(SIZE), random.nextInt(SIZE));
+                        if (pathfinder.getStartNode() == null || pathfinder.getEndNode() == null) {
+                            continue;
+                        }
+
+                        pathfinder.setSearchAlgorithm(SearchAlgorithm.A_STAR);
+                        int expected = TestMaps.cost(pathfinder.findPath());
+                        for (SearchAlgorithm algorithm : new SearchAlgorithm[]{SearchAlgorithm.BIDIRECTIONAL, SearchAlgorithm.BIDIRECTIONAL_PARALLEL}) {
+                            pathfinder.setSearchAlgorithm(algorithm);
+                            List<Node> path = pathfinder.findPath();
+                            assertEquals(algorithm + " seed " + seed, expected, TestMaps.cost(path));
+                            if (path != null) {
+                                assertEquals(pathfinder.getStartNode(), path.get(0));
+                                assertEquals(pathfinder.getEndNode(), path.get(path.size() - 1));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameNode() {
+        Pathfinder pathfinder = new Pathfinder(8, 8, true);
+        pathfinder.setSearchAlgorithm(SearchAlgorithm.BIDIRECTIONAL);
+        pathfinder.setStartNode(3, 3);
+        pathfinder.setEndNode(3, 3);
+        List<Node> path = pathfinder.findPath();
+        assertNotNull(path);
+        assertEquals(1, path.size());
+    }
+
+    @Test
+    public void testBatch() {
+        Random random = new Random(1);
+        Pathfinder pathfinder = new Pathfinder(SIZE, SIZE, true, EngineMode.PRIMITIVE);
+        for (int i = 0; i < SIZE * SIZE / 4; i++) {
+            pathfinder.setBarrier(random.nextInt(SIZE), random.nextInt(SIZE));
+        }
+        GridSnapshot snapshot = pathfinder.snapshot();
+
+        List<PathQuery> expected = new ArrayList<>();
+        List<PathQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int startX = random.nextInt(SIZE);
+            int startY = random.nextInt(SIZE);
+            int endX = random.nextInt(SIZE);
+            int endY = random.nextInt(SIZE);
+            expected.add(new PathQuery(startX, startY, endX, endY, true));
+            queries.add(new PathQuery(startX, startY, endX, endY, true, SearchAlgorithm.BIDIRECTIONAL_PARALLEL));
+        }
+
+        List<List<Node>> expectedPaths = snapshot.findPaths(expected);
+        List<List<Node>> paths = snapshot.findPaths(queries);
+        for (int i = 0; i < paths.size(); i++) {
+            assertEquals(TestMaps.cost(expectedPaths.get(i)), TestMaps.cost(paths.get(i)));
+        }
+    }
+}
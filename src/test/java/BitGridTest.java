@@ -0,0 +1,115 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.BitGrid;
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.GridMap;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.Pathfinder;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BitGridTest {
+
+    private static BitGrid randomGrid(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        BitGrid grid = new BitGrid(rows, columns);
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < columns; y++) {
+                grid.setBarrier(x, y, random.nextInt(3) == 0);
+            }
+        }
+        return grid;
+    }
+
+    @Test
+    public void testNeighbourBarriers() {
+        //Odd column counts put the neighbours of some cells into two words
+        for (int columns : new int[]{1, 7, 63, 64, 65, 130}) {
+            BitGrid grid = randomGrid(9, columns, columns);
+            GridMap reference = new GridMap() {
+                @Override
+                public int getRows() {
+                    return grid.getRows();
+                }
+
+                @Override
+                public int getColumns() {
+                    return grid.getColumns();
+                }
+
+                @Override
+                public boolean isBarrier(int index) {
+                    return grid.isBarrier(index);
+                }
+            };
+
+            for (int x = 0; x < grid.getRows(); x++) {
+                for (int y = 0; y < columns; y++) {
+                    assertEquals(columns + ": " + x + ", " + y, reference.getNeighbourBarriers(x, y), grid.getNeighbourBarriers(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testScan() {
+        BitGrid grid = randomGrid(5, 150, 1);
+        grid.setBarrier(4, 149, false);
+        for (int y = 0; y < 150; y++) {
+            grid.setBarrier(2, y, false);
+        }
+
+        for (int x = 0; x < 5; x++) {
+            for (int y = 0; y <= 150; y++) {
+                int barrier = y;
+                while (barrier < 150 && !grid.isBarrier(x, barrier)) barrier++;
+                int free = y;
+                while (free < 150 && grid.isBarrier(x, free)) free++;
+                assertEquals(barrier, grid.nextBarrier(x, y));
+                assertEquals(free, grid.nextFree(x, y));
+            }
+        }
+        assertEquals(150, grid.nextBarrier(2, 0));
+    }
+
+    @Test
+    public void testPathfinder() {
+        BitGrid grid = randomGrid(40, 70, 2);
+        grid.setBarrier(0, 0, false);
+        grid.setBarrier(39, 69, false);
+        grid.setBarrier(20, 20, false);
+
+        //The pathfinder searches the bit grid directly, the other one a copy of its barriers
+        Pathfinder bitPathfinder = new Pathfinder(grid, true);
+        Pathfinder pathfinder = new Pathfinder(40, 70, true, EngineMode.PRIMITIVE);
+        for (int i = 0; i < grid.size(); i++) {
+            if (grid.isBarrier(i)) {
+                pathfinder.setBarrier(i / 70, i % 70);
+            }
+        }
+        int barriers = grid.countBarriers();
+        assertEquals(barriers, BitGrid.copyOf(pathfinder.snapshot()).countBarriers());
+
+        for (Pathfinder current : new Pathfinder[]{bitPathfinder, pathfinder}) {
+            current.setStartNode(0, 0);
+            current.setEndNode(39, 69);
+        }
+        List<Node> expected = pathfinder.findPath();
+        List<Node> path = bitPathfinder.findPath();
+        assertNotNull(path);
+        assertEquals(expected.get(expected.size() - 1).getgCost(), path.get(path.size() - 1).getgCost());
+
+        //Barriers set through the pathfinder are written into the grid
+        bitPathfinder.setBarrier(20, 20);
+        assertTrue(grid.isBarrier(20, 20));
+        assertEquals(barriers + 1, grid.countBarriers());
+    }
+}
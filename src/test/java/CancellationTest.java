@@ -0,0 +1,140 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.CancellationToken;
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.GridSnapshot;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.SearchAlgorithm;
+import de.felix.astar.algorithm.SearchContext;
+import de.felix.astar.algorithm.SearchStatus;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CancellationTest {
+
+    private static Pathfinder randomPathfinder(int size, EngineMode engineMode) {
+        Pathfinder pathfinder = TestMaps.randomPathfinder(size, true, engineMode, 9, size * size / 4);
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(size - 1, size - 1);
+        return pathfinder;
+    }
+
+    @Test
+    public void testCancelledBeforeStart() {
+        Pathfinder pathfinder = randomPathfinder(64, EngineMode.PRIMITIVE);
+        int optimal = TestMaps.cost(pathfinder.findPath());
+        assertEquals(SearchStatus.PATH_FOUND, pathfinder.getLastStatus());
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            pathfinder.setSearchAlgorithm(algorithm);
+            assertNull(pathfinder.findPath(token));
+            assertEquals(algorithm.name(), SearchStatus.CANCELLED, pathfinder.getLastStatus());
+            assertEquals(0, pathfinder.getExpandedNodes());
+
+            //The pathfinder is used as before
+            List<Node> path = pathfinder.findPath();
+            assertEquals(SearchStatus.PATH_FOUND, pathfinder.getLastStatus());
+            if (algorithm.isOptimal()) {
+                assertEquals(algorithm.name(), optimal, TestMaps.cost(path));
+            }
+        }
+
+        assertNull(pathfinder.findPath(CancellationToken.withTimeout(0, TimeUnit.SECONDS)));
+        assertEquals(SearchStatus.DEADLINE_EXCEEDED, pathfinder.getLastStatus());
+    }
+
+    @Test
+    public void testCancelDuringSearch() {
+        Pathfinder pathfinder = randomPathfinder(128, EngineMode.OBJECT);
+        int optimal = TestMaps.cost(pathfinder.findPath());
+        int expanded = pathfinder.getExpandedNodes();
+        pathfinder.setStatsEnabled(true);
+
+        //The node is reached after some expansions, from then on at most one interval of nodes is expanded
+        CancellationToken token = new CancellationToken();
+        pathfinder.getNode(40, 40).setListener(node -> token.cancel());
+        assertNull(pathfinder.findPath(token));
+        assertEquals(SearchStatus.CANCELLED, pathfinder.getLastStatus());
+        assertEquals(SearchStatus.CANCELLED, pathfinder.getLastStats().getStatus());
+        assertFalse(pathfinder.getLastStats().isPathFound());
+        assertTrue(pathfinder.getExpandedNodes() > 0 && pathfinder.getExpandedNodes() < expanded);
+
+        pathfinder.getNode(40, 40).setListener(null);
+        assertEquals(optimal, TestMaps.cost(pathfinder.findPath()));
+        assertEquals(SearchStatus.PATH_FOUND, pathfinder.getLastStatus());
+    }
+
+    @Test
+    public void testDeadline() {
+        //Every algorithm stops at the deadline or finds its path before, afterwards it finds the same path as before
+        Pathfinder pathfinder = randomPathfinder(512, EngineMode.PRIMITIVE);
+        int optimal = TestMaps.cost(pathfinder.findPath());
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            pathfinder.setSearchAlgorithm(algorithm);
+            List<Node> path = pathfinder.findPath(CancellationToken.withTimeout(1, TimeUnit.MILLISECONDS));
+            SearchStatus status = pathfinder.getLastStatus();
+            if (algorithm == SearchAlgorithm.A_STAR) {
+                assertEquals(SearchStatus.DEADLINE_EXCEEDED, status);
+            }
+            assertTrue(algorithm.name(), status == SearchStatus.DEADLINE_EXCEEDED ? path == null : path != null);
+
+            path = pathfinder.findPath();
+            if (algorithm.isOptimal()) {
+                assertEquals(algorithm.name(), optimal, TestMaps.cost(path));
+            } else {
+                assertNotNull(path);
+            }
+        }
+    }
+
+    @Test
+    public void testAbortedNotCached() {
+        Pathfinder pathfinder = randomPathfinder(64, EngineMode.PRIMITIVE);
+        pathfinder.setPathCacheCapacity(8);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        assertNull(pathfinder.findPath(token));
+        assertNotNull(pathfinder.findPath());
+        assertNotNull(pathfinder.findPath(token));
+        assertEquals(SearchStatus.PATH_FOUND, pathfinder.getLastStatus());
+
+        pathfinder.setStartNode(1, 1);
+        pathfinder.setNodeType(0, 0, NodeType.UNEVALUATED);
+        for (int i = 0; i < 3; i++) {
+            pathfinder.setBarrier(i, 3);
+            pathfinder.setBarrier(3, i);
+        }
+        pathfinder.setBarrier(3, 3);
+        assertNull(pathfinder.findPath());
+        assertEquals(SearchStatus.NO_PATH, pathfinder.getLastStatus());
+    }
+
+    @Test
+    public void testSnapshot() {
+        GridSnapshot snapshot = randomPathfinder(64, EngineMode.PRIMITIVE).snapshot();
+        SearchContext context = snapshot.createWorkspace();
+        CancellationToken token = new CancellationToken();
+        context.setCancellationToken(token);
+        for (SearchAlgorithm algorithm : new SearchAlgorithm[]{SearchAlgorithm.A_STAR, SearchAlgorithm.BIDIRECTIONAL_PARALLEL}) {
+            assertNotNull(snapshot.findPath(context, 0, 0, 63, 63, true, algorithm));
+            assertEquals(SearchStatus.PATH_FOUND, context.getStatus());
+            token.cancel();
+            assertNull(snapshot.findPath(context, 0, 0, 63, 63, true, algorithm));
+            assertEquals(SearchStatus.CANCELLED, context.getStatus());
+            token = new CancellationToken();
+            context.setCancellationToken(token);
+        }
+    }
+}
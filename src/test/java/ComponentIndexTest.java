@@ -0,0 +1,161 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.GridSnapshot;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.Pathfinder;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ComponentIndexTest {
+
+    private static final int SIZE = 24;
+
+    /**
+     * Searches the grid breadth first, a path may leave a barrier at the start but can't enter one.
+     */
+    private static boolean connected(Pathfinder pathfinder, int startX, int startY, int endX, int endY) {
+        boolean[][] visited = new boolean[SIZE][SIZE];
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        queue.add(new int[]{startX, startY});
+        visited[startX][startY] = true;
+        while (!queue.isEmpty()) {
+            int[] cell = queue.poll();
+            if (cell[0] == endX && cell[1] == endY) {
+                return true;
+            }
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (!pathfinder.isDiagonal() && x != 0 && y != 0) continue;
+                    int neighbourX = cell[0] + x;
+                    int neighbourY = cell[1] + y;
+                    if (!pathfinder.isInsideGrid(neighbourX, neighbourY) || visited[neighbourX][neighbourY]) continue;
+                    if (pathfinder.getNode(neighbourX, neighbourY).getNodeType() == NodeType.BARRIER) continue;
+                    visited[neighbourX][neighbourY] = true;
+                    queue.add(new int[]{neighbourX, neighbourY});
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        for (boolean diagonal : new boolean[]{true, false}) {
+            Random random = new Random(diagonal ? 3 : 4);
+            Pathfinder pathfinder = new Pathfinder(SIZE, SIZE, diagonal);
+            for (int i = 0; i < SIZE * SIZE * 2 / 5; i++) {
+                pathfinder.setBarrier(random.nextInt(SIZE), random.nextInt(SIZE));
+            }
+
+            for (int step = 0; step < 300; step++) {
+                //Several changes between two queries are applied together
+                for (int i = random.nextInt(6); i > 0; i--) {
+                    int x = random.nextInt(SIZE);
+                    int y = random.nextInt(SIZE);
+                    boolean barrier = pathfinder.getNode(x, y).getNodeType() == NodeType.BARRIER;
+                    pathfinder.setNodeType(x, y, barrier ? NodeType.UNEVALUATED : NodeType.BARRIER);
+                }
+
+                for (int i = 0; i < 5; i++) {
+                    int startX = random.nextInt(SIZE);
+                    int startY = random.nextInt(SIZE);
+                    int endX = random.nextInt(SIZE);
+                    int endY = random.nextInt(SIZE);
+                    assertEquals("step " + step, connected(pathfinder, startX, startY, endX, endY),
+                            pathfinder.isReachable(startX, startY, endX, endY));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testThickWall() {
+        //Both cells of the gap are closed before the next query
+        Pathfinder pathfinder = new Pathfinder(8, 8, false);
+        for (int x = 0; x < 8; x++) {
+            if (x != 4) {
+                pathfinder.setBarrier(x, 3);
+                pathfinder.setBarrier(x, 4);
+            }
+        }
+        assertTrue(pathfinder.isReachable(0, 0, 7, 7));
+
+        pathfinder.setBarrier(4, 3);
+        pathfinder.setBarrier(4, 4);
+        assertFalse(pathfinder.isReachable(0, 0, 7, 7));
+
+        pathfinder.setNodeType(4, 3, NodeType.UNEVALUATED);
+        assertFalse(pathfinder.isReachable(0, 0, 7, 7));
+        pathfinder.setNodeType(4, 4, NodeType.UNEVALUATED);
+        assertTrue(pathfinder.isReachable(0, 0, 7, 7));
+    }
+
+    @Test
+    public void testFindPath() {
+        Pathfinder pathfinder = new Pathfinder(16, 16, true);
+        for (int x = 0; x < 16; x++) {
+            pathfinder.setBarrier(x, 8);
+        }
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(15, 15);
+        assertNull(pathfinder.findPath());
+        assertFalse(pathfinder.isReachable(0, 0, 15, 15));
+        assertFalse(pathfinder.isReachable(0, 0, 16, 0));
+
+        //A barrier at the start can be left
+        assertTrue(pathfinder.isReachable(3, 8, 0, 0));
+        assertFalse(pathfinder.isReachable(0, 0, 3, 8));
+
+        GridSnapshot snapshot = pathfinder.snapshot();
+        pathfinder.setNodeType(7, 8, NodeType.UNEVALUATED);
+        assertNotNull(pathfinder.findPath());
+        assertFalse(snapshot.isReachable(0, 0, 15, 15, true));
+        assertNull(snapshot.findPath(0, 0, 15, 15, true));
+    }
+
+    @Test
+    public void testOptIn() {
+        Pathfinder pathfinder = new Pathfinder(16, 16, true);
+        for (int x = 0; x < 16; x++) {
+            pathfinder.setBarrier(x, 8);
+        }
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(15, 15);
+
+        //Without the index the unreachable end is found by searching
+        assertFalse(pathfinder.isComponentIndexEnabled());
+        assertNull(pathfinder.findPath());
+        assertTrue(pathfinder.getExpandedNodes() > 0);
+        GridSnapshot snapshot = pathfinder.snapshot();
+        assertFalse(snapshot.hasComponentIndex(true));
+        assertNull(snapshot.findPath(0, 0, 15, 15, true));
+
+        pathfinder.setComponentIndexEnabled(true);
+        assertNull(pathfinder.findPath());
+        assertEquals(0, pathfinder.getExpandedNodes());
+        snapshot = pathfinder.snapshot();
+        assertTrue(snapshot.hasComponentIndex(true));
+        assertFalse(snapshot.hasComponentIndex(false));
+
+        //Both movement modes are kept and updated
+        pathfinder.setDiagonal(false);
+        assertNull(pathfinder.findPath());
+        assertEquals(0, pathfinder.getExpandedNodes());
+        pathfinder.setNodeType(3, 8, NodeType.UNEVALUATED);
+        assertNotNull(pathfinder.findPath());
+        pathfinder.setDiagonal(true);
+        assertTrue(pathfinder.isReachable(0, 0, 15, 15));
+
+        pathfinder.setComponentIndexEnabled(false);
+        assertFalse(pathfinder.isComponentIndexEnabled());
+        assertNotNull(pathfinder.findPath());
+    }
+}
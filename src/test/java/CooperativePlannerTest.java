@@ -0,0 +1,163 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.CooperativePlanner;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.ReservationTable;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CooperativePlannerTest {
+
+    /**
+     * Moves all agents until they arrived, checking that no two agents share a cell or swap their cells.
+     *
+     * @return the amount of steps.
+     */
+    private static int run(CooperativePlanner planner, int maxSteps) {
+        int agents = planner.getAgentCount();
+        int[] previous = new int[agents];
+        int columns = 1 << 16;
+        for (int step = 0; step < maxSteps && !planner.isFinished(); step++) {
+            for (int agent = 0; agent < agents; agent++) {
+                previous[agent] = planner.getX(agent) * columns + planner.getY(agent);
+            }
+            planner.step();
+
+            Map<Integer, Integer> cells = new HashMap<>();
+            for (int agent = 0; agent < agents; agent++) {
+                int cell = planner.getX(agent) * columns + planner.getY(agent);
+                Integer other = cells.put(cell, agent);
+                assertNull("Agents " + other + " and " + agent + " collided at step " + step, other);
+                assertTrue(Math.abs(cell / columns - previous[agent] / columns) <= 1 && Math.abs(cell % columns - previous[agent] % columns) <= 1);
+            }
+            for (int agent = 0; agent < agents; agent++) {
+                int cell = planner.getX(agent) * columns + planner.getY(agent);
+                Integer other = cells.get(previous[agent]);
+                if (other != null && other != agent) {
+                    assertNotEquals("Agents " + other + " and " + agent + " swapped at step " + step, previous[other], cell);
+                }
+            }
+        }
+        return planner.getTime();
+    }
+
+    @Test
+    public void testReservationTable() {
+        ReservationTable table = new ReservationTable(4);
+        Random random = new Random(1);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            int cell = random.nextInt(500);
+            int agent = random.nextInt(3);
+            if (random.nextBoolean()) {
+                boolean free = !expected.containsKey(cell) || expected.get(cell) == agent;
+                assertEquals(free, table.reserve(cell, 2, agent));
+                if (free) expected.put(cell, agent);
+            } else {
+                boolean owned = expected.containsKey(cell) && expected.get(cell) == agent;
+                assertEquals(owned, table.release(cell, 2, agent));
+                if (owned) expected.remove(cell);
+            }
+        }
+        for (int cell = 0; cell < 500; cell++) {
+            assertEquals(expected.getOrDefault(cell, ReservationTable.FREE).intValue(), table.getAgent(cell, 2));
+            assertEquals(ReservationTable.FREE, table.getAgent(cell, 1));
+        }
+        assertEquals(expected.size(), table.size());
+
+        //Reservations before the window are forgotten, the freed slot stores the next time step
+        table.reserve(7, 0, 5);
+        assertTrue(table.isReserved(7, 0, 1));
+        assertFalse(table.isReserved(7, 0, 5));
+        table.advance(3);
+        assertEquals(ReservationTable.FREE, table.getAgent(7, 0));
+        assertTrue(table.isInsideWindow(6));
+        assertFalse(table.isInsideWindow(7));
+        table.advance(5);
+        assertEquals(0, table.size());
+        assertTrue(table.reserve(7, 8, 1));
+        assertEquals(1, table.getAgent(7, 8));
+        try {
+            table.reserve(7, 9, 1);
+            fail();
+        } catch (IllegalArgumentException expectedException) {
+        }
+    }
+
+    @Test
+    public void testCrossing() {
+        //Two agents meet at a crossing at the same time, so one of them waits for the other
+        Pathfinder pathfinder = new Pathfinder(9, 9, false);
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                if (x != 4 && y != 4) {
+                    pathfinder.setBarrier(x, y);
+                }
+            }
+        }
+        CooperativePlanner planner = pathfinder.createCooperativePlanner(8);
+        int first = planner.addAgent(4, 0, 4, 8);
+        int second = planner.addAgent(0, 4, 8, 4);
+        assertEquals(first, planner.getReservations().getAgent(4 * 9, 8));
+        assertEquals(second, planner.getReservations().getAgent(4, 8));
+
+        //Alone, both agents would arrive after 8 steps
+        assertEquals(9, run(planner, 100));
+        assertTrue(planner.isAtGoal(first));
+        assertTrue(planner.isAtGoal(second));
+
+        try {
+            planner.addAgent(4, 8, 4, 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testManyAgents() {
+        int size = 40;
+        Random random = new Random(3);
+        Pathfinder pathfinder = new Pathfinder(size, size, true);
+        for (int i = 0; i < size * size / 8; i++) {
+            pathfinder.setBarrier(random.nextInt(size), random.nextInt(size));
+        }
+        CooperativePlanner planner = pathfinder.createCooperativePlanner(CooperativePlanner.DEFAULT_WINDOW);
+
+        //Every agent gets a free start and an own goal in the same area
+        Set<Integer> starts = new HashSet<>();
+        Set<Integer> goals = new HashSet<>();
+        while (planner.getAgentCount() < 80) {
+            int startX = random.nextInt(size);
+            int startY = random.nextInt(size);
+            int goalX = random.nextInt(size);
+            int goalY = random.nextInt(size);
+            if (pathfinder.getNode(startX, startY).getNodeType() == NodeType.BARRIER
+                    || !pathfinder.isReachable(startX, startY, goalX, goalY)
+                    || !starts.add(startX * size + startY)) continue;
+            if (!goals.add(goalX * size + goalY)) {
+                starts.remove(startX * size + startY);
+                continue;
+            }
+            planner.addAgent(startX, startY, goalX, goalY);
+        }
+
+        run(planner, 400);
+        assertTrue(planner.isFinished());
+        for (int agent = 0; agent < planner.getAgentCount(); agent++) {
+            int[] plan = planner.getPlan(agent);
+            assertEquals(planner.getX(agent) * size + planner.getY(agent), plan[0]);
+        }
+    }
+}
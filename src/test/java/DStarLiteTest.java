@@ -0,0 +1,88 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.SearchAlgorithm;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DStarLiteTest {
+
+    private static final int SIZE = 32;
+
+    private static int search(Pathfinder pathfinder, SearchAlgorithm algorithm) {
+        pathfinder.setSearchAlgorithm(algorithm);
+        return TestMaps.cost(pathfinder.findPath());
+    }
+
+    @Test
+    public void testReplanning() {
+        for (EngineMode engineMode : EngineMode.values()) {
+            for (boolean diagonal : new boolean[]{true, false}) {
+                Random random = new Random(diagonal ? 1 : 2);
+                Pathfinder pathfinder = new Pathfinder(SIZE, SIZE, diagonal, engineMode);
+                for (int i = 0; i < SIZE * SIZE / 4; i++) {
+                    pathfinder.setBarrier(random.nextInt(SIZE), random.nextInt(SIZE));
+                }
+                pathfinder.setStartNode(0, 0);
+                pathfinder.setEndNode(SIZE - 1, SIZE - 1);
+
+                for (int step = 0; step < 200; step++) {
+                    //Toggle some barriers, move the start now and then and the end rarely
+                    for (int i = random.nextInt(4); i > 0; i--) {
+                        int x = random.nextInt(SIZE);
+                        int y = random.nextInt(SIZE);
+                        Node node = pathfinder.getNode(x, y);
+                        if (node.getNodeType() == NodeType.BARRIER) {
+                            pathfinder.setNodeType(x, y, NodeType.UNEVALUATED);
+                        } else if (node.getNodeType() != NodeType.START && node.getNodeType() != NodeType.END) {
+                            pathfinder.setBarrier(x, y);
+                        }
+                    }
+                    if (random.nextInt(4) == 0) {
+                        pathfinder.setStartNode(random.nextInt(SIZE), random.nextInt(SIZE));
+                    }
+                    if (random.nextInt(20) == 0) {
+                        pathfinder.setEndNode(random.nextInt(SIZE), random.nextInt(SIZE));
+                    }
+                    if (pathfinder.getStartNode() == null || pathfinder.getEndNode() == null) {
+                        pathfinder.setStartNode(0, 0);
+                        pathfinder.setEndNode(SIZE - 1, SIZE - 1);
+                    }
+
+                    int expected = search(pathfinder, SearchAlgorithm.A_STAR);
+                    assertEquals(engineMode + " step " + step, expected, search(pathfinder, SearchAlgorithm.D_STAR_LITE));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBlockedCorridor() {
+        Pathfinder pathfinder = new Pathfinder(8, 8, false);
+        pathfinder.setSearchAlgorithm(SearchAlgorithm.D_STAR_LITE);
+        for (int x = 0; x < 7; x++) {
+            pathfinder.setBarrier(x, 3);
+        }
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(0, 7);
+        assertEquals(210, TestMaps.cost(pathfinder.findPath()));
+
+        //Close the door
+        pathfinder.setBarrier(7, 3);
+        assertNull(pathfinder.findPath());
+
+        //Open another one
+        pathfinder.setNodeType(1, 3, NodeType.UNEVALUATED);
+        assertEquals(90, TestMaps.cost(pathfinder.findPath()));
+    }
+}
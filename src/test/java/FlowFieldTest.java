@@ -0,0 +1,113 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.FlowField;
+import de.felix.astar.algorithm.GridPath;
+import de.felix.astar.algorithm.GridSnapshot;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.Pathfinder;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class FlowFieldTest {
+
+    private static final int SIZE = 48;
+
+    @Test
+    public void testSameCostsAsSearch() {
+        for (EngineMode engineMode : EngineMode.values()) {
+            for (boolean diagonal : new boolean[]{true, false}) {
+                Pathfinder pathfinder = TestMaps.randomPathfinder(SIZE, diagonal, engineMode, diagonal ? 1 : 2, SIZE * SIZE * 3 / 10);
+                Random random = new Random(3);
+                for (int i = 0; i < SIZE * SIZE / 2; i++) {
+                    pathfinder.setCostMultiplier(random.nextInt(SIZE), random.nextInt(SIZE), 1 + random.nextInt(4));
+                }
+                pathfinder.setStartNode(0, 0);
+                pathfinder.setEndNode(SIZE / 2, SIZE / 3);
+                FlowField field = pathfinder.createFlowField();
+                GridSnapshot snapshot = pathfinder.snapshot();
+                assertEquals(FlowField.GOAL, field.getDirection(SIZE / 2, SIZE / 3));
+
+                for (int x = 0; x < SIZE; x++) {
+                    for (int y = 0; y < SIZE; y++) {
+                        if (pathfinder.getNode(x, y).getNodeType() == NodeType.BARRIER) continue;
+                        int expected = TestMaps.cost(snapshot.findPath(x, y, SIZE / 2, SIZE / 3, diagonal));
+                        assertEquals(expected, field.getCost(x, y));
+                        assertEquals(expected >= 0, field.isReachable(x, y));
+
+                        //Following the directions pays exactly the costs of the cell
+                        GridPath path = field.trace(x, y);
+                        if (expected < 0) {
+                            assertNull(path);
+                            assertEquals(-1, field.next(x * SIZE + y));
+                            continue;
+                        }
+                        assertTrue(path.isContinuous());
+                        assertEquals(expected, path.getCost());
+                        for (int i = 1; i < path.size(); i++) {
+                            int step = field.getCost(path.getX(i - 1), path.getY(i - 1)) - field.getCost(path.getX(i), path.getY(i));
+                            assertTrue(step >= 10);
+                            assertNotEquals(NodeType.BARRIER, pathfinder.getNode(path.getX(i), path.getY(i)).getNodeType());
+                        }
+                        assertEquals(field.getGoalX() * SIZE + field.getGoalY(), path.getIndex(path.size() - 1));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBarriers() {
+        //A unit may leave a barrier, but never enters one
+        Pathfinder pathfinder = new Pathfinder(8, 8, false);
+        pathfinder.setEndNode(0, 0);
+        for (int y = 0; y < 8; y++) {
+            pathfinder.setBarrier(4, y);
+        }
+        pathfinder.setBarrier(5, 3);
+        FlowField field = pathfinder.createFlowField();
+        assertFalse(field.isDiagonal());
+        assertEquals(FlowField.NONE, field.getDirection(6, 3));
+        assertEquals(-1, field.getCost(6, 3));
+        assertEquals(40, field.getCost(4, 0));
+        assertEquals(3 * 8, field.next(4 * 8));
+        assertEquals(-1, field.getCost(5, 3));
+        assertEquals(0, field.next(0));
+
+        //A barrier goal isn't reached at all
+        GridSnapshot snapshot = pathfinder.snapshot();
+        field = snapshot.createFlowField(4, 1, true);
+        assertEquals(0, field.getCost(4, 1));
+        assertFalse(field.isReachable(3, 1));
+        assertNull(field.trace(3, 1));
+
+        try {
+            snapshot.createFlowField(8, 0, true);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testParallel() {
+        //Large enough to split the directions into bands
+        int size = 300;
+        GridSnapshot snapshot = TestMaps.randomPathfinder(size, true, EngineMode.PRIMITIVE, 4, size * size * 3 / 10).snapshot();
+        FlowField sequential = FlowField.compute(snapshot, 150, 150, true, new ForkJoinPool(1));
+        FlowField parallel = FlowField.compute(snapshot, 150, 150, true, new ForkJoinPool(4));
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                assertEquals(sequential.getCost(x, y), parallel.getCost(x, y));
+                assertEquals(sequential.getDirection(x, y), parallel.getDirection(x, y));
+            }
+        }
+    }
+}
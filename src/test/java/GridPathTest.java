@@ -0,0 +1,145 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.GridPath;
+import de.felix.astar.algorithm.GridSnapshot;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.SearchAlgorithm;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GridPathTest {
+
+    private static final int SIZE = 48;
+
+    private static Pathfinder randomPathfinder(long seed, boolean diagonal, EngineMode engineMode) {
+        Pathfinder pathfinder = TestMaps.randomPathfinder(SIZE, diagonal, engineMode, seed, SIZE * SIZE / 4);
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(SIZE - 1, SIZE - 1);
+        return pathfinder;
+    }
+
+    /**
+     * Samples the lines between consecutive cells and checks that none of the samples lies inside a barrier.
+     */
+    private static void assertFreeLines(Pathfinder pathfinder, GridPath path) {
+        for (int i = 1; i < path.size(); i++) {
+            for (double t = 0; t <= 1; t += 0.01) {
+                long x = Math.round(path.getX(i - 1) + (path.getX(i) - path.getX(i - 1)) * t);
+                long y = Math.round(path.getY(i - 1) + (path.getY(i) - path.getY(i - 1)) * t);
+                if (i == 1 && x == path.getX(0) && y == path.getY(0)) continue;
+                assertNotEquals(x + "/" + y, NodeType.BARRIER, pathfinder.getNode((int) x, (int) y).getNodeType());
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsNodes() {
+        for (EngineMode engineMode : EngineMode.values()) {
+            for (long seed = 0; seed < 10; seed++) {
+                Pathfinder pathfinder = randomPathfinder(seed, seed % 2 == 0, engineMode);
+                GridPath path = pathfinder.findGridPath();
+                if (engineMode == EngineMode.PRIMITIVE) {
+                    //No node of the grid is marked
+                    for (int x = 0; x < SIZE; x++) {
+                        for (int y = 0; y < SIZE; y++) {
+                            assertNotEquals(NodeType.PATH, pathfinder.getNode(x, y).getNodeType());
+                        }
+                    }
+                }
+
+                List<Node> nodes = pathfinder.findPath();
+                if (nodes == null) {
+                    assertNull(path);
+                    continue;
+                }
+                assertEquals(nodes.size(), path.size());
+                assertEquals(nodes.get(nodes.size() - 1).getgCost(), path.getCost());
+                assertTrue(path.isContinuous());
+                for (int i = 0; i < nodes.size(); i++) {
+                    assertEquals(nodes.get(i).getX(), path.getX(i));
+                    assertEquals(nodes.get(i).getY(), path.getY(i));
+                    assertEquals(path.getX(i) * SIZE + path.getY(i), path.getIndex(i));
+                }
+
+                GridSnapshot snapshot = pathfinder.snapshot();
+                GridPath snapshotPath = snapshot.findGridPath(snapshot.createWorkspace(), 0, 0, SIZE - 1, SIZE - 1,
+                        pathfinder.isDiagonal(), SearchAlgorithm.A_STAR);
+                assertEquals(path.getCost(), snapshotPath.getCost());
+            }
+        }
+    }
+
+    @Test
+    public void testWaypoints() {
+        Pathfinder pathfinder = new Pathfinder(10, 10, true);
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(0, 9);
+        GridPath straight = pathfinder.findGridPath();
+        assertEquals(10, straight.size());
+        GridPath waypoints = straight.waypoints();
+        assertEquals(2, waypoints.size());
+        assertEquals(9, waypoints.getY(1));
+        assertEquals(straight.getCost(), waypoints.getCost());
+        assertArrayEquals(straight.toArray(), waypoints.expand().toArray());
+
+        //The waypoints of every path lead through the same cells
+        for (long seed = 0; seed < 10; seed++) {
+            GridPath path = randomPathfinder(seed, seed % 2 == 0, EngineMode.PRIMITIVE).findGridPath();
+            if (path == null) continue;
+            GridPath compressed = path.waypoints();
+            assertTrue(compressed.size() <= path.size());
+            assertArrayEquals(path.toArray(), compressed.expand().toArray());
+            assertEquals(path.getLength(), compressed.getLength(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testSmooth() {
+        //Without barriers the start sees the end
+        Pathfinder open = new Pathfinder(10, 10, true);
+        open.setStartNode(0, 0);
+        open.setEndNode(9, 3);
+        GridPath path = open.findGridPath();
+        GridPath smoothed = path.smooth(open.snapshot(), true);
+        assertEquals(2, smoothed.size());
+        assertTrue(smoothed.getLength() < path.getLength());
+        try {
+            smoothed.expand();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+
+        //The path around a wall keeps waypoints beside its end
+        for (int y = 0; y < 8; y++) {
+            open.setBarrier(5, y);
+        }
+        open.setEndNode(9, 0);
+        path = open.findGridPath();
+        smoothed = path.smooth(open.snapshot(), true);
+        assertTrue(smoothed.size() > 2 && smoothed.size() < path.waypoints().size());
+        assertFreeLines(open, smoothed);
+
+        for (long seed = 0; seed < 10; seed++) {
+            for (boolean diagonal : new boolean[]{true, false}) {
+                Pathfinder pathfinder = randomPathfinder(seed, diagonal, EngineMode.PRIMITIVE);
+                path = pathfinder.findGridPath();
+                if (path == null) continue;
+                smoothed = path.smooth(pathfinder.snapshot(), diagonal);
+                assertEquals(path.getIndex(0), smoothed.getIndex(0));
+                assertEquals(path.getIndex(path.size() - 1), smoothed.getIndex(smoothed.size() - 1));
+                assertTrue(smoothed.getLength() <= path.getLength() + 1e-9);
+                assertFreeLines(pathfinder, smoothed);
+            }
+        }
+    }
+}
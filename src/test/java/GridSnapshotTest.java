@@ -0,0 +1,93 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.GridSnapshot;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.PathQuery;
+import de.felix.astar.algorithm.Pathfinder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class GridSnapshotTest {
+
+    private static final int SIZE = 128;
+
+    @Test
+    public void testSnapshotIsImmutable() {
+        Pathfinder pathfinder = new Pathfinder(8, 8, false);
+        GridSnapshot snapshot = pathfinder.snapshot();
+        pathfinder.setBarrier(1, 0);
+        pathfinder.setBarrier(0, 1);
+
+        assertFalse(snapshot.isBarrier(1, 0));
+        assertNotNull(snapshot.findPath(0, 0, 7, 7, false));
+        assertNull(pathfinder.snapshot().findPath(0, 0, 7, 7, false));
+    }
+
+    @Test
+    public void testConcurrentSearches() throws Exception {
+        GridSnapshot snapshot = TestMaps.densePathfinder(SIZE, true, EngineMode.PRIMITIVE, 7, 25).snapshot();
+        Random random = new Random(3);
+        int[][] queries = new int[200][4];
+        int[] expected = new int[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            for (int j = 0; j < 4; j++) {
+                queries[i][j] = random.nextInt(SIZE);
+            }
+            expected[i] = TestMaps.cost(snapshot.findPath(snapshot.createWorkspace(), queries[i][0], queries[i][1], queries[i][2], queries[i][3], true));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int[] query : queries) {
+                results.add(executor.submit(() -> TestMaps.cost(snapshot.findPath(query[0], query[1], query[2], query[3], true))));
+            }
+            for (int i = 0; i < queries.length; i++) {
+                assertEquals(expected[i], (int) results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        GridSnapshot snapshot = TestMaps.densePathfinder(SIZE, true, EngineMode.PRIMITIVE, 11, 25).snapshot();
+        Random random = new Random(5);
+        List<PathQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            queries.add(new PathQuery(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(SIZE), i % 2 == 0));
+        }
+
+        List<List<Node>> forkJoin = snapshot.findPaths(queries, new ForkJoinPool(4));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<List<Node>> executed;
+        try {
+            executed = snapshot.findPaths(queries, executor, 3);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(queries.size(), forkJoin.size());
+        for (int i = 0; i < queries.size(); i++) {
+            PathQuery query = queries.get(i);
+            int expected = TestMaps.cost(snapshot.findPath(query.getStartX(), query.getStartY(), query.getEndX(), query.getEndY(), query.isDiagonal()));
+            assertEquals(expected, TestMaps.cost(forkJoin.get(i)));
+            assertEquals(expected, TestMaps.cost(executed.get(i)));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.GridPath;
+import de.felix.astar.algorithm.GridSnapshot;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.SearchAlgorithm;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class HierarchicalSearchTest {
+
+    private static final int SIZE = 64;
+
+    private static Pathfinder randomPathfinder(long seed, int density, boolean diagonal) {
+        Pathfinder pathfinder = TestMaps.densePathfinder(SIZE, diagonal, EngineMode.PRIMITIVE, seed, density);
+        pathfinder.setClusterSize(8);
+        return pathfinder;
+    }
+
+    private static void assertConnected(Pathfinder pathfinder, List<Node> path) {
+        int gCost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            Node previous = path.get(i - 1);
+            Node node = path.get(i);
+            int dx = Math.abs(node.getX() - previous.getX());
+            int dy = Math.abs(node.getY() - previous.getY());
+            assertTrue(dx <= 1 && dy <= 1 && dx + dy > 0);
+            assertTrue(pathfinder.isDiagonal() || dx + dy == 1);
+            assertNotEquals(NodeType.BARRIER, node.getNodeType());
+            gCost += dx + dy == 2 ? 14 : 10;
+            assertEquals(gCost, node.getgCost());
+        }
+    }
+
+    @Test
+    public void testNearOptimal() {
+        for (boolean diagonal : new boolean[]{true, false}) {
+            for (int density : new int[]{0, 15, 30}) {
+                for (long seed = 0; seed < 10; seed++) {
+                    Pathfinder pathfinder = randomPathfinder(seed, density, diagonal);
+                    Random random = new Random(seed);
+                    for (int query = 0; query < 5; query++) {
+                        pathfinder.setStartNode(random.nextInt(SIZE), random.nextInt(SIZE));
+                        pathfinder.setEndNode(random.nextInt(SIZE), random.nextInt(SIZE));
+                        if (pathfinder.getStartNode() == null || pathfinder.getEndNode() == null) {
+                            continue;
+                        }
+
+                        pathfinder.setSearchAlgorithm(SearchAlgorithm.A_STAR);
+                        int optimal = TestMaps.cost(pathfinder.findPath());
+                        pathfinder.setSearchAlgorithm(SearchAlgorithm.HPA_STAR);
+                        List<Node> path = pathfinder.findPath();
+
+                        //A path is found whenever one exists
+                        assertEquals(optimal < 0, path == null);
+                        if (path != null) {
+                            assertConnected(pathfinder, path);
+                            assertTrue(TestMaps.cost(path) + " > " + optimal, TestMaps.cost(path) <= optimal * 3 / 2);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        Pathfinder pathfinder = randomPathfinder(42, 20, true);
+        pathfinder.setSearchAlgorithm(SearchAlgorithm.HPA_STAR);
+        Random random = new Random(42);
+
+        for (int step = 0; step < 60; step++) {
+            //Toggle a few barriers, so the hierarchy has to be updated
+            for (int i = 0; i < 10; i++) {
+                int x = random.nextInt(SIZE);
+                int y = random.nextInt(SIZE);
+                Node node = pathfinder.getNode(x, y);
+                pathfinder.setNodeType(x, y, node.getNodeType() == NodeType.BARRIER ? NodeType.UNEVALUATED : NodeType.BARRIER);
+            }
+            pathfinder.setStartNode(random.nextInt(SIZE), random.nextInt(SIZE));
+            pathfinder.setEndNode(random.nextInt(SIZE), random.nextInt(SIZE));
+            if (pathfinder.getStartNode() == null || pathfinder.getEndNode() == null) {
+                continue;
+            }
+            int updated = TestMaps.cost(pathfinder.findPath());
+
+            //Setting the cluster size discards the hierarchy, so it is built from scratch
+            pathfinder.setClusterSize(8);
+            assertEquals(TestMaps.cost(pathfinder.findPath()), updated);
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        Pathfinder pathfinder = randomPathfinder(7, 25, true);
+        GridSnapshot snapshot = pathfinder.snapshot();
+        Random random = new Random(7);
+        for (int query = 0; query < 20; query++) {
+            int startX = random.nextInt(SIZE);
+            int startY = random.nextInt(SIZE);
+            int endX = random.nextInt(SIZE);
+            int endY = random.nextInt(SIZE);
+            List<Node> optimal = snapshot.findPath(snapshot.createWorkspace(), startX, startY, endX, endY, true, SearchAlgorithm.A_STAR);
+            List<Node> path = snapshot.findPath(snapshot.createWorkspace(), startX, startY, endX, endY, true, SearchAlgorithm.HPA_STAR);
+            assertEquals(optimal == null, path == null);
+            if (path != null) {
+                assertEquals(startX, path.get(0).getX());
+                assertEquals(endY, path.get(path.size() - 1).getY());
+                assertTrue(TestMaps.cost(path) >= TestMaps.cost(optimal));
+            }
+        }
+    }
+
+    /**
+     * Checks that the path neither visits a cell twice nor skips a cell.
+     */
+    private static void assertSimple(GridPath path) {
+        assertTrue(path.isContinuous());
+        Set<Integer> cells = new HashSet<>();
+        for (int i = 0; i < path.size(); i++) {
+            assertTrue(path.toString(), cells.add(path.getIndex(i)));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testSimplePaths() {
+        //Refined segments crossing each other once led to a parent cycle, which never finished retracing
+        for (long seed = 0; seed < 2500; seed++) {
+            Random random = new Random(seed);
+            int size = 16 + random.nextInt(40);
+            boolean diagonal = random.nextBoolean();
+            int clusterSize = 4 + random.nextInt(12);
+            int barriers = size * size * random.nextInt(30) / 100;
+            Pathfinder pathfinder = TestMaps.randomPathfinder(size, diagonal, EngineMode.PRIMITIVE, random, barriers);
+            pathfinder.setClusterSize(clusterSize);
+            pathfinder.setSearchAlgorithm(SearchAlgorithm.HPA_STAR);
+            pathfinder.setStartNode(random.nextInt(size), random.nextInt(size));
+            pathfinder.setEndNode(random.nextInt(size), random.nextInt(size));
+
+            GridPath path = pathfinder.findGridPath();
+            if (path != null) {
+                assertSimple(path);
+                assertEquals(pathfinder.getStartNode().getX() * size + pathfinder.getStartNode().getY(), path.getIndex(0));
+                assertEquals(pathfinder.getEndNode().getX() * size + pathfinder.getEndNode().getY(), path.getIndex(path.size() - 1));
+            }
+        }
+    }
+}
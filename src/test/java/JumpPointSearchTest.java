@@ -0,0 +1,82 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.SearchAlgorithm;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class JumpPointSearchTest {
+
+    private static final int SIZE = 48;
+
+    private static void assertConnected(Pathfinder pathfinder, List<Node> path) {
+        if (path == null) {
+            return;
+        }
+        int gCost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            Node previous = path.get(i - 1);
+            Node node = path.get(i);
+            int dx = Math.abs(node.getX() - previous.getX());
+            int dy = Math.abs(node.getY() - previous.getY());
+            assertTrue(dx <= 1 && dy <= 1 && dx + dy > 0);
+            assertTrue(pathfinder.isDiagonal() || dx + dy == 1);
+            assertNotEquals(NodeType.BARRIER, node.getNodeType());
+            gCost += dx + dy == 2 ? 14 : 10;
+            assertEquals(gCost, node.getgCost());
+        }
+    }
+
+    @Test
+    public void testSameCosts() {
+        for (boolean diagonal : new boolean[]{true, false}) {
+            for (int density : new int[]{0, 10, 30}) {
+                for (long seed = 0; seed < 15; seed++) {
+                    Pathfinder pathfinder = TestMaps.densePathfinder(SIZE, diagonal, EngineMode.PRIMITIVE, seed, density);
+                    Random random = new Random(seed);
+                    for (int query = 0; query < 5; query++) {
+                        pathfinder.setStartNode(random.nextInt(SIZE), random.nextInt(SIZE));
+                        pathfinder.setEndNode(random.nextInt(SIZE), random.nextInt(SIZE));
+                        if (pathfinder.getStartNode() == null || pathfinder.getEndNode() == null) {
+                            continue;
+                        }
+
+                        pathfinder.setSearchAlgorithm(SearchAlgorithm.A_STAR);
+                        int expected = TestMaps.cost(pathfinder.findPath());
+                        for (SearchAlgorithm algorithm : new SearchAlgorithm[]{SearchAlgorithm.JPS, SearchAlgorithm.JPS_PLUS}) {
+                            pathfinder.setSearchAlgorithm(algorithm);
+                            List<Node> path = pathfinder.findPath();
+                            assertEquals(algorithm + " seed " + seed, expected, TestMaps.cost(path));
+                            assertConnected(pathfinder, path);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testJumpTableUpdated() {
+        Pathfinder pathfinder = new Pathfinder(8, 8, true);
+        pathfinder.setSearchAlgorithm(SearchAlgorithm.JPS_PLUS);
+        pathfinder.setStartNode(5, 5);
+        pathfinder.setEndNode(7, 5);
+        assertNotNull(pathfinder.findPath());
+
+        for (int y = 0; y < 8; y++) {
+            pathfinder.setBarrier(6, y);
+        }
+        assertNull(pathfinder.findPath());
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.GridSnapshot;
+import de.felix.astar.algorithm.LandmarkTable;
+import de.felix.astar.algorithm.MapFile;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.SearchAlgorithm;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class LandmarkTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Creates a serpentine maze: every second row is a wall with a gap at alternating ends.
+     */
+    private static Pathfinder mazePathfinder(int size, boolean diagonal) {
+        Pathfinder pathfinder = new Pathfinder(size, size, diagonal, EngineMode.PRIMITIVE);
+        for (int x = 1; x < size; x += 2) {
+            int gap = x % 4 == 1 ? size - 1 : 0;
+            for (int y = 0; y < size; y++) {
+                if (y != gap) {
+                    pathfinder.setBarrier(x, y);
+                }
+            }
+        }
+        return pathfinder;
+    }
+
+    /**
+     * Compares the costs and expanded nodes of A* and ALT for random queries.
+     *
+     * @return the expanded nodes of A* and ALT.
+     */
+    private static long[] compare(Pathfinder pathfinder, int size, long seed) {
+        Random random = new Random(seed);
+        long[] expanded = new long[2];
+        for (int i = 0; i < 20; i++) {
+            int endX = random.nextInt(size);
+            int endY = random.nextInt(size);
+            if (pathfinder.getNode(endX, endY).getNodeType() == NodeType.BARRIER) continue;
+            pathfinder.setStartNode(random.nextInt(size), random.nextInt(size));
+            pathfinder.setEndNode(endX, endY);
+
+            pathfinder.setSearchAlgorithm(SearchAlgorithm.A_STAR);
+            int expected = TestMaps.cost(pathfinder.findPath());
+            expanded[0] += pathfinder.getExpandedNodes();
+            pathfinder.setSearchAlgorithm(SearchAlgorithm.ALT);
+            assertEquals(expected, TestMaps.cost(pathfinder.findPath()));
+            expanded[1] += pathfinder.getExpandedNodes();
+        }
+        return expanded;
+    }
+
+    @Test
+    public void testOptimalCosts() {
+        for (EngineMode engineMode : EngineMode.values()) {
+            for (boolean diagonal : new boolean[]{true, false}) {
+                for (long seed = 0; seed < 3; seed++) {
+                    compare(TestMaps.randomPathfinder(48, diagonal, engineMode, seed, 48 * 48 * 3 / 10), 48, seed);
+                }
+            }
+        }
+
+        //Terrain costs are part of the landmark costs
+        Pathfinder pathfinder = TestMaps.randomPathfinder(48, true, EngineMode.PRIMITIVE, 4, 48 * 48 * 3 / 10);
+        Random random = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            pathfinder.setCostMultiplier(random.nextInt(48), random.nextInt(48), 1 + random.nextInt(6));
+        }
+        compare(pathfinder, 48, 6);
+    }
+
+    @Test
+    public void testMaze() {
+        //Costs of long mazes don't fit into a char, so they are stored in a coarser unit
+        for (boolean diagonal : new boolean[]{true, false}) {
+            Pathfinder pathfinder = mazePathfinder(128, diagonal);
+            LandmarkTable landmarks = pathfinder.getLandmarks();
+            assertTrue(landmarks.getCount() > 0 && landmarks.getCount() <= LandmarkTable.DEFAULT_LANDMARKS);
+            long[] expanded = compare(pathfinder, 128, 1);
+            assertTrue(expanded[0] + " " + expanded[1], expanded[1] < expanded[0]);
+        }
+
+        //The costs of a short maze are exact, walls aren't reached
+        Pathfinder pathfinder = mazePathfinder(32, true);
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(31, 0);
+        pathfinder.setSearchAlgorithm(SearchAlgorithm.ALT);
+        int optimal = TestMaps.cost(pathfinder.findPath());
+        LandmarkTable landmarks = pathfinder.getLandmarks();
+        for (int i = 0; i < landmarks.getCount(); i++) {
+            assertTrue(Math.abs(landmarks.getCost(i, 0) - landmarks.getCost(i, 31 * 32)) <= optimal);
+            assertEquals(-1, landmarks.getCost(i, 32 + 5));
+        }
+    }
+
+    @Test
+    public void testInvalidation() {
+        Pathfinder pathfinder = TestMaps.randomPathfinder(32, true, EngineMode.PRIMITIVE, 2, 32 * 32 * 3 / 10);
+        LandmarkTable landmarks = pathfinder.getLandmarks();
+        assertSame(landmarks, pathfinder.getLandmarks());
+        pathfinder.setDiagonal(false);
+        assertFalse(pathfinder.getLandmarks().isDiagonal());
+        pathfinder.setDiagonal(true);
+
+        landmarks = pathfinder.getLandmarks();
+        pathfinder.setCostMultiplier(3, 3, 4);
+        assertNotSame(landmarks, pathfinder.getLandmarks());
+        landmarks = pathfinder.getLandmarks();
+        pathfinder.setBarrier(landmarks.getLandmark(0) / 32, landmarks.getLandmark(0) % 32);
+        assertNotSame(landmarks, pathfinder.getLandmarks());
+        compare(pathfinder, 32, 3);
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        Pathfinder pathfinder = mazePathfinder(128, true);
+        pathfinder.setCostMultiplier(0, 5, 3);
+        GridSnapshot snapshot = pathfinder.snapshot();
+        LandmarkTable landmarks = LandmarkTable.compute(snapshot, 4, true, new ForkJoinPool(2));
+        assertEquals(4, landmarks.getCount());
+
+        Path file = folder.getRoot().toPath().resolve("maze.astm");
+        MapFile.write(snapshot, landmarks, file);
+        LandmarkTable loaded = MapFile.readLandmarks(file);
+        assertNotNull(MapFile.readCosts(file));
+        assertEquals(landmarks.getCount(), loaded.getCount());
+        assertTrue(loaded.isDiagonal());
+        for (int i = 0; i < landmarks.getCount(); i++) {
+            assertEquals(landmarks.getLandmark(i), loaded.getLandmark(i));
+            for (int cell = 0; cell < snapshot.size(); cell++) {
+                assertEquals(landmarks.getCost(i, cell), loaded.getCost(i, cell));
+            }
+        }
+
+        //The loaded landmarks are used instead of computing new ones
+        Pathfinder mapped = new Pathfinder(MapFile.map(file), true);
+        mapped.setTerrainCosts(MapFile.readCosts(file));
+        mapped.setLandmarks(loaded);
+        assertSame(loaded, mapped.getLandmarks());
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(126, 3);
+        mapped.setStartNode(0, 0);
+        mapped.setEndNode(126, 3);
+        mapped.setSearchAlgorithm(SearchAlgorithm.ALT);
+        assertEquals(TestMaps.cost(pathfinder.findPath()), TestMaps.cost(mapped.findPath()));
+
+        MapFile.write(snapshot, file);
+        assertNull(MapFile.readLandmarks(file));
+    }
+}
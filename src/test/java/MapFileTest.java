@@ -0,0 +1,93 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.BitGrid;
+import de.felix.astar.algorithm.GridSnapshot;
+import de.felix.astar.algorithm.MapFile;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.Pathfinder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MapFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(8);
+        Pathfinder pathfinder = new Pathfinder(50, 77, true);
+        for (int i = 0; i < 1000; i++) {
+            pathfinder.setBarrier(random.nextInt(50), random.nextInt(77));
+        }
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(49, 76);
+        GridSnapshot snapshot = pathfinder.snapshot();
+
+        Path file = folder.newFile("map.bin").toPath();
+        MapFile.write(snapshot, file);
+        BitGrid grid = MapFile.map(file);
+        assertEquals(50, grid.getRows());
+        assertEquals(77, grid.getColumns());
+        for (int i = 0; i < grid.size(); i++) {
+            assertEquals(snapshot.isBarrier(i), grid.isBarrier(i));
+        }
+
+        //The mapped grid is searched directly
+        List<Node> expected = pathfinder.findPath();
+        Pathfinder mapped = new Pathfinder(grid, true);
+        mapped.setStartNode(0, 0);
+        mapped.setEndNode(49, 76);
+        List<Node> path = mapped.findPath();
+        assertEquals(expected == null, path == null);
+        if (expected != null) {
+            assertEquals(expected.get(expected.size() - 1).getgCost(), path.get(path.size() - 1).getgCost());
+        }
+    }
+
+    @Test
+    public void testWritable() throws IOException {
+        Path file = folder.newFile("map.bin").toPath();
+        MapFile.write(new BitGrid(10, 10), file);
+
+        Pathfinder pathfinder = new Pathfinder(MapFile.map(file, true), false);
+        for (int x = 0; x < 10; x++) {
+            pathfinder.setBarrier(x, 5);
+        }
+        assertFalse(pathfinder.isReachable(0, 0, 9, 9));
+
+        BitGrid grid = MapFile.map(file);
+        assertEquals(10, grid.countBarriers());
+        assertTrue(grid.isBarrier(3, 5));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFile() throws IOException {
+        Path file = folder.newFile("map.bin").toPath();
+        Files.write(file, new byte[]{'A', 'S', 'T'});
+        MapFile.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFile() throws IOException {
+        Path file = folder.newFile("map.bin").toPath();
+        MapFile.write(new BitGrid(100, 100), file);
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 8));
+        MapFile.map(file);
+    }
+}
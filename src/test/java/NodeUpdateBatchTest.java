@@ -0,0 +1,125 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.NodeUpdateKind;
+import de.felix.astar.algorithm.Pathfinder;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class NodeUpdateBatchTest {
+
+    private static final int SIZE = 64;
+
+    private static Pathfinder createPathfinder(EngineMode engineMode) {
+        Pathfinder pathfinder = new Pathfinder(SIZE, SIZE, true, engineMode);
+        Random random = new Random(7);
+        for (int i = 0; i < SIZE * SIZE / 4; i++) {
+            pathfinder.setBarrier(random.nextInt(SIZE), random.nextInt(SIZE));
+        }
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(SIZE - 1, SIZE - 1);
+        return pathfinder;
+    }
+
+    @Test
+    public void testSameFinalState() {
+        for (EngineMode engineMode : EngineMode.values()) {
+            Pathfinder pathfinder = createPathfinder(engineMode);
+            NodeType[] types = new NodeType[SIZE * SIZE];
+            int[] gCosts = new int[SIZE * SIZE];
+            int[] batches = new int[1];
+            pathfinder.setBatchListener(batch -> {
+                batches[0]++;
+                for (int i = 0; i < batch.size(); i++) {
+                    if (batch.getKind(i) == NodeUpdateKind.NODE_TYPE) {
+                        types[batch.getIndex(i)] = batch.getNodeType(i);
+                    } else if (batch.getKind(i) == NodeUpdateKind.G_COST) {
+                        gCosts[batch.getIndex(i)] = batch.getValue(i);
+                    }
+                }
+            }, 0);
+
+            List<Node> path = pathfinder.findPath();
+            assertNotNull(path);
+            assertTrue(batches[0] > 0);
+
+            //Replaying the batches gives the state of the nodes
+            for (int x = 0; x < SIZE; x++) {
+                for (int y = 0; y < SIZE; y++) {
+                    NodeType type = types[x * SIZE + y];
+                    NodeType expected = pathfinder.getNode(x, y).getNodeType();
+                    if (type == null) {
+                        //Barriers, start and end were set before the listener
+                        assertTrue(expected != NodeType.OPEN && expected != NodeType.CLOSED && expected != NodeType.PATH);
+                    } else {
+                        assertEquals(engineMode + " (" + x + ", " + y + ")", expected, type);
+                    }
+                }
+            }
+            for (Node node : path) {
+                assertEquals(node.getgCost(), gCosts[node.getX() * SIZE + node.getY()]);
+            }
+        }
+    }
+
+    @Test
+    public void testCoalescing() {
+        Pathfinder pathfinder = new Pathfinder(8, 8, false);
+        Set<Integer> seen = new HashSet<>();
+        int[] sizes = new int[1];
+        pathfinder.setBatchListener(batch -> {
+            sizes[0] += batch.size();
+            for (int i = 0; i < batch.size(); i++) {
+                assertTrue(seen.add(batch.getIndex(i) * 4 + batch.getKind(i).ordinal()));
+                assertEquals(NodeType.UNEVALUATED, batch.getNodeType(i));
+                assertEquals(3, batch.getX(i));
+                assertEquals(5, batch.getY(i));
+            }
+        }, 0);
+
+        //Only the last of the changes is delivered
+        pathfinder.setBarrier(3, 5);
+        pathfinder.setNodeType(3, 5, NodeType.PATH);
+        pathfinder.setNodeType(3, 5, NodeType.UNEVALUATED);
+        assertEquals(0, sizes[0]);
+        pathfinder.flushNodeUpdates();
+        assertEquals(1, sizes[0]);
+        pathfinder.flushNodeUpdates();
+        assertEquals(1, sizes[0]);
+    }
+
+    @Test
+    public void testChunks() {
+        //The search around the wall reaches more nodes than fit into one batch
+        Pathfinder pathfinder = new Pathfinder(256, 256, false, EngineMode.PRIMITIVE);
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(255, 0);
+        for (int y = 0; y < 200; y++) {
+            pathfinder.setBarrier(128, y);
+        }
+        int[] batches = new int[1];
+        pathfinder.setBatchListener(batch -> {
+            assertTrue(batch.size() > 0);
+            batches[0]++;
+        }, 0);
+        assertNotNull(pathfinder.findPath());
+        assertTrue(batches[0] > 1);
+
+        pathfinder.setBatchListener(null, 0);
+        batches[0] = 0;
+        assertNotNull(pathfinder.findPath());
+        assertEquals(0, batches[0]);
+    }
+}
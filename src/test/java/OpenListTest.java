@@ -0,0 +1,77 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.OpenListType;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.SearchAlgorithm;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OpenListTest {
+
+    private static Pathfinder randomPathfinder(int size, long seed, EngineMode engineMode, OpenListType openListType) {
+        return randomPathfinder(size, true, seed, engineMode, openListType);
+    }
+
+    private static Pathfinder randomPathfinder(int size, boolean diagonal, long seed, EngineMode engineMode, OpenListType openListType) {
+        Pathfinder pathfinder = TestMaps.densePathfinder(size, diagonal, engineMode, seed, 25);
+        pathfinder.setOpenListType(openListType);
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(size - 1, size - 1);
+        return pathfinder;
+    }
+
+    @Test
+    public void testSameCosts() {
+        for (EngineMode engineMode : EngineMode.values()) {
+            for (long seed = 0; seed < 20; seed++) {
+                int heapCost = TestMaps.cost(randomPathfinder(64, seed, engineMode, OpenListType.BINARY_HEAP).findPath());
+                int queueCost = TestMaps.cost(randomPathfinder(64, seed, engineMode, OpenListType.PRIORITY_QUEUE).findPath());
+                int radixCost = TestMaps.cost(randomPathfinder(64, seed, engineMode, OpenListType.RADIX_HEAP).findPath());
+                assertEquals(queueCost, heapCost);
+                assertEquals(radixCost, heapCost);
+            }
+        }
+    }
+
+    @Test
+    public void testRadixHeapAlgorithms() {
+        //The keys of every algorithm have to be monotone for the radix heap
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            for (long seed = 0; seed < 5; seed++) {
+                Pathfinder heapPathfinder = randomPathfinder(64, seed, EngineMode.PRIMITIVE, OpenListType.BINARY_HEAP);
+                Pathfinder radixPathfinder = randomPathfinder(64, seed, EngineMode.PRIMITIVE, OpenListType.RADIX_HEAP);
+                heapPathfinder.setSearchAlgorithm(algorithm);
+                radixPathfinder.setSearchAlgorithm(algorithm);
+                int heapCost = TestMaps.cost(heapPathfinder.findPath());
+                int radixCost = TestMaps.cost(radixPathfinder.findPath());
+                if (algorithm == SearchAlgorithm.HPA_STAR) {
+                    //The abstract path depends on the order of equal keys, so only a path of at least the optimal cost is required
+                    int optimalCost = TestMaps.cost(randomPathfinder(64, seed, EngineMode.PRIMITIVE, OpenListType.BINARY_HEAP).findPath());
+                    assertEquals(algorithm.name(), heapCost < 0, radixCost < 0);
+                    assertTrue(algorithm.name(), radixCost < 0 || radixCost >= optimalCost);
+                } else {
+                    assertEquals(algorithm.name(), heapCost, radixCost);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testComparison() {
+        //Without diagonal steps the frontier holds many equal keys, which is where the radix heap differs most from the binary heap
+        for (boolean diagonal : new boolean[]{true, false}) {
+            int expected = TestMaps.cost(randomPathfinder(256, diagonal, 42, EngineMode.PRIMITIVE, OpenListType.BINARY_HEAP).findPath());
+            assertTrue(expected > 0);
+            for (OpenListType openListType : OpenListType.values()) {
+                assertEquals(openListType.name(), expected,
+                        TestMaps.cost(randomPathfinder(256, diagonal, 42, EngineMode.PRIMITIVE, openListType).findPath()));
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.PathCache;
+import de.felix.astar.algorithm.Pathfinder;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PathCacheTest {
+
+    @Test
+    public void testCounters() {
+        Pathfinder pathfinder = new Pathfinder(16, 16, true);
+        pathfinder.setPathCacheCapacity(2);
+        PathCache cache = pathfinder.getPathCache();
+
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(15, 15);
+        List<Node> path = pathfinder.findPath();
+        assertEquals(path, pathfinder.findPath());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        //Two other queries evict the first one
+        pathfinder.setEndNode(15, 0);
+        pathfinder.findPath();
+        pathfinder.setEndNode(0, 15);
+        pathfinder.findPath();
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+
+        pathfinder.setEndNode(15, 15);
+        pathfinder.findPath();
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void testInvalidation() {
+        Pathfinder pathfinder = new Pathfinder(16, 16, false);
+        pathfinder.setPathCacheCapacity(16);
+        PathCache cache = pathfinder.getPathCache();
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(0, 15);
+        assertEquals(150, TestMaps.cost(pathfinder.findPath()));
+
+        //A barrier next to the path doesn't affect it
+        pathfinder.setBarrier(1, 5);
+        assertEquals(150, TestMaps.cost(pathfinder.findPath()));
+        assertEquals(0, cache.getInvalidations());
+
+        //A barrier on the path does
+        pathfinder.setBarrier(0, 5);
+        assertEquals(190, TestMaps.cost(pathfinder.findPath()));
+        assertEquals(1, cache.getInvalidations());
+
+        //Removing a barrier far away can't make the path cheaper
+        pathfinder.setBarrier(15, 15);
+        pathfinder.setNodeType(15, 15, NodeType.UNEVALUATED);
+        assertEquals(190, TestMaps.cost(pathfinder.findPath()));
+        assertEquals(1, cache.getInvalidations());
+
+        //Removing the barrier on the way can
+        pathfinder.setNodeType(0, 5, NodeType.UNEVALUATED);
+        assertEquals(150, TestMaps.cost(pathfinder.findPath()));
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    @Test
+    public void testSameResults() {
+        Random random = new Random(5);
+        Pathfinder cached = new Pathfinder(24, 24, true, EngineMode.PRIMITIVE);
+        Pathfinder uncached = new Pathfinder(24, 24, true, EngineMode.PRIMITIVE);
+        cached.setPathCacheCapacity(8);
+
+        for (int step = 0; step < 500; step++) {
+            int x = random.nextInt(24);
+            int y = random.nextInt(24);
+            NodeType nodeType = random.nextBoolean() ? NodeType.BARRIER : NodeType.UNEVALUATED;
+            cached.setNodeType(x, y, nodeType);
+            uncached.setNodeType(x, y, nodeType);
+
+            //Only a few different queries, so most of them hit
+            int query = random.nextInt(6);
+            for (Pathfinder pathfinder : new Pathfinder[]{cached, uncached}) {
+                pathfinder.setStartNode(query, 0);
+                pathfinder.setEndNode(23 - query, 23);
+            }
+            if (cached.getStartNode() == null || cached.getEndNode() == null) {
+                continue;
+            }
+            assertEquals("step " + step, TestMaps.cost(uncached.findPath()), TestMaps.cost(cached.findPath()));
+        }
+        assertTrue(cached.getPathCache().getHits() > 0);
+    }
+}
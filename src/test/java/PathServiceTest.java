@@ -0,0 +1,153 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.GridSnapshot;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.PathQuery;
+import de.felix.astar.algorithm.PathService;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class PathServiceTest {
+
+    private static final int SIZE = 64;
+
+    private static Throwable cause(CompletableFuture<?> future) {
+        try {
+            future.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        GridSnapshot snapshot = TestMaps.randomPathfinder(SIZE, true, EngineMode.PRIMITIVE, 5, SIZE * SIZE / 4).snapshot();
+        Random random = new Random(2);
+        List<PathQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            queries.add(new PathQuery(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(SIZE), i % 2 == 0));
+        }
+
+        try (PathService service = new PathService(snapshot, 4, queries.size())) {
+            List<CompletableFuture<List<Node>>> futures = new ArrayList<>();
+            for (PathQuery query : queries) {
+                futures.add(service.findPath(query));
+            }
+            for (int i = 0; i < queries.size(); i++) {
+                PathQuery query = queries.get(i);
+                List<Node> expected = snapshot.findPath(query.getStartX(), query.getStartY(), query.getEndX(), query.getEndY(), query.isDiagonal());
+                assertEquals(TestMaps.cost(expected), TestMaps.cost(futures.get(i).get()));
+            }
+            assertEquals(queries.size(), service.getQueries());
+            assertEquals(0, service.getRejectedQueries());
+            assertEquals(queries.size(), service.getCompletedSearches() + service.getCoalescedQueries());
+        }
+    }
+
+    @Test
+    public void testAdmissionAndCoalescing() throws Exception {
+        //The searches only run when the test runs them
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        GridSnapshot snapshot = TestMaps.randomPathfinder(SIZE, true, EngineMode.PRIMITIVE, 6, SIZE * SIZE / 4).snapshot();
+        PathService service = new PathService(snapshot, 1, 1, tasks::add);
+        PathQuery first = new PathQuery(0, 0, SIZE - 1, SIZE - 1, true);
+        PathQuery second = new PathQuery(0, 0, SIZE - 1, 0, true);
+
+        CompletableFuture<List<Node>> running = service.findPath(first);
+        CompletableFuture<List<Node>> coalesced = service.findPath(new PathQuery(0, 0, SIZE - 1, SIZE - 1, true));
+        CompletableFuture<List<Node>> queued = service.findPath(second);
+        CompletableFuture<List<Node>> rejected = service.findPath(0, 0, 1, 1, true);
+        assertEquals(1, service.getInFlight());
+        assertEquals(1, service.getQueued());
+        assertEquals(1, service.getCoalescedQueries());
+        assertEquals(1, service.getRejectedQueries());
+        assertTrue(cause(rejected) instanceof RejectedExecutionException);
+        assertEquals(1, tasks.size());
+
+        //Both futures receive an own copy of the same path, the queued search takes the free slot
+        tasks.poll().run();
+        List<Node> path = running.get();
+        assertEquals(TestMaps.cost(snapshot.findPath(0, 0, SIZE - 1, SIZE - 1, true)), TestMaps.cost(path));
+        assertNotSame(path, coalesced.get());
+        assertEquals(TestMaps.cost(path), TestMaps.cost(coalesced.get()));
+        assertEquals(1, service.getInFlight());
+        assertEquals(0, service.getQueued());
+        assertFalse(queued.isDone());
+
+        //A new map version isn't coalesced with searches of the old one
+        service.update(TestMaps.randomPathfinder(SIZE, true, EngineMode.PRIMITIVE, 7, SIZE * SIZE / 4).snapshot());
+        assertEquals(1, service.getVersion());
+        CompletableFuture<List<Node>> updated = service.findPath(second);
+        assertEquals(1, service.getQueued());
+        tasks.poll().run();
+        tasks.poll().run();
+        assertEquals(TestMaps.cost(snapshot.findPath(0, 0, SIZE - 1, 0, true)), TestMaps.cost(queued.get()));
+        assertEquals(TestMaps.cost(service.getSnapshot().findPath(0, 0, SIZE - 1, 0, true)), TestMaps.cost(updated.get()));
+        assertEquals(0, service.getInFlight());
+        assertEquals(3, service.getCompletedSearches());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        PathService service = new PathService(TestMaps.randomPathfinder(SIZE, true, EngineMode.PRIMITIVE, 8, SIZE * SIZE / 4).snapshot(), 1, 4, tasks::add);
+        CompletableFuture<List<Node>> running = service.findPath(0, 0, SIZE - 1, SIZE - 1, true);
+        CompletableFuture<List<Node>> coalesced = service.findPath(0, 0, SIZE - 1, SIZE - 1, true);
+        CompletableFuture<List<Node>> queued = service.findPath(0, 0, SIZE - 1, 0, true);
+
+        //A queued search nobody waits for leaves the queue
+        queued.cancel(true);
+        assertEquals(0, service.getQueued());
+        assertEquals(1, service.getCancelledSearches());
+
+        //A running search is aborted once the last future is cancelled
+        running.cancel(true);
+        assertEquals(1, service.getCancelledSearches());
+        coalesced.cancel(true);
+        assertEquals(2, service.getCancelledSearches());
+        CompletableFuture<List<Node>> fresh = service.findPath(0, 0, SIZE - 1, SIZE - 1, true);
+        assertEquals(1, service.getQueued());
+        tasks.poll().run();
+        tasks.poll().run();
+        assertNotNull(fresh.get());
+        assertEquals(0, service.getInFlight());
+    }
+
+    @Test
+    public void testCloseAndInvalidQuery() {
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        PathService service = new PathService(TestMaps.randomPathfinder(SIZE, true, EngineMode.PRIMITIVE, 9, SIZE * SIZE / 4).snapshot(), 1, 4, tasks::add);
+        CompletableFuture<List<Node>> invalid = service.findPath(0, 0, SIZE, SIZE, true);
+        CompletableFuture<List<Node>> queued = service.findPath(0, 0, SIZE - 1, 0, true);
+        service.close();
+        assertTrue(queued.isCancelled());
+        assertTrue(cause(service.findPath(0, 0, 1, 1, true)) instanceof RejectedExecutionException);
+
+        tasks.poll().run();
+        assertTrue(cause(invalid) instanceof IllegalArgumentException);
+        assertTrue(tasks.isEmpty());
+        assertEquals(0, service.getInFlight());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimits() {
+        new PathService(TestMaps.randomPathfinder(SIZE, true, EngineMode.PRIMITIVE, 1, SIZE * SIZE / 4).snapshot(), 0, 0, Runnable::run);
+    }
+}
@@ -4,19 +4,35 @@
  * Copyright (C) 2019. All rights reserved.
  */
 
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.NodeType;
 import de.felix.astar.algorithm.Pathfinder;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.List;
 
 import static org.junit.Assert.*;
 
+@RunWith(Parameterized.class)
 public class PathfinderTest {
 
+    @Parameterized.Parameter
+    public EngineMode engineMode;
+
     private Pathfinder pathfinder;
 
+    @Parameterized.Parameters(name = "{0}")
+    public static Object[] engineModes() {
+        return EngineMode.values();
+    }
+
     @Before
     public void setup() {
-        pathfinder = new Pathfinder(8, 8, true);
+        pathfinder = new Pathfinder(8, 8, true, engineMode);
     }
 
     @Test
@@ -143,4 +159,58 @@ public class PathfinderTest {
         assertNull(pathfinder.findPath());
     }
 
+    @Test
+    public void testPathNodes() {
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(7, 3);
+        pathfinder.setBarrier(3, 0);
+        pathfinder.setBarrier(3, 1);
+        pathfinder.setBarrier(3, 2);
+
+        List<Node> path = pathfinder.findPath();
+        assertNotNull(path);
+        assertEquals(0, path.get(0).getX());
+        assertEquals(0, path.get(0).getY());
+        assertEquals(7, path.get(path.size() - 1).getX());
+        assertEquals(3, path.get(path.size() - 1).getY());
+        assertEquals(82, path.get(path.size() - 1).getgCost());
+        assertEquals(NodeType.PATH, pathfinder.getNode(path.get(1).getX(), path.get(1).getY()).getNodeType());
+        assertEquals(NodeType.START, pathfinder.getNode(0, 0).getNodeType());
+    }
+
+    @Test
+    public void testRepeatedSearch() {
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(7, 7);
+        assertEquals(98, pathfinder.findPath().get(7).getgCost());
+
+        //The second search must not see the state of the first one
+        pathfinder.setEndNode(0, 7);
+        pathfinder.setBarrier(0, 3);
+        pathfinder.setBarrier(1, 3);
+        List<Node> path = pathfinder.findPath();
+        assertNotNull(path);
+        assertEquals(86, path.get(path.size() - 1).getgCost());
+
+        pathfinder.setBarrier(0, 6);
+        pathfinder.setBarrier(1, 6);
+        pathfinder.setBarrier(1, 7);
+        assertNull(pathfinder.findPath());
+    }
+
+    @Test
+    public void testCostsAfterSearch() {
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(7, 7);
+        Node node = pathfinder.findPath().get(3);
+        assertEquals(56, node.gethCost());
+        assertEquals(98, node.getfCost());
+
+        //The costs stay the ones of the last search until the next one
+        pathfinder.setEndNode(0, 7);
+        node = pathfinder.getNode(node.getX(), node.getY());
+        assertEquals(56, node.gethCost());
+        assertEquals(98, node.getfCost());
+    }
+
 }
@@ -0,0 +1,150 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.Histogram;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.OpenListType;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.SearchAlgorithm;
+import de.felix.astar.algorithm.SearchMetrics;
+import de.felix.astar.algorithm.SearchStats;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SearchStatsTest {
+
+    private static Pathfinder createPathfinder() {
+        Pathfinder pathfinder = new Pathfinder(64, 64, true);
+        Random random = new Random(5);
+        for (int i = 0; i < 64 * 64 / 5; i++) {
+            pathfinder.setBarrier(random.nextInt(64), random.nextInt(64));
+        }
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(63, 63);
+        return pathfinder;
+    }
+
+    @Test
+    public void testStats() {
+        Pathfinder pathfinder = createPathfinder();
+        assertNotNull(pathfinder.findPath());
+        assertNull(pathfinder.getLastStats());
+        assertTrue(pathfinder.getExpandedNodes() > 0);
+
+        for (OpenListType openListType : OpenListType.values()) {
+            pathfinder.setOpenListType(openListType);
+            pathfinder.setStatsEnabled(true);
+            List<Node> path = pathfinder.findPath();
+            SearchStats stats = pathfinder.getLastStats();
+            assertTrue(stats.isPathFound());
+            assertFalse(stats.isCacheHit());
+            assertEquals(SearchAlgorithm.A_STAR, stats.getAlgorithm());
+            assertEquals(pathfinder.getExpandedNodes(), stats.getExpandedNodes());
+
+            //Every polled cell is expanded, every generated cell is pushed once
+            assertEquals(stats.getExpandedNodes(), stats.getHeapPops());
+            assertEquals(stats.getGeneratedNodes(), stats.getHeapPushes());
+            assertTrue(stats.getPeakOpenSize() > 0 && stats.getPeakOpenSize() <= stats.getHeapPushes());
+            assertEquals(path.size(), stats.getPathLength());
+            assertEquals(pathfinder.getEndNode().getgCost(), stats.getPathCost());
+            assertTrue(stats.getWallTimeNanos() > 0);
+        }
+    }
+
+    @Test
+    public void testAlgorithms() {
+        Pathfinder pathfinder = createPathfinder();
+        pathfinder.setStatsEnabled(true);
+        pathfinder.findPath();
+        int pathCost = pathfinder.getLastStats().getPathCost();
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            pathfinder.setSearchAlgorithm(algorithm);
+            assertNotNull(pathfinder.findPath());
+            SearchStats stats = pathfinder.getLastStats();
+            assertEquals(algorithm, stats.getAlgorithm());
+            assertTrue(algorithm.name(), stats.getExpandedNodes() > 0);
+            if (algorithm.isOptimal()) {
+                assertEquals(algorithm.name(), pathCost, stats.getPathCost());
+            } else if (algorithm != SearchAlgorithm.HPA_STAR) {
+                assertTrue(algorithm.name(), stats.getPathCost() <= stats.getSuboptimalityBound() * pathCost);
+            }
+        }
+    }
+
+    @Test
+    public void testDStarLite() {
+        Pathfinder pathfinder = createPathfinder();
+        pathfinder.setSearchAlgorithm(SearchAlgorithm.D_STAR_LITE);
+        pathfinder.setStatsEnabled(true);
+        List<Node> path = pathfinder.findPath();
+        SearchStats stats = pathfinder.getLastStats();
+
+        //The planner expands far more cells than the path contains and every expansion pops or re-keys a queued cell
+        assertEquals(pathfinder.getExpandedNodes(), stats.getExpandedNodes());
+        assertTrue(stats.getExpandedNodes() > path.size());
+        assertTrue(stats.getHeapPushes() > path.size());
+        assertTrue(stats.getHeapPops() > 0 && stats.getHeapPops() <= stats.getHeapPushes());
+        assertTrue(stats.getPeakOpenSize() > 0 && stats.getPeakOpenSize() <= stats.getHeapPushes());
+        assertEquals(stats.getHeapPushes(), stats.getGeneratedNodes());
+
+        //Repairing a single barrier expands less than the first search
+        pathfinder.setBarrier(path.get(path.size() / 2).getX(), path.get(path.size() / 2).getY());
+        assertNotNull(pathfinder.findPath());
+        assertTrue(pathfinder.getLastStats().getExpandedNodes() < stats.getExpandedNodes());
+    }
+
+    @Test
+    public void testMetrics() {
+        Pathfinder pathfinder = createPathfinder();
+        SearchMetrics metrics = new SearchMetrics();
+        pathfinder.setMetricsSink(metrics);
+        pathfinder.setPathCacheCapacity(4);
+
+        long expanded = 0;
+        for (int i = 0; i < 10; i++) {
+            pathfinder.findPath();
+            expanded += pathfinder.getLastStats().getExpandedNodes();
+        }
+        pathfinder.setEndNode(0, 1);
+        pathfinder.findPath();
+
+        assertEquals(11, metrics.getQueries());
+        assertEquals(11, metrics.getPathsFound());
+        assertEquals(9, metrics.getCacheHits());
+        assertEquals(expanded + pathfinder.getLastStats().getExpandedNodes(), metrics.getExpandedNodes().getSum());
+        assertEquals(11, metrics.getWallTimes().getCount());
+        assertEquals(2, metrics.getPathLengths().getMin());
+        assertTrue(metrics.getHeapPops() > 0);
+
+        pathfinder.setMetricsSink(null);
+        pathfinder.findPath();
+        assertEquals(11, metrics.getQueries());
+    }
+
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(50));
+        for (int i = 1; i <= 100_000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100_000, histogram.getMax());
+        assertEquals(50_000.5, histogram.getMean(), 1e-9);
+        for (int percentile : new int[]{1, 50, 90, 99}) {
+            long exact = percentile * 1000L;
+            long value = histogram.getPercentile(percentile);
+            assertTrue(percentile + ": " + value, value >= exact && value <= exact * 1.125);
+        }
+        assertEquals(100_000, histogram.getPercentile(100));
+        assertEquals(1, histogram.getPercentile(0));
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.GridSnapshot;
+import de.felix.astar.algorithm.MapFile;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.NodeType;
+import de.felix.astar.algorithm.Pathfinder;
+import de.felix.astar.algorithm.SearchAlgorithm;
+import de.felix.astar.algorithm.TerrainCosts;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TerrainCostsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int SIZE = 32;
+
+    private static final int HORIZONTAL_COST = 10;
+
+    private static final int DIAGONAL_COST = 14;
+
+    /**
+     * Searches the grid with Dijkstra's algorithm, a step costs its base cost times the mean multiplier of both cells.
+     */
+    private static int dijkstra(Pathfinder pathfinder, int start, int end) {
+        int[] costs = new int[SIZE * SIZE];
+        Arrays.fill(costs, Integer.MAX_VALUE);
+        costs[start] = 0;
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Integer.compare(a[1], b[1]));
+        queue.add(new int[]{start, 0});
+        while (!queue.isEmpty()) {
+            int[] entry = queue.poll();
+            int current = entry[0];
+            if (entry[1] > costs[current]) continue;
+            if (current == end) {
+                return costs[current];
+            }
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (x == 0 && y == 0) continue;
+                    if (!pathfinder.isDiagonal() && x != 0 && y != 0) continue;
+                    int neighbourX = current / SIZE + x;
+                    int neighbourY = current % SIZE + y;
+                    if (!pathfinder.isInsideGrid(neighbourX, neighbourY)) continue;
+                    if (pathfinder.getNode(neighbourX, neighbourY).getNodeType() == NodeType.BARRIER) continue;
+                    int stepCost = x != 0 && y != 0 ? DIAGONAL_COST : HORIZONTAL_COST;
+                    int multiplier = pathfinder.getCostMultiplier(current / SIZE, current % SIZE) + pathfinder.getCostMultiplier(neighbourX, neighbourY);
+                    int neighbour = neighbourX * SIZE + neighbourY;
+                    int cost = costs[current] + (stepCost * multiplier >> 1);
+                    if (cost < costs[neighbour]) {
+                        costs[neighbour] = cost;
+                        queue.add(new int[]{neighbour, cost});
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static Pathfinder createPathfinder(boolean diagonal, EngineMode engineMode, long seed) {
+        Random random = new Random(seed);
+        Pathfinder pathfinder = new Pathfinder(SIZE, SIZE, diagonal, engineMode);
+        for (int i = 0; i < SIZE * SIZE / 5; i++) {
+            pathfinder.setBarrier(random.nextInt(SIZE), random.nextInt(SIZE));
+        }
+        for (int i = 0; i < SIZE * SIZE / 2; i++) {
+            pathfinder.setCostMultiplier(random.nextInt(SIZE), random.nextInt(SIZE), 2 + random.nextInt(8));
+        }
+        return pathfinder;
+    }
+
+    @Test
+    public void testOptimalCosts() {
+        for (EngineMode engineMode : EngineMode.values()) {
+            for (boolean diagonal : new boolean[]{true, false}) {
+                Pathfinder pathfinder = createPathfinder(diagonal, engineMode, diagonal ? 1 : 2);
+                Random random = new Random(3);
+                for (int i = 0; i < 20; i++) {
+                    int startX = random.nextInt(SIZE);
+                    int startY = random.nextInt(SIZE);
+                    int endX = random.nextInt(SIZE);
+                    int endY = random.nextInt(SIZE);
+                    if (pathfinder.getNode(endX, endY).getNodeType() == NodeType.BARRIER) continue;
+                    pathfinder.setStartNode(startX, startY);
+                    pathfinder.setEndNode(endX, endY);
+                    int expected = dijkstra(pathfinder, startX * SIZE + startY, endX * SIZE + endY);
+
+                    //Algorithms without support for terrain costs fall back to A*
+                    for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+                        pathfinder.setSearchAlgorithm(algorithm);
+                        int cost = TestMaps.cost(pathfinder.findPath());
+                        if (algorithm.isOptimal() || !algorithm.supportsTerrainCosts()) {
+                            assertEquals(engineMode + " " + algorithm, expected, cost);
+                        } else {
+                            assertTrue(engineMode + " " + algorithm, cost >= expected && cost <= pathfinder.getSuboptimalityBound() * expected);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testChangedMultiplier() {
+        Pathfinder pathfinder = new Pathfinder(SIZE, SIZE, true);
+        pathfinder.setPathCacheCapacity(16);
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(0, SIZE - 1);
+        for (SearchAlgorithm algorithm : new SearchAlgorithm[]{SearchAlgorithm.A_STAR, SearchAlgorithm.D_STAR_LITE}) {
+            pathfinder.setSearchAlgorithm(algorithm);
+            assertEquals((SIZE - 1) * HORIZONTAL_COST, TestMaps.cost(pathfinder.findPath()));
+
+            //Expensive cells on the direct line force a detour, cheap ones make it cheaper again
+            for (int y = 1; y < SIZE - 1; y++) {
+                pathfinder.setCostMultiplier(0, y, 10);
+            }
+            List<Node> path = pathfinder.findPath();
+            assertEquals(dijkstra(pathfinder, 0, SIZE - 1), TestMaps.cost(path));
+            assertFalse(path.contains(pathfinder.getNode(0, SIZE / 2)));
+
+            for (int y = 1; y < SIZE - 1; y++) {
+                pathfinder.setCostMultiplier(0, y, 1);
+            }
+            assertEquals((SIZE - 1) * HORIZONTAL_COST, TestMaps.cost(pathfinder.findPath()));
+        }
+    }
+
+    @Test
+    public void testFill() {
+        TerrainCosts costs = new TerrainCosts(8, 10);
+        assertTrue(costs.isUniform());
+        costs.fill(2, 3, 4, 6, 7);
+        assertEquals(7, costs.getMultiplier(2, 3));
+        assertEquals(7, costs.getMultiplier(4, 6));
+        assertEquals(1, costs.getMultiplier(4, 7));
+        assertEquals(1, costs.getMultiplier(5, 3));
+        assertFalse(costs.isUniform());
+        assertEquals(1, costs.getMinMultiplier());
+
+        costs.fill(0, 0, 7, 9, 3);
+        assertEquals(3, costs.getMinMultiplier());
+        costs.setMultiplier(5, 5, 255);
+        assertEquals(255, costs.getMultiplier(5, 5));
+        assertEquals(3, costs.getMinMultiplier());
+
+        try {
+            costs.setMultiplier(5, 5, 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals(255, costs.getMultiplier(5, 5));
+        }
+        try {
+            new TerrainCosts(8, 10, new byte[79]);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testSnapshotAndFile() throws IOException {
+        Pathfinder pathfinder = createPathfinder(true, EngineMode.PRIMITIVE, 4);
+        pathfinder.setStartNode(0, 0);
+        pathfinder.setEndNode(SIZE - 1, SIZE - 1);
+        int expected = TestMaps.cost(pathfinder.findPath());
+
+        //The snapshot keeps the costs of the time it was taken
+        GridSnapshot snapshot = pathfinder.snapshot();
+        pathfinder.getTerrainCosts().fill(0, 0, SIZE - 1, SIZE - 1, 1);
+        pathfinder.setTerrainCosts(pathfinder.getTerrainCosts());
+        assertEquals(expected, TestMaps.cost(snapshot.findPath(0, 0, SIZE - 1, SIZE - 1, true)));
+
+        Path file = folder.getRoot().toPath().resolve("costs.astm");
+        MapFile.write(snapshot, file);
+        TerrainCosts costs = MapFile.readCosts(file);
+        assertNotNull(costs);
+        Pathfinder loaded = new Pathfinder(MapFile.map(file), true);
+        loaded.setTerrainCosts(costs);
+        loaded.setStartNode(0, 0);
+        loaded.setEndNode(SIZE - 1, SIZE - 1);
+        assertEquals(expected, TestMaps.cost(loaded.findPath()));
+
+        //Maps without costs don't contain a cost payload
+        MapFile.write(new Pathfinder(SIZE, SIZE, true).snapshot(), file);
+        assertNull(MapFile.readCosts(file));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Developed by Felix on 09.03.19 12:37.
+ *
+ * Copyright (C) 2019. All rights reserved.
+ */
+
+import de.felix.astar.algorithm.EngineMode;
+import de.felix.astar.algorithm.Node;
+import de.felix.astar.algorithm.Pathfinder;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The TestMaps class contains the random maps and helpers shared by the tests.
+ *
+ * @author Felix
+ */
+final class TestMaps {
+
+    private TestMaps() {
+    }
+
+    /**
+     * Gives the cost of a path.
+     *
+     * @param path the path, may be null.
+     * @return the g-cost of the last node or -1, if no path was found.
+     */
+    static int cost(List<Node> path) {
+        return path == null ? -1 : path.get(path.size() - 1).getgCost();
+    }
+
+    /**
+     * Creates a square pathfinder with barriers at random cells, a cell may be chosen more than once.
+     *
+     * @param size       the amount of rows and columns.
+     * @param diagonal   whether or not diagonal movement is allowed.
+     * @param engineMode the engine mode.
+     * @param random     the random to choose the cells with.
+     * @param barriers   the amount of chosen cells.
+     * @return the pathfinder.
+     */
+    static Pathfinder randomPathfinder(int size, boolean diagonal, EngineMode engineMode, Random random, int barriers) {
+        Pathfinder pathfinder = new Pathfinder(size, size, diagonal, engineMode);
+        for (int i = 0; i < barriers; i++) {
+            pathfinder.setBarrier(random.nextInt(size), random.nextInt(size));
+        }
+        return pathfinder;
+    }
+
+    /**
+     * Creates a square pathfinder with barriers at random cells, a cell may be chosen more than once.
+     *
+     * @param size       the amount of rows and columns.
+     * @param diagonal   whether or not diagonal movement is allowed.
+     * @param engineMode the engine mode.
+     * @param seed       the seed of the random cells.
+     * @param barriers   the amount of chosen cells.
+     * @return the pathfinder.
+     */
+    static Pathfinder randomPathfinder(int size, boolean diagonal, EngineMode engineMode, long seed, int barriers) {
+        return randomPathfinder(size, diagonal, engineMode, new Random(seed), barriers);
+    }
+
+    /**
+     * Creates a square pathfinder where every cell is a barrier with the given probability.
+     *
+     * @param size       the amount of rows and columns.
+     * @param diagonal   whether or not diagonal movement is allowed.
+     * @param engineMode the engine mode.
+     * @param seed       the seed of the random cells.
+     * @param density    the probability of a barrier in percent.
+     * @return the pathfinder.
+     */
+    static Pathfinder densePathfinder(int size, boolean diagonal, EngineMode engineMode, long seed, int density) {
+        Random random = new Random(seed);
+        Pathfinder pathfinder = new Pathfinder(size, size, diagonal, engineMode);
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (random.nextInt(100) < density) {
+                    pathfinder.setBarrier(x, y);
+                }
+            }
+        }
+        return pathfinder;
+    }
+}